@@ -38,11 +38,17 @@ import androidx.core.math.MathUtils;
 import androidx.fragment.app.DialogFragment;
 
 import com.github.hikari_toyama.unocard.core.AI;
+import com.github.hikari_toyama.unocard.core.CancelToken;
 import com.github.hikari_toyama.unocard.core.Card;
 import com.github.hikari_toyama.unocard.core.Color;
 import com.github.hikari_toyama.unocard.core.Content;
+import com.github.hikari_toyama.unocard.core.FileReplaySink;
 import com.github.hikari_toyama.unocard.core.I18N;
+import com.github.hikari_toyama.unocard.core.Ismcts;
 import com.github.hikari_toyama.unocard.core.Player;
+import com.github.hikari_toyama.unocard.core.ReplayArchive;
+import com.github.hikari_toyama.unocard.core.Speculator;
+import com.github.hikari_toyama.unocard.core.TranspositionTable;
 import com.github.hikari_toyama.unocard.core.Uno;
 
 import org.opencv.android.OpenCVLoader;
@@ -55,6 +61,7 @@ import org.opencv.core.Size;
 import org.opencv.imgproc.Imgproc;
 
 import java.io.File;
+import java.io.IOException;
 import java.lang.ref.WeakReference;
 import java.util.Collections;
 import java.util.List;
@@ -115,8 +122,13 @@ public class MainActivity extends AppCompatActivity
     private Paint mPen;
     private I18N i18n;
     private Mat mScr;
+    private MatAssets mAssets;
+    private ReplayArchive mArchive;
+    private Thread mImporter;
     private Uno mUno;
     private AI mAI;
+    private volatile CancelToken mThinking;
+    private Speculator mSpeculator;
 
     /**
      * Activity initialization.
@@ -146,7 +158,15 @@ public class MainActivity extends AppCompatActivity
             sp = getSharedPreferences("UnoStat", Context.MODE_PRIVATE);
             mScore = sp.getInt("score", 0);
             mBgmVol = sp.getFloat("bgmVol", 0.5f);
-            mUno = Uno.getInstance(this);
+            mAssets = MatAssets.getInstance(this);
+            mArchive = openReplayArchive(getExternalFilesDir("replay"));
+            if (mArchive != null) {
+                mImporter = importReplayFiles(mArchive,
+                        getExternalFilesDir("replay"));
+            } // if (mArchive != null)
+
+            mUno = new Uno(mArchive != null ? mArchive
+                    : new FileReplaySink(getExternalFilesDir("replay")));
             mUno.setPlayers(sp.getInt("players", 3));
             mUno.setDifficulty(sp.getInt("difficulty", Uno.LV_EASY));
             mUno.setForcePlayRule(sp.getInt("forcePlayRule", 1));
@@ -173,6 +193,19 @@ public class MainActivity extends AppCompatActivity
             mMediaPlayer.setVolume(mBgmVol, mBgmVol);
             mMediaPlayer.setLooping(true);
             mAI = new AI(mUno);
+            mAI.getSearch().setParallel(
+                    Runtime.getRuntime().availableProcessors(),
+                    Ismcts.PARALLEL_ROOT
+            ); // mAI.getSearch().setParallel()
+            mAI.getSearch().setTable(new TranspositionTable(16));
+            mAI.getSearch().setBudget(20000, 0);
+            mSpeculator = new Speculator();
+            mSpeculator.getAI().getSearch().setParallel(
+                    Math.max(1, Runtime.getRuntime().availableProcessors() - 1),
+                    Ismcts.PARALLEL_ROOT
+            ); // mSpeculator.getAI().getSearch().setParallel()
+            mSpeculator.getAI().getSearch().setTable(mAI.getSearch().getTable());
+            mSpeculator.getAI().getSearch().setBudget(20000, 0);
             mBestColor = new Color[1];
             mAdjustOptions = false;
             mWinner = Player.YOU;
@@ -508,7 +541,7 @@ public class MainActivity extends AppCompatActivity
      */
     @WorkerThread
     private void refreshScreen(String message, int area) {
-        Mat image;
+        Mat image, bg;
         Size axes;
         String info;
         Point center;
@@ -518,13 +551,14 @@ public class MainActivity extends AppCompatActivity
 
         // Lock the value of member [mStatus]
         status = mStatus;
+        bg = mAssets.getBackground(mUno.getDirection());
 
         // Clear
         if ((area &= 0xff) == 0xff) {
-            mUno.getBackground().copyTo(mScr);
+            bg.copyTo(mScr);
         } // if ((area &= 0xff) == 0xff)
         else {
-            image = mUno.getBackground().submat(584, 632, 200, 1400);
+            image = bg.submat(584, 632, 200, 1400);
             image.copyTo(mScr.submat(584, 632, 200, 1400));
         } // else
 
@@ -535,9 +569,9 @@ public class MainActivity extends AppCompatActivity
         // Left-bottom & Right-bottom corner
         if ((area & 0x20) != 0x00) {
             if (area != 0xff) {
-                image = mUno.getBackground().submat(844, 892, 20, 190);
+                image = bg.submat(844, 892, 20, 190);
                 image.copyTo(mScr.submat(844, 892, 20, 190));
-                image = mUno.getBackground().submat(844, 892, 1427, 1580);
+                image = bg.submat(844, 892, 1427, 1580);
                 image.copyTo(mScr.submat(844, 892, 1427, 1580));
             } // if (area != 0xff)
 
@@ -574,8 +608,8 @@ public class MainActivity extends AppCompatActivity
             width = getTextWidth(info);
             putText(info, 268 - width / 2, 60);
             image = mBgmVol > 0.0f
-                    ? mUno.findCard(Color.GREEN, Content.REV).image
-                    : mUno.findCard(Color.GREEN, Content.REV).darkImg;
+                    ? mAssets.getImage(mUno.findCard(Color.GREEN, Content.REV))
+                    : mAssets.getDarkImage(mUno.findCard(Color.GREEN, Content.REV));
             image.copyTo(mScr.submat(80, 261, 208, 329), image);
 
             // Sound effect switch
@@ -583,8 +617,8 @@ public class MainActivity extends AppCompatActivity
             width = getTextWidth(info);
             putText(info, 670 - width / 2, 60);
             image = mSndVol > 0.0f
-                    ? mUno.findCard(Color.BLUE, Content.REV).image
-                    : mUno.findCard(Color.BLUE, Content.REV).darkImg;
+                    ? mAssets.getImage(mUno.findCard(Color.BLUE, Content.REV))
+                    : mAssets.getDarkImage(mUno.findCard(Color.BLUE, Content.REV));
             image.copyTo(mScr.submat(80, 261, 610, 731), image);
 
             // Speed
@@ -592,20 +626,20 @@ public class MainActivity extends AppCompatActivity
             width = getTextWidth(info);
             putText(info, 1202 - width / 2, 60);
             image = mSpeed < 2
-                    ? mUno.findCard(Color.RED, Content.NUM1).image
-                    : mUno.findCard(Color.RED, Content.NUM1).darkImg;
+                    ? mAssets.getImage(mUno.findCard(Color.RED, Content.NUM1))
+                    : mAssets.getDarkImage(mUno.findCard(Color.RED, Content.NUM1));
             image.copyTo(mScr.submat(80, 261, 1012, 1133), image);
             image = mSpeed == 2
-                    ? mUno.findCard(Color.YELLOW, Content.NUM2).image
-                    : mUno.findCard(Color.YELLOW, Content.NUM2).darkImg;
+                    ? mAssets.getImage(mUno.findCard(Color.YELLOW, Content.NUM2))
+                    : mAssets.getDarkImage(mUno.findCard(Color.YELLOW, Content.NUM2));
             image.copyTo(mScr.submat(80, 261, 1142, 1263), image);
             image = mSpeed > 2
-                    ? mUno.findCard(Color.GREEN, Content.NUM3).image
-                    : mUno.findCard(Color.GREEN, Content.NUM3).darkImg;
+                    ? mAssets.getImage(mUno.findCard(Color.GREEN, Content.NUM3))
+                    : mAssets.getDarkImage(mUno.findCard(Color.GREEN, Content.NUM3));
             image.copyTo(mScr.submat(80, 261, 1272, 1393), image);
 
             if (status != Player.YOU) {
-                // [Level] option: easy / hard
+                // [Level] option: easy / hard / expert
                 info = i18n.label_level(mUno.getDifficulty());
                 width = getTextWidth(info);
                 putText(i18n.label_leftArrow(), 208, 690);
@@ -650,27 +684,27 @@ public class MainActivity extends AppCompatActivity
 
         if (status == STAT_WELCOME) {
             // For welcome screen, show the start button and your score
-            image = mUno.getBackImage();
+            image = mAssets.getBackImage();
             image.copyTo(mScr.submat(360, 541, 740, 861), image);
             width = getTextWidth(i18n.label_score());
             putText(i18n.label_score(), 500 - width, 800);
             if (mScore < 0) {
-                image = mUno.getColoredWildImage(Color.NONE);
+                image = mAssets.getColoredWildImage(Color.NONE);
             } // if (mScore < 0)
             else {
                 i = mScore / 1000;
-                image = mUno.findCard(Color.RED, Content.values()[i]).image;
+                image = mAssets.getImage(mUno.findCard(Color.RED, Content.values()[i]));
             } // else
 
             image.copyTo(mScr.submat(700, 881, 520, 641), image);
             i = Math.abs(mScore / 100 % 10);
-            image = mUno.findCard(Color.BLUE, Content.values()[i]).image;
+            image = mAssets.getImage(mUno.findCard(Color.BLUE, Content.values()[i]));
             image.copyTo(mScr.submat(700, 881, 660, 781), image);
             i = Math.abs(mScore / 10 % 10);
-            image = mUno.findCard(Color.GREEN, Content.values()[i]).image;
+            image = mAssets.getImage(mUno.findCard(Color.GREEN, Content.values()[i]));
             image.copyTo(mScr.submat(700, 881, 800, 921), image);
             i = Math.abs(mScore % 10);
-            image = mUno.findCard(Color.YELLOW, Content.values()[i]).image;
+            image = mAssets.getImage(mUno.findCard(Color.YELLOW, Content.values()[i]));
             image.copyTo(mScr.submat(700, 881, 940, 1061), image);
 
             // Show image
@@ -682,11 +716,11 @@ public class MainActivity extends AppCompatActivity
         // Center: card deck & recent played card
         if ((area & 0x40) != 0x00) {
             if (area != 0xff) {
-                image = mUno.getBackground().submat(270, 541, 270, 541);
+                image = bg.submat(270, 541, 270, 541);
                 image.copyTo(mScr.submat(270, 541, 270, 541));
             } // if (area != 0xff)
 
-            image = mUno.getBackImage();
+            image = mAssets.getBackImage();
             image.copyTo(mScr.submat(360, 541, 338, 459), image);
         } // if ((area & 0x40) != 0x00)
 
@@ -697,13 +731,13 @@ public class MainActivity extends AppCompatActivity
                     continue;
                 } // if (recent[i].card == null)
                 else if (recent[i].card.content == Content.WILD) {
-                    image = mUno.getColoredWildImage(recent[i].color);
+                    image = mAssets.getColoredWildImage(recent[i].color);
                 } // else if (recent[i].card.content == Content.WILD)
                 else if (recent[i].card.content == Content.WILD_DRAW4) {
-                    image = mUno.getColoredWildDraw4Image(recent[i].color);
+                    image = mAssets.getColoredWildDraw4Image(recent[i].color);
                 } // else if (recent[i].card.content == Content.WILD_DRAW4)
                 else {
-                    image = recent[i].card.image;
+                    image = mAssets.getImage(recent[i].card);
                 } // else
 
                 image.copyTo(mScr.submat(360, 541, x, x + 121), image);
@@ -712,7 +746,7 @@ public class MainActivity extends AppCompatActivity
 
         // Left-top corner: remain / used
         if (area != 0xff) {
-            image = mUno.getBackground().submat(6, 54, 20, 190);
+            image = bg.submat(6, 54, 20, 190);
             image.copyTo(mScr.submat(6, 54, 20, 190));
         } // if (area != 0xff)
 
@@ -723,7 +757,7 @@ public class MainActivity extends AppCompatActivity
 
         // Right-top corner: lacks
         if (area != 0xff) {
-            image = mUno.getBackground().submat(6, 54, 1427, 1580);
+            image = bg.submat(6, 54, 1427, 1580);
             image.copyTo(mScr.submat(6, 54, 1427, 1580));
         } // if (area != 0xff)
 
@@ -738,7 +772,7 @@ public class MainActivity extends AppCompatActivity
         // Left-center: Hand cards of Player West (COM1)
         if ((area & 0x02) != 0x00) {
             if (area != 0xff) {
-                image = mUno.getBackground().submat(96, 805, 20, 185);
+                image = bg.submat(96, 805, 20, 185);
                 image.copyTo(mScr.submat(96, 805, 20, 185));
             } // if (area != 0xff)
 
@@ -756,7 +790,7 @@ public class MainActivity extends AppCompatActivity
                 for (i = 0; i < size; ++i) {
                     x = 20 + i / 13 * 44;
                     y = 450 - width / 2 + i % 13 * 44;
-                    image = p.isOpen(i) ? hand.get(i).image : mUno.getBackImage();
+                    image = p.isOpen(i) ? mAssets.getImage(hand.get(i)) : mAssets.getBackImage();
                     image.copyTo(mScr.submat(y, y + 181, x, x + 121), image);
                 } // for (i = 0; i < size; ++i)
 
@@ -771,7 +805,7 @@ public class MainActivity extends AppCompatActivity
         // Top-center: Hand cards of Player North (COM2)
         if ((area & 0x04) != 0x00) {
             if (area != 0xff) {
-                image = mUno.getBackground().submat(20, 201, 190, 1411);
+                image = bg.submat(20, 201, 190, 1411);
                 image.copyTo(mScr.submat(20, 201, 190, 1411));
             } // if (area != 0xff)
 
@@ -787,7 +821,7 @@ public class MainActivity extends AppCompatActivity
                 size = hand.size();
                 width = 44 * size + 76;
                 for (i = 0, x = 800 - width / 2; i < size; ++i, x += 44) {
-                    image = p.isOpen(i) ? hand.get(i).image : mUno.getBackImage();
+                    image = p.isOpen(i) ? mAssets.getImage(hand.get(i)) : mAssets.getBackImage();
                     image.copyTo(mScr.submat(20, 201, x, x + 121), image);
                 } // for (i = 0, x = 800 - width / 2; i < size; ++i, x += 44)
 
@@ -802,7 +836,7 @@ public class MainActivity extends AppCompatActivity
         // Right-center: Hand cards of Player East (COM3)
         if ((area & 0x08) != 0x00) {
             if (area != 0xff) {
-                image = mUno.getBackground().submat(96, 805, 1416, 1581);
+                image = bg.submat(96, 805, 1416, 1581);
                 image.copyTo(mScr.submat(96, 805, 1416, 1581));
             } // if (area != 0xff)
 
@@ -820,14 +854,14 @@ public class MainActivity extends AppCompatActivity
                 for (i = 13; i < size; ++i) {
                     x = 1416;
                     y = 450 - width / 2 + (i - 13) * 44;
-                    image = p.isOpen(i) ? hand.get(i).image : mUno.getBackImage();
+                    image = p.isOpen(i) ? mAssets.getImage(hand.get(i)) : mAssets.getBackImage();
                     image.copyTo(mScr.submat(y, y + 181, x, x + 121), image);
                 } // for (i = 13; i < size; ++i)
 
                 for (i = 0; i < 13 && i < size; ++i) {
                     x = 1460;
                     y = 450 - width / 2 + i * 44;
-                    image = p.isOpen(i) ? hand.get(i).image : mUno.getBackImage();
+                    image = p.isOpen(i) ? mAssets.getImage(hand.get(i)) : mAssets.getBackImage();
                     image.copyTo(mScr.submat(y, y + 181, x, x + 121), image);
                 } // for (i = 0; i < 13 && i < size; ++i)
 
@@ -842,7 +876,7 @@ public class MainActivity extends AppCompatActivity
         // Bottom: Your hand cards
         if ((area & 0x01) != 0x00) {
             if (area != 0xff) {
-                image = mUno.getBackground().submat(680, 881, 190, 1411);
+                image = bg.submat(680, 881, 190, 1411);
                 image.copyTo(mScr.submat(680, 881, 190, 1411));
             } // if (area != 0xff)
 
@@ -861,8 +895,8 @@ public class MainActivity extends AppCompatActivity
                     image = status == STAT_GAME_OVER
                             || (status == Player.YOU && mUno.isLegalToPlay(hand.get(i)))
                             || (status == STAT_ASK_KEEP_PLAY && i == mSelectedIdx)
-                            ? hand.get(i).image
-                            : hand.get(i).darkImg;
+                            ? mAssets.getImage(hand.get(i))
+                            : mAssets.getDarkImage(hand.get(i));
                     y = i == mSelectedIdx ? 680 : 700;
                     image.copyTo(mScr.submat(y, y + 181, x, x + 121), image);
                 } // for (i = 0, x = 800 - width / 2; i < size; ++i, x += 44)
@@ -1127,13 +1161,13 @@ public class MainActivity extends AppCompatActivity
             } // if (80 <= y && y <= 260)
             else if (654 <= y && y <= 690 && mStatus != Player.YOU) {
                 if (208 <= x && x <= 273) {
-                    // Level EASY
-                    mUno.setDifficulty(Uno.LV_EASY);
+                    // Level down (EXPERT -> HARD -> EASY)
+                    mUno.setDifficulty(mUno.getDifficulty() - 1);
                     setStatus(mStatus);
                 } // if (208 <= x && x <= 273)
                 else if (638 <= x && x <= 703) {
-                    // Level HARD
-                    mUno.setDifficulty(Uno.LV_HARD);
+                    // Level up (EASY -> HARD -> EXPERT)
+                    mUno.setDifficulty(mUno.getDifficulty() + 1);
                     setStatus(mStatus);
                 } // else if (638 <= x && x <= 703)
                 if (896 <= x && x <= 961) {
@@ -1400,13 +1434,17 @@ public class MainActivity extends AppCompatActivity
         int idxBest;
 
         setStatus(STAT_IDLE); // block tap down events when idle
-        idxBest = mUno.getDifficulty() == Uno.LV_EASY
-                ? mAI.easyAI_bestCardIndex4NowPlayer(mBestColor)
-                : mUno.isSevenZeroRule()
-                ? mAI.sevenZeroAI_bestCardIndex4NowPlayer(mBestColor)
-                : mUno.is2vs2()
-                ? mAI.teamAI_bestCardIndex4NowPlayer(mBestColor)
-                : mAI.hardAI_bestCardIndex4NowPlayer(mBestColor);
+
+        idxBest = mSpeculator.take(mUno, mBestColor);
+        if (idxBest == Speculator.MISS) {
+            // Not speculated, or the board has changed since. Think now, but
+            // no longer than a threadWait(750) pacing step, so that expensive
+            // COMs act as fast as the others at every speed
+            mThinking = new CancelToken(750 / mSpeed);
+            idxBest = mAI.bestCardIndex4NowPlayer(mBestColor, mThinking);
+            mThinking = null;
+        } // if (idxBest == Speculator.MISS)
+
         if (idxBest >= 0) {
             // Found an appropriate card to play
             idxBest = play(idxBest, mBestColor[0]);
@@ -1419,6 +1457,21 @@ public class MainActivity extends AppCompatActivity
         return idxBest;
     } // requestAI()
 
+    /**
+     * Start to think about the specified player's next decision in
+     * background, when it will be made by AI. Call this when the board is
+     * fixed until that player's turn, typically before a threadWait() call.
+     *
+     * @param who Whose decision to think about.
+     */
+    @WorkerThread
+    private void speculate(int who) {
+        if (mUno.getDifficulty() != Uno.LV_EASY
+                && (who != Player.YOU || mAuto)) {
+            mSpeculator.start(mUno, who, 750 / mSpeed);
+        } // if (mUno.getDifficulty() != Uno.LV_EASY && ...)
+    } // speculate(int)
+
     /**
      * The player in action draw one or more cards.
      *
@@ -1457,7 +1510,7 @@ public class MainActivity extends AppCompatActivity
                 switch (now) {
                     case Player.COM1:
                         width = 44 * Math.min(size, 13) + 136;
-                        mLayer[0].elem = mUno.getBackImage();
+                        mLayer[0].elem = mAssets.getBackImage();
                         mLayer[0].endLeft = 20 + index / 13 * 44;
                         mLayer[0].endTop = 450 - width / 2 + index % 13 * 44;
                         message = i18n.act_drawCardCount(now, count);
@@ -1465,7 +1518,7 @@ public class MainActivity extends AppCompatActivity
 
                     case Player.COM2:
                         width = 44 * size + 76;
-                        mLayer[0].elem = mUno.getBackImage();
+                        mLayer[0].elem = mAssets.getBackImage();
                         mLayer[0].endLeft = 800 - width / 2 + 44 * index;
                         mLayer[0].endTop = 20;
                         message = i18n.act_drawCardCount(now, count);
@@ -1473,7 +1526,7 @@ public class MainActivity extends AppCompatActivity
 
                     case Player.COM3:
                         width = 44 * Math.min(size, 13) + 136;
-                        mLayer[0].elem = mUno.getBackImage();
+                        mLayer[0].elem = mAssets.getBackImage();
                         mLayer[0].endLeft = 1460 - index / 13 * 44;
                         mLayer[0].endTop = 450 - width / 2 + index % 13 * 44;
                         message = i18n.act_drawCardCount(now, count);
@@ -1481,7 +1534,7 @@ public class MainActivity extends AppCompatActivity
 
                     default:
                         width = 44 * size + 76;
-                        mLayer[0].elem = drawn.image;
+                        mLayer[0].elem = mAssets.getImage(drawn);
                         mLayer[0].endLeft = 800 - width / 2 + 44 * index;
                         mLayer[0].endTop = 700;
                         message = i18n.act_drawCard(now, drawn.name);
@@ -1534,6 +1587,7 @@ public class MainActivity extends AppCompatActivity
         } // if (count == 1 && ...)
         else {
             refreshScreen(i18n.act_pass(now), 0x00);
+            speculate(mUno.getNext());
             threadWait(750);
             now = mUno.switchNow();
         } // else
@@ -1571,7 +1625,7 @@ public class MainActivity extends AppCompatActivity
         } // if (size == 2)
 
         if (card != null) {
-            mLayer[0].elem = card.image;
+            mLayer[0].elem = mAssets.getImage(card);
             switch (now) {
                 case Player.COM1:
                     width = 44 * Math.min(size, 13) + 136;
@@ -1645,6 +1699,7 @@ public class MainActivity extends AppCompatActivity
                         if (mUno.getStackRule() != 0) {
                             c = mUno.getDraw2StackCount();
                             refreshScreen(i18n.act_playDraw2(now, next, c), flag);
+                            speculate(next);
                             threadWait(1500);
                             now = next;
                         } // if (mUno.getStackRule() != 0)
@@ -1658,6 +1713,7 @@ public class MainActivity extends AppCompatActivity
                     case SKIP:
                         next = mUno.switchNow();
                         refreshScreen(i18n.act_playSkip(now, next), flag);
+                        speculate(mUno.getNext());
                         threadWait(1500);
                         now = mUno.switchNow();
                         break; // case SKIP
@@ -1665,12 +1721,14 @@ public class MainActivity extends AppCompatActivity
                     case REV:
                         mUno.switchDirection();
                         refreshScreen(i18n.act_playRev(now));
+                        speculate(mUno.getNext());
                         threadWait(1500);
                         now = mUno.switchNow();
                         break; // case REV
 
                     case WILD:
                         refreshScreen(i18n.act_playWild(now, color.ordinal()), flag);
+                        speculate(mUno.getNext());
                         threadWait(1500);
                         now = mUno.switchNow();
                         break; // case WILD
@@ -1680,6 +1738,7 @@ public class MainActivity extends AppCompatActivity
                             next = mUno.switchNow();
                             c = mUno.getDraw2StackCount();
                             refreshScreen(i18n.act_playDraw2(now, next, c), flag);
+                            speculate(next);
                             threadWait(1500);
                             now = next;
                         } // if (mUno.getStackRule() == 2)
@@ -1711,6 +1770,7 @@ public class MainActivity extends AppCompatActivity
 
                     default:
                         refreshScreen(i18n.act_playCard(now, card.name), flag);
+                        speculate(mUno.getNext());
                         threadWait(1500);
                         now = mUno.switchNow();
                         break; // default
@@ -1778,7 +1838,7 @@ public class MainActivity extends AppCompatActivity
         mHideFlag = (1 << curr) | (1 << whom);
         flag = (1 << curr) | (1 << whom) | (curr == Player.YOU ? 0x40 : 0x00);
         refreshScreen(i18n.info_7_swap(curr, whom), flag);
-        mLayer[0].elem = mLayer[1].elem = mUno.getBackImage();
+        mLayer[0].elem = mLayer[1].elem = mAssets.getBackImage();
         mLayer[0].startLeft = x[curr];
         mLayer[0].startTop = y[curr];
         mLayer[0].endLeft = x[whom];
@@ -1814,18 +1874,18 @@ public class MainActivity extends AppCompatActivity
         next = mUno.getNext();
         oppo = mUno.getOppo();
         prev = mUno.getPrev();
-        mLayer[0].elem = mUno.getBackImage();
+        mLayer[0].elem = mAssets.getBackImage();
         mLayer[0].startLeft = x[curr];
         mLayer[0].startTop = y[curr];
         mLayer[0].endLeft = x[next];
         mLayer[0].endTop = y[next];
-        mLayer[1].elem = mUno.getBackImage();
+        mLayer[1].elem = mAssets.getBackImage();
         mLayer[1].startLeft = x[next];
         mLayer[1].startTop = y[next];
         mLayer[1].endLeft = x[oppo];
         mLayer[1].endTop = y[oppo];
         if (mUno.getPlayers() == 3) {
-            mLayer[2].elem = mUno.getBackImage();
+            mLayer[2].elem = mAssets.getBackImage();
             mLayer[2].startLeft = x[oppo];
             mLayer[2].startTop = y[oppo];
             mLayer[2].endLeft = x[curr];
@@ -1833,12 +1893,12 @@ public class MainActivity extends AppCompatActivity
             animate(3, mLayer);
         } // if (mUno.getPlayers() == 3)
         else {
-            mLayer[2].elem = mUno.getBackImage();
+            mLayer[2].elem = mAssets.getBackImage();
             mLayer[2].startLeft = x[oppo];
             mLayer[2].startTop = y[oppo];
             mLayer[2].endLeft = x[prev];
             mLayer[2].endTop = y[prev];
-            mLayer[3].elem = mUno.getBackImage();
+            mLayer[3].elem = mAssets.getBackImage();
             mLayer[3].startLeft = x[prev];
             mLayer[3].startTop = y[prev];
             mLayer[3].endLeft = x[curr];
@@ -1937,7 +1997,7 @@ public class MainActivity extends AppCompatActivity
                     size = h.size();
                     mLayer[0].startLeft = 338;
                     mLayer[0].startTop = 360;
-                    mLayer[0].elem = card.image;
+                    mLayer[0].elem = mAssets.getImage(card);
                     if (a == Player.COM1) {
                         width = 44 * Math.min(size, 13) + 136;
                         mLayer[0].endLeft = 20 + i / 13 * 44;
@@ -1974,7 +2034,7 @@ public class MainActivity extends AppCompatActivity
                     size = h.size() + 1;
                     threadWait(750);
                     mSoundPool.play(sndPlay, mSndVol, mSndVol, 1, 0, 1.0f);
-                    mLayer[0].elem = card.image;
+                    mLayer[0].elem = mAssets.getImage(card);
                     if (a == Player.COM1) {
                         width = 44 * Math.min(size, 13) + 136;
                         mLayer[0].startLeft = 160 + i / 13 * 44;
@@ -2013,9 +2073,9 @@ public class MainActivity extends AppCompatActivity
                 else if (cmd.equals("CH")) {
                     a = params[0];
                     threadWait(750);
-                    if (mUno.challenge(a)) {
+                    if (mUno.isChallengeSuccessful(a)) {
                         refreshScreen(i18n.info_challengeSuccess(a));
-                    } // if (mUno.challenge(a))
+                    } // if (mUno.isChallengeSuccessful(a))
                     else {
                         b = mUno.getNext();
                         refreshScreen(i18n.info_challengeFailure(b));
@@ -2030,7 +2090,7 @@ public class MainActivity extends AppCompatActivity
                     // Animation
                     mHideFlag = (1 << a) | (1 << b);
                     refreshScreen(i18n.info_7_swap(a, b));
-                    mLayer[0].elem = mLayer[1].elem = mUno.getBackImage();
+                    mLayer[0].elem = mLayer[1].elem = mAssets.getBackImage();
                     mLayer[0].startLeft = x[a];
                     mLayer[0].startTop = y[a];
                     mLayer[0].endLeft = x[b];
@@ -2052,18 +2112,18 @@ public class MainActivity extends AppCompatActivity
                     b = mUno.getNext();
                     c = mUno.getOppo();
                     d = mUno.getPrev();
-                    mLayer[0].elem = mUno.getBackImage();
+                    mLayer[0].elem = mAssets.getBackImage();
                     mLayer[0].startLeft = x[a];
                     mLayer[0].startTop = y[a];
                     mLayer[0].endLeft = x[b];
                     mLayer[0].endTop = y[b];
-                    mLayer[1].elem = mUno.getBackImage();
+                    mLayer[1].elem = mAssets.getBackImage();
                     mLayer[1].startLeft = x[b];
                     mLayer[1].startTop = y[b];
                     mLayer[1].endLeft = x[c];
                     mLayer[1].endTop = y[c];
                     if (mUno.getPlayers() == 3) {
-                        mLayer[2].elem = mUno.getBackImage();
+                        mLayer[2].elem = mAssets.getBackImage();
                         mLayer[2].startLeft = x[c];
                         mLayer[2].startTop = y[c];
                         mLayer[2].endLeft = x[a];
@@ -2071,12 +2131,12 @@ public class MainActivity extends AppCompatActivity
                         animate(3, mLayer);
                     } // if (mUno.getPlayers() == 3)
                     else {
-                        mLayer[2].elem = mUno.getBackImage();
+                        mLayer[2].elem = mAssets.getBackImage();
                         mLayer[2].startLeft = x[c];
                         mLayer[2].startTop = y[c];
                         mLayer[2].endLeft = x[d];
                         mLayer[2].endTop = y[d];
-                        mLayer[3].elem = mUno.getBackImage();
+                        mLayer[3].elem = mAssets.getBackImage();
                         mLayer[3].startLeft = x[d];
                         mLayer[3].startTop = y[d];
                         mLayer[3].endLeft = x[a];
@@ -2093,6 +2153,7 @@ public class MainActivity extends AppCompatActivity
                 } // else
             } // while (true)
 
+            mUno.closeReplay();
             params[0] = (mUno.is2vs2()
                     && mUno.getHandCardsOf(Player.COM2).isEmpty())
                     || mUno.getHandCardsOf(Player.YOU).isEmpty()
@@ -2135,6 +2196,8 @@ public class MainActivity extends AppCompatActivity
     @Override
     @UiThread
     protected void onPause() {
+        CancelToken thinking;
+
         if (OPENCV_INIT_SUCCESS) {
             getSharedPreferences("UnoStat", Context.MODE_PRIVATE)
                     .edit()
@@ -2152,6 +2215,13 @@ public class MainActivity extends AppCompatActivity
                     .apply();
             mSndVol = 0.0f;
             mMediaPlayer.pause();
+            thinking = mThinking;
+            if (thinking != null) {
+                // Do not keep the sub thread busy in background
+                thinking.cancel();
+            } // if (thinking != null)
+
+            mSpeculator.stop();
         } // if (OPENCV_INIT_SUCCESS)
 
         super.onPause();
@@ -2163,8 +2233,17 @@ public class MainActivity extends AppCompatActivity
     @Override
     @UiThread
     protected void onDestroy() {
+        CancelToken thinking;
+
         if (OPENCV_INIT_SUCCESS) {
             mSoundPool.release();
+            thinking = mThinking;
+            if (thinking != null) {
+                thinking.cancel();
+            } // if (thinking != null)
+
+            mAI.getSearch().shutdown();
+            mSpeculator.shutdown();
             if (mSubHandler != null) {
                 mSubHandler.removeCallbacksAndMessages(null);
                 mSubHandler.getLooper().quit();
@@ -2172,9 +2251,80 @@ public class MainActivity extends AppCompatActivity
         } // if (OPENCV_INIT_SUCCESS)
 
         mUIHandler.removeCallbacksAndMessages(null);
+        if (mArchive != null) {
+            // Closing waits for the replay being imported, if any, and stops
+            // the import thread before its next file. Do not interrupt the
+            // thread, since an interrupted file channel closes itself, even
+            // in the middle of a write.
+            try {
+                mArchive.close();
+            } // try
+            catch (IOException ignore) {
+            } // catch (IOException ignore)
+
+            try {
+                mImporter.join();
+            } // try
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } // catch (InterruptedException e)
+        } // if (mArchive != null)
+
         super.onDestroy();
     } // onDestroy()
 
+    /**
+     * Open the replay archive in the specified directory.
+     *
+     * @param replayDir The directory that stores your replays.
+     * @return The replay archive, or null if the archive cannot be opened.
+     * In this case, replays are saved as one file per game.
+     */
+    @UiThread
+    private static ReplayArchive openReplayArchive(File replayDir) {
+        ReplayArchive archive = null;
+
+        if (replayDir != null) {
+            try {
+                archive = new ReplayArchive(replayDir);
+            } // try
+            catch (IOException ignore) {
+            } // catch (IOException ignore)
+        } // if (replayDir != null)
+
+        return archive;
+    } // openReplayArchive(File)
+
+    /**
+     * Move the replay files saved by older versions into the replay archive,
+     * in a background thread. Every file is decoded and replayed, which takes
+     * seconds when there are thousands of them. Imported replays show up in
+     * the archive one by one.
+     *
+     * @param archive   The replay archive.
+     * @param replayDir The directory that stores your replays.
+     * @return The started import thread. Close the archive to stop it.
+     */
+    @UiThread
+    private static Thread importReplayFiles(final ReplayArchive archive,
+                                            final File replayDir) {
+        Thread importer = new Thread(new Runnable() {
+            @Override
+            @WorkerThread
+            public void run() {
+                try {
+                    archive.importFiles(replayDir, ".sav");
+                } // try
+                catch (IOException ignore) {
+                    // Archive closed, or storage full. Retry on next launch.
+                } // catch (IOException ignore)
+            } // run()
+        }, "ReplayImport"); // new Thread(new Runnable() {})
+
+        importer.start();
+        return importer;
+    } // importReplayFiles(ReplayArchive, File)
+
     /**
      * Unsupported Device Dialog.
      */
@@ -2228,11 +2378,30 @@ public class MainActivity extends AppCompatActivity
             MainActivity p = (MainActivity) requireActivity();
             File replayDir = p.getExternalFilesDir("replay");
 
+            ReplayArchive a = p.mArchive;
+            String[] labels;
+
             parent = new WeakReference<>(p);
-            files = replayDir != null ? replayDir.list() : new String[0];
+            if (a != null) {
+                // Newest first, labeled by the archive index only
+                files = new String[a.size()];
+                labels = new String[files.length];
+                for (int i = 0, j = files.length - 1; j >= 0; ++i, --j) {
+                    files[i] = a.getName(j);
+                    labels[i] = p.i18n.label_replay(a.getTime(j),
+                            a.getPlayers(j),
+                            (a.getFlags(j) & ReplayArchive.FLAG_2VS2) != 0,
+                            a.getTurns(j));
+                } // for (int i = 0, j = files.length - 1; j >= 0; ++i, --j)
+            } // if (a != null)
+            else {
+                files = replayDir != null ? replayDir.list() : new String[0];
+                labels = files;
+            } // else
+
             return new AlertDialog.Builder(p)
                     .setTitle("Choose a replay file")
-                    .setItems(files, this)
+                    .setItems(labels, this)
                     .setIcon(android.R.drawable.ic_dialog_dialer)
                     .setNegativeButton(android.R.string.cancel, this)
                     .create();
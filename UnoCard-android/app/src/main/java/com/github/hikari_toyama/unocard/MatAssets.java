@@ -0,0 +1,332 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Uno Card Game 4 Droid
+// Author: Hikari Toyama
+// Compile Environment: Android Studio Arctic Fox, with Android SDK 30
+// COPYRIGHT HIKARI TOYAMA, 1992-2022. ALL RIGHTS RESERVED.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.hikari_toyama.unocard;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.github.hikari_toyama.unocard.core.AssetProvider;
+import com.github.hikari_toyama.unocard.core.Card;
+import com.github.hikari_toyama.unocard.core.Color;
+import com.github.hikari_toyama.unocard.core.Uno;
+
+import org.opencv.android.Utils;
+import org.opencv.core.Mat;
+import org.opencv.imgproc.Imgproc;
+
+import java.io.IOException;
+
+/**
+ * Card & background image resources, loaded from raw resources as OpenCV
+ * Mat objects.
+ */
+class MatAssets implements AssetProvider<Mat> {
+    /**
+     * Tag name for Android Logcat.
+     */
+    private static final String TAG = "MatAssets";
+
+    /**
+     * Image resources for cards. image[i] is the front image of the card
+     * whose id number is i, and darkImg[i] is the dark one.
+     */
+    private final Mat[] image, darkImg;
+
+    /**
+     * Image resources for wild cards.
+     */
+    private final Mat[] wImage;
+
+    /**
+     * Image resources for wild +4 cards.
+     */
+    private final Mat[] w4Image;
+
+    /**
+     * Card back image resource.
+     */
+    private final Mat backImage;
+
+    /**
+     * Background image resource (for welcome screen).
+     */
+    private final Mat bgWelcome;
+
+    /**
+     * Background image resource (Direction: COUNTER CLOCKWISE).
+     */
+    private final Mat bgCounter;
+
+    /**
+     * Background image resource (Direction: CLOCKWISE).
+     */
+    private final Mat bgClockwise;
+
+    /**
+     * Constructor.
+     *
+     * @param c Pass a context object to let us get the card image
+     *          resources stored in this application.
+     * @throws IOException Thrown if failed to load image resources.
+     */
+    MatAssets(Context c) throws IOException {
+        Mat[] br, dk;
+        int i, loaded, total;
+
+        // Preparations
+        loaded = 0;
+        total = 120;
+        Log.i(TAG, "Loading... (0%)");
+
+        // Load background image resources
+        bgWelcome = Utils.loadResource(c, R.raw.bg_welcome);
+        bgCounter = Utils.loadResource(c, R.raw.bg_counter);
+        bgClockwise = Utils.loadResource(c, R.raw.bg_clockwise);
+        Imgproc.cvtColor(bgWelcome, bgWelcome, Imgproc.COLOR_BGRA2RGBA);
+        Imgproc.cvtColor(bgCounter, bgCounter, Imgproc.COLOR_BGRA2RGBA);
+        Imgproc.cvtColor(bgClockwise, bgClockwise, Imgproc.COLOR_BGRA2RGBA);
+        loaded += 3;
+        Log.i(TAG, "Loading... (" + 100 * loaded / total + "%)");
+
+        // Load card back image resource
+        backImage = Utils.loadResource(c, R.raw.back);
+        Imgproc.cvtColor(backImage, backImage, Imgproc.COLOR_BGRA2RGBA);
+        ++loaded;
+        Log.i(TAG, "Loading... (" + 100 * loaded / total + "%)");
+
+        // Load cards' front image resources
+        br = new Mat[]{
+                Utils.loadResource(c, R.raw.front_r0),
+                Utils.loadResource(c, R.raw.front_r1),
+                Utils.loadResource(c, R.raw.front_r2),
+                Utils.loadResource(c, R.raw.front_r3),
+                Utils.loadResource(c, R.raw.front_r4),
+                Utils.loadResource(c, R.raw.front_r5),
+                Utils.loadResource(c, R.raw.front_r6),
+                Utils.loadResource(c, R.raw.front_r7),
+                Utils.loadResource(c, R.raw.front_r8),
+                Utils.loadResource(c, R.raw.front_r9),
+                Utils.loadResource(c, R.raw.front_rd2),
+                Utils.loadResource(c, R.raw.front_rr),
+                Utils.loadResource(c, R.raw.front_rs),
+                Utils.loadResource(c, R.raw.front_b0),
+                Utils.loadResource(c, R.raw.front_b1),
+                Utils.loadResource(c, R.raw.front_b2),
+                Utils.loadResource(c, R.raw.front_b3),
+                Utils.loadResource(c, R.raw.front_b4),
+                Utils.loadResource(c, R.raw.front_b5),
+                Utils.loadResource(c, R.raw.front_b6),
+                Utils.loadResource(c, R.raw.front_b7),
+                Utils.loadResource(c, R.raw.front_b8),
+                Utils.loadResource(c, R.raw.front_b9),
+                Utils.loadResource(c, R.raw.front_bd2),
+                Utils.loadResource(c, R.raw.front_br),
+                Utils.loadResource(c, R.raw.front_bs),
+                Utils.loadResource(c, R.raw.front_g0),
+                Utils.loadResource(c, R.raw.front_g1),
+                Utils.loadResource(c, R.raw.front_g2),
+                Utils.loadResource(c, R.raw.front_g3),
+                Utils.loadResource(c, R.raw.front_g4),
+                Utils.loadResource(c, R.raw.front_g5),
+                Utils.loadResource(c, R.raw.front_g6),
+                Utils.loadResource(c, R.raw.front_g7),
+                Utils.loadResource(c, R.raw.front_g8),
+                Utils.loadResource(c, R.raw.front_g9),
+                Utils.loadResource(c, R.raw.front_gd2),
+                Utils.loadResource(c, R.raw.front_gr),
+                Utils.loadResource(c, R.raw.front_gs),
+                Utils.loadResource(c, R.raw.front_y0),
+                Utils.loadResource(c, R.raw.front_y1),
+                Utils.loadResource(c, R.raw.front_y2),
+                Utils.loadResource(c, R.raw.front_y3),
+                Utils.loadResource(c, R.raw.front_y4),
+                Utils.loadResource(c, R.raw.front_y5),
+                Utils.loadResource(c, R.raw.front_y6),
+                Utils.loadResource(c, R.raw.front_y7),
+                Utils.loadResource(c, R.raw.front_y8),
+                Utils.loadResource(c, R.raw.front_y9),
+                Utils.loadResource(c, R.raw.front_yd2),
+                Utils.loadResource(c, R.raw.front_yr),
+                Utils.loadResource(c, R.raw.front_ys),
+                Utils.loadResource(c, R.raw.front_kw),
+                Utils.loadResource(c, R.raw.front_kw4)
+        }; // br = new Mat[]{}
+        dk = new Mat[]{
+                Utils.loadResource(c, R.raw.dark_r0),
+                Utils.loadResource(c, R.raw.dark_r1),
+                Utils.loadResource(c, R.raw.dark_r2),
+                Utils.loadResource(c, R.raw.dark_r3),
+                Utils.loadResource(c, R.raw.dark_r4),
+                Utils.loadResource(c, R.raw.dark_r5),
+                Utils.loadResource(c, R.raw.dark_r6),
+                Utils.loadResource(c, R.raw.dark_r7),
+                Utils.loadResource(c, R.raw.dark_r8),
+                Utils.loadResource(c, R.raw.dark_r9),
+                Utils.loadResource(c, R.raw.dark_rd2),
+                Utils.loadResource(c, R.raw.dark_rr),
+                Utils.loadResource(c, R.raw.dark_rs),
+                Utils.loadResource(c, R.raw.dark_b0),
+                Utils.loadResource(c, R.raw.dark_b1),
+                Utils.loadResource(c, R.raw.dark_b2),
+                Utils.loadResource(c, R.raw.dark_b3),
+                Utils.loadResource(c, R.raw.dark_b4),
+                Utils.loadResource(c, R.raw.dark_b5),
+                Utils.loadResource(c, R.raw.dark_b6),
+                Utils.loadResource(c, R.raw.dark_b7),
+                Utils.loadResource(c, R.raw.dark_b8),
+                Utils.loadResource(c, R.raw.dark_b9),
+                Utils.loadResource(c, R.raw.dark_bd2),
+                Utils.loadResource(c, R.raw.dark_br),
+                Utils.loadResource(c, R.raw.dark_bs),
+                Utils.loadResource(c, R.raw.dark_g0),
+                Utils.loadResource(c, R.raw.dark_g1),
+                Utils.loadResource(c, R.raw.dark_g2),
+                Utils.loadResource(c, R.raw.dark_g3),
+                Utils.loadResource(c, R.raw.dark_g4),
+                Utils.loadResource(c, R.raw.dark_g5),
+                Utils.loadResource(c, R.raw.dark_g6),
+                Utils.loadResource(c, R.raw.dark_g7),
+                Utils.loadResource(c, R.raw.dark_g8),
+                Utils.loadResource(c, R.raw.dark_g9),
+                Utils.loadResource(c, R.raw.dark_gd2),
+                Utils.loadResource(c, R.raw.dark_gr),
+                Utils.loadResource(c, R.raw.dark_gs),
+                Utils.loadResource(c, R.raw.dark_y0),
+                Utils.loadResource(c, R.raw.dark_y1),
+                Utils.loadResource(c, R.raw.dark_y2),
+                Utils.loadResource(c, R.raw.dark_y3),
+                Utils.loadResource(c, R.raw.dark_y4),
+                Utils.loadResource(c, R.raw.dark_y5),
+                Utils.loadResource(c, R.raw.dark_y6),
+                Utils.loadResource(c, R.raw.dark_y7),
+                Utils.loadResource(c, R.raw.dark_y8),
+                Utils.loadResource(c, R.raw.dark_y9),
+                Utils.loadResource(c, R.raw.dark_yd2),
+                Utils.loadResource(c, R.raw.dark_yr),
+                Utils.loadResource(c, R.raw.dark_ys),
+                Utils.loadResource(c, R.raw.dark_kw),
+                Utils.loadResource(c, R.raw.dark_kw4)
+        }; // dk = new Mat[]{}
+        for (i = 0; i < 54; ++i) {
+            Imgproc.cvtColor(br[i], br[i], Imgproc.COLOR_BGRA2RGBA);
+            Imgproc.cvtColor(dk[i], dk[i], Imgproc.COLOR_BGRA2RGBA);
+            loaded += 2;
+            Log.i(TAG, "Loading... (" + 100 * loaded / total + "%)");
+        } // for (i = 0; i < 54; ++i)
+
+        // Load wild & wild +4 image resources
+        wImage = new Mat[]{
+                br[52],
+                Utils.loadResource(c, R.raw.front_rw),
+                Utils.loadResource(c, R.raw.front_bw),
+                Utils.loadResource(c, R.raw.front_gw),
+                Utils.loadResource(c, R.raw.front_yw)
+        }; // wImage = new Mat[]{}
+        w4Image = new Mat[]{
+                br[53],
+                Utils.loadResource(c, R.raw.front_rw4),
+                Utils.loadResource(c, R.raw.front_bw4),
+                Utils.loadResource(c, R.raw.front_gw4),
+                Utils.loadResource(c, R.raw.front_yw4)
+        }; // w4Image = new Mat[]{}
+        for (i = 1; i < 5; ++i) {
+            Imgproc.cvtColor(wImage[i], wImage[i], Imgproc.COLOR_BGRA2RGBA);
+            Imgproc.cvtColor(w4Image[i], w4Image[i], Imgproc.COLOR_BGRA2RGBA);
+            loaded += 2;
+            Log.i(TAG, "Loading... (" + 100 * loaded / total + "%)");
+        } // for (i = 1; i < 5; ++i)
+
+        image = br;
+        darkImg = dk;
+    } // MatAssets(Context) (Class Constructor)
+
+    /**
+     * In MainActivity Class, get MatAssets instance here.
+     *
+     * @param c Pass a context object to let us get the card image
+     *          resources stored in this application.
+     * @return Loaded image resources.
+     */
+    static MatAssets getInstance(Context c) {
+        try {
+            return new MatAssets(c.getApplicationContext());
+        } // try
+        catch (IOException e) {
+            throw new AssertionError(e);
+        } // catch (IOException e)
+    } // getInstance(Context)
+
+    /**
+     * @return Card back image resource.
+     */
+    @Override
+    public Mat getBackImage() {
+        return backImage;
+    } // getBackImage()
+
+    /**
+     * @param direction Pass Uno.DIR_LEFT, Uno.DIR_RIGHT, or 0 (game over).
+     * @return Background image resource in specified direction.
+     */
+    @Override
+    public Mat getBackground(int direction) {
+        return direction == Uno.DIR_LEFT
+                ? bgClockwise
+                : direction == Uno.DIR_RIGHT
+                ? bgCounter
+                : bgWelcome;
+    } // getBackground(int)
+
+    /**
+     * @param card Get which card's image.
+     * @return Front image resource of the specified card.
+     */
+    @Override
+    public Mat getImage(Card card) {
+        return image[card.getId()];
+    } // getImage(Card)
+
+    /**
+     * @param card Get which card's image.
+     * @return Dark image resource of the specified card.
+     */
+    @Override
+    public Mat getDarkImage(Card card) {
+        return darkImg[card.getId()];
+    } // getDarkImage(Card)
+
+    /**
+     * When a player played a wild card and specified a following legal color,
+     * get the corresponding color-filled image here, and show it in recent
+     * card area.
+     *
+     * @param color The wild image with which color filled you want to get.
+     * @return Corresponding color-filled image.
+     */
+    @Override
+    public Mat getColoredWildImage(Color color) {
+        return wImage[color.ordinal()];
+    } // getColoredWildImage(Color)
+
+    /**
+     * When a player played a wild +4 card and specified a following legal
+     * color, get the corresponding color-filled image here, and show it in
+     * recent card area.
+     *
+     * @param color The wild +4 image with which color filled you want to get.
+     * @return Corresponding color-filled image.
+     */
+    @Override
+    public Mat getColoredWildDraw4Image(Color color) {
+        return w4Image[color.ordinal()];
+    } // getColoredWildDraw4Image(Color)
+} // MatAssets Class
+
+// E.O.F
@@ -0,0 +1,191 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Uno Card Game 4 Droid
+// Author: Hikari Toyama
+// Compile Environment: Android Studio Arctic Fox, with Android SDK 30
+// COPYRIGHT HIKARI TOYAMA, 1992-2022. ALL RIGHTS RESERVED.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.hikari_toyama.unocard.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Decision latency of every AI strategy. Each benchmark runs over a corpus
+ * of mid-game positions whose current player holds exactly handSize cards.
+ * SampleTime mode reports p50/p99 latency, and the gc profiler reports the
+ * bytes allocated per decision (gc.alloc.rate.norm).
+ * <p>
+ * AI decisions never change the game state, so the positions are generated
+ * once per trial, and reused by every invocation.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AIBenchmark {
+    /**
+     * How many positions in each corpus. Must be a power of 2.
+     */
+    static final int CORPUS_SIZE = 64;
+
+    /**
+     * Iteration budget of the EXPERT level in these benchmarks. Latency grows
+     * linearly with it.
+     */
+    static final int MCTS_ITERATIONS = 100;
+
+    /**
+     * Positions of the 4P, 2vs2 and 7-0 game modes, bucketed by hand size.
+     */
+    @State(Scope.Thread)
+    public static class Corpus {
+        @Param({"1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11", "12",
+                "13", "14", "15", "16", "17", "18", "19", "20", "21", "22",
+                "23", "24", "25", "26"})
+        int handSize;
+
+        final Color[] outColor = new Color[1];
+        AI[] free4P, team2vs2, sevenZero;
+        int cursor;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            Logger.getLogger(Uno.TAG).setLevel(java.util.logging.Level.OFF);
+            free4P = generate(4, handSize, 4000L);
+            team2vs2 = generate(2, handSize, 2000L);
+            sevenZero = generate(1, handSize, 1000L);
+            for (AI ai : free4P) {
+                ai.getSearch().setBudget(MCTS_ITERATIONS, 0);
+            } // for (AI ai : free4P)
+        } // setup()
+
+        /**
+         * @param corpus Pick a position from which corpus.
+         * @return The next position's AI instance (round robin).
+         */
+        AI next(AI[] corpus) {
+            cursor = (cursor + 1) & (CORPUS_SIZE - 1);
+            return corpus[cursor];
+        } // next(AI[])
+    } // Corpus Inner Class
+
+    /**
+     * Generate a corpus. Every position is made by playing a seeded COM-vs-COM
+     * game for a few turns, so that recent cards, strong/weak colors and the
+     * analysis data are realistic. Then current player's hand is filled up or
+     * cut down to the required size.
+     *
+     * @param gameMode 1: 7-0, 2: 2vs2, 4: 4P.
+     * @param handSize Current player's hand size in every position.
+     * @param seed     Base seed.
+     * @return AI instances, each one works on its own position.
+     */
+    static AI[] generate(int gameMode, int handSize, long seed) {
+        int i, n, status;
+        AI[] corpus = new AI[CORPUS_SIZE];
+
+        for (i = 0; i < CORPUS_SIZE; ++i) {
+            Uno uno = new Uno();
+            AI ai = new AI(uno);
+            Referee referee = new Referee(uno, ai);
+            List<Card> hand;
+
+            uno.setGameMode(gameMode);
+            uno.setDifficulty(Uno.LV_HARD);
+            referee.setSeed(seed + i);
+            status = referee.begin();
+            for (n = 4 + i % 24; n > 0 || status > Player.COM3; --n) {
+                status = status == Referee.STAT_GAME_OVER
+                        ? referee.begin()
+                        : referee.step(status);
+            } // for (n = 4 + i % 24; n > 0 || status > Player.COM3; --n)
+
+            hand = uno.getCurrPlayer().handCards;
+            while (hand.size() > handSize) {
+                uno.used[uno.usedSize++] = uno.getCurrPlayer()
+                        .removeCard(hand.size() - 1).id;
+            } // while (hand.size() > handSize)
+
+            while (hand.size() < handSize) {
+                uno.draw(uno.getNow(), /* force */ true);
+            } // while (hand.size() < handSize)
+
+            uno.replay.clear();
+            corpus[i] = ai;
+        } // for (i = 0; i < CORPUS_SIZE; ++i)
+
+        return corpus;
+    } // generate(int, int, long)
+
+    @Benchmark
+    public int easyAI_bestCardIndex4NowPlayer(Corpus c) {
+        return c.next(c.free4P).easyAI_bestCardIndex4NowPlayer(c.outColor);
+    } // easyAI_bestCardIndex4NowPlayer(Corpus)
+
+    @Benchmark
+    public int hardAI_bestCardIndex4NowPlayer(Corpus c) {
+        return c.next(c.free4P).hardAI_bestCardIndex4NowPlayer(c.outColor);
+    } // hardAI_bestCardIndex4NowPlayer(Corpus)
+
+    @Benchmark
+    public int teamAI_bestCardIndex4NowPlayer(Corpus c) {
+        return c.next(c.team2vs2).teamAI_bestCardIndex4NowPlayer(c.outColor);
+    } // teamAI_bestCardIndex4NowPlayer(Corpus)
+
+    @Benchmark
+    public int sevenZeroAI_bestCardIndex4NowPlayer(Corpus c) {
+        return c.next(c.sevenZero).sevenZeroAI_bestCardIndex4NowPlayer(c.outColor);
+    } // sevenZeroAI_bestCardIndex4NowPlayer(Corpus)
+
+    @Benchmark
+    public int mctsAI_bestCardIndex4NowPlayer(Corpus c) {
+        return c.next(c.free4P).mctsAI_bestCardIndex4NowPlayer(c.outColor);
+    } // mctsAI_bestCardIndex4NowPlayer(Corpus)
+
+    @Benchmark
+    public double getFollowProbability(Corpus c) {
+        Uno uno = c.next(c.free4P).uno;
+
+        return uno.getFollowProbability(uno.getNext(), uno.lastColor());
+    } // getFollowProbability(Corpus)
+
+    @Benchmark
+    public long getHash(Corpus c) {
+        return c.next(c.free4P).uno.getHash();
+    } // getHash(Corpus)
+
+    @Benchmark
+    public Color calcBestColor4NowPlayer(Corpus c) {
+        return c.next(c.free4P).calcBestColor4NowPlayer();
+    } // calcBestColor4NowPlayer(Corpus)
+
+    @Benchmark
+    public int calcBestSwapTarget4NowPlayer(Corpus c) {
+        return c.next(c.sevenZero).calcBestSwapTarget4NowPlayer();
+    } // calcBestSwapTarget4NowPlayer(Corpus)
+
+    @Benchmark
+    public boolean needToChallenge(Corpus c) {
+        return c.next(c.free4P).needToChallenge();
+    } // needToChallenge(Corpus)
+} // AIBenchmark Class
+
+// E.O.F
@@ -0,0 +1,121 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Uno Card Game 4 Droid
+// Author: Hikari Toyama
+// Compile Environment: Android Studio Arctic Fox, with Android SDK 30
+// COPYRIGHT HIKARI TOYAMA, 1992-2022. ALL RIGHTS RESERVED.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.hikari_toyama.unocard.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Decision latency of the endgame solver, over a corpus of endgame positions
+ * (at most Endgame.getMaxCards() hand cards in game). Compare the p99 with
+ * AIBenchmark.hardAI_bestCardIndex4NowPlayer, since the solver runs before
+ * the HARD level heuristics. With maxHidden = 0, most positions are out of
+ * scope, and the cost is the scope check. With a large maxHidden, every
+ * position is searched, and the p99 shows the node limit in effect.
+ * <p>
+ * The solver's transposition table is kept between invocations, as it is
+ * kept between the turns of a real game, so this is the warm cache latency.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EndgameBenchmark {
+    /**
+     * How many positions in each corpus. Must be a power of 2.
+     */
+    static final int CORPUS_SIZE = 64;
+
+    @State(Scope.Thread)
+    public static class Corpus {
+        @Param({"1", "2", "4"})
+        int gameMode;
+
+        @Param({"0", "12"})
+        int maxHidden;
+
+        final Color[] outColor = new Color[1];
+        final AI[] positions = new AI[CORPUS_SIZE];
+        int cursor;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            int i, status;
+            long seed = 1000L * gameMode;
+
+            Logger.getLogger(Uno.TAG).setLevel(java.util.logging.Level.OFF);
+            for (i = 0; i < CORPUS_SIZE; ++seed) {
+                Uno uno = new Uno();
+                AI ai = new AI(uno);
+                Referee referee = new Referee(uno, ai);
+
+                uno.setGameMode(gameMode);
+                uno.setDifficulty(Uno.LV_HARD);
+                referee.setSeed(seed);
+                status = referee.begin();
+                while (status != Referee.STAT_GAME_OVER
+                        && (status > Player.COM3 || totalCards(uno)
+                        > ai.getEndgame().getMaxCards())) {
+                    status = referee.step(status);
+                } // while (status != Referee.STAT_GAME_OVER && ...)
+
+                if (status != Referee.STAT_GAME_OVER) {
+                    uno.replay.clear();
+                    ai.getEndgame().setLimits(ai.getEndgame().getMaxCards(),
+                            maxHidden, ai.getEndgame().getNodeLimit());
+                    positions[i++] = ai;
+                } // if (status != Referee.STAT_GAME_OVER)
+            } // for (i = 0; i < CORPUS_SIZE; ++seed)
+        } // setup()
+
+        /**
+         * @return The next position's AI instance (round robin).
+         */
+        AI next() {
+            cursor = (cursor + 1) & (CORPUS_SIZE - 1);
+            return positions[cursor];
+        } // next()
+    } // Corpus Inner Class
+
+    /**
+     * @param uno Provide the Uno runtime instance.
+     * @return Total hand cards of the players in game.
+     */
+    static int totalCards(Uno uno) {
+        int i, total = 0;
+
+        for (i = Player.YOU; i <= Player.COM3; ++i) {
+            total += uno.getPlayer(i).getHandSize();
+        } // for (i = Player.YOU; i <= Player.COM3; ++i)
+
+        return total;
+    } // totalCards(Uno)
+
+    @Benchmark
+    public int bestCardIndex4NowPlayer(Corpus c) {
+        return c.next().getEndgame().bestCardIndex4NowPlayer(c.outColor);
+    } // bestCardIndex4NowPlayer(Corpus)
+} // EndgameBenchmark Class
+
+// E.O.F
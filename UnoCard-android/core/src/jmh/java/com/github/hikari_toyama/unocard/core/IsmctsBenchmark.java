@@ -0,0 +1,92 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Uno Card Game 4 Droid
+// Author: Hikari Toyama
+// Compile Environment: Android Studio Arctic Fox, with Android SDK 30
+// COPYRIGHT HIKARI TOYAMA, 1992-2022. ALL RIGHTS RESERVED.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.hikari_toyama.unocard.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Playout throughput of the EXPERT level search, by worker threads and
+ * parallel mode. Each invocation is a whole search of ITERATIONS iterations
+ * on the same mid-game position, so (ITERATIONS / score) is the cost of one
+ * iteration, and the score should grow with threads up to the CPU cores.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IsmctsBenchmark {
+    /**
+     * Iteration budget of every search.
+     */
+    static final int ITERATIONS = 2048;
+
+    @State(Scope.Thread)
+    public static class Search {
+        @Param({"1", "2", "4", "8"})
+        int threads;
+
+        @Param({"0", "1"})
+        int mode;
+
+        final Color[] outColor = new Color[1];
+        AI ai;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            int n, status;
+            Uno uno = new Uno();
+            Referee referee;
+
+            Logger.getLogger(Uno.TAG).setLevel(java.util.logging.Level.OFF);
+            ai = new AI(uno);
+            referee = new Referee(uno, ai);
+            uno.setGameMode(4);
+            uno.setDifficulty(Uno.LV_HARD);
+            referee.setSeed(2048L);
+            status = referee.begin();
+            for (n = 12; n > 0 || status > Player.COM3; --n) {
+                status = status == Referee.STAT_GAME_OVER
+                        ? referee.begin()
+                        : referee.step(status);
+            } // for (n = 12; n > 0 || status > Player.COM3; --n)
+
+            ai.getSearch().setBudget(ITERATIONS, 0);
+            ai.getSearch().setParallel(threads, mode);
+        } // setup()
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            ai.getSearch().shutdown();
+        } // tearDown()
+    } // Search Inner Class
+
+    @Benchmark
+    public int search(Search s) {
+        return s.ai.mctsAI_bestCardIndex4NowPlayer(s.outColor);
+    } // search(Search)
+} // IsmctsBenchmark Class
+
+// E.O.F
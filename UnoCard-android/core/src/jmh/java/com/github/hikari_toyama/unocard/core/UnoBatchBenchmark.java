@@ -0,0 +1,108 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Uno Card Game 4 Droid
+// Author: Hikari Toyama
+// Compile Environment: Android Studio Arctic Fox, with Android SDK 30
+// COPYRIGHT HIKARI TOYAMA, 1992-2022. ALL RIGHTS RESERVED.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.hikari_toyama.unocard.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * EASY-vs-EASY self-play throughput, in games per second: the object engine
+ * (Referee.playGame()) against the batch engine (UnoBatch) at several table
+ * counts. Both engines play exactly the same games.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UnoBatchBenchmark {
+    /**
+     * Games played by each invocation.
+     */
+    static final int GAMES = 4096;
+
+    @State(Scope.Thread)
+    public static class Engines {
+        @Param({"1", "2", "4"})
+        int gameMode;
+
+        /**
+         * Tables of the batch engine. The referee benchmark ignores it.
+         */
+        @Param({"1", "16", "256", "4096"})
+        int tables;
+
+        Uno uno;
+        Referee referee;
+        UnoBatch batch;
+        long seed;
+        int sum;
+
+        final UnoBatch.Listener listener = new UnoBatch.Listener() {
+            @Override
+            public void onGameOver(long game, int winner,
+                                   int turns, int reshuffles) {
+                sum += winner + turns;
+            } // onGameOver(long, int, int, int)
+        }; // listener
+
+        @Setup(Level.Trial)
+        public void setup() {
+            Logger.getLogger(Uno.TAG).setLevel(java.util.logging.Level.OFF);
+            uno = new Uno();
+            uno.setGameMode(gameMode);
+            referee = new Referee(uno, new AI(uno));
+            for (int i = 0; i < 4; ++i) {
+                referee.setStrategy(i, Referee.AI_EASY);
+            } // for (int i = 0; i < 4; ++i)
+
+            batch = new UnoBatch(tables);
+            batch.setRules(uno);
+        } // setup()
+    } // Engines Inner Class
+
+    @Benchmark
+    @OperationsPerInvocation(GAMES)
+    public int referee(Engines e) {
+        int sum = 0;
+
+        for (int n = 0; n < GAMES; ++n) {
+            e.referee.setSeed(e.seed++);
+            sum += e.referee.playGame() + e.referee.getTurns();
+        } // for (int n = 0; n < GAMES; ++n)
+
+        return sum;
+    } // referee(Engines)
+
+    @Benchmark
+    @OperationsPerInvocation(GAMES)
+    public int batch(Engines e) {
+        e.sum = 0;
+        e.batch.playGames(e.seed, 0, GAMES, e.listener);
+        e.seed += GAMES;
+        return e.sum;
+    } // batch(Engines)
+} // UnoBatchBenchmark Class
+
+// E.O.F
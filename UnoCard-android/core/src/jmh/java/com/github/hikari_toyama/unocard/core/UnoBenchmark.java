@@ -0,0 +1,243 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Uno Card Game 4 Droid
+// Author: Hikari Toyama
+// Compile Environment: Android Studio Arctic Fox, with Android SDK 30
+// COPYRIGHT HIKARI TOYAMA, 1992-2022. ALL RIGHTS RESERVED.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.hikari_toyama.unocard.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Throughput benchmarks of the rules engine's hot paths. Run with the gc
+ * profiler (configured in build.gradle) to get the allocation rate as well.
+ * <p>
+ * Benchmarks that change the game state undo their changes through the
+ * package-private members, so that every invocation sees the same position.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UnoBenchmark {
+    /**
+     * Benchmarks work on this player's hand. A COM player's drawn cards are
+     * appended to the hand tail, so a draw can be undone in O(1).
+     */
+    static final int WHO = Player.COM1;
+
+    /**
+     * A mid-game position, parameterized by hand size and stack rule.
+     */
+    @State(Scope.Thread)
+    public static class Game {
+        @Param({"1", "7", "13", "26"})
+        int handSize;
+
+        @Param({"0", "1", "2"})
+        int stackRule;
+
+        Uno uno;
+        UnoSnapshot snapshot;
+        int cursor;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            List<Card> hand;
+
+            Logger.getLogger(Uno.TAG).setLevel(java.util.logging.Level.OFF);
+            uno = new Uno();
+            uno.setSeed(20220101L);
+            uno.setPlayers(4);
+            uno.setStackRule(stackRule);
+            uno.start();
+            hand = uno.player[WHO].handCards;
+            while (hand.size() > handSize) {
+                uno.used[uno.usedSize++] =
+                        uno.player[WHO].removeCard(hand.size() - 1).id;
+            } // while (hand.size() > handSize)
+
+            while (hand.size() < handSize) {
+                uno.draw(WHO, /* force */ true);
+            } // while (hand.size() < handSize)
+
+            uno.now = WHO;
+            snapshot = uno.snapshot(null);
+        } // setup()
+
+        /**
+         * The replay record grows with every action. Clear it from time to
+         * time, or a long benchmark run will exhaust the memory.
+         */
+        void trimReplay() {
+            if (uno.replay.length() > 0x2000) {
+                uno.replay.clear();
+            } // if (uno.replay.length() > 0x2000)
+        } // trimReplay()
+
+        /**
+         * Put the last drawn card back to the top of deck.
+         */
+        void undoDraw() {
+            Player p = uno.player[WHO];
+            uno.deck[uno.deckSize++] =
+                    p.removeCard(p.handCards.size() - 1).id;
+        } // undoDraw()
+    } // Game Inner Class
+
+    /**
+     * A runtime that is ready to start a new game.
+     */
+    @State(Scope.Thread)
+    public static class Fresh {
+        Uno uno;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            Logger.getLogger(Uno.TAG).setLevel(java.util.logging.Level.OFF);
+            uno = new Uno();
+            uno.setSeed(20220101L);
+            uno.setPlayers(4);
+        } // setup()
+    } // Fresh Inner Class
+
+    /**
+     * Uno.start(): shuffle, pick the start card and deal initial cards.
+     */
+    @Benchmark
+    public int start(Fresh f) {
+        f.uno.start();
+        if (f.uno.replay.length() > 0x2000) {
+            f.uno.replay.clear();
+        } // if (f.uno.replay.length() > 0x2000)
+
+        return f.uno.getDeckCount();
+    } // start(Fresh)
+
+    /**
+     * Uno.isLegalToPlay(Card), cycling through all 54 kinds of cards.
+     */
+    @Benchmark
+    public boolean isLegalToPlay(Game g) {
+        g.cursor = g.cursor == 53 ? 0 : g.cursor + 1;
+        return g.uno.isLegalToPlay(g.uno.table[g.cursor]);
+    } // isLegalToPlay(Game)
+
+    /**
+     * Uno.legalCardsCount4NowPlayer() on a hand of handSize cards.
+     */
+    @Benchmark
+    public int legalCardsCount4NowPlayer(Game g) {
+        return g.uno.legalCardsCount4NowPlayer();
+    } // legalCardsCount4NowPlayer(Game)
+
+    /**
+     * Uno.draw(int, boolean) without reshuffle. The drawn card is put back
+     * to the deck afterwards. When handSize is MAX_HOLD_CARDS, this measures
+     * the "draw but failure" path.
+     */
+    @Benchmark
+    public int draw(Game g) {
+        int index = g.uno.draw(WHO, /* force */ true);
+
+        if (index >= 0) {
+            g.undoDraw();
+        } // if (index >= 0)
+
+        g.trimReplay();
+        return index;
+    } // draw(Game)
+
+    /**
+     * Uno.draw(int, boolean) when the deck becomes empty, i.e. the used
+     * cards are re-used and shuffled. NOTE: The measured time includes
+     * moving the cards back from deck to used cards, in order to empty
+     * the deck again. Compare the result with draw(Game).
+     */
+    @Benchmark
+    public int drawReshuffle(Game g) {
+        int index;
+        Card card;
+        Uno uno = g.uno;
+
+        while (uno.deckSize > 1) {
+            card = uno.table[uno.deck[--uno.deckSize]];
+            ++uno.colorAnalysis[card.color.ordinal()];
+            ++uno.contentAnalysis[card.content.ordinal()];
+            uno.used[uno.usedSize++] = card.id;
+        } // while (uno.deckSize > 1)
+
+        index = uno.draw(WHO, /* force */ true);
+        if (index >= 0) {
+            g.undoDraw();
+        } // if (index >= 0)
+
+        g.trimReplay();
+        return index;
+    } // drawReshuffle(Game)
+
+    /**
+     * Uno.play(int, int, Color) followed by Uno.draw(int, boolean), so that
+     * the hand size keeps unchanged. Plays the first legal card, or the
+     * first card when no legal cards in hand.
+     */
+    @Benchmark
+    public Card playThenDraw(Game g) {
+        int i, n;
+        Card card;
+        Uno uno = g.uno;
+        List<Card> hand = uno.player[WHO].handCards;
+
+        for (i = 0, n = hand.size(); i < n; ++i) {
+            if (uno.isLegalToPlay(hand.get(i))) {
+                break;
+            } // if (uno.isLegalToPlay(hand.get(i)))
+        } // for (i = 0, n = hand.size(); i < n; ++i)
+
+        card = uno.play(WHO, i < n ? i : 0, Color.RED);
+        uno.draw(WHO, /* force */ true);
+        g.trimReplay();
+        return card;
+    } // playThenDraw(Game)
+
+    /**
+     * Uno.snapshot(UnoSnapshot) into a reused snapshot object.
+     */
+    @Benchmark
+    public UnoSnapshot snapshot(Game g) {
+        return g.uno.snapshot(g.snapshot);
+    } // snapshot(Game)
+
+    /**
+     * Uno.play(int, int, Color) of the first card, then Uno.restore(
+     * UnoSnapshot) back to the mid-game position, i.e. one search branch.
+     */
+    @Benchmark
+    public Card playThenRestore(Game g) {
+        Card card = g.uno.play(WHO, 0, Color.RED);
+
+        g.uno.restore(g.snapshot);
+        return card;
+    } // playThenRestore(Game)
+} // UnoBenchmark Class
+
+// E.O.F
@@ -16,21 +16,93 @@ import static com.github.hikari_toyama.unocard.core.Content.WILD;
 import static com.github.hikari_toyama.unocard.core.Content.WILD_DRAW4;
 
 import java.util.List;
-import java.util.TreeMap;
 
 /**
  * AI Strategies.
  */
 public class AI {
+    /**
+     * Scoring weight: number cards in the best color. See setWeights().
+     */
+    public static final int W_BEST_COLOR = 0;
+
+    /**
+     * Scoring weight: per played card of the same content as a number card.
+     */
+    public static final int W_CONTENT_SEEN = 1;
+
+    /**
+     * Scoring weight: per played card of the same color as a number card.
+     */
+    public static final int W_COLOR_SEEN = 2;
+
+    /**
+     * Best color weight: per zero / reverse card in the color.
+     */
+    public static final int W_ZERO_REV = 3;
+
+    /**
+     * Best color weight: per non-zero number card in the color.
+     */
+    public static final int W_NUMBER = 4;
+
+    /**
+     * Best color weight: per skip / draw two card in the color.
+     */
+    public static final int W_SKIP_DRAW2 = 5;
+
+    /**
+     * How many weights in a weight vector.
+     */
+    public static final int W_COUNT = 6;
+
+    /**
+     * Max value of a weight.
+     */
+    public static final int W_MAX = 10000;
+
+    /**
+     * Default weight vector, the classic tuning of this AI.
+     */
+    static final int[] DEFAULT_WEIGHTS = {10000, 100, 1, 2, 4, 5};
+
     /**
      * Uno runtime.
      */
     final Uno uno;
 
+    /**
+     * Weight vector of each seat. Seat i's weight k is at
+     * weights[i * W_COUNT + k], see W(int).
+     */
+    final int[] weights = new int[4 * W_COUNT];
+
     /**
      * Record the priorities of your candidates. Used by hard AI.
      */
-    final TreeMap<Integer, Card> candidates = new TreeMap<>();
+    final Candidates candidates = new Candidates();
+
+    /**
+     * Random number generator, owned by this AI instance.
+     */
+    final Rng rng;
+
+    /**
+     * Search engine of the EXPERT level. Created on first use.
+     */
+    Ismcts search;
+
+    /**
+     * Endgame solver of the HARD and EXPERT levels. Created on first use.
+     */
+    Endgame endgame;
+
+    /**
+     * Cancellation token of the running decision, or null if none. Only set
+     * during bestCardIndex4NowPlayer(Color[], CancelToken), and polled by the
+     * expensive parts (endgame solver and search).
+     */
+    CancelToken token;
 
     /**
      * Constructor.
@@ -39,14 +111,142 @@ public class AI {
      */
     public AI(Uno uno) {
         this.uno = uno;
+        this.rng = uno.getRng().split();
+        for (int i = Player.YOU; i <= Player.COM3; ++i) {
+            System.arraycopy(DEFAULT_WEIGHTS, 0,
+                    weights, i * W_COUNT, W_COUNT);
+        } // for (int i = Player.YOU; i <= Player.COM3; ++i)
     } // AI(Uno) (Class Constructor)
 
+    /**
+     * Fake C++ Macro
+     * #define W(k) weights[uno.now * W_COUNT + (k)]
+     * Current player's weight k.
+     */
+    int W(int k) {
+        return weights[uno.now * W_COUNT + k];
+    } // W(int)
+
+    /**
+     * @return A copy of the default weight vector.
+     */
+    public static int[] getDefaultWeights() {
+        return DEFAULT_WEIGHTS.clone();
+    } // getDefaultWeights()
+
+    /**
+     * Set the weight vector of the HARD level scoring, used when the
+     * specified seat makes decisions, so that different seats in the same
+     * game can play with different weights (e.g. when tuning).
+     * <p>
+     * Number cards are ranked by W_BEST_COLOR (when in the best color), plus
+     * W_CONTENT_SEEN and W_COLOR_SEEN per played card of the same content
+     * and color. The best color is the one of the highest sum of W_ZERO_REV,
+     * W_NUMBER and W_SKIP_DRAW2 over the hand cards in that color.
+     *
+     * @param who     Set which seat's weights. Must be one of the following:
+     *                Player.YOU, Player.COM1, Player.COM2, Player.COM3.
+     * @param weights Provide W_COUNT weights, each one in [0, W_MAX].
+     */
+    public void setWeights(int who, int[] weights) {
+        if (weights == null) {
+            throw new IllegalArgumentException("DO NOT PASS NULL PARAMETER!!!");
+        } // if (weights == null)
+
+        if (who < Player.YOU || who > Player.COM3) {
+            throw new IllegalArgumentException("Invalid seat: " + who);
+        } // if (who < Player.YOU || who > Player.COM3)
+
+        if (weights.length != W_COUNT) {
+            throw new IllegalArgumentException("Need " + W_COUNT + " weights");
+        } // if (weights.length != W_COUNT)
+
+        for (int w : weights) {
+            if (w < 0 || w > W_MAX) {
+                throw new IllegalArgumentException("Weight out of range: " + w);
+            } // if (w < 0 || w > W_MAX)
+        } // for (int w : weights)
+
+        System.arraycopy(weights, 0, this.weights, who * W_COUNT, W_COUNT);
+    } // setWeights(int, int[])
+
+    /**
+     * @param who Get which seat's weights.
+     * @return A copy of the specified seat's weight vector.
+     */
+    public int[] getWeights(int who) {
+        int[] ret = new int[W_COUNT];
+
+        System.arraycopy(weights, who * W_COUNT, ret, 0, W_COUNT);
+        return ret;
+    } // getWeights(int)
+
+    /**
+     * Reset this AI's random number generator.
+     *
+     * @param seed Provide the new seed.
+     */
+    public void setSeed(long seed) {
+        rng.setSeed(seed);
+    } // setSeed(long)
+
+    /**
+     * @return Search engine of the EXPERT level. Call its setBudget(int, int)
+     * to trade strength for thinking time.
+     */
+    public Ismcts getSearch() {
+        if (search == null) {
+            search = new Ismcts(this);
+        } // if (search == null)
+
+        return search;
+    } // getSearch()
+
+    /**
+     * @return Endgame solver of the HARD and EXPERT levels. Call its
+     * setLimits(int, int, int) to trade strength for thinking time.
+     */
+    public Endgame getEndgame() {
+        if (endgame == null) {
+            endgame = new Endgame(this);
+        } // if (endgame == null)
+
+        return endgame;
+    } // getEndgame()
+
+    /**
+     * Find the legal number card (see candidates) in the color that the
+     * specified player is the least likely to follow, by card counting (see
+     * Uno.getFollowProbability(int, Color)). Ties go to the better ranked
+     * card.
+     *
+     * @param who Provide a player's id, who is not current player.
+     * @return Index of the found card in current player's hand, or -1 if no
+     * legal number cards.
+     */
+    int leastFollowedCandidate(int who) {
+        int r, i, iBest = -1;
+        double p, min = 2.0;
+        List<Card> hand = uno.getCurrPlayer().getHandCards();
+
+        for (r = 0; r < candidates.size(); ++r) {
+            i = candidates.get(r);
+            p = uno.getFollowProbability(who, hand.get(i).color);
+            if (p < min) {
+                min = p;
+                iBest = i;
+            } // if (p < min)
+        } // for (r = 0; r < candidates.size(); ++r)
+
+        return iBest;
+    } // leastFollowedCandidate(int)
+
     /**
      * Evaluate which color is the best for current player. In our evaluation
      * system, zero cards / reverse cards are worth 2 points, non-zero number
-     * cards are worth 4 points, and skip / draw two cards are worth 5 points.
-     * Finally, the color which contains the worthiest cards becomes the best
-     * color.
+     * cards are worth 4 points, and skip / draw two cards are worth 5 points
+     * (by default, see setWeights). Finally, the color which contains the
+     * worthiest cards becomes the best color.
      *
      * @return Current player's best color.
      */
@@ -91,16 +291,16 @@ public class AI {
 
                     case REV:
                     case NUM0:
-                        score[card.color.ordinal()] += 2;
+                        score[card.color.ordinal()] += W(W_ZERO_REV);
                         break; // case REV, NUM0
 
                     case SKIP:
                     case DRAW2:
-                        score[card.color.ordinal()] += 5;
+                        score[card.color.ordinal()] += W(W_SKIP_DRAW2);
                         break; // case SKIP, DRAW2
 
                     default:
-                        score[card.color.ordinal()] += 4;
+                        score[card.color.ordinal()] += W(W_NUMBER);
                         break; // default
                 } // switch (card.content)
             } // for (Card card : uno.getCurrPlayer().getHandCards())
@@ -108,7 +308,7 @@ public class AI {
             // Calculate the best color
             for (int i = 1; i < 5; ++i) {
                 if (score[i] > score[bestColor.ordinal()]) {
-                    bestColor = Color.values()[i];
+                    bestColor = Uno.COLORS[i];
                 } // if (score[i] > score[bestColor.ordinal()])
             } // for (int i = 1; i < 5; ++i)
 
@@ -127,7 +327,7 @@ public class AI {
         while ((nextIsUno && bestColor == nextStrong)
                 || (oppoIsUno && bestColor == oppoStrong && !uno.is2vs2())
                 || (prevIsUno && bestColor == prevStrong)) {
-            bestColor = Color.values()[Uno.RNG.nextInt(4) + 1];
+            bestColor = Uno.COLORS[rng.nextInt(4) + 1];
         } // while (nextIsUno && bestColor == nextStrong || ...)
 
         return bestColor;
@@ -436,7 +636,7 @@ public class AI {
         int yourSize, nextSize;
         int oppoSize, prevSize;
         Color bestColor, lastColor;
-        int i, iBest, matches, score;
+        int i, r, iBest, matches, score;
         int iRV, iSK, iDW, iWD, iWD4;
         Player next = uno.getNextPlayer();
         Player oppo = uno.getOppoPlayer();
@@ -452,6 +652,12 @@ public class AI {
             throw new IllegalArgumentException(errMsg);
         }  // if (outColor == null || outColor.length == 0)
 
+        i = getEndgame().bestCardIndex4NowPlayer(outColor);
+        if (i != Endgame.UNSOLVED) {
+            // Forced win found in the endgame
+            return i;
+        } // if (i != Endgame.UNSOLVED)
+
         yourSize = hand.size();
         if (yourSize == 1) {
             // Only one card remained. Play it when it's legal.
@@ -506,11 +712,15 @@ public class AI {
                         // by your opponents. e.g. When you put down the 8th
                         // [nine] card after 7 [nine] cards appeared, no one
                         // can change the color by using another [nine] card.
-                        score = -1000000 * (card.color == bestColor ? 1 : 0)
-                                - 10000 * uno.getContentAnalysis(card.content)
-                                - 100 * uno.getColorAnalysis(card.color)
+                        // Index i in the last two digits of score breaks ties.
+                        score = -100 * (W(W_BEST_COLOR)
+                                * (card.color == bestColor ? 1 : 0)
+                                + W(W_CONTENT_SEEN)
+                                * uno.getContentAnalysis(card.content)
+                                + W(W_COLOR_SEEN)
+                                * uno.getColorAnalysis(card.color))
                                 - i;
-                        candidates.put(score, card);
+                        candidates.add(score, i);
                         break; // default
                 } // switch (card.content)
             } // if (uno.isLegalToPlay(card))
@@ -533,13 +743,13 @@ public class AI {
                 // 3: Wild +4 cards, switch to your best color
                 // 4: Reverse cards, in any color
                 // 5: Draw one, and pray to get one of the above...
-                for (int can : candidates.keySet()) {
-                    i = -can % 100;
+                for (r = 0; r < candidates.size(); ++r) {
+                    i = candidates.get(r);
                     if (hand.get(i).color != nextStrong) {
                         iBest = i;
                         break;
                     } // if (hand.get(i).color != nextStrong)
-                } // for (int can : candidates.keySet())
+                } // for (r = 0; r < candidates.size(); ++r)
                 if (iBest < 0 && iSK >= 0)
                     iBest = iSK;
                 if (iBest < 0 && iWD >= 0)
@@ -556,13 +766,13 @@ public class AI {
                 // 1: Reverse cards, NOT in color of nextStrong
                 // 2: Skip cards, NOT in color of nextStrong
                 // 3: Draw one because it's not necessary to use wild cards
-                for (int can : candidates.keySet()) {
-                    i = -can % 100;
+                for (r = 0; r < candidates.size(); ++r) {
+                    i = candidates.get(r);
                     if (hand.get(i).color != nextStrong) {
                         iBest = i;
                         break;
                     } // if (hand.get(i).color != nextStrong)
-                } // for (int can : candidates.keySet())
+                } // for (r = 0; r < candidates.size(); ++r)
                 if (iBest < 0 && iRV >= 0 && prevSize >= 4 &&
                         hand.get(iRV).color != nextStrong)
                     iBest = iRV;
@@ -574,26 +784,30 @@ public class AI {
                 // 0: Skip cards, in any color
                 // 1: Reverse cards, in any color
                 // 2: Wild +4 cards, if no cards matching last color
-                // 3: Number cards, in your best color
+                // 3: Number cards, in the color next is the least likely
+                //    to follow (by card counting), if it is your best color
+                //    or next can follow it in less than half of the cases
                 // 4: Wild cards, switch to your best color
                 // 5: Wild +4 cards, switch to your best color
-                // 6: Number cards, in any color
+                // 6: Number cards, in the color next is the least likely
+                //    to follow
                 if (iSK >= 0)
                     iBest = iSK;
                 if (iBest < 0 && iRV >= 0)
                     iBest = iRV;
                 if (iBest < 0 && iWD4 >= 0 && matches == 0)
                     iBest = iWD4;
-                // noinspection ConstantConditions
-                if (iBest < 0 && !candidates.isEmpty() &&
-                        candidates.firstEntry().getValue().color == bestColor)
-                    iBest = -candidates.firstKey() % 100;
+                if (iBest < 0 && (i = leastFollowedCandidate(uno.getNext()))
+                        >= 0 && (hand.get(i).color == bestColor
+                        || uno.getFollowProbability(uno.getNext(),
+                        hand.get(i).color) < 0.5))
+                    iBest = i;
                 if (iBest < 0 && iWD >= 0)
                     iBest = iWD;
                 if (iBest < 0 && iWD4 >= 0)
                     iBest = iWD4;
                 if (iBest < 0 && !candidates.isEmpty())
-                    iBest = -candidates.firstKey() % 100;
+                    iBest = leastFollowedCandidate(uno.getNext());
             } // else
         } // if (nextSize == 1)
         else if (prevSize == 1) {
@@ -615,7 +829,7 @@ public class AI {
                 if (iBest < 0 && iWD4 >= 0)
                     iBest = iWD4;
                 if (iBest < 0 && !candidates.isEmpty())
-                    iBest = -candidates.firstKey() % 100;
+                    iBest = candidates.best();
             } // if (lastColor == prevStrong)
             else if (prevStrong != NONE) {
                 // Priority when prev called Uno & lastColor != prevStrong:
@@ -626,13 +840,13 @@ public class AI {
                 if (iRV >= 0 && hand.get(iRV).color != prevStrong)
                     iBest = iRV;
                 if (iBest < 0) {
-                    for (int can : candidates.keySet()) {
-                        i = -can % 100;
+                    for (r = 0; r < candidates.size(); ++r) {
+                        i = candidates.get(r);
                         if (hand.get(i).color != prevStrong) {
                             iBest = i;
                             break;
                         } // if (hand.get(i).color != prevStrong)
-                    } // for (int can : candidates.keySet())
+                    } // for (r = 0; r < candidates.size(); ++r)
                 } // if (iBest < 0)
             } // else if (prevStrong != NONE)
             else {
@@ -644,14 +858,14 @@ public class AI {
                 // 4: Draw one. DO NOT PLAY REVERSE CARDS!
                 // noinspection ConstantConditions
                 if (!candidates.isEmpty() &&
-                        candidates.firstEntry().getValue().color == bestColor)
-                    iBest = -candidates.firstKey() % 100;
+                        hand.get(candidates.best()).color == bestColor)
+                    iBest = candidates.best();
                 if (iBest < 0 && iWD >= 0 && lastColor != bestColor)
                     iBest = iWD;
                 if (iBest < 0 && iWD4 >= 0 && lastColor != bestColor)
                     iBest = iWD4;
                 if (iBest < 0 && !candidates.isEmpty())
-                    iBest = -candidates.firstKey() % 100;
+                    iBest = candidates.best();
             } // else
         } // else if (prevSize == 1)
         else if (oppoSize == 1) {
@@ -671,13 +885,13 @@ public class AI {
                 //    (pray that prev can limit oppo!)
                 // 7: Number cards, in color of oppoStrong
                 //    (pray that next can limit oppo!)
-                for (int can : candidates.keySet()) {
-                    i = -can % 100;
+                for (r = 0; r < candidates.size(); ++r) {
+                    i = candidates.get(r);
                     if (hand.get(i).color != oppoStrong) {
                         iBest = i;
                         break;
                     } // if (hand.get(i).color != oppoStrong)
-                } // for (int can : candidates.keySet())
+                } // for (r = 0; r < candidates.size(); ++r)
                 if (iBest < 0 && iRV >= 0 && hand.get(iRV).color != oppoStrong)
                     iBest = iRV;
                 if (iBest < 0 && iSK >= 0 && hand.get(iSK).color != oppoStrong)
@@ -691,7 +905,7 @@ public class AI {
                 if (iBest < 0 && iRV >= 0 && prevSize > nextSize)
                     iBest = iRV;
                 if (iBest < 0 && !candidates.isEmpty())
-                    iBest = -candidates.firstKey() % 100;
+                    iBest = candidates.best();
             } // if (lastColor == oppoStrong)
             else if (oppoStrong != NONE) {
                 // Priority when oppo called Uno & lastColor != oppoStrong:
@@ -701,13 +915,13 @@ public class AI {
                 // 2: Skip cards, NOT in color of oppoStrong
                 // 3: +2 cards, NOT in color of oppoStrong
                 // 4: Draw one because it's not necessary to use other cards
-                for (int can : candidates.keySet()) {
-                    i = -can % 100;
+                for (r = 0; r < candidates.size(); ++r) {
+                    i = candidates.get(r);
                     if (hand.get(i).color != oppoStrong) {
                         iBest = i;
                         break;
                     } // if (hand.get(i).color != oppoStrong)
-                } // for (int can : candidates.keySet())
+                } // for (r = 0; r < candidates.size(); ++r)
                 if (iBest < 0 && iRV >= 0 && hand.get(iRV).color != oppoStrong)
                     iBest = iRV;
                 if (iBest < 0 && iSK >= 0 && hand.get(iSK).color != oppoStrong)
@@ -726,7 +940,7 @@ public class AI {
                 if (iRV >= 0 && prevSize > nextSize)
                     iBest = iRV;
                 if (iBest < 0 && !candidates.isEmpty())
-                    iBest = -candidates.firstKey() % 100;
+                    iBest = candidates.best();
                 if (iBest < 0 && iWD >= 0 && lastColor != bestColor)
                     iBest = iWD;
                 if (iBest < 0 && iWD4 >= 0 && lastColor != bestColor &&
@@ -757,16 +971,16 @@ public class AI {
             if (iRV >= 0 && prevSize > nextSize)
                 iBest = iRV;
             if (iBest < 0) {
-                for (int can : candidates.keySet()) {
-                    i = -can % 100;
+                for (r = 0; r < candidates.size(); ++r) {
+                    i = candidates.get(r);
                     if (hand.get(i).color == nextWeak) {
                         iBest = i;
                         break;
                     } // if (hand.get(i).color == nextWeak)
-                } // for (int can : candidates.keySet())
+                } // for (r = 0; r < candidates.size(); ++r)
             } // if (iBest < 0)
             if (iBest < 0 && !candidates.isEmpty())
-                iBest = -candidates.firstKey() % 100;
+                iBest = candidates.best();
             if (iBest < 0 && iRV >= 0 && (prevSize >= 4
                     || prev.getRecent() == null))
                 iBest = iRV;
@@ -797,7 +1011,7 @@ public class AI {
                     || prev.getRecent() == null))
                 iBest = iRV;
             if (iBest < 0 && !candidates.isEmpty())
-                iBest = -candidates.firstKey() % 100;
+                iBest = candidates.best();
             if (iBest < 0 && iRV >= 0 && prevSize >= 4)
                 iBest = iRV;
             if (iBest < 0 && iSK >= 0 && oppoSize >= 3 &&
@@ -855,7 +1069,7 @@ public class AI {
         int yourSize, nextSize;
         int oppoSize, prevSize;
         Color bestColor, lastColor;
-        int i, iBest, matches, score;
+        int i, r, iBest, matches, score;
         int iRV, iSK, iDW, iWD, iWD4;
         Player next = uno.getNextPlayer();
         Player oppo = uno.getOppoPlayer();
@@ -870,6 +1084,12 @@ public class AI {
             throw new IllegalArgumentException(errMsg);
         }  // if (outColor == null || outColor.length == 0)
 
+        i = getEndgame().bestCardIndex4NowPlayer(outColor);
+        if (i != Endgame.UNSOLVED) {
+            // Forced win found in the endgame
+            return i;
+        } // if (i != Endgame.UNSOLVED)
+
         yourSize = hand.size();
         if (yourSize == 1) {
             // Only one card remained. Play it when it's legal.
@@ -922,11 +1142,15 @@ public class AI {
                         // by your opponents. e.g. When you put down the 8th
                         // [nine] card after 7 [nine] cards appeared, no one
                         // can change the color by using another [nine] card.
-                        score = -1000000 * (card.color == bestColor ? 1 : 0)
-                                - 10000 * uno.getContentAnalysis(card.content)
-                                - 100 * uno.getColorAnalysis(card.color)
+                        // Index i in the last two digits of score breaks ties.
+                        score = -100 * (W(W_BEST_COLOR)
+                                * (card.color == bestColor ? 1 : 0)
+                                + W(W_CONTENT_SEEN)
+                                * uno.getContentAnalysis(card.content)
+                                + W(W_COLOR_SEEN)
+                                * uno.getColorAnalysis(card.color))
                                 - i;
-                        candidates.put(score, card);
+                        candidates.add(score, i);
                         break; // default
                 } // switch (card.content)
             } // if (uno.isLegalToPlay(card))
@@ -952,26 +1176,26 @@ public class AI {
             if (iBest < 0 && iWD4 >= 0 && lastColor != bestColor)
                 iBest = iWD4;
             if (iBest < 0) {
-                for (int can : candidates.keySet()) {
-                    i = -can % 100;
+                for (r = 0; r < candidates.size(); ++r) {
+                    i = candidates.get(r);
                     if (hand.get(i).color != nextStrong) {
                         iBest = i;
                         break;
                     } // if (hand.get(i).color != nextStrong)
-                } // for (int can : candidates.keySet())
+                } // for (r = 0; r < candidates.size(); ++r)
             } // if (iBest < 0)
             if (iBest < 0 && iWD >= 0)
                 iBest = iWD;
         } // if (nextSize == 1)
         else if (prevSize == 1) {
             // Strategies when your previous player remains only one card.
-            for (int can : candidates.keySet()) {
-                i = -can % 100;
+            for (r = 0; r < candidates.size(); ++r) {
+                i = candidates.get(r);
                 if (hand.get(i).color != prevStrong) {
                     iBest = i;
                     break;
                 } // if (hand.get(i).color != prevStrong)
-            } // for (int can : candidates.keySet())
+            } // for (r = 0; r < candidates.size(); ++r)
             if (iBest < 0 && iSK >= 0 && hand.get(iSK).color != prevStrong)
                 iBest = iSK;
             if (iBest < 0 && iDW >= 0 && hand.get(iDW).color != prevStrong)
@@ -981,7 +1205,7 @@ public class AI {
             if (iBest < 0 && iWD4 >= 0 && lastColor != bestColor)
                 iBest = iWD4;
             if (iBest < 0 && !candidates.isEmpty())
-                iBest = -candidates.firstKey() % 100;
+                iBest = candidates.best();
         } // else if (prevSize == 1)
         else if (oppoSize == 1) {
             // Strategies when your team mate remains only one card.
@@ -994,13 +1218,13 @@ public class AI {
             if (iBest < 0 && iRV >= 0 && hand.get(iRV).color == oppoStrong)
                 iBest = iRV;
             if (iBest < 0) {
-                for (int can : candidates.keySet()) {
-                    i = -can % 100;
+                for (r = 0; r < candidates.size(); ++r) {
+                    i = candidates.get(r);
                     if (hand.get(i).color == oppoStrong) {
                         iBest = i;
                         break;
                     } // if (hand.get(i).color == oppoStrong)
-                } // for (int can : candidates.keySet())
+                } // for (r = 0; r < candidates.size(); ++r)
             } // if (iBest < 0)
             if (iBest < 0 && iWD >= 0 && oppoStrong != NONE &&
                     lastColor != oppoStrong)
@@ -1008,7 +1232,7 @@ public class AI {
             if (iBest < 0 && iRV >= 0 && prevSize < nextSize)
                 iBest = iRV;
             if (iBest < 0 && !candidates.isEmpty())
-                iBest = -candidates.firstKey() % 100;
+                iBest = candidates.best();
             if (iBest < 0 && iRV >= 0)
                 iBest = iRV;
             if (iBest < 0 && iWD >= 0)
@@ -1024,7 +1248,7 @@ public class AI {
                     || prev.getRecent() == null))
                 iBest = iRV;
             if (iBest < 0 && !candidates.isEmpty())
-                iBest = -candidates.firstKey() % 100;
+                iBest = candidates.best();
             if (iBest < 0 && iSK >= 0)
                 iBest = iSK;
             if (iBest < 0 && iDW >= 0)
@@ -1061,7 +1285,7 @@ public class AI {
         int yourSize, nextSize;
         int oppoSize, prevSize;
         Color bestColor, lastColor;
-        int i, i0, iBest, matches, score;
+        int i, r, i0, iBest, matches, score;
         int i7, iRV, iSK, iDW, iWD, iWD4;
         Player next = uno.getNextPlayer();
         Player oppo = uno.getOppoPlayer();
@@ -1076,6 +1300,12 @@ public class AI {
             throw new IllegalArgumentException(errMsg);
         }  // if (outColor == null || outColor.length == 0)
 
+        i = getEndgame().bestCardIndex4NowPlayer(outColor);
+        if (i != Endgame.UNSOLVED) {
+            // Forced win found in the endgame
+            return i;
+        } // if (i != Endgame.UNSOLVED)
+
         yourSize = hand.size();
         if (yourSize == 1) {
             // Only one card remained. Play it when it's legal.
@@ -1138,11 +1368,15 @@ public class AI {
                         // by your opponents. e.g. When you put down the 8th
                         // [nine] card after 7 [nine] cards appeared, no one
                         // can change the color by using another [nine] card.
-                        score = -1000000 * (card.color == bestColor ? 1 : 0)
-                                - 10000 * uno.getContentAnalysis(card.content)
-                                - 100 * uno.getColorAnalysis(card.color)
+                        // Index i in the last two digits of score breaks ties.
+                        score = -100 * (W(W_BEST_COLOR)
+                                * (card.color == bestColor ? 1 : 0)
+                                + W(W_CONTENT_SEEN)
+                                * uno.getContentAnalysis(card.content)
+                                + W(W_COLOR_SEEN)
+                                * uno.getColorAnalysis(card.color))
                                 - i;
-                        candidates.put(score, card);
+                        candidates.add(score, i);
                         break; // default
                 } // switch (card.content)
             } // if (uno.isLegalToPlay(card))
@@ -1181,13 +1415,13 @@ public class AI {
             if (iBest < 0 && iWD4 >= 0 && lastColor != bestColor)
                 iBest = iWD4;
             if (iBest < 0) {
-                for (int can : candidates.keySet()) {
-                    i = -can % 100;
+                for (r = 0; r < candidates.size(); ++r) {
+                    i = candidates.get(r);
                     if (hand.get(i).color != nextStrong) {
                         iBest = i;
                         break;
                     } // if (hand.get(i).color != nextStrong)
-                } // for (int can : candidates.keySet())
+                } // for (r = 0; r < candidates.size(); ++r)
             } // if (iBest < 0)
             if (iBest < 0 && iWD >= 0 && i7 + i0 > -2)
                 iBest = iWD;
@@ -1200,13 +1434,13 @@ public class AI {
             if (iBest < 0 && i7 >= 0)
                 iBest = i7;
             if (iBest < 0) {
-                for (int can : candidates.keySet()) {
-                    i = -can % 100;
+                for (r = 0; r < candidates.size(); ++r) {
+                    i = candidates.get(r);
                     if (hand.get(i).color != prevStrong) {
                         iBest = i;
                         break;
                     } // if (hand.get(i).color != prevStrong)
-                } // for (int can : candidates.keySet())
+                } // for (r = 0; r < candidates.size(); ++r)
             } // if (iBest < 0)
             if (iBest < 0 && iSK >= 0 && hand.get(iSK).color != prevStrong)
                 iBest = iSK;
@@ -1217,7 +1451,7 @@ public class AI {
             if (iBest < 0 && iWD4 >= 0 && lastColor != bestColor)
                 iBest = iWD4;
             if (iBest < 0 && !candidates.isEmpty())
-                iBest = -candidates.firstKey() % 100;
+                iBest = candidates.best();
         } // else if (prevSize == 1)
         else if (oppoSize == 1) {
             // Strategies when your opposite player remains only one card.
@@ -1227,13 +1461,13 @@ public class AI {
             if (iBest < 0 && i0 >= 0)
                 iBest = i0;
             if (iBest < 0) {
-                for (int can : candidates.keySet()) {
-                    i = -can % 100;
+                for (r = 0; r < candidates.size(); ++r) {
+                    i = candidates.get(r);
                     if (hand.get(i).color != oppoStrong) {
                         iBest = i;
                         break;
                     } // if (hand.get(i).color != oppoStrong)
-                } // for (int can : candidates.keySet())
+                } // for (r = 0; r < candidates.size(); ++r)
             } // if (iBest < 0)
             if (iBest < 0 && iRV >= 0 && prevSize > nextSize)
                 iBest = iRV;
@@ -1246,7 +1480,7 @@ public class AI {
             if (iBest < 0 && iWD4 >= 0 && lastColor != bestColor)
                 iBest = iWD4;
             if (iBest < 0 && !candidates.isEmpty())
-                iBest = -candidates.firstKey() % 100;
+                iBest = candidates.best();
         } // else if (oppoSize == 1)
         else {
             // Normal strategies
@@ -1261,7 +1495,7 @@ public class AI {
                     || prev.getRecent() == null))
                 iBest = iRV;
             if (iBest < 0 && !candidates.isEmpty())
-                iBest = -candidates.firstKey() % 100;
+                iBest = candidates.best();
             if (iBest < 0 && iSK >= 0)
                 iBest = iSK;
             if (iBest < 0 && iDW >= 0)
@@ -1285,6 +1519,87 @@ public class AI {
         outColor[0] = bestColor;
         return iBest;
     } // sevenZeroAI_bestCardIndex4NowPlayer(Color[])
+
+    /**
+     * AI Strategies (Difficulty: EXPERT). Search current player's best action
+     * by Information Set Monte Carlo Tree Search, within the budget set by
+     * getSearch().setBudget(int, int). Other players' hidden hand cards are
+     * guessed from what current player can see, and every guess is played to
+     * the end many times, see Ismcts class.
+     *
+     * @param outColor This is a out parameter. Pass a Color array (length>=1)
+     *                 in order to let us pass the return value by assigning
+     *                 outColor[0]. When the best card to play becomes a wild
+     *                 card, outColor[0] will become the following legal color
+     *                 to change. When the best card to play becomes an action
+     *                 or a number card, outColor[0] will become the player's
+     *                 best color.
+     * @return Index of the best card to play, in current player's hand.
+     * Or a negative number that means no appropriate card to play.
+     */
+    public int mctsAI_bestCardIndex4NowPlayer(Color[] outColor) {
+        int i;
+
+        if (outColor == null || outColor.length == 0) {
+            String errMsg = "outColor cannot be null or Color[0]";
+            throw new IllegalArgumentException(errMsg);
+        } // if (outColor == null || outColor.length == 0)
+
+        i = getEndgame().bestCardIndex4NowPlayer(outColor);
+        if (i != Endgame.UNSOLVED) {
+            // Forced win found in the endgame
+            return i;
+        } // if (i != Endgame.UNSOLVED)
+
+        return getSearch().bestCardIndex4NowPlayer(outColor);
+    } // mctsAI_bestCardIndex4NowPlayer(Color[])
+
+    /**
+     * Anytime AI entry point. Choose the strategy like the UI does, by the
+     * difficulty and the game rules, and think no longer than the token
+     * allows. When the token says to stop, the expensive parts (endgame
+     * solver and EXPERT level search) stop after the running playout, and
+     * the best action found so far is returned, so this method always gives
+     * a legal decision. The cheap heuristics of the EASY and HARD
+     * levels always run to the end.
+     * <p>
+     * Call this method on a worker thread, and token.cancel() from any other
+     * thread (e.g. when the game is paused) to get the decision back at once.
+     *
+     * @param outColor This is a out parameter. Pass a Color array (length>=1)
+     *                 in order to let us pass the return value by assigning
+     *                 outColor[0]. See easyAI_bestCardIndex4NowPlayer.
+     * @param token    Provide the deadline and the cancellation of this
+     *                 decision, see CancelToken class.
+     * @return Index of the best card to play, in current player's hand.
+     * Or a negative number that means no appropriate card to play.
+     */
+    public int bestCardIndex4NowPlayer(Color[] outColor, CancelToken token) {
+        if (outColor == null || outColor.length == 0) {
+            String errMsg = "outColor cannot be null or Color[0]";
+            throw new IllegalArgumentException(errMsg);
+        } // if (outColor == null || outColor.length == 0)
+
+        if (token == null) {
+            throw new IllegalArgumentException("DO NOT PASS NULL PARAMETER!!!");
+        } // if (token == null)
+
+        this.token = token;
+        try {
+            return uno.getDifficulty() == Uno.LV_EASY
+                    ? easyAI_bestCardIndex4NowPlayer(outColor)
+                    : uno.getDifficulty() == Uno.LV_EXPERT
+                    ? mctsAI_bestCardIndex4NowPlayer(outColor)
+                    : uno.isSevenZeroRule()
+                    ? sevenZeroAI_bestCardIndex4NowPlayer(outColor)
+                    : uno.is2vs2()
+                    ? teamAI_bestCardIndex4NowPlayer(outColor)
+                    : hardAI_bestCardIndex4NowPlayer(outColor);
+        } // try
+        finally {
+            this.token = null;
+        } // finally
+    } // bestCardIndex4NowPlayer(Color[], CancelToken)
 } // AI Class
 
-// E.O.F
\ No newline at end of file
+// E.O.F
@@ -0,0 +1,64 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Uno Card Game 4 Droid
+// Author: Hikari Toyama
+// Compile Environment: Android Studio Arctic Fox, with Android SDK 30
+// COPYRIGHT HIKARI TOYAMA, 1992-2022. ALL RIGHTS RESERVED.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.hikari_toyama.unocard.core;
+
+/**
+ * Image resources used to show an Uno game. The rules engine never touches
+ * them, so a front-end only needs to provide this interface when it draws
+ * something, e.g. the OpenCV Mat provider in our Android application.
+ *
+ * @param <T> Type of an image resource, e.g. org.opencv.core.Mat
+ */
+public interface AssetProvider<T> {
+    /**
+     * @return Card back image resource.
+     */
+    T getBackImage();
+
+    /**
+     * @param direction Pass Uno.DIR_LEFT, Uno.DIR_RIGHT, or 0 (game over).
+     * @return Background image resource in specified direction.
+     */
+    T getBackground(int direction);
+
+    /**
+     * @param card Get which card's image.
+     * @return Front image resource of the specified card.
+     */
+    T getImage(Card card);
+
+    /**
+     * @param card Get which card's image.
+     * @return Dark image resource of the specified card.
+     */
+    T getDarkImage(Card card);
+
+    /**
+     * When a player played a wild card and specified a following legal color,
+     * get the corresponding color-filled image here, and show it in recent
+     * card area.
+     *
+     * @param color The wild image with which color filled you want to get.
+     * @return Corresponding color-filled image.
+     */
+    T getColoredWildImage(Color color);
+
+    /**
+     * When a player played a wild +4 card and specified a following legal
+     * color, get the corresponding color-filled image here, and show it in
+     * recent card area.
+     *
+     * @param color The wild +4 image with which color filled you want to get.
+     * @return Corresponding color-filled image.
+     */
+    T getColoredWildDraw4Image(Color color);
+} // AssetProvider Interface
+
+// E.O.F
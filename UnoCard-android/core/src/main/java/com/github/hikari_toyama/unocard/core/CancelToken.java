@@ -0,0 +1,85 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Uno Card Game 4 Droid
+// Author: Hikari Toyama
+// Compile Environment: Android Studio Arctic Fox, with Android SDK 30
+// COPYRIGHT HIKARI TOYAMA, 1992-2022. ALL RIGHTS RESERVED.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.hikari_toyama.unocard.core;
+
+/**
+ * Tells a running AI decision when to stop thinking: at its deadline, or as
+ * soon as cancel() is called from any thread. A stopped decision is not an
+ * error. It still returns the best action found so far, see
+ * AI.bestCardIndex4NowPlayer(Color[], CancelToken). Create a new token for
+ * each decision.
+ */
+public class CancelToken {
+    /**
+     * Deadline in System.nanoTime(), or 0 if none.
+     */
+    final long deadline;
+
+    /**
+     * Set to true by cancel().
+     */
+    volatile boolean cancelled;
+
+    /**
+     * Constructor. Create a token without deadline.
+     */
+    public CancelToken() {
+        this(0L);
+    } // CancelToken() (Class Constructor)
+
+    /**
+     * Constructor.
+     *
+     * @param timeLimit Stop thinking after this many milliseconds from now,
+     *                  or pass 0 for no deadline.
+     */
+    public CancelToken(long timeLimit) {
+        if (timeLimit < 0L) {
+            throw new IllegalArgumentException("timeLimit must not be < 0");
+        } // if (timeLimit < 0L)
+
+        // Bit 0 is set, so that a real deadline is never read as 0 (none)
+        deadline = timeLimit > 0L
+                ? (System.nanoTime() + timeLimit * 1000000L) | 1L : 0L;
+    } // CancelToken(long) (Class Constructor)
+
+    /**
+     * Stop the decision as soon as possible. Can be called from any thread,
+     * at any time, and more than once.
+     */
+    public void cancel() {
+        cancelled = true;
+    } // cancel()
+
+    /**
+     * @return Whether cancel() was called.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    } // isCancelled()
+
+    /**
+     * @return Deadline in System.nanoTime(), or 0 if none.
+     */
+    public long getDeadline() {
+        return deadline;
+    } // getDeadline()
+
+    /**
+     * @return Whether the decision should stop now, i.e. cancel() was called,
+     * or the deadline has passed.
+     */
+    public boolean shouldStop() {
+        return cancelled
+                || deadline != 0L && System.nanoTime() - deadline > 0L;
+    } // shouldStop()
+} // CancelToken Class
+
+// E.O.F
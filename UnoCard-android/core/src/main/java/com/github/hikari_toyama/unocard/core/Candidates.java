@@ -0,0 +1,115 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Uno Card Game 4 Droid
+// Author: Hikari Toyama
+// Compile Environment: Android Studio Arctic Fox, with Android SDK 30
+// COPYRIGHT HIKARI TOYAMA, 1992-2022. ALL RIGHTS RESERVED.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.hikari_toyama.unocard.core;
+
+/**
+ * Scored candidate cards of one AI decision, in primitive arrays. The lower
+ * the score, the better the candidate. Nothing is allocated after
+ * construction, so one instance is cleared and refilled on every decision.
+ * <p>
+ * Candidates are ranked lazily: get(r) sorts only the first r + 1 ranks, by
+ * selection. Decisions walk from the best candidate and usually stop at the
+ * first or second one, so the rest is never sorted.
+ */
+class Candidates {
+    /**
+     * Scores, the first [sorted] in ascending order.
+     */
+    final int[] scores = new int[Uno.MAX_HOLD_CARDS];
+
+    /**
+     * Hand indexes, parallel to scores.
+     */
+    final int[] indexes = new int[Uno.MAX_HOLD_CARDS];
+
+    /**
+     * Number of candidates.
+     */
+    int size;
+
+    /**
+     * Number of ranks already sorted.
+     */
+    int sorted;
+
+    /**
+     * Remove all candidates.
+     */
+    void clear() {
+        size = sorted = 0;
+    } // clear()
+
+    /**
+     * Add a candidate. Scores of different candidates must be different, so
+     * that the ranking does not depend on the order of add() calls.
+     *
+     * @param score Score of the candidate. Lower is better.
+     * @param index Index of the candidate card in hand.
+     */
+    void add(int score, int index) {
+        scores[size] = score;
+        indexes[size] = index;
+        ++size;
+        sorted = 0;
+    } // add(int, int)
+
+    /**
+     * @return Whether there is no candidate.
+     */
+    boolean isEmpty() {
+        return size == 0;
+    } // isEmpty()
+
+    /**
+     * @return Number of candidates.
+     */
+    int size() {
+        return size;
+    } // size()
+
+    /**
+     * @return Hand index of the best candidate, or -1 if none.
+     */
+    int best() {
+        return size == 0 ? -1 : get(0);
+    } // best()
+
+    /**
+     * Get the candidate of the specified rank.
+     *
+     * @param rank Rank of the candidate, 0 for the best one. Must be less
+     *             than size().
+     * @return Hand index of that candidate.
+     */
+    int get(int rank) {
+        int i, min, score;
+
+        while (sorted <= rank) {
+            // Select the best of the unsorted ones, and put it in place
+            for (min = i = sorted; ++i < size; ) {
+                if (scores[i] < scores[min]) {
+                    min = i;
+                } // if (scores[i] < scores[min])
+            } // for (min = i = sorted; ++i < size; )
+
+            score = scores[min];
+            scores[min] = scores[sorted];
+            scores[sorted] = score;
+            i = indexes[min];
+            indexes[min] = indexes[sorted];
+            indexes[sorted] = i;
+            ++sorted;
+        } // while (sorted <= rank)
+
+        return indexes[rank];
+    } // get(int)
+} // Candidates Class
+
+// E.O.F
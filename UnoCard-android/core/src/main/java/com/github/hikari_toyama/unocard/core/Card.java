@@ -9,8 +9,6 @@
 
 package com.github.hikari_toyama.unocard.core;
 
-import org.opencv.core.Mat;
-
 /**
  * Uno Card Class.
  */
@@ -35,18 +33,6 @@ public class Card implements Comparable<Card> {
      */
     public final Color color;
 
-    /**
-     * Card's image resource ID, e.g. Imgcodecs.imread
-     * ("/sdcard/Android/data/com.github.hikari_toyama/files/front_b3.png")
-     */
-    public final Mat image;
-
-    /**
-     * Card's dark image resource, e.g. Imgcodecs.imread
-     * ("/sdcard/Android/data/com.github.hikari_toyama/files/dark_b3.png")
-     */
-    public final Mat darkImg;
-
     /**
      * Card's content, e.g. Content.NUM3
      */
@@ -65,16 +51,9 @@ public class Card implements Comparable<Card> {
 
     /**
      * Constructor. Provide parameters for an Uno card and create its instance.
+     * Card images are not held here. Get them from an AssetProvider instead.
      */
-    Card(Mat image, Mat darkImg, Color color, Content content) {
-        if (image == null) {
-            throw new IllegalArgumentException("DO NOT PASS NULL PARAMETER!!!");
-        } // if (image == null)
-
-        if (darkImg == null) {
-            throw new IllegalArgumentException("DO NOT PASS NULL PARAMETER!!!");
-        } // if (darkImg == null)
-
+    Card(Color color, Content content) {
         if (color == null) {
             throw new IllegalArgumentException("DO NOT PASS NULL PARAMETER!!!");
         } // if (color == null)
@@ -84,14 +63,12 @@ public class Card implements Comparable<Card> {
         } // if (content == null)
 
         this.color = color;
-        this.image = image;
-        this.darkImg = darkImg;
         this.content = content;
         this.id = isWild()
                 ? 39 + content.ordinal()
                 : 13 * (color.ordinal() - 1) + content.ordinal();
         this.name = NAME[id];
-    } // Card(Mat, Mat, Color, Content) (Class Constructor)
+    } // Card(Color, Content) (Class Constructor)
 
     /**
      * Compare the id number of two cards.
@@ -105,6 +82,13 @@ public class Card implements Comparable<Card> {
         return this.id - that.id;
     } // compareTo(Card)
 
+    /**
+     * @return Card's ID (0 ~ 53). See also Uno.findCardById(int).
+     */
+    public int getId() {
+        return id;
+    } // getId()
+
     /**
      * @return Whether the card is a [wild] or [wild +4].
      */
@@ -0,0 +1,899 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Uno Card Game 4 Droid
+// Author: Hikari Toyama
+// Compile Environment: Android Studio Arctic Fox, with Android SDK 30
+// COPYRIGHT HIKARI TOYAMA, 1992-2022. ALL RIGHTS RESERVED.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.hikari_toyama.unocard.core;
+
+import java.util.List;
+
+/**
+ * Exact endgame solver. When current player knows every hand card in game
+ * (revealed by a challenge, or passed by itself in 7-0 rule), and only a few
+ * cards are left in hands, the rest of the game is nearly a perfect
+ * information game. This class searches it by iterative deepening AND/OR
+ * search, with move ordering and a transposition table, for a forced win:
+ * an action after which current player (or its teammate in 2vs2 mode) wins,
+ * whatever the others do and whatever cards are drawn. See
+ * setLimits(int, int, int) for the positions in scope.
+ * <p>
+ * Cards drawn from the deck are never guessed. A card drawn by anyone else
+ * is assumed to be any unseen card (any card at all, after the deck runs
+ * out and the used cards are shuffled back), whichever is the worst for us
+ * at the time it is played, and a card drawn by current player is assumed
+ * to be unplayable. Only play/draw decisions of current player are
+ * searched. Its challenges and swap targets are left to the heuristic AI,
+ * so every choice there must win. So a solved action is a real forced win,
+ * although some forced wins are missed. When no forced win is found within
+ * the limits, the caller falls back to the heuristic AI.
+ * <p>
+ * Allocation free after construction. Not thread-safe.
+ */
+public class Endgame {
+    /**
+     * Returned by bestCardIndex4NowPlayer(Color[]) when no forced win is
+     * found, or when current position is out of this solver's scope.
+     */
+    public static final int UNSOLVED = -2;
+
+    /**
+     * Max search depth, in actions.
+     */
+    static final int MAX_DEPTH = 32;
+
+    /**
+     * Max actions of a node.
+     */
+    static final int MAX_MOVES = 256;
+
+    /**
+     * Action encoding: bits 0~5 are the card id (or the challenge outcome,
+     * see DOUBT_*), bits 6~8 are the color ordinal, bits 9~10 are the swap
+     * target, bits 14~15 are the operation, and the flags below.
+     */
+    static final int OP_PLAY = 0;
+    static final int OP_DRAW = 1 << 14;
+    static final int OP_DRAW_PLAY = 2 << 14;
+    static final int OP_DOUBT = 3 << 14;
+    static final int OP_MASK = 3 << 14;
+
+    /**
+     * Action flag: the played card is an unknown card.
+     */
+    static final int F_JOKER = 1 << 11;
+
+    /**
+     * Action flag: one more outcome of the previous decision (e.g. another
+     * swap target). A decision wins only when all of its outcomes win.
+     */
+    static final int F_SAME = 1 << 12;
+
+    /**
+     * Outcomes of a wild +4 card: not challenged, challenged with success,
+     * and challenged with failure.
+     */
+    static final int DOUBT_ACCEPT = 0;
+    static final int DOUBT_SUCCESS = 1;
+    static final int DOUBT_FAIL = 2;
+
+    /**
+     * Node phases: waiting for a play/draw action, or waiting for the next
+     * player to challenge the wild +4 card just played.
+     */
+    static final int PHASE_PLAY = 0;
+    static final int PHASE_DOUBT = 1;
+
+    /**
+     * Card ids of wild cards.
+     */
+    static final int ID_WILD = 52;
+    static final int ID_WILD_DRAW4 = 53;
+
+    /**
+     * Card ids in move ordering. Aggressive cards first, since they end the
+     * game quickly, and the wild card last, since it is the most flexible.
+     */
+    static final int[] ORDER = makeOrder();
+
+    /**
+     * Searched position. Hands are stored by slots. Seat i holds the hand
+     * in slot[i], so swapping hands in 7-0 rule only swaps slot numbers.
+     * An unknown card may be any card id in pool, and deck is how many cards
+     * are left in the deck.
+     */
+    static final class State {
+        final byte[] counts = new byte[4 * 54];
+        final long[] masks = new long[4];
+        final long[] hashes = new long[4];
+        final int[] sizes = new int[4];
+        final int[] unknown = new int[4];
+        final int[] slot = new int[4];
+        int top, color, now, direction, stack, phase, prevColor, deck;
+        long pool;
+
+        /**
+         * Copy another state into this one.
+         *
+         * @param that Provide the source state.
+         */
+        void copyFrom(State that) {
+            System.arraycopy(that.counts, 0, counts, 0, 4 * 54);
+            System.arraycopy(that.masks, 0, masks, 0, 4);
+            System.arraycopy(that.hashes, 0, hashes, 0, 4);
+            System.arraycopy(that.sizes, 0, sizes, 0, 4);
+            System.arraycopy(that.unknown, 0, unknown, 0, 4);
+            System.arraycopy(that.slot, 0, slot, 0, 4);
+            top = that.top;
+            color = that.color;
+            now = that.now;
+            direction = that.direction;
+            stack = that.stack;
+            phase = that.phase;
+            prevColor = that.prevColor;
+            deck = that.deck;
+            pool = that.pool;
+        } // copyFrom(State)
+    } // State Inner Class
+
+    /**
+     * AI instance working on the live Uno runtime.
+     */
+    final AI ai;
+
+    /**
+     * Search stack. states[ply] is the position at that ply.
+     */
+    final State[] states = new State[MAX_DEPTH + 1];
+
+    /**
+     * Generated actions. moves[ply * MAX_MOVES ...] belong to that ply.
+     */
+    final int[] moves = new int[MAX_DEPTH * MAX_MOVES];
+
+    /**
+     * Proven results by position. Value bit 0 is set for a forced win, and
+     * bits 1~8 are the depth searched for an unproven position.
+     */
+    final TranspositionTable table = new TranspositionTable(13);
+
+    /**
+     * Search limits: total hand cards in game, cards in others' hands that
+     * the searching player does not know, and visited nodes.
+     */
+    int maxCards, maxHidden, nodeLimit;
+
+    /**
+     * Rules and the searching player, copied from the live game.
+     */
+    int root, players, stackRule, forcePlayRule;
+    boolean _2vs2, sevenZeroRule;
+
+    /**
+     * Mixed into every position key, for the rules and the searching player.
+     */
+    long salt;
+
+    /**
+     * Visited nodes in current search, and whether the node limit was hit.
+     */
+    int nodes;
+    boolean aborted;
+
+    /**
+     * The winning action found at ply 0.
+     */
+    int rootMove;
+
+    /**
+     * Statistics: positions in scope (searched), and forced wins found.
+     */
+    long searches, solved;
+
+    /**
+     * Constructor.
+     *
+     * @param ai Provide the AI instance working on the live Uno runtime.
+     */
+    public Endgame(AI ai) {
+        if (ai == null) {
+            throw new IllegalArgumentException("DO NOT PASS NULL PARAMETER!!!");
+        } // if (ai == null)
+
+        this.ai = ai;
+        this.maxCards = 12;
+        this.maxHidden = 6;
+        this.nodeLimit = 2048;
+        for (int i = 0; i <= MAX_DEPTH; ++i) {
+            states[i] = new State();
+        } // for (int i = 0; i <= MAX_DEPTH; ++i)
+    } // Endgame(AI) (Class Constructor)
+
+    /**
+     * Fake C++ Macro
+     * Card ids in move ordering, see ORDER.
+     */
+    static int[] makeOrder() {
+        int i, c, n = 0;
+        int[] order = new int[54];
+        int[] contents = {10, 12, 11, 9, 8, 7, 6, 5, 4, 3, 2, 1, 0};
+
+        order[n++] = ID_WILD_DRAW4;
+        for (i = 0; i < contents.length; ++i) {
+            for (c = 0; c < 4; ++c) {
+                order[n++] = 13 * c + contents[i];
+            } // for (c = 0; c < 4; ++c)
+        } // for (i = 0; i < contents.length; ++i)
+
+        order[n] = ID_WILD;
+        return order;
+    } // makeOrder()
+
+    /**
+     * Fake C++ Macro
+     * Content ordinal of a card id.
+     */
+    static int CONTENT(int id) {
+        return id >= ID_WILD ? id - 39 : id % 13;
+    } // CONTENT(int)
+
+    /**
+     * Set the search limits. The worst case time of a search is in
+     * proportion to the node limit. With the default limits (12 cards, 6
+     * hidden cards, 2048 nodes), a search usually ends within 100
+     * microseconds, and the worst case is below 10 milliseconds on a
+     * desktop CPU. Fully open positions (no hidden cards) are rare in real
+     * games, because others' hands are open only after a 7-0 swap or a
+     * challenge, so a maxHidden of 0 leaves the solver almost unused. A
+     * larger node limit hardly finds more forced wins.
+     *
+     * @param maxCards  Solve only when the total hand cards in game are not
+     *                  more than this value. Must be positive.
+     * @param maxHidden Solve only when the cards in others' hands that
+     *                  current player does not know are not more than this
+     *                  value. Hidden cards are handled like drawn cards
+     *                  (the worst for us), so a solved action is still a
+     *                  forced win, but searches take more time. Pass 0 to
+     *                  solve fully open positions only. Must not be negative.
+     * @param nodeLimit Give up when more nodes than this value are visited,
+     *                  or when the AI's CancelToken says to stop. Must be
+     *                  positive.
+     */
+    public void setLimits(int maxCards, int maxHidden, int nodeLimit) {
+        if (maxCards > 0 && maxHidden >= 0 && nodeLimit > 0) {
+            this.maxCards = maxCards;
+            this.maxHidden = maxHidden;
+            this.nodeLimit = nodeLimit;
+        } // if (maxCards > 0 && maxHidden >= 0 && nodeLimit > 0)
+    } // setLimits(int, int, int)
+
+    /**
+     * @return Max total hand cards to solve.
+     */
+    public int getMaxCards() {
+        return maxCards;
+    } // getMaxCards()
+
+    /**
+     * @return Max hidden cards to solve.
+     */
+    public int getMaxHidden() {
+        return maxHidden;
+    } // getMaxHidden()
+
+    /**
+     * @return Max visited nodes of a search.
+     */
+    public int getNodeLimit() {
+        return nodeLimit;
+    } // getNodeLimit()
+
+    /**
+     * @return How many positions were in scope, thus searched, so far.
+     */
+    public long getSearches() {
+        return searches;
+    } // getSearches()
+
+    /**
+     * @return How many forced wins were found so far.
+     */
+    public long getSolved() {
+        return solved;
+    } // getSolved()
+
+    /**
+     * @return Visited nodes in the last search, or 0 if the last position was
+     * out of scope.
+     */
+    public int getLastNodes() {
+        return nodes;
+    } // getLastNodes()
+
+    /**
+     * Search for a forced win of current player in the live game.
+     *
+     * @param outColor Out parameter, see AI.hardAI_bestCardIndex4NowPlayer.
+     * @return Index of the card to play, in current player's hand, or -1 that
+     * means to draw a card, when a forced win is found. Otherwise UNSOLVED.
+     */
+    int bestCardIndex4NowPlayer(Color[] outColor) {
+        int i, n, id, depth;
+        Card card;
+        List<Card> hand;
+
+        nodes = 0;
+        if (!load(ai.uno.now)) {
+            return UNSOLVED;
+        } // if (!load(ai.uno.now))
+
+        ++searches;
+        aborted = false;
+        table.nextGeneration();
+        for (depth = 1; depth <= MAX_DEPTH && !aborted; ++depth) {
+            if (solve(0, depth)) {
+                ++solved;
+                outColor[0] = ai.calcBestColor4NowPlayer();
+                if ((rootMove & OP_MASK) == OP_DRAW) {
+                    return -1;
+                } // if ((rootMove & OP_MASK) == OP_DRAW)
+
+                id = rootMove & 0x3f;
+                card = ai.uno.table[id];
+                if (card.isWild()) {
+                    outColor[0] = Uno.COLORS[(rootMove >>> 6) & 7];
+                } // if (card.isWild())
+
+                hand = ai.uno.getCurrPlayer().getHandCards();
+                for (i = 0, n = hand.size(); i < n; ++i) {
+                    if (hand.get(i).id == id) {
+                        return i;
+                    } // if (hand.get(i).id == id)
+                } // for (i = 0, n = hand.size(); i < n; ++i)
+            } // if (solve(0, depth))
+        } // for (depth = 1; depth <= MAX_DEPTH && !aborted; ++depth)
+
+        return UNSOLVED;
+    } // bestCardIndex4NowPlayer(Color[])
+
+    /**
+     * Check whether the live game is in this solver's scope, and if so, load
+     * it into states[0].
+     *
+     * @param who Provide the searching player (normally current player).
+     * @return True if loaded.
+     */
+    boolean load(int who) {
+        int i, total, hidden;
+        long h;
+        Card top;
+        Uno uno = ai.uno;
+        State s = states[0];
+
+        top = uno.recent[3].card;
+        if (top == null || uno.direction == 0) {
+            return false;
+        } // if (top == null || uno.direction == 0)
+
+        root = who;
+        players = uno.players;
+        for (i = Player.YOU, total = 0; i <= Player.COM3; ++i) {
+            if (players == 4 || i != Player.COM2) {
+                total += uno.player[i].getHandSize();
+            } // if (players == 4 || i != Player.COM2)
+        } // for (i = Player.YOU, total = 0; i <= Player.COM3; ++i)
+
+        if (total > maxCards) {
+            return false;
+        } // if (total > maxCards)
+
+        for (i = Player.YOU, hidden = 0; i <= Player.COM3; ++i) {
+            hidden += loadHand(s, i, uno.player[i]);
+        } // for (i = Player.YOU, hidden = 0; i <= Player.COM3; ++i)
+
+        if (hidden > maxHidden) {
+            return false;
+        } // if (hidden > maxHidden)
+
+        for (i = 0, s.pool = 0L; i < 54; ++i) {
+            if (uno.getUnseenCount(root, i) > 0) {
+                s.pool |= 1L << i;
+            } // if (uno.getUnseenCount(root, i) > 0)
+        } // for (i = 0, s.pool = 0L; i < 54; ++i)
+
+        _2vs2 = uno._2vs2;
+        sevenZeroRule = uno.sevenZeroRule;
+        stackRule = uno.stackRule;
+        forcePlayRule = uno.forcePlayRule;
+        h = players
+                | (_2vs2 ? 0x08 : 0x00)
+                | (sevenZeroRule ? 0x10 : 0x00)
+                | stackRule << 5
+                | forcePlayRule << 7
+                | root << 9;
+        salt = Rng.mix64(h);
+
+        s.top = top.id;
+        s.color = uno.recent[3].color.ordinal();
+        s.now = uno.now;
+        s.direction = uno.direction;
+        s.stack = uno.draw2StackCount;
+        s.phase = PHASE_PLAY;
+        s.prevColor = 0;
+        s.deck = uno.deckSize;
+        return true;
+    } // load(int)
+
+    /**
+     * Load a hand into states[0]. Cards in others' hands that the searching
+     * player does not know (see Uno.getUnseenCount(int, int)) are loaded as
+     * unknown cards.
+     *
+     * @param s    Provide states[0].
+     * @param seat Provide the seat id.
+     * @param p    Provide the player in that seat.
+     * @return How many unknown cards.
+     */
+    int loadHand(State s, int seat, Player p) {
+        int id, k, n;
+
+        s.slot[seat] = seat;
+        s.sizes[seat] = p.getHandSize();
+        if (seat == root) {
+            System.arraycopy(p.counts, 0, s.counts, seat * 54, 54);
+            s.masks[seat] = p.getHandMask();
+            s.hashes[seat] = p.hash;
+            s.unknown[seat] = 0;
+            return 0;
+        } // if (seat == root)
+
+        s.masks[seat] = s.hashes[seat] = 0L;
+        for (id = 0, n = 0; id < 54; ++id) {
+            k = p.keeper == root && p.kept[id] > p.known[id]
+                    ? p.kept[id] : p.known[id];
+            k = Math.min(k, p.counts[id]);
+            s.counts[seat * 54 + id] = (byte) k;
+            if (k > 0) {
+                s.masks[seat] |= 1L << id;
+                n += k;
+            } // if (k > 0)
+
+            while (--k >= 0) {
+                s.hashes[seat] ^= Uno.HASH_KEYS[Uno.HASH_HAND + (id << 2) + k];
+            } // while (--k >= 0)
+        } // for (id = 0, n = 0; id < 54; ++id)
+
+        return s.unknown[seat] = s.sizes[seat] - n;
+    } // loadHand(State, int, Player)
+
+    /**
+     * @param seat Provide a seat id.
+     * @return Whether the searching player wins when this seat wins.
+     */
+    boolean isOurs(int seat) {
+        return seat == root || _2vs2 && ((seat ^ root) & 1) == 0;
+    } // isOurs(int)
+
+    /**
+     * @param s    Provide a position.
+     * @param seat Provide a seat id.
+     * @return The seat next to the specified one, see Uno.getNext().
+     */
+    int next(State s, int seat) {
+        int next = (seat + s.direction) & 3;
+
+        if (players == 3 && next == Player.COM2) {
+            next = (next + s.direction) & 3;
+        } // if (players == 3 && next == Player.COM2)
+
+        return next;
+    } // next(State, int)
+
+    /**
+     * @param s Provide a position.
+     * @return Legal card ids in the position, see Uno.legality.
+     */
+    long legality(State s) {
+        if (s.stack == 0) {
+            return s.top >= ID_WILD
+                    ? 0x30000000000000L | Uno.COLOR_MASKS[s.color]
+                    : 0x30000000000000L | Uno.COLOR_MASKS[s.color]
+                    | (0x8004002001L << CONTENT(s.top));
+        } // if (s.stack == 0)
+        else if (stackRule == 1) {
+            return 0x8004002001L << Content.DRAW2.ordinal();
+        } // else if (stackRule == 1)
+        else {
+            return (s.top < ID_WILD
+                    ? 0x8004002001L << Content.DRAW2.ordinal()
+                    : 0x1L << Content.DRAW2.ordinal() << 13 * (s.color - 1))
+                    | 0x20000000000000L;
+        } // else
+    } // legality(State)
+
+    /**
+     * @param s Provide a position.
+     * @return Key of the position in the table.
+     */
+    long key(State s) {
+        int i, k;
+        long h;
+
+        h = Uno.HASH_KEYS[Uno.HASH_RECENT + s.top]
+                ^ Uno.HASH_KEYS[Uno.HASH_COLOR + s.color]
+                ^ Uno.HASH_KEYS[Uno.HASH_NOW + s.now]
+                ^ Uno.HASH_KEYS[Uno.HASH_DIRECTION + s.direction]
+                ^ Uno.HASH_KEYS[Uno.HASH_STACK + (s.stack & 63)];
+        for (i = Player.YOU; i <= Player.COM3; ++i) {
+            k = s.slot[i];
+            h ^= Long.rotateLeft(s.hashes[k]
+                    ^ Rng.mix64(s.unknown[k] * Rng.GOLDEN_GAMMA), i << 4);
+        } // for (i = Player.YOU; i <= Player.COM3; ++i)
+
+        if (s.phase == PHASE_DOUBT) {
+            h ^= Rng.mix64((8 + s.prevColor) * Rng.GOLDEN_GAMMA);
+        } // if (s.phase == PHASE_DOUBT)
+
+        return h ^ salt ^ Rng.mix64(s.pool)
+                ^ Rng.mix64(s.deck * Rng.GOLDEN_GAMMA);
+    } // key(State)
+
+    /**
+     * Search whether the searching player has a forced win.
+     *
+     * @param ply   Provide the ply of the position (in states[]).
+     * @param depth Provide how many actions to search at most.
+     * @return True when a forced win is proven. At ply 0, the winning action
+     * is stored in rootMove.
+     */
+    boolean solve(int ply, int depth) {
+        int i, j, k, n, base;
+        long key, hit;
+        boolean ok;
+        State s = states[ply];
+
+        if (++nodes > nodeLimit || (nodes & 0xff) == 0
+                && ai.token != null && ai.token.shouldStop()) {
+            aborted = true;
+            return false;
+        } // if (++nodes > nodeLimit || ...)
+
+        key = key(s);
+        hit = ply > 0 ? table.get(key) : 0L;
+        if (hit != 0L) {
+            if ((hit & 0x01L) != 0L) {
+                return true;
+            } // if ((hit & 0x01L) != 0L)
+
+            if ((int) (hit >>> 1 & 0xff) >= depth) {
+                return false;
+            } // if ((int) (hit >>> 1 & 0xff) >= depth)
+        } // if (hit != 0L)
+
+        base = ply * MAX_MOVES;
+        n = generate(s, base);
+        if (s.phase == PHASE_PLAY && s.now == root) {
+            // OR node: any decision that wins by all of its outcomes
+            for (i = 0, ok = false; i < n && !ok && !aborted; i = j) {
+                for (j = i + 1; j < n && (moves[base + j] & F_SAME) != 0; ) {
+                    ++j;
+                } // for (j = i + 1; j < n && ...; )
+
+                for (k = i, ok = true; k < j && ok; ++k) {
+                    ok = child(ply, moves[base + k], depth);
+                } // for (k = i, ok = true; k < j && ok; ++k)
+
+                if (ok && ply == 0) {
+                    rootMove = moves[base + i];
+                } // if (ok && ply == 0)
+            } // for (i = 0, ok = false; i < n && !ok && !aborted; i = j)
+        } // if (s.phase == PHASE_PLAY && s.now == root)
+        else {
+            // AND node: we must win whatever happens
+            for (i = 0, ok = n > 0; i < n && ok; ++i) {
+                ok = child(ply, moves[base + i], depth);
+            } // for (i = 0, ok = n > 0; i < n && ok; ++i)
+        } // else
+
+        if (aborted) {
+            return false;
+        } // if (aborted)
+
+        table.put(key, 1L << 63 | (long) depth << 1 | (ok ? 1L : 0L), depth);
+        return ok;
+    } // solve(int, int)
+
+    /**
+     * Apply an action to states[ply], and search the resulting position.
+     *
+     * @param ply   Provide the ply of the parent position.
+     * @param move  Provide the action.
+     * @param depth Provide the depth of the parent position.
+     * @return True when the searching player wins.
+     */
+    boolean child(int ply, int move, int depth) {
+        int winner;
+        State c = states[ply + 1];
+
+        c.copyFrom(states[ply]);
+        winner = apply(c, move);
+        if (winner >= 0) {
+            return isOurs(winner);
+        } // if (winner >= 0)
+
+        return depth > 1 && solve(ply + 1, depth - 1);
+    } // child(int, int, int)
+
+    /**
+     * List the actions of the player in turn, see MAX_MOVES.
+     *
+     * @param s    Provide the position.
+     * @param base Provide where to store the actions in moves[].
+     * @return How many actions.
+     */
+    int generate(State s, int base) {
+        int i, id, k = s.slot[s.now], n = base;
+        long legal, bit;
+        boolean mine = s.now == root;
+
+        if (s.phase == PHASE_DOUBT) {
+            // Challenge is successful when the wild +4 card was played with
+            // a card in previous color in hand. Unknown cards can be both.
+            moves[n++] = OP_DOUBT | DOUBT_ACCEPT;
+            if ((s.masks[k] & Uno.COLOR_MASKS[s.prevColor]) != 0L) {
+                moves[n++] = OP_DOUBT | DOUBT_SUCCESS;
+            } // if ((s.masks[k] & Uno.COLOR_MASKS[s.prevColor]) != 0L)
+            else {
+                moves[n++] = OP_DOUBT | DOUBT_FAIL;
+                if (s.unknown[k] > 0) {
+                    moves[n++] = OP_DOUBT | DOUBT_SUCCESS;
+                } // if (s.unknown[k] > 0)
+            } // else
+
+            return n - base;
+        } // if (s.phase == PHASE_DOUBT)
+
+        legal = legality(s);
+        for (i = 0; i < 54; ++i) {
+            id = ORDER[i];
+            bit = 1L << id;
+            if ((legal & bit) != 0L) {
+                if ((s.masks[k] & bit) != 0L) {
+                    n = addPlays(s, n, OP_PLAY | id, s.sizes[k] > 1);
+                } // if ((s.masks[k] & bit) != 0L)
+
+                if (!mine && s.unknown[k] > 0 && (s.pool & bit) != 0L) {
+                    n = addPlays(s, n, OP_PLAY | F_JOKER | id, s.sizes[k] > 1);
+                } // if (!mine && s.unknown[k] > 0 && (s.pool & bit) != 0L)
+            } // if ((legal & bit) != 0L)
+        } // for (i = 0; i < 54; ++i)
+
+        // When we draw a playable card by ourselves, the card must be played
+        // in force play rules, and we do not know what it is. Do not search.
+        if (!mine || s.stack > 0 || forcePlayRule == 0) {
+            moves[n++] = OP_DRAW;
+        } // if (!mine || s.stack > 0 || forcePlayRule == 0)
+
+        if (!mine && s.stack == 0 && forcePlayRule != 0
+                && s.sizes[k] < Uno.MAX_HOLD_CARDS) {
+            // Others may play the card drawn by themselves at once
+            for (i = 0; i < 54; ++i) {
+                id = ORDER[i];
+                if ((legal & s.pool & 1L << id) != 0L) {
+                    n = addPlays(s, n, OP_DRAW_PLAY | F_JOKER | id, true);
+                } // if ((legal & s.pool & 1L << id) != 0L)
+            } // for (i = 0; i < 54; ++i)
+        } // if (!mine && s.stack == 0 && ...)
+
+        return n - base;
+    } // generate(State, int)
+
+    /**
+     * List the ways to play a card: one for each following color of a wild
+     * card, and in 7-0 rule, one outcome for each swap target of a seven
+     * card (the target is chosen by the heuristic AI, so all of them must
+     * win).
+     *
+     * @param s    Provide the position.
+     * @param n    Provide where to store the actions in moves[].
+     * @param move Provide the action, without color and target.
+     * @param more Provide whether the player has more cards after playing.
+     * @return Where to store the next action in moves[].
+     */
+    int addPlays(State s, int n, int move, boolean more) {
+        int c, i, id = move & 0x3f, flag = 0;
+
+        if (id == ID_WILD_DRAW4 && stackRule == 2) {
+            // Follows the last color in +2/+4 stack rule
+            moves[n++] = move | s.color << 6;
+        } // if (id == ID_WILD_DRAW4 && stackRule == 2)
+        else if (id >= ID_WILD) {
+            for (c = 1; c <= 4; ++c) {
+                moves[n++] = move | c << 6;
+            } // for (c = 1; c <= 4; ++c)
+        } // else if (id >= ID_WILD)
+        else if (sevenZeroRule && more && CONTENT(id) == 7) {
+            c = id / 13 + 1;
+            for (i = Player.YOU; i <= Player.COM3; ++i) {
+                if (i != s.now && (players == 4 || i != Player.COM2)) {
+                    moves[n++] = move | c << 6 | i << 9 | flag;
+                    flag = F_SAME;
+                } // if (i != s.now && (players == 4 || i != Player.COM2))
+            } // for (i = Player.YOU; i <= Player.COM3; ++i)
+        } // else if (sevenZeroRule && more && CONTENT(id) == 7)
+        else {
+            moves[n++] = move | (id / 13 + 1) << 6;
+        } // else
+
+        return n;
+    } // addPlays(State, int, int, boolean)
+
+    /**
+     * Give unknown cards to a player, see Uno.draw(int, boolean). When the
+     * deck runs out, the used cards are shuffled into the deck, and after
+     * that, an unknown card may be any card.
+     *
+     * @param s     Provide the position.
+     * @param seat  Provide the seat id.
+     * @param count Provide how many cards to draw.
+     */
+    void give(State s, int seat, int count) {
+        int k = s.slot[seat];
+
+        count = Math.min(count, Uno.MAX_HOLD_CARDS - s.sizes[k]);
+        if (count > 0) {
+            s.unknown[k] += count;
+            s.sizes[k] += count;
+            s.deck -= count;
+            if (s.deck <= 0) {
+                s.deck = 108;
+                s.pool = 0x3fffffffffffffL;
+            } // if (s.deck <= 0)
+        } // if (count > 0)
+    } // give(State, int, int)
+
+    /**
+     * Apply an action to a position, see Referee.play(int, Color) and
+     * Referee.draw(int, boolean).
+     *
+     * @param s    Provide the position.
+     * @param move Provide the action.
+     * @return The winner, or -1 if the game goes on.
+     */
+    int apply(State s, int move) {
+        int i, k, t, content, prev, seat = s.now, id = move & 0x3f;
+
+        switch (move & OP_MASK) {
+            case OP_DOUBT:
+                // s.now is who played the wild +4 card
+                t = next(s, seat);
+                s.phase = PHASE_PLAY;
+                if (id == DOUBT_SUCCESS) {
+                    give(s, seat, 4);
+                    s.now = t;
+                } // if (id == DOUBT_SUCCESS)
+                else {
+                    give(s, t, id == DOUBT_FAIL ? 6 : 4);
+                    s.now = next(s, t);
+                } // else
+                return -1; // case OP_DOUBT
+
+            case OP_DRAW:
+                give(s, seat, s.stack > 0 ? s.stack : 1);
+                s.stack = 0;
+                s.now = next(s, seat);
+                return -1; // case OP_DRAW
+
+            case OP_DRAW_PLAY:
+                give(s, seat, 1);
+                break; // case OP_DRAW_PLAY
+
+            default:
+                break; // default
+        } // switch (move & OP_MASK)
+
+        k = s.slot[seat];
+        if ((move & F_JOKER) != 0) {
+            --s.unknown[k];
+        } // if ((move & F_JOKER) != 0)
+        else {
+            i = --s.counts[k * 54 + id];
+            s.hashes[k] ^= Uno.HASH_KEYS[Uno.HASH_HAND + (id << 2) + i];
+            if (i == 0) {
+                s.masks[k] &= ~(1L << id);
+            } // if (i == 0)
+        } // else
+
+        if (--s.sizes[k] == 0) {
+            return seat;
+        } // if (--s.sizes[k] == 0)
+
+        content = CONTENT(id);
+        prev = s.color;
+        s.top = id;
+        s.color = (move >>> 6) & 7;
+        if (content == Content.DRAW2.ordinal() && stackRule != 0) {
+            s.stack += 2;
+        } // if (content == Content.DRAW2.ordinal() && stackRule != 0)
+        else if (id == ID_WILD_DRAW4 && stackRule == 2) {
+            s.stack += 4;
+        } // else if (id == ID_WILD_DRAW4 && stackRule == 2)
+
+        switch (Uno.CONTENTS[content]) {
+            case DRAW2:
+                s.now = next(s, seat);
+                if (stackRule == 0) {
+                    give(s, s.now, 2);
+                    s.now = next(s, s.now);
+                } // if (stackRule == 0)
+                break; // case DRAW2
+
+            case SKIP:
+                s.now = next(s, next(s, seat));
+                break; // case SKIP
+
+            case REV:
+                s.direction = 4 - s.direction;
+                s.now = next(s, seat);
+                break; // case REV
+
+            case WILD_DRAW4:
+                if (stackRule == 2) {
+                    s.now = next(s, seat);
+                } // if (stackRule == 2)
+                else {
+                    s.phase = PHASE_DOUBT;
+                    s.prevColor = prev;
+                } // else
+                break; // case WILD_DRAW4
+
+            case NUM7:
+                if (sevenZeroRule) {
+                    t = (move >>> 9) & 3;
+                    i = s.slot[seat];
+                    s.slot[seat] = s.slot[t];
+                    s.slot[t] = i;
+                } // if (sevenZeroRule)
+                s.now = next(s, seat);
+                break; // case NUM7
+
+            case NUM0:
+                if (sevenZeroRule) {
+                    cycle(s);
+                } // if (sevenZeroRule)
+                s.now = next(s, seat);
+                break; // case NUM0
+
+            default:
+                s.now = next(s, seat);
+                break; // default
+        } // switch (Uno.CONTENTS[content])
+
+        return -1;
+    } // apply(State, int)
+
+    /**
+     * Pass every hand to the next player, see Uno.cycle().
+     *
+     * @param s Provide the position.
+     */
+    void cycle(State s) {
+        int curr = s.now, next = next(s, curr);
+        int oppo = next(s, next), prev = (4 + curr - s.direction) & 3;
+        int store = s.slot[curr];
+
+        if (players == 3 && prev == Player.COM2) {
+            prev = (4 + prev - s.direction) & 3;
+        } // if (players == 3 && prev == Player.COM2)
+
+        s.slot[curr] = s.slot[prev];
+        s.slot[prev] = s.slot[oppo];
+        s.slot[oppo] = s.slot[next];
+        s.slot[next] = store;
+    } // cycle(State)
+} // Endgame Class
+
+// E.O.F
@@ -0,0 +1,82 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Uno Card Game 4 Droid
+// Author: Hikari Toyama
+// Compile Environment: Android Studio Arctic Fox, with Android SDK 30
+// COPYRIGHT HIKARI TOYAMA, 1992-2022. ALL RIGHTS RESERVED.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.hikari_toyama.unocard.core;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Save every replay as a single <millis>.sav file in a directory.
+ */
+public class FileReplaySink implements ReplaySink {
+    /**
+     * The directory that stores your replay save files.
+     */
+    final File replayDir;
+
+    /**
+     * Constructor.
+     *
+     * @param replayDir The directory that stores your replay save files.
+     */
+    public FileReplaySink(File replayDir) {
+        this.replayDir = replayDir;
+    } // FileReplaySink(File) (Class Constructor)
+
+    /**
+     * @return The directory that stores your replay save files.
+     */
+    public File getReplayDir() {
+        return replayDir;
+    } // getReplayDir()
+
+    /**
+     * Save a replay as a new replay file.
+     *
+     * @param replay Provide the replay data, encoded by ReplayCodec.
+     * @return Name of the saved file, or an empty string if save failed.
+     */
+    @Override
+    public String save(byte[] replay) {
+        File f;
+        OutputStream w;
+        String name = "";
+
+        try {
+            f = new File(replayDir, System.currentTimeMillis() + ".sav");
+            w = new FileOutputStream(f);
+            w.write(replay);
+            w.close();
+            name = f.getName();
+        } // try
+        catch (IOException ignore) {
+        } // catch (IOException ignore)
+
+        return name;
+    } // save(byte[])
+
+    /**
+     * Open an existed replay file.
+     *
+     * @param replayName Provide the file name of your replay.
+     * @return An input stream to read the replay file. Close it after use.
+     * @throws IOException Thrown if the replay file cannot be opened.
+     */
+    @Override
+    public InputStream open(String replayName) throws IOException {
+        return new FileInputStream(new File(replayDir, replayName));
+    } // open(String)
+} // FileReplaySink Class
+
+// E.O.F
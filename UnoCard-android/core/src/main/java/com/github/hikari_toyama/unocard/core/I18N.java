@@ -9,6 +9,8 @@
 
 package com.github.hikari_toyama.unocard.core;
 
+import java.util.Locale;
+
 public interface I18N {
     I18N EN_US = new I18N_en_US();
 
@@ -145,6 +147,8 @@ public interface I18N {
 
     String label_remain_used(int i1, int i2);
 
+    String label_replay(long time, int players, boolean _2vs2, int turns);
+
     String label_rightArrow();
 
     String label_score();
@@ -481,7 +485,8 @@ class I18N_en_US implements I18N {
 
     @Override
     public String label_level(int i) {
-        return i == 0 ? "Level: EASY" : "Level: HARD";
+        return i == 0 ? "Level: EASY"
+                : i == 1 ? "Level: HARD" : "Level: EXPERT";
     } // label_level(int)
 
     @Override
@@ -494,6 +499,13 @@ class I18N_en_US implements I18N {
         return "[Y]R" + i1 + "[W]/[G]U" + i2;
     } // label_remain_used(int, int)
 
+    @Override
+    public String label_replay(long time, int players, boolean _2vs2,
+                               int turns) {
+        return String.format(Locale.US, "%tF %<tT  %dP%s  %d turns",
+                time, players, _2vs2 ? " 2vs2" : "", turns);
+    } // label_replay(long, int, boolean, int)
+
     @Override
     public String label_rightArrow() {
         return "[Y]＋＞";
@@ -842,7 +854,8 @@ class I18N_zh_CN implements I18N {
 
     @Override
     public String label_level(int i) {
-        return i == 0 ? "难易度: 简单" : "难易度: 困难";
+        return i == 0 ? "难易度: 简单"
+                : i == 1 ? "难易度: 困难" : "难易度: 专家";
     } // label_level(int)
 
     @Override
@@ -855,6 +868,13 @@ class I18N_zh_CN implements I18N {
         return "[Y]剩" + i1 + "[G]用" + i2;
     } // label_remain_used(int, int)
 
+    @Override
+    public String label_replay(long time, int players, boolean _2vs2,
+                               int turns) {
+        return String.format(Locale.US, "%tF %<tT  %d人%s  %d回合",
+                time, players, _2vs2 ? " 2vs2" : "", turns);
+    } // label_replay(long, int, boolean, int)
+
     @Override
     public String label_rightArrow() {
         return "[Y]＋＞";
@@ -1203,7 +1223,8 @@ class I18N_ja_JP implements I18N {
 
     @Override
     public String label_level(int i) {
-        return i == 0 ? "難易度: 　簡単" : "難易度: 難しい";
+        return i == 0 ? "難易度: 　簡単"
+                : i == 1 ? "難易度: 難しい" : "難易度: 達人";
     } // label_level(int)
 
     @Override
@@ -1216,6 +1237,13 @@ class I18N_ja_JP implements I18N {
         return "[Y]残" + i1 + "[G]使" + i2;
     } // label_remain_used(int, int)
 
+    @Override
+    public String label_replay(long time, int players, boolean _2vs2,
+                               int turns) {
+        return String.format(Locale.US, "%tF %<tT  %d人%s  %dターン",
+                time, players, _2vs2 ? " 2vs2" : "", turns);
+    } // label_replay(long, int, boolean, int)
+
     @Override
     public String label_rightArrow() {
         return "[Y]＋＞";
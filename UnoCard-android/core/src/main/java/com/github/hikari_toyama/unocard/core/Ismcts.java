@@ -0,0 +1,1029 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Uno Card Game 4 Droid
+// Author: Hikari Toyama
+// Compile Environment: Android Studio Arctic Fox, with Android SDK 30
+// COPYRIGHT HIKARI TOYAMA, 1992-2022. ALL RIGHTS RESERVED.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.hikari_toyama.unocard.core;
+
+import static com.github.hikari_toyama.unocard.core.Color.NONE;
+import static com.github.hikari_toyama.unocard.core.Content.WILD_DRAW4;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Information Set Monte Carlo Tree Search (single observer). Used by the
+ * EXPERT level, see AI.mctsAI_bestCardIndex4NowPlayer(Color[]).
+ * <p>
+ * Every iteration copies the live game into a private runtime, and deals the
+ * cards that current player cannot see (other players' hidden hand cards and
+ * the card deck) again at random. This is called a determinization. Cards
+ * known by current player (revealed by a challenge, or in 7-0 rule, passed
+ * by current player) stay where they are, hidden cards believed not to be
+ * in a color (the player drew a card by itself at that color) are given
+ * cards in other colors when possible, and players who registered a strong
+ * color are given cards in that color first. Then the search tree is walked
+ * down among the moves legal in this determinization, one new node is added,
+ * and the game is played to the end by easy AI. Nodes record the result from
+ * the view of the player who made the move, so every player in the tree
+ * plays for itself (or for its team in 2vs2 mode).
+ * <p>
+ * Only play/draw decisions are searched. Challenges, swap targets and the
+ * decision after drawing a playable card are left to the heuristic AI.
+ * <p>
+ * The search can run on several threads, see setParallel(int, int). Each
+ * worker thread owns its private runtime. The calling thread works as the
+ * first worker, and waits for the others before returning.
+ * <p>
+ * An instance is not thread-safe. Do not search by the same instance from
+ * two threads at the same time.
+ */
+public class Ismcts {
+    /**
+     * Parallel mode: every worker builds its own tree with its own random
+     * source, and the visit counts of the root moves are summed up at last.
+     * With an iteration budget only, the result does not depend on thread
+     * scheduling, so it can be reproduced by seeds.
+     */
+    public static final int PARALLEL_ROOT = 0;
+
+    /**
+     * Parallel mode: all workers share one tree. Visit counters are updated
+     * without locks, and a node is counted as visited (i.e. a virtual loss)
+     * as soon as a worker walks into it, so that other workers prefer other
+     * moves until the playout result is known.
+     */
+    public static final int PARALLEL_TREE = 1;
+
+    /**
+     * Action value of drawing a card. Playing card i with following color c
+     * is (i * 5 + c.ordinal()).
+     */
+    static final int ACTION_DRAW = 54 * 5;
+
+    /**
+     * Exploration constant of UCB1.
+     */
+    static final double EXPLORATION = 0.7;
+
+    /**
+     * A playout is evaluated by hand sizes when it did not finish after so
+     * many steps.
+     */
+    static final int MAX_PLAYOUT_STEPS = 400;
+
+    /**
+     * Scores are summed up as fixed-point numbers, so that they can be
+     * updated by atomic operations. A full win is worth SCORE_ONE.
+     */
+    static final long SCORE_ONE = 1L << 20;
+
+    /**
+     * Search tree node. Children are kept in a singly linked list, and new
+     * children are always put at the head of the list.
+     */
+    static class Node {
+        static final AtomicIntegerFieldUpdater<Node> VISITS =
+                AtomicIntegerFieldUpdater.newUpdater(Node.class, "visits");
+        static final AtomicIntegerFieldUpdater<Node> AVAIL =
+                AtomicIntegerFieldUpdater.newUpdater(Node.class, "avail");
+        static final AtomicLongFieldUpdater<Node> SCORE =
+                AtomicLongFieldUpdater.newUpdater(Node.class, "score");
+        static final AtomicReferenceFieldUpdater<Node, Node> CHILD =
+                AtomicReferenceFieldUpdater.newUpdater(
+                        Node.class, Node.class, "child");
+
+        final int action, mover;
+        volatile int visits, avail;
+        volatile long score;
+        volatile Node child;
+        Node sibling;
+
+        Node(int action, int mover) {
+            this.action = action;
+            this.mover = mover;
+        } // Node(int, int) (Class Constructor)
+
+        /**
+         * Find the child of the specified action, or add it when not found.
+         * When another worker added children in the meantime, look at the
+         * new children again before retrying.
+         *
+         * @param action Provide the action value.
+         * @param mover  Who makes the move.
+         * @return The child node.
+         */
+        Node findOrAdd(int action, int mover) {
+            Node head, node, end = null, added = null;
+
+            for (; ; ) {
+                head = child;
+                for (node = head; node != end; node = node.sibling) {
+                    if (node.action == action) {
+                        return node;
+                    } // if (node.action == action)
+                } // for (node = head; node != end; node = node.sibling)
+
+                if (added == null) {
+                    added = new Node(action, mover);
+                } // if (added == null)
+
+                added.sibling = head;
+                if (CHILD.compareAndSet(this, head, added)) {
+                    return added;
+                } // if (CHILD.compareAndSet(this, head, added))
+
+                end = head;
+            } // for (; ; )
+        } // findOrAdd(int, int)
+    } // Node Class
+
+    /**
+     * A search worker. Owns a private runtime to play determinizations on,
+     * with its own easy AI and game flow driver.
+     */
+    final class Worker implements Runnable {
+        final Uno sim;
+        final AI simAI;
+        final Referee referee;
+
+        /**
+         * Buffers: the cards to deal, legal actions, and the nodes walked
+         * down in one iteration.
+         */
+        final int[] pool = new int[108];
+        final int[] actions = new int[ACTION_DRAW + 1];
+        final Node[] path = new Node[MAX_PLAYOUT_STEPS + 1];
+
+        /**
+         * Buffers of determinize(): the hidden cards of each seat (bit j is
+         * set for hand card j), and the known copies of each card id.
+         */
+        final int[] hidden = new int[4];
+        final int[] fixed = new int[54];
+
+        /**
+         * Search tree to work on, and iteration budget of this worker. When
+         * counter is not null, the budget is shared by all workers instead.
+         */
+        Node tree;
+        int budget;
+        AtomicInteger counter;
+
+        /**
+         * How many iterations were run by this worker in the last search.
+         */
+        int done;
+
+        /**
+         * Status value when select() returned.
+         */
+        int lastStatus;
+
+        Worker() {
+            sim = new Uno();
+            sim.quiet = true;
+            simAI = new AI(sim);
+            referee = new Referee(sim, simAI);
+            for (int i = Player.YOU; i <= Player.COM3; ++i) {
+                referee.setStrategy(i, Referee.AI_EASY);
+            } // for (int i = Player.YOU; i <= Player.COM3; ++i)
+        } // Worker() (Class Constructor)
+
+        /**
+         * Run iterations until the budget runs out, or the search is stopped.
+         */
+        @Override
+        public void run() {
+            int i, n;
+
+            for (i = 0; !stopped; ++i) {
+                // A playout takes far longer than these checks, so check
+                // before every iteration to stop in time
+                if (deadline != 0L && System.nanoTime() - deadline > 0
+                        || token != null && token.cancelled) {
+                    break;
+                } // if (deadline != 0L && ...)
+
+                if (counter != null
+                        ? counter.getAndIncrement() >= iterations
+                        : i >= budget) {
+                    break;
+                } // if (counter != null ? ... : i >= budget)
+
+                sim.restore(root);
+                sim.replay.clear();
+                determinize(root.now);
+                referee.winner = -1;
+                n = select(tree, sim.now);
+                backup(n, playout(lastStatus));
+            } // for (i = 0; !stopped; ++i)
+
+            done = i;
+        } // run()
+
+        /**
+         * Deal the cards unknown to the observer again at random. Cards
+         * known by the observer stay in their owners' hands, and the other
+         * hand cards are drawn again from the unseen cards (the deck and
+         * every unknown hand card). A hand's excluded colors (see
+         * Player.excluded) are skipped when possible, then the strong color
+         * is preferred for the estimated count of cards.
+         *
+         * @param observer Who is searching.
+         */
+        void determinize(int observer) {
+            int i, j, k, c, h, n, need, want, size, ban;
+            Player p;
+            Color strong;
+            List<Card> hand;
+
+            // Collect the deck and every hand card unknown to the observer
+            n = sim.deckSize;
+            System.arraycopy(sim.deck, 0, pool, 0, n);
+            for (i = Player.YOU; i <= Player.COM3; ++i) {
+                hidden[i] = i == observer ? 0 : hiddenMask(i, observer);
+                hand = sim.player[i].handCards;
+                for (j = 0, size = hand.size(); j < size; ++j) {
+                    if ((hidden[i] & (1 << j)) != 0) {
+                        pool[n++] = hand.get(j).id;
+                    } // if ((hidden[i] & (1 << j)) != 0)
+                } // for (j = 0, size = hand.size(); j < size; ++j)
+            } // for (i = Player.YOU; i <= Player.COM3; ++i)
+
+            sim.rng.shuffle(pool, n);
+            for (i = Player.YOU; i <= Player.COM3; ++i) {
+                if (hidden[i] == 0) {
+                    continue;
+                } // if (hidden[i] == 0)
+
+                p = sim.player[i];
+                hand = p.handCards;
+                size = hand.size();
+                strong = p.strongColor;
+                want = strong == NONE ? 0 : p.strongCount;
+                for (j = 0, h = 0; j < size; ++j) {
+                    if ((hidden[i] & (1 << j)) == 0) {
+                        continue;
+                    } // if ((hidden[i] & (1 << j)) == 0)
+
+                    // The first excluded[c] hidden cards are neither in
+                    // color c nor wild cards. Bit c of ban is set when color
+                    // ordinal c is banned for this card.
+                    for (c = 0, ban = 0; c < 5; ++c) {
+                        if (p.excluded[c] > h) {
+                            ban |= 1 | (1 << c);
+                        } // if (p.excluded[c] > h)
+                    } // for (c = 0, ban = 0; c < 5; ++c)
+
+                    // Prefer a card in strong color, then a card not banned,
+                    // then any card. The pool is shuffled, so picking from
+                    // the end is a random pick.
+                    need = -1;
+                    for (k = n - 1; want > 0 && k >= 0; --k) {
+                        c = sim.table[pool[k]].color.ordinal();
+                        if (c == strong.ordinal() && (ban & (1 << c)) == 0) {
+                            need = k;
+                            --want;
+                            break;
+                        } // if (c == strong.ordinal() && ...)
+                    } // for (k = n - 1; want > 0 && k >= 0; --k)
+
+                    for (k = n - 1; need < 0 && k >= 0; --k) {
+                        c = sim.table[pool[k]].color.ordinal();
+                        if ((ban & (1 << c)) == 0) {
+                            need = k;
+                        } // if ((ban & (1 << c)) == 0)
+                    } // for (k = n - 1; need < 0 && k >= 0; --k)
+
+                    if (need < 0) {
+                        need = n - 1;
+                    } // if (need < 0)
+
+                    p.removeCard(j);
+                    p.addCard(j, sim.table[pool[need]]);
+                    pool[need] = pool[--n];
+                    ++h;
+                } // for (j = 0, h = 0; j < size; ++j)
+
+                if (i == Player.YOU) {
+                    // Keep your hand cards in order, as Uno.draw() expects
+                    Collections.sort(hand);
+                } // if (i == Player.YOU)
+            } // for (i = Player.YOU; i <= Player.COM3; ++i)
+
+            // The remaining cards become the card deck
+            System.arraycopy(pool, 0, sim.deck, 0, sim.deckSize = n);
+        } // determinize(int)
+
+        /**
+         * Find the hand cards unknown to the observer. The observer knows
+         * the cards revealed by a challenge, and in 7-0 rule, the cards it
+         * passed to this player and still in hand (see Player.known and
+         * Player.kept). Only when there are no such beliefs (e.g. in a game
+         * state loaded from a replay, where card counting is not done), your
+         * open flags are used instead, for you as the observer.
+         *
+         * @param who      Provide a player's id, who is not the observer.
+         * @param observer Provide the observer's id.
+         * @return Bit j is set when the observer cannot see the card at
+         * index j of who's hand.
+         */
+        int hiddenMask(int who, int observer) {
+            int j, id, size, mask = 0;
+            Player p = sim.player[who];
+            List<Card> hand = p.handCards;
+            boolean keeper = p.keeper == observer;
+
+            size = hand.size();
+            if (p.knownCount == 0 && !keeper) {
+                for (j = 0; j < size; ++j) {
+                    if (observer != Player.YOU || who == Player.YOU
+                            || !p.isOpen(j)) {
+                        mask |= 1 << j;
+                    } // if (observer != Player.YOU || ...)
+                } // for (j = 0; j < size; ++j)
+
+                return mask;
+            } // if (p.knownCount == 0 && !keeper)
+
+            for (id = 0; id < 54; ++id) {
+                fixed[id] = keeper ? Math.max(p.known[id], p.kept[id])
+                        : p.known[id];
+            } // for (id = 0; id < 54; ++id)
+
+            for (j = 0; j < size; ++j) {
+                id = hand.get(j).id;
+                if (fixed[id] > 0) {
+                    --fixed[id];
+                } // if (fixed[id] > 0)
+                else {
+                    mask |= 1 << j;
+                } // else
+            } // for (j = 0; j < size; ++j)
+
+            return mask;
+        } // hiddenMask(int, int)
+
+        /**
+         * List current player's legal actions into actions[].
+         *
+         * @param uno Provide the Uno runtime instance.
+         * @return How many legal actions. Drawing a card is always legal and
+         * always the first one.
+         */
+        int listActions(Uno uno) {
+            int id, c, n = 0;
+            long mask = uno.legalCardsMask4NowPlayer();
+            Card card;
+
+            actions[n++] = ACTION_DRAW;
+            for (; mask != 0L; mask &= mask - 1) {
+                id = Long.numberOfTrailingZeros(mask);
+                card = uno.table[id];
+                if (!card.isWild()) {
+                    actions[n++] = id * 5 + card.color.ordinal();
+                } // if (!card.isWild())
+                else if (uno.getStackRule() == 2
+                        && card.content == WILD_DRAW4) {
+                    // The following color cannot be changed
+                    actions[n++] = id * 5 + uno.lastColor().ordinal();
+                } // else if (uno.getStackRule() == 2 && ...)
+                else {
+                    for (c = 1; c < 5; ++c) {
+                        actions[n++] = id * 5 + c;
+                    } // for (c = 1; c < 5; ++c)
+                } // else
+            } // for (; mask != 0L; mask &= mask - 1)
+
+            return n;
+        } // listActions(Uno)
+
+        /**
+         * Walk down the tree in the current determinization, until a new node
+         * is added, or the game is over. Visited nodes are stored in path[],
+         * and counted as visited at once.
+         *
+         * @param tree   Provide the root node.
+         * @param status Current status value.
+         * @return Index of the last node in path[].
+         */
+        int select(Node tree, int status) {
+            int i, k, n, untried, visits, depth = 0;
+            double value, bestValue;
+            Node node = tree, child, best;
+
+            path[0] = tree;
+            Node.VISITS.incrementAndGet(tree);
+            lastStatus = status;
+            while (status != Referee.STAT_GAME_OVER
+                    && depth < MAX_PLAYOUT_STEPS) {
+                if (status >= Player.YOU && status <= Player.COM3) {
+                    n = listActions(sim);
+
+                    // Count the availability of legal children, and find the
+                    // legal actions that were never tried
+                    untried = n;
+                    for (child = node.child; child != null;
+                         child = child.sibling) {
+                        for (i = 0; i < untried; ++i) {
+                            if (actions[i] == child.action) {
+                                Node.AVAIL.incrementAndGet(child);
+                                k = actions[i];
+                                actions[i] = actions[--untried];
+                                actions[untried] = k;
+                                break;
+                            } // if (actions[i] == child.action)
+                        } // for (i = 0; i < untried; ++i)
+                    } // for (child = node.child; ...)
+
+                    if (untried > 0) {
+                        // Expand one untried action
+                        child = node.findOrAdd(
+                                actions[sim.rng.nextInt(untried)], status);
+                        Node.AVAIL.incrementAndGet(child);
+                        Node.VISITS.incrementAndGet(child);
+                        path[++depth] = child;
+                        lastStatus = apply(child.action);
+                        return depth;
+                    } // if (untried > 0)
+
+                    best = null;
+                    bestValue = Double.NEGATIVE_INFINITY;
+                    for (i = n; i-- > 0; ) {
+                        for (child = node.child; child != null;
+                             child = child.sibling) {
+                            if (child.action == actions[i]) {
+                                visits = child.visits;
+                                value = visits == 0 ? Double.POSITIVE_INFINITY
+                                        : (double) child.score
+                                        / SCORE_ONE / visits
+                                        + EXPLORATION * Math.sqrt(
+                                        Math.log(child.avail) / visits);
+                                if (value > bestValue) {
+                                    bestValue = value;
+                                    best = child;
+                                } // if (value > bestValue)
+                                break;
+                            } // if (child.action == actions[i])
+                        } // for (child = node.child; ...)
+                    } // for (i = n; i-- > 0; )
+
+                    node = best;
+                    Node.VISITS.incrementAndGet(node);
+                    path[++depth] = node;
+                    status = apply(node.action);
+                } // if (status >= Player.YOU && status <= Player.COM3)
+                else {
+                    status = referee.step(status);
+                } // else
+
+                lastStatus = status;
+            } // while (status != Referee.STAT_GAME_OVER && ...)
+
+            return depth;
+        } // select(Node, int)
+
+        /**
+         * Apply an action to the private runtime.
+         *
+         * @param action Provide the action value.
+         * @return Next status value.
+         */
+        int apply(int action) {
+            int i, n, id;
+            List<Card> hand;
+
+            if (action == ACTION_DRAW) {
+                return referee.draw(1, /* force */ false);
+            } // if (action == ACTION_DRAW)
+
+            id = action / 5;
+            hand = sim.getCurrPlayer().handCards;
+            for (i = 0, n = hand.size(); i < n; ++i) {
+                if (hand.get(i).id == id) {
+                    break;
+                } // if (hand.get(i).id == id)
+            } // for (i = 0, n = hand.size(); i < n; ++i)
+
+            return referee.play(i, Uno.COLORS[action % 5]);
+        } // apply(int)
+
+        /**
+         * Play the private runtime's game to the end by easy AI.
+         *
+         * @param status Current status value.
+         * @return Winner, or -1 if the playout was cut off.
+         */
+        int playout(int status) {
+            for (int i = 0; i < MAX_PLAYOUT_STEPS; ++i) {
+                if (status == Referee.STAT_GAME_OVER) {
+                    return referee.winner;
+                } // if (status == Referee.STAT_GAME_OVER)
+
+                status = referee.step(status);
+            } // for (int i = 0; i < MAX_PLAYOUT_STEPS; ++i)
+
+            return status == Referee.STAT_GAME_OVER ? referee.winner : -1;
+        } // playout(int)
+
+        /**
+         * @param who    Provide a player's id.
+         * @param winner Provide the winner, or -1 if the playout was cut off.
+         * @return The result from the specified player's view, between 0 and
+         * 1. A cut off playout is scored by hand sizes.
+         */
+        double reward(int who, int winner) {
+            int i, mine, others;
+
+            if (sim._2vs2) {
+                // Teammates share the result
+                return winner < 0 ? 0.5
+                        : (winner & 1) == (who & 1) ? 1.0 : 0.0;
+            } // if (sim._2vs2)
+
+            if (winner >= 0) {
+                return winner == who ? 1.0 : 0.0;
+            } // if (winner >= 0)
+
+            mine = sim.player[who].getHandSize();
+            others = Integer.MAX_VALUE;
+            for (i = Player.YOU; i <= Player.COM3; ++i) {
+                if (i != who && (i != Player.COM2 || sim.players == 4)) {
+                    others = Math.min(others, sim.player[i].getHandSize());
+                } // if (i != who && ...)
+            } // for (i = Player.YOU; i <= Player.COM3; ++i)
+
+            return (double) others / (mine + others);
+        } // reward(int, int)
+
+        /**
+         * Add the playout result to the nodes walked down in this iteration.
+         * They were already counted as visited by select().
+         *
+         * @param depth  Index of the last node in path[].
+         * @param winner Result of the playout.
+         */
+        void backup(int depth, int winner) {
+            for (int i = depth; i > 0; --i) {
+                Node.SCORE.addAndGet(path[i], Math.round(
+                        reward(path[i].mover, winner) * SCORE_ONE));
+            } // for (int i = depth; i > 0; --i)
+        } // backup(int, int)
+    } // Worker Inner Class
+
+    /**
+     * The live AI instance, whose Uno runtime is searched.
+     */
+    final AI ai;
+
+    /**
+     * Snapshot of the live game, restored before every iteration. Only read
+     * by the workers.
+     */
+    final UnoSnapshot root = new UnoSnapshot();
+
+    /**
+     * Search workers. workers[0] runs on the calling thread.
+     */
+    Worker[] workers = new Worker[0];
+
+    /**
+     * Runs workers[1..threads) in parallel. Created on first use.
+     */
+    ExecutorService executor;
+
+    /**
+     * Sum of visit counts of each root move, over all trees.
+     */
+    final int[] merged = new int[ACTION_DRAW + 1];
+
+    /**
+     * Iteration budget, and time budget in milliseconds (0 for no limit).
+     */
+    int iterations, timeLimit;
+
+    /**
+     * Worker threads and parallel mode.
+     */
+    int threads, mode;
+
+    /**
+     * How many iterations were run in the last search.
+     */
+    int lastIterations;
+
+    /**
+     * How many iterations were run by the last search stopped at its
+     * deadline, or 0 if none yet. Tells how deep a search can go within
+     * a deadline, see setTable(TranspositionTable).
+     */
+    int deadlineIterations;
+
+    /**
+     * Cache of search results by position, shared with other searches
+     * (see setTable), or null if disabled.
+     */
+    TranspositionTable table;
+
+    /**
+     * Deadline of the running search in System.nanoTime(), or 0 if none.
+     */
+    volatile long deadline;
+
+    /**
+     * Set to true to make the running search stop as soon as possible.
+     */
+    volatile boolean stopped;
+
+    /**
+     * Cancellation token of the running search, or null if none. See
+     * AI.bestCardIndex4NowPlayer(Color[], CancelToken).
+     */
+    CancelToken token;
+
+    /**
+     * Constructor.
+     *
+     * @param ai Provide the AI instance working on the live Uno runtime.
+     */
+    public Ismcts(AI ai) {
+        if (ai == null) {
+            throw new IllegalArgumentException("DO NOT PASS NULL PARAMETER!!!");
+        } // if (ai == null)
+
+        this.ai = ai;
+        this.iterations = 1000;
+        this.timeLimit = 0;
+        this.threads = 1;
+        this.mode = PARALLEL_ROOT;
+    } // Ismcts(AI) (Class Constructor)
+
+    /**
+     * Set the search budget. The search stops when either budget runs out.
+     *
+     * @param iterations How many iterations at most, summed up over all
+     *                   worker threads. Must be positive.
+     * @param timeLimit  How many milliseconds at most, or 0 for no limit.
+     *                   A time limited search cannot be reproduced by seeds.
+     */
+    public void setBudget(int iterations, int timeLimit) {
+        if (iterations > 0 && timeLimit >= 0) {
+            this.iterations = iterations;
+            this.timeLimit = timeLimit;
+        } // if (iterations > 0 && timeLimit >= 0)
+    } // setBudget(int, int)
+
+    /**
+     * Set how many threads to search on, and how they cooperate.
+     *
+     * @param threads How many threads, including the calling thread. Pass
+     *                Runtime.getRuntime().availableProcessors() to use all
+     *                CPU cores. Must be positive.
+     * @param mode    PARALLEL_ROOT or PARALLEL_TREE.
+     */
+    public void setParallel(int threads, int mode) {
+        if (threads > 0 && (mode == PARALLEL_ROOT || mode == PARALLEL_TREE)) {
+            if (threads != this.threads) {
+                shutdown();
+            } // if (threads != this.threads)
+
+            this.threads = threads;
+            this.mode = mode;
+        } // if (threads > 0 && ...)
+    } // setParallel(int, int)
+
+    /**
+     * Cache search results in the specified table, with the iterations
+     * completed by each search. When the live game comes back to a cached
+     * position, with the same rules, the cached action is played without
+     * searching again, if that search was not cheaper than the current
+     * iteration budget, or when the current search has a deadline, not
+     * cheaper than the last search stopped at its deadline (a new search
+     * would not go deeper). Otherwise the position is searched again, and
+     * the new result replaces the cached one only when it is deeper.
+     * Cancelled searches are not cached. The table can be shared among AI
+     * instances and threads. Disabled by default, since a cache hit, which
+     * depends on earlier games, breaks the reproducibility by seeds.
+     *
+     * @param table Provide the table, or null to disable caching.
+     */
+    public void setTable(TranspositionTable table) {
+        this.table = table;
+    } // setTable(TranspositionTable)
+
+    /**
+     * @return The table of cached search results, or null if disabled.
+     */
+    public TranspositionTable getTable() {
+        return table;
+    } // getTable()
+
+    /**
+     * Stop the worker threads. They are started again by the next search
+     * when necessary.
+     */
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        } // if (executor != null)
+    } // shutdown()
+
+    /**
+     * @return Iteration budget.
+     */
+    public int getIterations() {
+        return iterations;
+    } // getIterations()
+
+    /**
+     * @return Time budget in milliseconds, or 0 for no limit.
+     */
+    public int getTimeLimit() {
+        return timeLimit;
+    } // getTimeLimit()
+
+    /**
+     * @return How many threads to search on.
+     */
+    public int getThreads() {
+        return threads;
+    } // getThreads()
+
+    /**
+     * @return Parallel mode, PARALLEL_ROOT or PARALLEL_TREE.
+     */
+    public int getMode() {
+        return mode;
+    } // getMode()
+
+    /**
+     * @return How many iterations were run in the last search, summed up
+     * over all worker threads.
+     */
+    public int getLastIterations() {
+        return lastIterations;
+    } // getLastIterations()
+
+    /**
+     * @return The executor of workers[1..threads). Threads are daemons, so
+     * they never keep the process alive.
+     */
+    ExecutorService executor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(
+                    threads - 1, new ThreadFactory() {
+                        final AtomicInteger count = new AtomicInteger();
+
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            Thread t = new Thread(r,
+                                    "Ismcts-" + count.incrementAndGet());
+                            t.setDaemon(true);
+                            return t;
+                        } // newThread(Runnable)
+                    }); // new ThreadFactory()
+        } // if (executor == null)
+
+        return executor;
+    } // executor()
+
+    /**
+     * Search for current player's best action in the live game. Stops early
+     * at the deadline of ai.token, or when it is cancelled, and returns the
+     * most visited action so far. When stopped before the first iteration,
+     * falls back to the HARD level heuristics.
+     *
+     * @param outColor Out parameter, see AI.easyAI_bestCardIndex4NowPlayer.
+     * @return Index of the best card to play, in current player's hand.
+     * Or a negative number that means to draw a card.
+     */
+    int bestCardIndex4NowPlayer(Color[] outColor) {
+        int k, n, best, cached;
+        long key, hit;
+        Node node, shared;
+        Worker w;
+        AtomicInteger counter;
+        Uno uno = ai.uno;
+        List<Future<?>> futures = new ArrayList<>(threads);
+
+        if (workers.length < threads) {
+            Worker[] grown = new Worker[threads];
+
+            System.arraycopy(workers, 0, grown, 0, workers.length);
+            for (k = workers.length; k < threads; ++k) {
+                grown[k] = new Worker();
+            } // for (k = workers.length; k < threads; ++k)
+
+            workers = grown;
+        } // if (workers.length < threads)
+
+        outColor[0] = ai.calcBestColor4NowPlayer();
+        if (workers[0].listActions(uno) == 1) {
+            // Nothing to play, no need to search
+            lastIterations = 0;
+            return -1;
+        } // if (workers[0].listActions(uno) == 1)
+
+        token = ai.token;
+        deadline = timeLimit > 0
+                ? System.nanoTime() + timeLimit * 1000000L : 0L;
+        if (token != null && token.deadline != 0L && (deadline == 0L
+                || token.deadline - deadline < 0L)) {
+            deadline = token.deadline;
+        } // if (token != null && token.deadline != 0L && ...)
+
+        key = 0L;
+        cached = 0;
+        if (table != null) {
+            key = positionKey(uno);
+            hit = table.get(key);
+            cached = hit == 0L ? 0 : (int) (hit >>> 32 & 0x7fffffffL);
+            if (hit != 0L && (cached >= iterations || deadline != 0L
+                    && deadlineIterations > 0
+                    && cached >= deadlineIterations)) {
+                lastIterations = 0;
+                return toCardIndex((int) hit & 0x1ff, outColor);
+            } // if (hit != 0L && ...)
+
+            table.nextGeneration();
+        } // if (table != null)
+
+        uno.snapshot(root);
+        stopped = false;
+        shared = mode == PARALLEL_TREE ? new Node(-1, -1) : null;
+        counter = mode == PARALLEL_TREE ? new AtomicInteger() : null;
+        for (k = 0; k < threads; ++k) {
+            w = workers[k];
+            w.sim.setSeed(ai.rng.nextLong());
+            w.simAI.setSeed(ai.rng.nextLong());
+            w.tree = shared != null ? shared : new Node(-1, -1);
+            w.counter = counter;
+            w.budget = (int) ((long) iterations * (k + 1) / threads
+                    - (long) iterations * k / threads);
+            w.done = 0;
+            if (k > 0) {
+                futures.add(executor().submit(w));
+            } // if (k > 0)
+        } // for (k = 0; k < threads; ++k)
+
+        workers[0].run();
+        join(futures);
+
+        // Sum up the visit counts of root moves, and pick the most visited
+        lastIterations = 0;
+        for (k = 0; k < threads; ++k) {
+            lastIterations += workers[k].done;
+            for (node = workers[k].tree.child; node != null;
+                 node = node.sibling) {
+                merged[node.action] = 0;
+            } // for (node = workers[k].tree.child; ...)
+        } // for (k = 0; k < threads; ++k)
+
+        for (k = 0; k < (shared != null ? 1 : threads); ++k) {
+            for (node = workers[k].tree.child; node != null;
+                 node = node.sibling) {
+                merged[node.action] += node.visits;
+            } // for (node = workers[k].tree.child; ...)
+        } // for (k = 0; k < (shared != null ? 1 : threads); ++k)
+
+        best = ACTION_DRAW;
+        for (k = 0, n = -1; k < threads; ++k) {
+            for (node = workers[k].tree.child; node != null;
+                 node = node.sibling) {
+                if (merged[node.action] > n) {
+                    n = merged[node.action];
+                    best = node.action;
+                } // if (merged[node.action] > n)
+            } // for (node = workers[k].tree.child; ...)
+
+            workers[k].tree = null;
+        } // for (k = 0, n = -1; k < threads; ++k)
+
+        if (lastIterations == 0) {
+            // Stopped before the first iteration, nothing was searched
+            return uno.isSevenZeroRule()
+                    ? ai.sevenZeroAI_bestCardIndex4NowPlayer(outColor)
+                    : uno.is2vs2()
+                    ? ai.teamAI_bestCardIndex4NowPlayer(outColor)
+                    : ai.hardAI_bestCardIndex4NowPlayer(outColor);
+        } // if (lastIterations == 0)
+
+        if (Thread.currentThread().isInterrupted()
+                || token != null && token.cancelled) {
+            // Cancelled, the result is not worth remembering
+            return toCardIndex(best, outColor);
+        } // if (Thread.currentThread().isInterrupted() || ...)
+
+        if (deadline != 0L && lastIterations < iterations) {
+            // Stopped at the deadline
+            deadlineIterations = lastIterations;
+        } // if (deadline != 0L && lastIterations < iterations)
+
+        if (table != null && lastIterations > cached) {
+            table.put(key, 1L << 63 | (long) lastIterations << 32 | best,
+                    lastIterations);
+        } // if (table != null && lastIterations > cached)
+
+        return toCardIndex(best, outColor);
+    } // bestCardIndex4NowPlayer(Color[])
+
+    /**
+     * Fake C++ Macro
+     * Key of the live game position in the table: the game state hash, mixed
+     * with the rule settings that change the legal actions or the rewards.
+     */
+    static long positionKey(Uno uno) {
+        return uno.getHash() ^ Rng.mix64(uno.players
+                | (uno._2vs2 ? 0x08 : 0x00)
+                | (uno.sevenZeroRule ? 0x10 : 0x00)
+                | uno.stackRule << 5
+                | uno.forcePlayRule << 7);
+    } // positionKey(Uno)
+
+    /**
+     * Map an action of current player in the live game to a hand index.
+     *
+     * @param best     Provide the action.
+     * @param outColor Out parameter, changed when the action is a wild card.
+     * @return Index of the card to play, in current player's hand. Or -1
+     * that means to draw a card.
+     */
+    int toCardIndex(int best, Color[] outColor) {
+        int i, n;
+        Card card;
+        List<Card> hand = ai.uno.getCurrPlayer().getHandCards();
+
+        if (best == ACTION_DRAW) {
+            return -1;
+        } // if (best == ACTION_DRAW)
+
+        card = ai.uno.table[best / 5];
+        if (card.isWild()) {
+            outColor[0] = Uno.COLORS[best % 5];
+        } // if (card.isWild())
+
+        for (i = 0, n = hand.size(); i < n; ++i) {
+            if (hand.get(i).id == card.id) {
+                return i;
+            } // if (hand.get(i).id == card.id)
+        } // for (i = 0, n = hand.size(); i < n; ++i)
+
+        return -1;
+    } // toCardIndex(int, Color[])
+
+    /**
+     * Wait for the worker threads. When the calling thread is interrupted,
+     * the workers are stopped, and the interrupt status is kept. When a
+     * worker failed, the others are stopped, and the failure is thrown.
+     *
+     * @param futures Provide the futures of the submitted workers.
+     */
+    void join(List<Future<?>> futures) {
+        boolean interrupted = false;
+        Throwable failure = null;
+
+        // Workers share our runtime snapshot. Always wait for all of them
+        // before returning, or the next search would race with them.
+        for (int i = 0; i < futures.size(); ) {
+            try {
+                futures.get(i).get();
+                ++i;
+            } // try
+            catch (InterruptedException e) {
+                interrupted = true;
+                stopped = true;
+            } // catch (InterruptedException e)
+            catch (ExecutionException e) {
+                failure = e.getCause();
+                stopped = true;
+                ++i;
+            } // catch (ExecutionException e)
+        } // for (int i = 0; i < futures.size(); )
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        } // if (interrupted)
+
+        if (failure != null) {
+            throw new IllegalStateException(failure);
+        } // if (failure != null)
+    } // join(List<Future<?>>)
+} // Ismcts Class
+
+// E.O.F
@@ -0,0 +1,382 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Uno Card Game 4 Droid
+// Author: Hikari Toyama
+// Compile Environment: Android Studio Arctic Fox, with Android SDK 30
+// COPYRIGHT HIKARI TOYAMA, 1992-2022. ALL RIGHTS RESERVED.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.hikari_toyama.unocard.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Store an Uno player's real-time information,
+ * such as hand cards, and recent played card.
+ */
+public class Player {
+    /**
+     * Your player ID.
+     */
+    public static final int YOU = 0;
+
+    /**
+     * WEST's player ID.
+     */
+    public static final int COM1 = 1;
+
+    /**
+     * NORTH's player ID.
+     */
+    public static final int COM2 = 2;
+
+    /**
+     * EAST's player ID.
+     */
+    public static final int COM3 = 3;
+
+    /**
+     * Hand cards. Pre-sized to hold MAX_HOLD_CARDS cards.
+     */
+    final List<Card> handCards = new ArrayList<>(Uno.MAX_HOLD_CARDS);
+
+    /**
+     * Hand cards (read only version, provide for external accesses).
+     */
+    final List<Card> constHandCards = Collections.unmodifiableList(handCards);
+
+    /**
+     * Access counts[i] to get how many cards with id number i are in hand.
+     * Maintained together with handCards, see addCard(int, Card).
+     */
+    final byte[] counts = new byte[54];
+
+    /**
+     * Bit-sliced version of counts[]. Bit i of countBits[k] is bit k of
+     * counts[i]. A card has 4 copies at most, so 3 bit planes are enough.
+     * Together with Uno.legality, this gives the legal card count in O(1).
+     */
+    final long[] countBits = new long[3];
+
+    /**
+     * Zobrist hash of hand cards, regardless of the order. The (k + 1)-th
+     * copy of card id contributes Uno.HASH_KEYS[Uno.HASH_HAND + id * 4 + k].
+     * Maintained together with counts[], see Uno.getHash().
+     */
+    long hash = 0L;
+
+    /**
+     * Strong color.
+     */
+    Color strongColor = Color.NONE;
+
+    /**
+     * Weak color.
+     */
+    Color weakColor = Color.NONE;
+
+    /**
+     * Recent played card. If the player drew one or more cards in its last
+     * action, this member will be null.
+     */
+    Card recent = null;
+
+    /**
+     * How many dangerous cards (cards in strong color) in hand. THIS IS AN
+     * ESTIMATED VALUE, NOT A REAL VALUE! This value is estimated by player's
+     * actions, such as which color this player selected when playing a wild
+     * card, and how many dangerous cards are played after that wild card.
+     */
+    int strongCount = 0;
+
+    /**
+     * This binary values shows the visibility of your cards. The card of
+     * handCards.at(i) is known by you when 0x01 == ((open >> i) & 0x01).
+     */
+    int open = 0x00000000;
+
+    /**
+     * Card counting: cards in this hand known by everyone, because the hand
+     * was revealed by a challenge. known[i] cards with id number i are known,
+     * and knownColor[c] sums them up by color ordinal (wild cards are counted
+     * as Color.NONE). The other cards in this hand are hidden.
+     */
+    final byte[] known = new byte[54];
+    final int[] knownColor = new int[5];
+    int knownCount = 0;
+
+    /**
+     * Card counting: excluded[c] hidden cards are believed to be neither in
+     * color c nor wild cards, because this player drew a card by itself when
+     * the last color was c. Cards drawn after that are not excluded.
+     */
+    final int[] excluded = new int[5];
+
+    /**
+     * Card counting: in 7-0 rule, hand cards are passed to others. The player
+     * who passed this hand (keeper, a seat id, or -1 if none) knows which
+     * cards were passed: kept[i] cards with id number i are still in hand.
+     * keptColor[c] sums them up by color ordinal.
+     */
+    int keeper = -1;
+    final byte[] kept = new byte[54];
+    final int[] keptColor = new int[5];
+    int keptCount = 0;
+
+    /**
+     * Default constructor.
+     */
+    Player() {
+        // NOP (only change accessibility to package-private)
+    } // Player() (Class Constructor)
+
+    /**
+     * Put a card into hand.
+     *
+     * @param index Put the card at this index of handCards.
+     * @param card  Provide the card.
+     */
+    void addCard(int index, Card card) {
+        handCards.add(index, card);
+        count(card.id, 1);
+    } // addCard(int, Card)
+
+    /**
+     * Take a card away from hand.
+     *
+     * @param index Provide the index of the card in handCards.
+     * @return The card taken away.
+     */
+    Card removeCard(int index) {
+        Card card = handCards.remove(index);
+
+        count(card.id, -1);
+        return card;
+    } // removeCard(int)
+
+    /**
+     * Take all cards away from hand.
+     */
+    void clearHand() {
+        handCards.clear();
+        Arrays.fill(counts, (byte) 0);
+        countBits[0] = countBits[1] = countBits[2] = 0L;
+        hash = 0L;
+    } // clearHand()
+
+    /**
+     * Forget all card counting beliefs about this hand.
+     */
+    void clearBelief() {
+        Arrays.fill(known, (byte) 0);
+        Arrays.fill(knownColor, 0);
+        Arrays.fill(excluded, 0);
+        Arrays.fill(kept, (byte) 0);
+        Arrays.fill(keptColor, 0);
+        knownCount = keptCount = 0;
+        keeper = -1;
+    } // clearBelief()
+
+    /**
+     * Update the card counting beliefs about this hand, after a card was
+     * played from it.
+     *
+     * @param card Provide the played card.
+     * @return True if the card was hidden before, i.e. it was unseen by
+     * everyone until now.
+     */
+    boolean forget(Card card) {
+        int c = card.color.ordinal(), hidden;
+        boolean wasHidden = known[card.id] == 0;
+
+        if (!wasHidden) {
+            --known[card.id];
+            --knownColor[c];
+            --knownCount;
+        } // if (!wasHidden)
+
+        if (kept[card.id] > 0) {
+            --kept[card.id];
+            --keptColor[c];
+            --keptCount;
+        } // if (kept[card.id] > 0)
+
+        hidden = handCards.size() - knownCount;
+        for (c = 0; c < 5; ++c) {
+            if (excluded[c] > hidden) {
+                excluded[c] = hidden;
+            } // if (excluded[c] > hidden)
+        } // for (c = 0; c < 5; ++c)
+
+        return wasHidden;
+    } // forget(Card)
+
+    /**
+     * In 7-0 rule, this hand was passed from the specified seat to another.
+     * Remember what the passer knows about this hand.
+     *
+     * @param seat Provide the passer's seat id.
+     */
+    void keep(int seat) {
+        keeper = seat;
+        System.arraycopy(counts, 0, kept, 0, 54);
+        for (int c = 0; c < 5; ++c) {
+            keptColor[c] = countIn(Uno.COLOR_MASKS[c]);
+        } // for (int c = 0; c < 5; ++c)
+
+        keptCount = handCards.size();
+    } // keep(int)
+
+    /**
+     * Update counts[id], countBits[] and hash when a card is put into or
+     * taken away from hand.
+     *
+     * @param id    Provide the card's id number.
+     * @param delta Provide 1 when put into, or -1 when taken away.
+     */
+    void count(int id, int delta) {
+        int n = counts[id] += delta;
+        long bit = 1L << id;
+
+        hash ^= Uno.HASH_KEYS[Uno.HASH_HAND + (id << 2)
+                + (delta > 0 ? n - 1 : n)];
+
+        for (int k = 0; k < 3; ++k, n >>= 1) {
+            countBits[k] = (n & 1) != 0
+                    ? countBits[k] | bit : countBits[k] & ~bit;
+        } // for (int k = 0; k < 3; ++k, n >>= 1)
+    } // count(int, int)
+
+    /**
+     * Count the hand cards within a set of card ids.
+     *
+     * @param mask Provide the set of card ids. When 0x01L == ((mask >> i)
+     *             & 0x01L), the card with id number i is in the set.
+     * @return How many hand cards are in the set, duplicates included.
+     */
+    int countIn(long mask) {
+        return Long.bitCount(countBits[0] & mask)
+                + (Long.bitCount(countBits[1] & mask) << 1)
+                + (Long.bitCount(countBits[2] & mask) << 2);
+    } // countIn(long)
+
+    /**
+     * @return A binary value shows that which kinds of cards are in hand.
+     * When 0x01L == ((getHandMask() >> i) & 0x01L), at least one card with
+     * id number i is in hand.
+     */
+    public long getHandMask() {
+        return countBits[0] | countBits[1] | countBits[2];
+    } // getHandMask()
+
+    /**
+     * @param card Provide a card.
+     * @return How many copies of the specified card are in hand.
+     */
+    public int getCount(Card card) {
+        return counts[card.id];
+    } // getCount(Card)
+
+    /**
+     * @return This player's all hand cards.
+     */
+    public List<Card> getHandCards() {
+        return constHandCards;
+    } // getHandCards()
+
+    /**
+     * Calculate the total score of this player's hand cards. According to the
+     * official rule, Wild Cards are worth 50 points, Action Cards are worth 20
+     * points, and Number Cards are worth points that equals to the number.
+     *
+     * @return Score of this player's hand cards.
+     */
+    public int getHandScore() {
+        int score = 0;
+        for (Card card : handCards) {
+            switch (card.content) {
+                case WILD:
+                case WILD_DRAW4:
+                    score += 50;
+                    break; // case WILD, WILD_DRAW4
+
+                case REV:
+                case SKIP:
+                case DRAW2:
+                    score += 20;
+                    break; // case REV, SKIP, DRAW2
+
+                default: // Number Cards
+                    score += card.content.ordinal();
+                    break; // default
+            } // switch (card.content)
+        } // for (Card card : handCards)
+
+        return score;
+    } // getHandScore()
+
+    /**
+     * @return How many cards in this player's hand.
+     */
+    public int getHandSize() {
+        return handCards.size();
+    } // getHandSize()
+
+    /**
+     * When this player played a wild card, record the color specified, as this
+     * player's strong color. The strong color will be remembered until this
+     * player played a number of card matching that color. You can use this
+     * value to defend this player's UNO dash.
+     *
+     * @return This player's strong color, or Color.NONE if no available
+     * strong color.
+     */
+    public Color getStrongColor() {
+        return strongColor;
+    } // getStrongColor()
+
+    /**
+     * When this player draw a card in action, record the previous played card's
+     * color, as this player's weak color. What this player did means that this
+     * player probably do not have cards in that color. You can use this value
+     * to defend this player's UNO dash.
+     *
+     * @return This player's weak color, or Color.NONE if no available weak
+     * color.
+     */
+    public Color getWeakColor() {
+        return weakColor;
+    } // getWeakColor()
+
+    /**
+     * @return This player's recent played card, or null if this player drew
+     * one or more cards in its previous action.
+     */
+    public Card getRecent() {
+        return recent;
+    } // getRecent()
+
+    /**
+     * Check whether this player's hand cards are known by you, i.e. the unique
+     * non-AI player. In 7-0 rule, when a seven or zero card is put down, and
+     * your hand cards are transferred to someone else (for example, A), then
+     * A's all hand cards are known by you.
+     *
+     * @param index Index of the card to check (0 ~ this.handCards.size() - 1).
+     *              If you pass -1, check all hand cards.
+     * @return Whether this player's specified card is known by you. If index is
+     * -1, this method will return true only when ALL OF THIS PLAYER'S
+     * HAND CARDS are known by you.
+     */
+    public boolean isOpen(int index) {
+        return index < 0
+                ? open == (~(0xffffffff << handCards.size()))
+                : 0x01 == (0x01 & (open >> index));
+    } // isOpen(int)
+} // Player Class
+
+// E.O.F
\ No newline at end of file
@@ -0,0 +1,462 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Uno Card Game 4 Droid
+// Author: Hikari Toyama
+// Compile Environment: Android Studio Arctic Fox, with Android SDK 30
+// COPYRIGHT HIKARI TOYAMA, 1992-2022. ALL RIGHTS RESERVED.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.hikari_toyama.unocard.core;
+
+/**
+ * Headless game flow driver. Plays a whole game between AI players on an Uno
+ * runtime, following the same flow as MainActivity.setStatus(int), but
+ * without any animation, sound or waiting.
+ */
+public class Referee {
+    /**
+     * Seat strategy: choose like the UI does, by difficulty and game rules.
+     */
+    public static final int AI_AUTO = -1;
+
+    /**
+     * Seat strategy: AI.easyAI_bestCardIndex4NowPlayer(Color[]).
+     */
+    public static final int AI_EASY = 0;
+
+    /**
+     * Seat strategy: AI.hardAI_bestCardIndex4NowPlayer(Color[]).
+     */
+    public static final int AI_HARD = 1;
+
+    /**
+     * Seat strategy: AI.teamAI_bestCardIndex4NowPlayer(Color[]).
+     */
+    public static final int AI_TEAM = 2;
+
+    /**
+     * Seat strategy: AI.sevenZeroAI_bestCardIndex4NowPlayer(Color[]).
+     */
+    public static final int AI_SEVEN_ZERO = 3;
+
+    /**
+     * Seat strategy: AI.mctsAI_bestCardIndex4NowPlayer(Color[]).
+     */
+    public static final int AI_MCTS = 4;
+
+    /**
+     * A game is aborted when it did not finish after so many turns.
+     */
+    public static final int MAX_TURNS = 10000;
+
+    /**
+     * Status: ask the next player to challenge a [wild +4] or not.
+     */
+    static final int STAT_DOUBT_WILD4 = 0x6666;
+
+    /**
+     * Status: in 7-0 rule, current player swaps hand cards with someone.
+     */
+    static final int STAT_SEVEN_TARGET = 0x7777;
+
+    /**
+     * Status: game over.
+     */
+    static final int STAT_GAME_OVER = 0x4444;
+
+    /**
+     * Uno runtime.
+     */
+    final Uno uno;
+
+    /**
+     * AI strategies on the Uno runtime.
+     */
+    final AI ai;
+
+    /**
+     * Strategy of each seat (AI_AUTO / AI_EASY / AI_HARD / AI_TEAM /
+     * AI_SEVEN_ZERO / AI_MCTS).
+     */
+    final int[] strategy = {AI_AUTO, AI_AUTO, AI_AUTO, AI_AUTO};
+
+    /**
+     * Out parameter of the AI.*_bestCardIndex4NowPlayer(Color[]) methods.
+     */
+    final Color[] bestColor = new Color[1];
+
+    /**
+     * Winner of the last game, or -1 if the last game was aborted.
+     */
+    int winner;
+
+    /**
+     * How many turns in the last game.
+     */
+    int turns;
+
+    /**
+     * How many times the used cards were re-used in the last game.
+     */
+    int reshuffles;
+
+    /**
+     * Constructor.
+     *
+     * @param uno Provide the Uno runtime instance.
+     * @param ai  Provide the AI instance working on the same Uno runtime.
+     */
+    public Referee(Uno uno, AI ai) {
+        if (uno == null || ai == null) {
+            throw new IllegalArgumentException("DO NOT PASS NULL PARAMETER!!!");
+        } // if (uno == null || ai == null)
+
+        this.uno = uno;
+        this.ai = ai;
+        this.winner = -1;
+    } // Referee(Uno, AI) (Class Constructor)
+
+    /**
+     * @return Provided Uno runtime instance.
+     */
+    public Uno getUno() {
+        return uno;
+    } // getUno()
+
+    /**
+     * Reset the random number generators of both Uno runtime and AI. The next
+     * game played by playGame() can be reproduced by the same seed and rules.
+     *
+     * @param seed Provide the new seed.
+     */
+    public void setSeed(long seed) {
+        uno.setSeed(seed);
+        ai.setSeed(Rng.mix64(seed));
+    } // setSeed(long)
+
+    /**
+     * @param who      Set which seat's strategy. Must be one of the following:
+     *                 Player.YOU, Player.COM1, Player.COM2, Player.COM3.
+     * @param strategy AI_AUTO, AI_EASY, AI_HARD, AI_TEAM, AI_SEVEN_ZERO or
+     *                 AI_MCTS.
+     */
+    public void setStrategy(int who, int strategy) {
+        if (Player.YOU <= who && who <= Player.COM3 &&
+                AI_AUTO <= strategy && strategy <= AI_MCTS) {
+            this.strategy[who] = strategy;
+        } // if (Player.YOU <= who && who <= Player.COM3 && ...)
+    } // setStrategy(int, int)
+
+    /**
+     * @param who Get which seat's strategy.
+     * @return Specified seat's strategy.
+     */
+    public int getStrategy(int who) {
+        return strategy[who];
+    } // getStrategy(int)
+
+    /**
+     * @return Winner of the last game, or -1 if the last game was aborted.
+     * In 2vs2 mode, the winner's teammate is also a winner.
+     */
+    public int getWinner() {
+        return winner;
+    } // getWinner()
+
+    /**
+     * @return How many turns (AI decisions) in the last game.
+     */
+    public int getTurns() {
+        return turns;
+    } // getTurns()
+
+    /**
+     * @return How many times the used cards were re-used in the last game.
+     */
+    public int getReshuffles() {
+        return reshuffles;
+    } // getReshuffles()
+
+    /**
+     * Play a whole new game, until someone wins or MAX_TURNS reached.
+     *
+     * @return Winner of this game, or -1 if this game was aborted.
+     */
+    public int playGame() {
+        int status;
+
+        winner = -1;
+        turns = reshuffles = 0;
+        status = begin();
+        while (status != STAT_GAME_OVER && turns < MAX_TURNS) {
+            status = step(status);
+        } // while (status != STAT_GAME_OVER && turns < MAX_TURNS)
+
+        return winner;
+    } // playGame()
+
+    /**
+     * Go one step forward from the specified status.
+     *
+     * @param status Current status value. Must not be STAT_GAME_OVER.
+     * @return Next status value.
+     */
+    int step(int status) {
+        switch (status) {
+            case STAT_DOUBT_WILD4:
+                if (ai.needToChallenge()) {
+                    status = onChallenge();
+                } // if (ai.needToChallenge())
+                else {
+                    uno.switchNow();
+                    status = draw(4, /* force */ true);
+                } // else
+                break; // case STAT_DOUBT_WILD4
+
+            case STAT_SEVEN_TARGET:
+                status = swapWith(ai.calcBestSwapTarget4NowPlayer());
+                break; // case STAT_SEVEN_TARGET
+
+            default:
+                status = requestAI();
+                break; // default
+        } // switch (status)
+
+        return status;
+    } // step(int)
+
+    /**
+     * Start a new game, and handle the start card.
+     *
+     * @return Next status value.
+     */
+    int begin() {
+        int status;
+
+        uno.start();
+        switch (uno.getRecentInfo()[3].card.content) {
+            case DRAW2:
+                // If starting with a [+2], let dealer draw 2 cards.
+                status = draw(2, /* force */ true);
+                break; // case DRAW2
+
+            case SKIP:
+                // If starting with a [skip], skip dealer's turn.
+                status = uno.switchNow();
+                break; // case SKIP
+
+            case REV:
+                // If starting with a [reverse], change the action
+                // sequence to COUNTER CLOCKWISE.
+                uno.switchDirection();
+                status = uno.getNow();
+                break; // case REV
+
+            default:
+                // Otherwise, go to dealer's turn.
+                status = uno.getNow();
+                break; // default
+        } // switch (uno.getRecentInfo()[3].card.content)
+
+        return status;
+    } // begin()
+
+    /**
+     * Let current player's AI make a decision.
+     *
+     * @return Next status value.
+     */
+    int requestAI() {
+        int idxBest, s;
+
+        ++turns;
+        s = strategy[uno.getNow()];
+        if (s == AI_AUTO) {
+            s = uno.getDifficulty() == Uno.LV_EASY ? AI_EASY
+                    : uno.getDifficulty() == Uno.LV_EXPERT ? AI_MCTS
+                    : uno.isSevenZeroRule() ? AI_SEVEN_ZERO
+                    : uno.is2vs2() ? AI_TEAM : AI_HARD;
+        } // if (s == AI_AUTO)
+
+        switch (s) {
+            case AI_EASY:
+                idxBest = ai.easyAI_bestCardIndex4NowPlayer(bestColor);
+                break; // case AI_EASY
+
+            case AI_TEAM:
+                idxBest = ai.teamAI_bestCardIndex4NowPlayer(bestColor);
+                break; // case AI_TEAM
+
+            case AI_SEVEN_ZERO:
+                idxBest = ai.sevenZeroAI_bestCardIndex4NowPlayer(bestColor);
+                break; // case AI_SEVEN_ZERO
+
+            case AI_MCTS:
+                idxBest = ai.mctsAI_bestCardIndex4NowPlayer(bestColor);
+                break; // case AI_MCTS
+
+            default:
+                idxBest = ai.hardAI_bestCardIndex4NowPlayer(bestColor);
+                break; // default
+        } // switch (s)
+
+        return idxBest >= 0
+                ? play(idxBest, bestColor[0])
+                : draw(1, /* force */ false);
+    } // requestAI()
+
+    /**
+     * The player in action draw one or more cards.
+     *
+     * @param count How many cards to draw.
+     * @param force Pass true if the specified player is required to draw cards.
+     * @return Next status value.
+     */
+    int draw(int count, boolean force) {
+        Card drawn;
+        int i, index, c, now, deckCount;
+
+        c = uno.getDraw2StackCount();
+        if (c > 0) {
+            count = c;
+            force = true;
+        } // if (c > 0)
+
+        index = -1;
+        drawn = null;
+        now = uno.getNow();
+        for (i = 0; i < count; ++i) {
+            deckCount = uno.getDeckCount();
+            index = uno.draw(now, force);
+            if (index < 0) {
+                break;
+            } // if (index < 0)
+
+            drawn = uno.getCurrPlayer().getHandCards().get(index);
+            if (deckCount == 1) {
+                // The last card in deck was drawn, used cards are re-used
+                ++reshuffles;
+            } // if (deckCount == 1)
+        } // for (i = 0; i < count; ++i)
+
+        if (count == 1 &&
+                drawn != null &&
+                uno.getForcePlayRule() != 0 &&
+                uno.isLegalToPlay(drawn)) {
+            // Player drew one card by itself, the drawn card
+            // can be played immediately if it's legal to play
+            return play(index, ai.calcBestColor4NowPlayer());
+        } // if (count == 1 && ...)
+
+        return uno.switchNow();
+    } // draw(int, boolean)
+
+    /**
+     * The player in action play a card.
+     *
+     * @param index Play which card.
+     * @param color The following legal color, when playing a wild card.
+     * @return Next status value.
+     */
+    int play(int index, Color color) {
+        Card card;
+        int now, size;
+
+        now = uno.getNow();
+        size = uno.getCurrPlayer().getHandSize();
+        if (uno.getStackRule() == 2 && uno.getCurrPlayer()
+                .getHandCards().get(index).content == Content.WILD_DRAW4) {
+            color = uno.lastColor();
+        } // if (uno.getStackRule() == 2 && ...)
+
+        card = uno.play(now, index, color);
+        if (card == null) {
+            return now;
+        } // if (card == null)
+
+        if (size == 1) {
+            // The player in action becomes winner when it played the
+            // final card in its hand successfully
+            winner = now;
+            return STAT_GAME_OVER;
+        } // if (size == 1)
+
+        switch (card.content) {
+            case DRAW2:
+                now = uno.switchNow();
+                if (uno.getStackRule() == 0) {
+                    now = draw(2, /* force */ true);
+                } // if (uno.getStackRule() == 0)
+                break; // case DRAW2
+
+            case SKIP:
+                uno.switchNow();
+                now = uno.switchNow();
+                break; // case SKIP
+
+            case REV:
+                uno.switchDirection();
+                now = uno.switchNow();
+                break; // case REV
+
+            case WILD_DRAW4:
+                now = uno.getStackRule() == 2
+                        ? uno.switchNow()
+                        : STAT_DOUBT_WILD4;
+                break; // case WILD_DRAW4
+
+            case NUM7:
+                if (uno.isSevenZeroRule()) {
+                    now = STAT_SEVEN_TARGET;
+                    break; // case NUM7
+                } // if (uno.isSevenZeroRule())
+                // else fall through
+
+            case NUM0:
+                if (uno.isSevenZeroRule()) {
+                    uno.cycle();
+                    now = uno.switchNow();
+                    break; // case NUM0
+                } // if (uno.isSevenZeroRule())
+                // else fall through
+
+            default:
+                now = uno.switchNow();
+                break; // default
+        } // switch (card.content)
+
+        return now;
+    } // play(int, Color)
+
+    /**
+     * Next player challenges current player's [wild +4].
+     *
+     * @return Next status value.
+     */
+    int onChallenge() {
+        int now = uno.getNow();
+
+        if (uno.challenge(now)) {
+            // Challenge success, who played [wild +4] draws 4 cards
+            return draw(4, /* force */ true);
+        } // if (uno.challenge(now))
+
+        // Challenge failure, challenger draws 6 cards
+        uno.switchNow();
+        return draw(6, /* force */ true);
+    } // onChallenge()
+
+    /**
+     * The player in action swap hand cards with another player.
+     *
+     * @param whom Swap with whom.
+     * @return Next status value.
+     */
+    int swapWith(int whom) {
+        uno.swap(uno.getNow(), whom);
+        return uno.switchNow();
+    } // swapWith(int)
+} // Referee Class
+
+// E.O.F
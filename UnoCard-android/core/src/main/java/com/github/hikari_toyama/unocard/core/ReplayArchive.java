@@ -0,0 +1,577 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Uno Card Game 4 Droid
+// Author: Hikari Toyama
+// Compile Environment: Android Studio Arctic Fox, with Android SDK 30
+// COPYRIGHT HIKARI TOYAMA, 1992-2022. ALL RIGHTS RESERVED.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.hikari_toyama.unocard.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Save all replays into a single append-only archive, instead of one file per
+ * game. An archive is a directory with two files:
+ * <p>
+ * replays.dat: Replay bodies (ReplayCodec binary format), one after another.
+ * replays.idx: A 16-byte header (magic "UNOI", version, entry count), then a
+ * fixed 32-byte entry per replay, memory-mapped:
+ * <p>
+ * +0  long  Offset of the body in replays.dat
+ * +8  int   Length of the body
+ * +12 long  When the replay was saved (milliseconds since epoch)
+ * +20 byte  How many players (3 or 4)
+ * +21 byte  Rule flags (FLAG_2VS2, FLAG_SEVEN_ZERO)
+ * +22 byte  Winner's player id, or -1 if the game did not finish
+ * +23 byte  Reserved
+ * +24 int   Command count
+ * +28 int   Turn count (how many cards were played)
+ * <p>
+ * The metadata is computed once when a replay is appended, so the metadata
+ * queries and replay lookup never touch the bodies. An append forces the body
+ * to the storage device, then the index entry, and only then updates and
+ * forces the entry count in the header, so a crash or power loss in the
+ * middle of an append loses at most the replay being appended.
+ * <p>
+ * Replays are named "#n", where n is the entry index.
+ */
+public class ReplayArchive implements ReplaySink, Closeable {
+    /**
+     * File names in the archive directory.
+     */
+    public static final String INDEX_FILE = "replays.idx",
+            DATA_FILE = "replays.dat";
+
+    /**
+     * Rule flags. The 7-0 flag is inferred from the recorded swap/cycle
+     * commands, thus a 7-0 game that never had a 7 or 0 played is not
+     * flagged. Stack rules and force play rules are not recorded in replays.
+     */
+    public static final int FLAG_2VS2 = 0x01, FLAG_SEVEN_ZERO = 0x02;
+
+    /**
+     * Index file magic and version.
+     */
+    static final byte[] MAGIC = {'U', 'N', 'O', 'I'};
+    static final int VERSION = 1;
+
+    /**
+     * Index layout.
+     */
+    static final int HEADER_SIZE = 16, ENTRY_SIZE = 32;
+
+    /**
+     * Grow the mapped index by this many entries at a time.
+     */
+    static final int GROW_ENTRIES = 1024;
+
+    /**
+     * Channels of the index file and the data file.
+     */
+    final FileChannel indexChannel, dataChannel;
+
+    /**
+     * Private engine and encoder to compute the metadata and normalize
+     * the replays being appended.
+     */
+    final Uno uno;
+    final ReplayCodec codec;
+
+    /**
+     * The memory-mapped index file.
+     */
+    MappedByteBuffer index;
+
+    /**
+     * How many replays are in the archive.
+     */
+    int count;
+
+    /**
+     * End of the last body in the data file. New bodies are written here.
+     */
+    long dataEnd;
+
+    /**
+     * True after close(). Checked under the archive's lock before every
+     * append, so that an import running in another thread stops cleanly.
+     */
+    boolean closed;
+
+    /**
+     * Open an archive, or create a new one if not exists.
+     *
+     * @param archiveDir The directory that stores the archive files.
+     * @throws IOException Thrown if the archive cannot be opened, or the
+     *                     index file is not a replay archive index.
+     */
+    public ReplayArchive(File archiveDir) throws IOException {
+        long size;
+
+        if (archiveDir == null) {
+            throw new IllegalArgumentException("DO NOT PASS NULL PARAMETER!!!");
+        } // if (archiveDir == null)
+
+        indexChannel = new RandomAccessFile(
+                new File(archiveDir, INDEX_FILE), "rw").getChannel();
+        dataChannel = new RandomAccessFile(
+                new File(archiveDir, DATA_FILE), "rw").getChannel();
+        size = indexChannel.size();
+        map(Math.max(size, HEADER_SIZE + (long) GROW_ENTRIES * ENTRY_SIZE));
+        if (size == 0) {
+            index.put(0, MAGIC[0]).put(1, MAGIC[1]).put(2, MAGIC[2])
+                    .put(3, MAGIC[3]).putInt(4, VERSION).putInt(8, 0);
+        } // if (size == 0)
+        else if (index.get(0) != MAGIC[0] || index.get(1) != MAGIC[1]
+                || index.get(2) != MAGIC[2] || index.get(3) != MAGIC[3]
+                || index.getInt(4) != VERSION) {
+            close();
+            throw new IOException("Not a replay archive index");
+        } // else if (...)
+
+        count = index.getInt(8);
+        if (count < 0 || size > 0
+                && HEADER_SIZE + (long) count * ENTRY_SIZE > size) {
+            close();
+            throw new IOException("Broken replay archive index");
+        } // if (count < 0 || ...)
+
+        // Bytes after the last body are left by an interrupted append.
+        // They are overwritten by the next append.
+        dataEnd = count == 0 ? 0 : getOffset(count - 1) + getLength(count - 1);
+        uno = new Uno();
+        codec = new ReplayCodec(1024);
+    } // ReplayArchive(File) (Class Constructor)
+
+    /**
+     * Map the first [size] bytes of the index file. The file grows if it's
+     * shorter than [size].
+     */
+    void map(long size) throws IOException {
+        index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    } // map(long)
+
+    /**
+     * @param i Provide an entry index.
+     * @return Position of the entry in the index file.
+     */
+    int entry(int i) {
+        if (i < 0 || i >= count) {
+            throw new IndexOutOfBoundsException("Entry " + i + " of " + count);
+        } // if (i < 0 || i >= count)
+
+        return HEADER_SIZE + i * ENTRY_SIZE;
+    } // entry(int)
+
+    /**
+     * @return How many replays are in the archive.
+     */
+    public synchronized int size() {
+        return count;
+    } // size()
+
+    /**
+     * @param i Provide an entry index.
+     * @return Name of the replay, which can be passed to open(String).
+     */
+    public synchronized String getName(int i) {
+        entry(i);
+        return "#" + i;
+    } // getName(int)
+
+    /**
+     * @param i Provide an entry index.
+     * @return Offset of the replay body in the data file.
+     */
+    public synchronized long getOffset(int i) {
+        return index.getLong(entry(i));
+    } // getOffset(int)
+
+    /**
+     * @param i Provide an entry index.
+     * @return Length of the replay body in bytes.
+     */
+    public synchronized int getLength(int i) {
+        return index.getInt(entry(i) + 8);
+    } // getLength(int)
+
+    /**
+     * @param i Provide an entry index.
+     * @return When the replay was saved, in milliseconds since epoch.
+     */
+    public synchronized long getTime(int i) {
+        return index.getLong(entry(i) + 12);
+    } // getTime(int)
+
+    /**
+     * @param i Provide an entry index.
+     * @return How many players were in the game (3 or 4).
+     */
+    public synchronized int getPlayers(int i) {
+        return index.get(entry(i) + 20);
+    } // getPlayers(int)
+
+    /**
+     * @param i Provide an entry index.
+     * @return Rule flags of the game. See FLAG_2VS2 and FLAG_SEVEN_ZERO.
+     */
+    public synchronized int getFlags(int i) {
+        return index.get(entry(i) + 21) & 0xff;
+    } // getFlags(int)
+
+    /**
+     * @param i Provide an entry index.
+     * @return Winner's player id, or -1 if the game did not finish.
+     */
+    public synchronized int getWinner(int i) {
+        return index.get(entry(i) + 22);
+    } // getWinner(int)
+
+    /**
+     * @param i Provide an entry index.
+     * @return How many commands the replay has.
+     */
+    public synchronized int getCommands(int i) {
+        return index.getInt(entry(i) + 24);
+    } // getCommands(int)
+
+    /**
+     * @param i Provide an entry index.
+     * @return How many turns (played cards) the game had.
+     */
+    public synchronized int getTurns(int i) {
+        return index.getInt(entry(i) + 28);
+    } // getTurns(int)
+
+    /**
+     * Append a replay to the archive.
+     *
+     * @param replay Provide the replay data, encoded by ReplayCodec.
+     * @return Name of the saved replay, or an empty string if save failed.
+     */
+    @Override
+    public synchronized String save(byte[] replay) {
+        int i;
+
+        if (closed) {
+            return "";
+        } // if (closed)
+
+        try {
+            i = append(new ByteArrayInputStream(replay),
+                    System.currentTimeMillis(), /* unique */ false);
+            return i < 0 ? "" : getName(i);
+        } // try
+        catch (IOException e) {
+            return "";
+        } // catch (IOException e)
+    } // save(byte[])
+
+    /**
+     * A window of the data file, as an input stream. Reads the data file at
+     * absolute positions, so that streams of different replays (and appends)
+     * never move each other. Supports mark() and reset(), and skip() costs
+     * nothing, so that a replay can be rewound without reopening it.
+     */
+    static class BodyStream extends InputStream {
+        final FileChannel channel;
+        final long start, length;
+        final byte[] one = new byte[1];
+        long pos, marked;
+
+        BodyStream(FileChannel channel, long start, long length) {
+            this.channel = channel;
+            this.start = start;
+            this.length = length;
+        } // BodyStream(FileChannel, long, long) (Class Constructor)
+
+        @Override
+        public int read() throws IOException {
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+        } // read()
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n;
+
+            if (pos >= length) {
+                return -1;
+            } // if (pos >= length)
+
+            n = (int) Math.min(len, length - pos);
+            n = channel.read(ByteBuffer.wrap(b, off, n), start + pos);
+            if (n < 0) {
+                throw new IOException("Truncated replay archive");
+            } // if (n < 0)
+
+            pos += n;
+            return n;
+        } // read(byte[], int, int)
+
+        @Override
+        public long skip(long n) {
+            n = Math.max(0, Math.min(n, length - pos));
+            pos += n;
+            return n;
+        } // skip(long)
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, length - pos);
+        } // available()
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        } // markSupported()
+
+        @Override
+        public void mark(int readLimit) {
+            marked = pos;
+        } // mark(int)
+
+        @Override
+        public void reset() {
+            pos = marked;
+        } // reset()
+    } // BodyStream Inner Class
+
+    /**
+     * Open a replay in the archive. Only the requested body is read, a bit
+     * at a time while decoding. Closing the stream does not close the
+     * archive, but the stream stops working when the archive is closed.
+     *
+     * @param replayName Provide the name of your replay, e.g. "#0".
+     * @return An input stream to read the replay data, which supports
+     * mark() and reset(). Close it after use.
+     * @throws IOException Thrown if the replay does not exist.
+     */
+    @Override
+    public synchronized InputStream open(String replayName)
+            throws IOException {
+        int i;
+
+        if (replayName == null) {
+            throw new IllegalArgumentException("DO NOT PASS NULL PARAMETER!!!");
+        } // if (replayName == null)
+
+        try {
+            i = Integer.parseInt(replayName.substring(1));
+        } // try
+        catch (NumberFormatException | IndexOutOfBoundsException e) {
+            i = -1;
+        } // catch (NumberFormatException | IndexOutOfBoundsException e)
+
+        if (!replayName.startsWith("#") || i < 0 || i >= count) {
+            throw new FileNotFoundException(replayName);
+        } // if (!replayName.startsWith("#") || i < 0 || i >= count)
+
+        return new BodyStream(dataChannel, getOffset(i), getLength(i));
+    } // open(String)
+
+    /**
+     * Import all replay files (binary or legacy text) whose names end with
+     * [ext] in a directory, in the order of file names. Every imported file
+     * is renamed with an extra ".imported" suffix, or deleted if it cannot
+     * be renamed, so that it will not be imported again. If it can be
+     * neither renamed nor deleted, the import stops there. A file that is
+     * already in the archive (same time, body length and command count),
+     * e.g. imported right before a crash, is renamed without appending it
+     * again. Broken files are renamed with an extra ".broken" suffix, so
+     * that they are not decoded again. Decoding every file takes a while, so
+     * do not call this
+     * on the UI thread. The archive is locked for one file at a time, so
+     * other threads can save and open replays during the import, or close
+     * the archive to stop it.
+     *
+     * @param dir Provide the directory that stores your replay files.
+     * @param ext Provide the extension name of replay files, e.g. ".sav".
+     * @return How many files were imported.
+     * @throws IOException Thrown if the archive cannot be written.
+     */
+    public int importFiles(File dir, String ext) throws IOException {
+        int i, n = 0;
+        File[] files;
+
+        if (dir == null || ext == null) {
+            throw new IllegalArgumentException("DO NOT PASS NULL PARAMETER!!!");
+        } // if (dir == null || ext == null)
+
+        if ((files = dir.listFiles()) == null) {
+            return 0;
+        } // if ((files = dir.listFiles()) == null)
+
+        Arrays.sort(files);
+        for (File f : files) {
+            if (!f.isFile() || !f.getName().endsWith(ext)) {
+                continue;
+            } // if (!f.isFile() || !f.getName().endsWith(ext))
+
+            synchronized (this) {
+                if (closed) {
+                    break;
+                } // if (closed)
+
+                try {
+                    i = append(new FileInputStream(f), f.lastModified(),
+                            /* unique */ true);
+                } // try
+                catch (FileNotFoundException e) {
+                    continue;
+                } // catch (FileNotFoundException e)
+            } // synchronized (this)
+
+            if (i < 0) {
+                // Broken, do not decode it again on every import
+                f.renameTo(new File(dir, f.getName() + ".broken"));
+                continue;
+            } // if (i < 0)
+
+            ++n;
+            // Keep the original file in case the user still wants it
+            if (!f.renameTo(new File(dir, f.getName() + ".imported"))
+                    && !f.delete()) {
+                // Otherwise it would be imported again on every call
+                break;
+            } // if (!f.renameTo(...) && !f.delete())
+        } // for (File f : files)
+
+        return n;
+    } // importFiles(File, String)
+
+    /**
+     * Decode a replay, compute its metadata, and append it (re-encoded in
+     * the current binary format) to the archive.
+     *
+     * @param in     Provide the replay data. Closed when finished.
+     * @param time   Provide when the replay was saved.
+     * @param unique Provide true to skip the replay if the archive has
+     *               one saved at the same time, with the same body length
+     *               and command count.
+     * @return The new entry index (or the existing one when skipped), or -1
+     * if the replay is broken. The new replay is on the storage device when
+     * this returns.
+     * @throws IOException Thrown if the archive cannot be written.
+     */
+    int append(InputStream in, long time, boolean unique) throws IOException {
+        int i, op, pos, flags = 0, winner = -1, turns = 0;
+        ReplayReader r = new ReplayReader(in);
+        ByteBuffer body;
+
+        codec.clear();
+        uno.it = r;
+        try {
+            while ((op = r.next()) >= 0) {
+                codec.add(op, r.getA(), r.getB(), r.getC());
+                uno.applyReplay();
+                if (op == ReplayCodec.PL) {
+                    ++turns;
+                } // if (op == ReplayCodec.PL)
+                else if (op == ReplayCodec.SW || op == ReplayCodec.CY) {
+                    flags |= FLAG_SEVEN_ZERO;
+                } // else if (op == ReplayCodec.SW || op == ReplayCodec.CY)
+            } // while ((op = r.next()) >= 0)
+        } // try
+        finally {
+            uno.it = null;
+            r.close();
+        } // finally
+
+        if (op != ReplayReader.EOF || codec.size() == 0) {
+            return -1;
+        } // if (op != ReplayReader.EOF || codec.size() == 0)
+
+        if (uno._2vs2) {
+            flags |= FLAG_2VS2;
+        } // if (uno._2vs2)
+
+        for (i = Player.YOU; i <= Player.COM3 && winner < 0; ++i) {
+            if ((i != Player.COM2 || uno.players == 4)
+                    && uno.player[i].handCards.isEmpty()) {
+                winner = i;
+            } // if ((i != Player.COM2 || uno.players == 4) && ...)
+        } // for (i = Player.YOU; i <= Player.COM3 && winner < 0; ++i)
+
+        body = ByteBuffer.wrap(codec.toByteArray());
+        for (i = count - 1; unique && i >= 0; --i) {
+            if (getTime(i) == time && getLength(i) == body.capacity()
+                    && getCommands(i) == codec.size()) {
+                return i;
+            } // if (getTime(i) == time && ...)
+        } // for (i = count - 1; unique && i >= 0; --i)
+
+        // Body first, then the index entry, then the entry count. Each one
+        // is forced before the next, because the kernel may write the mapped
+        // index back before the data file's page cache.
+        while (body.hasRemaining()) {
+            dataChannel.write(body, dataEnd + body.position());
+        } // while (body.hasRemaining())
+
+        dataChannel.force(false);
+
+        pos = HEADER_SIZE + count * ENTRY_SIZE;
+        if (pos + ENTRY_SIZE > index.capacity()) {
+            map(index.capacity() + (long) GROW_ENTRIES * ENTRY_SIZE);
+        } // if (pos + ENTRY_SIZE > index.capacity())
+
+        index.putLong(pos, dataEnd);
+        index.putInt(pos + 8, body.capacity());
+        index.putLong(pos + 12, time);
+        index.put(pos + 20, (byte) uno.players);
+        index.put(pos + 21, (byte) flags);
+        index.put(pos + 22, (byte) winner);
+        index.put(pos + 23, (byte) 0);
+        index.putInt(pos + 24, codec.size());
+        index.putInt(pos + 28, turns);
+        index.force();
+        index.putInt(8, ++count);
+        index.force();
+        dataEnd += body.capacity();
+        return count - 1;
+    } // append(InputStream, long, boolean)
+
+    /**
+     * Write all appended replays through to the storage device.
+     *
+     * @throws IOException Thrown if the data file cannot be written.
+     */
+    void flush() throws IOException {
+        dataChannel.force(false);
+        index.force();
+    } // flush()
+
+    /**
+     * Flush and close the archive. Waits for the append in progress, if
+     * any, and stops a running importFiles() before its next file.
+     *
+     * @throws IOException Thrown if the archive cannot be written.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        try {
+            if (index != null && dataChannel.isOpen()) {
+                flush();
+            } // if (index != null && dataChannel.isOpen())
+        } // try
+        finally {
+            indexChannel.close();
+            dataChannel.close();
+        } // finally
+    } // close()
+} // ReplayArchive Class
+
+// E.O.F
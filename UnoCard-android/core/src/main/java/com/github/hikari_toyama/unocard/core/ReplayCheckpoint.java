@@ -0,0 +1,114 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Uno Card Game 4 Droid
+// Author: Hikari Toyama
+// Compile Environment: Android Studio Arctic Fox, with Android SDK 30
+// COPYRIGHT HIKARI TOYAMA, 1992-2022. ALL RIGHTS RESERVED.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.hikari_toyama.unocard.core;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A snapshot of the replay playback, taken after a certain count of commands.
+ * Holds everything that forwardReplay(int[]) changes: everyone's hand cards
+ * and open flags, the recent played cards, current player, action sequence,
+ * and game mode. Also holds where the replay reader was, so that the playback
+ * can resume from here without decoding the earlier commands again.
+ * <p>
+ * The state is packed into a byte array (about 60 bytes in common cases).
+ */
+class ReplayCheckpoint {
+    /**
+     * How many commands were applied when this checkpoint was taken.
+     */
+    final int index;
+
+    /**
+     * Position of the replay reader. See ReplayReader.mark().
+     */
+    final long mark;
+
+    /**
+     * Packed playback state.
+     */
+    final byte[] state;
+
+    /**
+     * Take a checkpoint of the current replay playback.
+     *
+     * @param uno Provide the Uno runtime instance that is playing a replay.
+     */
+    ReplayCheckpoint(Uno uno) {
+        int i, j, pos = 0;
+        byte[] s = new byte[12 + 4 * (5 + Uno.MAX_HOLD_CARDS)];
+
+        s[pos++] = (byte) uno.now;
+        s[pos++] = (byte) uno.direction;
+        s[pos++] = (byte) uno.players;
+        s[pos++] = (byte) (uno._2vs2 ? 1 : 0);
+        for (i = 0; i < 4; ++i) {
+            s[pos++] = (byte) (uno.recent[i].card == null
+                    ? -1 : uno.recent[i].card.id);
+            s[pos++] = (byte) uno.recent[i].color.ordinal();
+        } // for (i = 0; i < 4; ++i)
+
+        for (i = 0; i < 4; ++i) {
+            Player p = uno.player[i];
+            List<Card> hand = p.handCards;
+
+            s[pos++] = (byte) (p.open >>> 24);
+            s[pos++] = (byte) (p.open >>> 16);
+            s[pos++] = (byte) (p.open >>> 8);
+            s[pos++] = (byte) p.open;
+            s[pos++] = (byte) hand.size();
+            for (j = 0; j < hand.size(); ++j) {
+                s[pos++] = (byte) hand.get(j).id;
+            } // for (j = 0; j < hand.size(); ++j)
+        } // for (i = 0; i < 4; ++i)
+
+        index = uno.it.getIndex();
+        mark = uno.it.mark();
+        state = Arrays.copyOf(s, pos);
+    } // ReplayCheckpoint(Uno) (Class Constructor)
+
+    /**
+     * Restore the replay playback state from this checkpoint. The replay
+     * reader is NOT repositioned here.
+     *
+     * @param uno Provide the Uno runtime instance that is playing a replay.
+     */
+    void restore(Uno uno) {
+        int i, j, n, id, pos = 0;
+        byte[] s = state;
+
+        uno.now = s[pos++];
+        uno.direction = s[pos++];
+        uno.setPlayers(s[pos++]);
+        uno.set2vs2(s[pos++] != 0);
+        for (i = 0; i < 4; ++i) {
+            id = s[pos++];
+            uno.recent[i].card = id < 0 ? null : uno.table[id];
+            uno.recent[i].color = Uno.COLORS[s[pos++]];
+        } // for (i = 0; i < 4; ++i)
+
+        for (i = 0; i < 4; ++i) {
+            Player p = uno.player[i];
+
+            p.open = (s[pos] & 0xff) << 24 | (s[pos + 1] & 0xff) << 16
+                    | (s[pos + 2] & 0xff) << 8 | (s[pos + 3] & 0xff);
+            pos += 4;
+            p.clearHand();
+            for (j = 0, n = s[pos++]; j < n; ++j) {
+                p.addCard(j, uno.table[s[pos++]]);
+            } // for (j = 0, n = s[pos++]; j < n; ++j)
+        } // for (i = 0; i < 4; ++i)
+
+        uno.updateReplayLegality();
+    } // restore(Uno)
+} // ReplayCheckpoint Class
+
+// E.O.F
@@ -0,0 +1,205 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Uno Card Game 4 Droid
+// Author: Hikari Toyama
+// Compile Environment: Android Studio Arctic Fox, with Android SDK 30
+// COPYRIGHT HIKARI TOYAMA, 1992-2022. ALL RIGHTS RESERVED.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.hikari_toyama.unocard.core;
+
+import java.util.Arrays;
+
+/**
+ * Binary replay format, version 1.
+ * <p>
+ * A replay file starts with the 4-byte magic "UNOR", a version byte, and the
+ * command count as an unsigned LEB128 varint. Then the commands follow as a
+ * bit stream (MSB first, zero-padded to a whole byte). Each command begins
+ * with a 3-bit opcode, followed by its operands:
+ * <pre>
+ * ST: 1-bit 2vs2 flag, 1-bit (players - 3), 6-bit start card id
+ * DR: 2-bit who, 6-bit card id
+ * PL: 2-bit who, 6-bit card id, 3-bit color (only when the card is wild)
+ * DF: 2-bit who
+ * CH: 2-bit whom
+ * SW: 2-bit player A, 2-bit player B
+ * CY: (no operands)
+ * </pre>
+ * A common command costs 11 bits, against 8~10 bytes in the legacy text
+ * format (e.g. ";PL,1,23,2").
+ * <p>
+ * An instance of this class records the commands of the current game.
+ * Use ReplayReader to decode a replay file (legacy text files as well).
+ */
+public class ReplayCodec {
+    /**
+     * Opcodes. ST: Start a new game. DR: Draw a card. PL: Play a card.
+     * DF: Draw but failure. CH: Make a challenge. SW: Swap hand cards.
+     * CY: Cycle, everyone pass hand cards to the next.
+     */
+    public static final int ST = 0, DR = 1, PL = 2, DF = 3, CH = 4, SW = 5, CY = 6;
+
+    /**
+     * Command names, indexed by opcodes.
+     */
+    static final String[] NAMES = {"ST", "DR", "PL", "DF", "CH", "SW", "CY"};
+
+    /**
+     * Magic number at the beginning of every binary replay file.
+     */
+    static final byte[] MAGIC = {'U', 'N', 'O', 'R'};
+
+    /**
+     * Current format version.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * Encoded commands (without header). Grows on demand.
+     */
+    byte[] buf;
+
+    /**
+     * How many bits in buf are used.
+     */
+    int bits;
+
+    /**
+     * How many commands are recorded.
+     */
+    int count;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity Initial buffer size in bytes. Pre-size it for a long
+     *                 game, so that recording does not allocate in the
+     *                 steady state.
+     */
+    public ReplayCodec(int capacity) {
+        buf = new byte[Math.max(capacity, 16)];
+        bits = count = 0;
+    } // ReplayCodec(int) (Class Constructor)
+
+    /**
+     * Discard all recorded commands. The buffer is kept for reuse.
+     */
+    public void clear() {
+        bits = count = 0;
+    } // clear()
+
+    /**
+     * @return How many commands are recorded.
+     */
+    public int size() {
+        return count;
+    } // size()
+
+    /**
+     * @return Size of the encoded commands in bytes, without header.
+     */
+    public int length() {
+        return (bits + 7) >> 3;
+    } // length()
+
+    /**
+     * Append a value to the bit stream.
+     *
+     * @param value Provide the value.
+     * @param width How many low bits of value to write.
+     */
+    void put(int value, int width) {
+        int i, mask;
+
+        if (bits + width > buf.length << 3) {
+            buf = Arrays.copyOf(buf, buf.length << 1);
+        } // if (bits + width > buf.length << 3)
+
+        for (i = width - 1; i >= 0; --i, ++bits) {
+            mask = 0x80 >> (bits & 7);
+            if ((value >> i & 1) != 0) {
+                buf[bits >> 3] |= mask;
+            } // if ((value >> i & 1) != 0)
+            else {
+                buf[bits >> 3] &= ~mask;
+            } // else
+        } // for (i = width - 1; i >= 0; --i, ++bits)
+    } // put(int, int)
+
+    /**
+     * Record a command. Operands are not checked, so pass valid values only.
+     *
+     * @param op Opcode, e.g. ReplayCodec.PL.
+     * @param a  The first operand (who, or 2vs2 flag for ST), or 0 if unused.
+     * @param b  The second operand (card id, or player B for SW, or players
+     *           for ST), or 0 if unused.
+     * @param c  The third operand (card id for ST, or color ordinal for PL),
+     *           or 0 if unused.
+     */
+    public void add(int op, int a, int b, int c) {
+        put(op, 3);
+        switch (op) {
+            case ST:
+                put(a, 1);
+                put(b - 3, 1);
+                put(c, 6);
+                break; // case ST
+
+            case PL:
+                put(a, 2);
+                put(b, 6);
+                if (b >= 52) {
+                    put(c, 3);
+                } // if (b >= 52)
+                break; // case PL
+
+            case DR:
+                put(a, 2);
+                put(b, 6);
+                break; // case DR
+
+            case SW:
+                put(a, 2);
+                put(b, 2);
+                break; // case SW
+
+            case DF:
+            case CH:
+                put(a, 2);
+                break; // case DF, CH
+
+            default:
+                break; // default
+        } // switch (op)
+
+        ++count;
+    } // add(int, int, int, int)
+
+    /**
+     * @return The whole replay file's content, with header.
+     */
+    public byte[] toByteArray() {
+        int n, pos;
+        byte[] data = new byte[MAGIC.length + 6 + length()];
+
+        System.arraycopy(MAGIC, 0, data, 0, MAGIC.length);
+        pos = MAGIC.length;
+        data[pos++] = VERSION;
+        for (n = count; n > 0x7f; n >>>= 7) {
+            data[pos++] = (byte) (n & 0x7f | 0x80);
+        } // for (n = count; n > 0x7f; n >>>= 7)
+
+        data[pos++] = (byte) n;
+        System.arraycopy(buf, 0, data, pos, length());
+        if ((bits & 7) != 0) {
+            // Zero-pad the last byte
+            data[pos + length() - 1] &= (byte) (0xff00 >> (bits & 7));
+        } // if ((bits & 7) != 0)
+
+        return Arrays.copyOf(data, pos + length());
+    } // toByteArray()
+} // ReplayCodec Class
+
+// E.O.F
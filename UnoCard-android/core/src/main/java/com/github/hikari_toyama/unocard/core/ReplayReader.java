@@ -0,0 +1,510 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Uno Card Game 4 Droid
+// Author: Hikari Toyama
+// Compile Environment: Android Studio Arctic Fox, with Android SDK 30
+// COPYRIGHT HIKARI TOYAMA, 1992-2022. ALL RIGHTS RESERVED.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.hikari_toyama.unocard.core;
+
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Single-pass streaming decoder of replay files. Reads both the binary format
+ * (see ReplayCodec) and the legacy text format ("ST,0,3,12;DR,0,5;...").
+ * <p>
+ * Commands are validated and decoded lazily, one per next() call, into the
+ * primitive fields op, a, b and c. Only a fixed-size buffer is held, so the
+ * memory usage does not depend on the replay's length, and nothing is
+ * allocated per command.
+ */
+public class ReplayReader implements Closeable {
+    /**
+     * Returned by next() when the end of replay reached.
+     */
+    public static final int EOF = -1;
+
+    /**
+     * Returned by next() when a broken command is found.
+     */
+    public static final int ERROR = -2;
+
+    /**
+     * Size of the read buffer in bytes.
+     */
+    static final int BUFFER_SIZE = 4096;
+
+    /**
+     * Where the replay data come from.
+     */
+    final ReadableByteChannel channel;
+
+    /**
+     * The underlying stream if it supports mark() and reset(), and is not
+     * a file (files are rewound through their channels), or null.
+     */
+    final InputStream rewindable;
+
+    /**
+     * Read buffer. Always in "get" mode.
+     */
+    final ByteBuffer buf;
+
+    /**
+     * True if reading the binary format, or false if the legacy text format.
+     */
+    boolean binary;
+
+    /**
+     * Binary format only. How many commands are declared in the header.
+     */
+    int count;
+
+    /**
+     * Binary format only. Bits read from the stream but not consumed yet.
+     */
+    int acc, accBits;
+
+    /**
+     * How many bytes are read from the channel so far.
+     */
+    long offset;
+
+    /**
+     * How many commands are decoded so far.
+     */
+    int index;
+
+    /**
+     * True if EOF or ERROR has been returned by next().
+     */
+    boolean done;
+
+    /**
+     * The last decoded command. See ReplayCodec for the meanings of operands.
+     */
+    int op, a, b, c;
+
+    /**
+     * Constructor. Reads the header.
+     *
+     * @param in Provide the replay data. Closed by close().
+     * @throws IOException Thrown if the replay data cannot be read.
+     */
+    public ReplayReader(InputStream in) throws IOException {
+        int i, n, shift;
+
+        if (in == null) {
+            throw new IllegalArgumentException("DO NOT PASS NULL PARAMETER!!!");
+        } // if (in == null)
+
+        channel = in instanceof FileInputStream
+                ? ((FileInputStream) in).getChannel()
+                : Channels.newChannel(in);
+        rewindable = !(channel instanceof FileChannel) && in.markSupported()
+                ? in : null;
+        if (rewindable != null) {
+            // Mark the beginning, reset(long, int) skips forward from here
+            rewindable.mark(Integer.MAX_VALUE);
+        } // if (rewindable != null)
+
+        buf = ByteBuffer.allocate(BUFFER_SIZE);
+        buf.flip();
+        op = EOF;
+        offset = 0;
+        index = 0;
+        done = false;
+
+        // Look for the magic. Without it, the legacy text format is assumed.
+        fill(ReplayCodec.MAGIC.length + 1);
+        binary = buf.remaining() > ReplayCodec.MAGIC.length;
+        for (i = 0; binary && i < ReplayCodec.MAGIC.length; ++i) {
+            binary = buf.get(buf.position() + i) == ReplayCodec.MAGIC[i];
+        } // for (i = 0; binary && i < ReplayCodec.MAGIC.length; ++i)
+
+        if (binary) {
+            buf.position(buf.position() + ReplayCodec.MAGIC.length);
+            count = -1;
+            if (buf.get() == ReplayCodec.VERSION) {
+                for (n = shift = 0; shift <= 28 && (i = read()) >= 0; shift += 7) {
+                    n |= (i & 0x7f) << shift;
+                    if (i < 0x80) {
+                        count = n;
+                        break;
+                    } // if (i < 0x80)
+                } // for (n = shift = 0; shift <= 28 && ...; shift += 7)
+            } // if (buf.get() == ReplayCodec.VERSION)
+        } // if (binary)
+    } // ReplayReader(InputStream) (Class Constructor)
+
+    /**
+     * Read from the channel until at least [atLeast] bytes are buffered,
+     * or the end of stream reached.
+     *
+     * @param atLeast How many bytes are wanted.
+     * @throws IOException Thrown if the replay data cannot be read.
+     */
+    void fill(int atLeast) throws IOException {
+        int n;
+
+        buf.compact();
+        while (buf.position() < atLeast && (n = channel.read(buf)) >= 0) {
+            offset += n;
+        } // while (buf.position() < atLeast && ...)
+
+        buf.flip();
+    } // fill(int)
+
+    /**
+     * @return The next byte (0~255), or -1 when the end of stream reached.
+     * @throws IOException Thrown if the replay data cannot be read.
+     */
+    int read() throws IOException {
+        if (!buf.hasRemaining()) {
+            fill(1);
+            if (!buf.hasRemaining()) {
+                return -1;
+            } // if (!buf.hasRemaining())
+        } // if (!buf.hasRemaining())
+
+        return buf.get() & 0xff;
+    } // read()
+
+    /**
+     * Binary format only. Read a value from the bit stream.
+     *
+     * @param width How many bits to read (at most 8).
+     * @return The value, or -1 when the end of stream reached.
+     * @throws IOException Thrown if the replay data cannot be read.
+     */
+    int bits(int width) throws IOException {
+        int x;
+
+        if (accBits < width) {
+            if ((x = read()) < 0) {
+                return -1;
+            } // if ((x = read()) < 0)
+
+            acc = (acc << 8 | x) & 0xffff;
+            accBits += 8;
+        } // if (accBits < width)
+
+        accBits -= width;
+        return acc >> accBits & ((1 << width) - 1);
+    } // bits(int)
+
+    /**
+     * Binary format only. Decode the next command into op, a, b and c.
+     *
+     * @return True if success, or false if the stream ends too early.
+     * @throws IOException Thrown if the replay data cannot be read.
+     */
+    boolean nextBinary() throws IOException {
+        a = b = c = 0;
+        switch (op = bits(3)) {
+            case ReplayCodec.ST:
+                a = bits(1);
+                b = bits(1) + 3;
+                c = bits(6);
+                break; // case ReplayCodec.ST
+
+            case ReplayCodec.PL:
+                a = bits(2);
+                b = bits(6);
+                c = b < 52 ? b / 13 + 1 : bits(3);
+                break; // case ReplayCodec.PL
+
+            case ReplayCodec.DR:
+                a = bits(2);
+                b = bits(6);
+                break; // case ReplayCodec.DR
+
+            case ReplayCodec.SW:
+                a = bits(2);
+                b = bits(2);
+                break; // case ReplayCodec.SW
+
+            case ReplayCodec.DF:
+            case ReplayCodec.CH:
+                a = bits(2);
+                break; // case ReplayCodec.DF, ReplayCodec.CH
+
+            default:
+                break; // default
+        } // switch (op = bits(3))
+
+        // Any negative value means the stream ends too early
+        return (op | a | b | c) >= 0;
+    } // nextBinary()
+
+    /**
+     * Text format only. Decode the next command into op, a, b and c.
+     *
+     * @param ch The first character of the command.
+     * @return True if success, or false if the command is malformed.
+     * @throws IOException Thrown if the replay data cannot be read.
+     */
+    boolean nextText(int ch) throws IOException {
+        int i, x, argc = 0;
+
+        switch (ch << 8 | read()) {
+            case 'S' << 8 | 'T':
+                op = ReplayCodec.ST;
+                break; // case 'S' << 8 | 'T'
+
+            case 'D' << 8 | 'R':
+                op = ReplayCodec.DR;
+                break; // case 'D' << 8 | 'R'
+
+            case 'P' << 8 | 'L':
+                op = ReplayCodec.PL;
+                break; // case 'P' << 8 | 'L'
+
+            case 'D' << 8 | 'F':
+                op = ReplayCodec.DF;
+                break; // case 'D' << 8 | 'F'
+
+            case 'C' << 8 | 'H':
+                op = ReplayCodec.CH;
+                break; // case 'C' << 8 | 'H'
+
+            case 'S' << 8 | 'W':
+                op = ReplayCodec.SW;
+                break; // case 'S' << 8 | 'W'
+
+            case 'C' << 8 | 'Y':
+                op = ReplayCodec.CY;
+                break; // case 'C' << 8 | 'Y'
+
+            default:
+                return false;
+        } // switch (ch << 8 | read())
+
+        // Arguments: (',' digits) * argc, then ';' or end of stream
+        a = b = c = 0;
+        for (ch = read(); ch == ','; ++argc) {
+            for (i = x = 0; '0' <= (ch = read()) && ch <= '9'; ++i) {
+                x = x * 10 + ch - '0';
+                if (i > 3) {
+                    return false;
+                } // if (i > 3)
+            } // for (i = x = 0; '0' <= (ch = read()) && ch <= '9'; ++i)
+
+            if (i == 0) {
+                return false;
+            } // if (i == 0)
+            else if (argc == 0) {
+                a = x;
+            } // else if (argc == 0)
+            else if (argc == 1) {
+                b = x;
+            } // else if (argc == 1)
+            else if (argc == 2) {
+                c = x;
+            } // else if (argc == 2)
+            else {
+                return false;
+            } // else
+        } // for (ch = read(); ch == ','; ++argc)
+
+        return (ch == ';' || ch < 0) && argc == (op == ReplayCodec.CY ? 0
+                : op == ReplayCodec.DF || op == ReplayCodec.CH ? 1
+                : op == ReplayCodec.DR || op == ReplayCodec.SW ? 2 : 3);
+    } // nextText(int)
+
+    /**
+     * @return True if the last decoded command has legal operands.
+     */
+    boolean check() {
+        switch (op) {
+            case ReplayCodec.ST:
+                // ST command can only appear once at the beginning
+                return index == 0 && a <= 1 && 3 <= b && b <= 4 && c <= 51;
+
+            case ReplayCodec.DR:
+                return index > 0 && a <= 3 && b <= 53;
+
+            case ReplayCodec.PL:
+                return index > 0 && a <= 3 && b <= 53 && c <= 4;
+
+            case ReplayCodec.DF:
+            case ReplayCodec.CH:
+                return index > 0 && a <= 3;
+
+            case ReplayCodec.SW:
+                return index > 0 && a <= 3 && b <= 3 && a != b;
+
+            case ReplayCodec.CY:
+                return index > 0;
+
+            default:
+                return false;
+        } // switch (op)
+    } // check()
+
+    /**
+     * Decode the next command.
+     *
+     * @return The next command's opcode, e.g. ReplayCodec.ST, then get its
+     * operands by getA(), getB() and getC(). Or EOF when the end of replay
+     * reached, or ERROR when a broken command is found. Once EOF or ERROR
+     * is returned, all subsequent calls return the same value.
+     * @throws IOException Thrown if the replay data cannot be read.
+     */
+    public int next() throws IOException {
+        int ch;
+        boolean ok;
+
+        if (done) {
+            return op;
+        } // if (done)
+
+        if (binary) {
+            if (index == count) {
+                done = true;
+                return op = EOF;
+            } // if (index == count)
+
+            ok = count > 0 && nextBinary();
+        } // if (binary)
+        else if ((ch = read()) < 0) {
+            // Empty replay is forbidden
+            done = true;
+            return op = index > 0 ? EOF : ERROR;
+        } // else if ((ch = read()) < 0)
+        else {
+            ok = nextText(ch);
+        } // else
+
+        if (ok && check()) {
+            ++index;
+        } // if (ok && check())
+        else {
+            done = true;
+            op = ERROR;
+        } // else
+
+        return op;
+    } // next()
+
+    /**
+     * @return How many commands the replay has, as declared in the header of
+     * the binary format, without decoding them. Or -1 if unknown (the legacy
+     * text format, or a broken header).
+     */
+    public int getCount() {
+        return binary ? count : -1;
+    } // getCount()
+
+    /**
+     * @return How many commands are decoded so far.
+     */
+    public int getIndex() {
+        return index;
+    } // getIndex()
+
+    /**
+     * @return Current decoding position, including the unconsumed bits.
+     * Pass it to reset(long, int) to come back to here.
+     */
+    long mark() {
+        return (offset - buf.remaining()) << 24 | (long) accBits << 16 | acc;
+    } // mark()
+
+    /**
+     * Come back to a position returned by mark(). Only works when reading
+     * from a file, or from a stream that supports mark() and reset().
+     *
+     * @param mark  Provide the position returned by mark().
+     * @param index How many commands were decoded at that position.
+     * @return True if success, or false if the underlying stream is not
+     * seekable. Then nothing is changed.
+     * @throws IOException Thrown if the replay data cannot be read.
+     */
+    boolean reset(long mark, int index) throws IOException {
+        long n, skipped;
+
+        if (!(channel instanceof FileChannel) && rewindable == null) {
+            return false;
+        } // if (!(channel instanceof FileChannel) && rewindable == null)
+
+        offset = mark >>> 24;
+        if (rewindable == null) {
+            ((FileChannel) channel).position(offset);
+        } // if (rewindable == null)
+        else {
+            rewindable.reset();
+            for (skipped = 0; skipped < offset; skipped += n) {
+                if ((n = rewindable.skip(offset - skipped)) <= 0) {
+                    throw new IOException("Cannot seek in replay data");
+                } // if ((n = rewindable.skip(offset - skipped)) <= 0)
+            } // for (skipped = 0; skipped < offset; skipped += n)
+        } // else
+
+        buf.clear();
+        buf.flip();
+        accBits = (int) (mark >> 16 & 0xff);
+        acc = (int) (mark & 0xffff);
+        this.index = index;
+        done = false;
+        op = EOF;
+        return true;
+    } // reset(long, int)
+
+    /**
+     * @return Opcode of the last decoded command, or EOF, or ERROR.
+     */
+    public int getOp() {
+        return op;
+    } // getOp()
+
+    /**
+     * @return The first operand of the last decoded command.
+     */
+    public int getA() {
+        return a;
+    } // getA()
+
+    /**
+     * @return The second operand of the last decoded command.
+     */
+    public int getB() {
+        return b;
+    } // getB()
+
+    /**
+     * @return The third operand of the last decoded command.
+     */
+    public int getC() {
+        return c;
+    } // getC()
+
+    /**
+     * @return Name of the last decoded command, e.g. "ST", or an empty
+     * string if no command is available.
+     */
+    public String getName() {
+        return op >= 0 ? ReplayCodec.NAMES[op] : "";
+    } // getName()
+
+    /**
+     * Close the underlying stream.
+     *
+     * @throws IOException Thrown if the stream cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    } // close()
+} // ReplayReader Class
+
+// E.O.F
@@ -0,0 +1,54 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Uno Card Game 4 Droid
+// Author: Hikari Toyama
+// Compile Environment: Android Studio Arctic Fox, with Android SDK 30
+// COPYRIGHT HIKARI TOYAMA, 1992-2022. ALL RIGHTS RESERVED.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.hikari_toyama.unocard.core;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Where the replays of finished games are saved to, and loaded from.
+ */
+public interface ReplaySink {
+    /**
+     * Discard all replays. Use this in headless runs (e.g. simulations)
+     * that never need to save a game.
+     */
+    ReplaySink NONE = new ReplaySink() {
+        @Override
+        public String save(byte[] replay) {
+            return "";
+        } // save(byte[])
+
+        @Override
+        public InputStream open(String replayName) throws IOException {
+            throw new FileNotFoundException(replayName);
+        } // open(String)
+    }; // NONE
+
+    /**
+     * Save a replay.
+     *
+     * @param replay Provide the replay data, encoded by ReplayCodec.
+     * @return Name of the saved replay, or an empty string if save failed.
+     */
+    String save(byte[] replay);
+
+    /**
+     * Open an existed replay.
+     *
+     * @param replayName Provide the name of your replay.
+     * @return An input stream to read the replay data. Close it after use.
+     * @throws IOException Thrown if the replay cannot be opened.
+     */
+    InputStream open(String replayName) throws IOException;
+} // ReplaySink Interface
+
+// E.O.F
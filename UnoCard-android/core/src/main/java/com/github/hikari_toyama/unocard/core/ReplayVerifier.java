@@ -0,0 +1,225 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Uno Card Game 4 Droid
+// Author: Hikari Toyama
+// Compile Environment: Android Studio Arctic Fox, with Android SDK 30
+// COPYRIGHT HIKARI TOYAMA, 1992-2022. ALL RIGHTS RESERVED.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.hikari_toyama.unocard.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Headless replay auditor. Besides the format checks of ReplayReader, every
+ * command is re-applied to a private engine, and checked against the rules:
+ * <p>
+ * 1. Only players in game can act (COM2 is absent in 3-player mode).
+ * 2. DR: the drawn card must be left in the deck, i.e. every card's copies
+ * are conserved among the deck, hands, recent played cards and used cards,
+ * and the drawer holds less than MAX_HOLD_CARDS cards.
+ * 3. DF: the drawer holds exactly MAX_HOLD_CARDS cards.
+ * 4. PL: the card is in the player's hand, legal under isLegalToPlay(Card),
+ * and followed by a valid color (a wild card played as the last card needs
+ * no following color).
+ * 5. CH: the challenged player has just played a [wild +4].
+ * <p>
+ * Stack rules are not recorded in replays, so the legality is checked as no
+ * stack rule, which accepts every legal play of all stack rules.
+ * <p>
+ * An instance is not thread-safe. Use one instance per thread.
+ */
+public class ReplayVerifier {
+    /**
+     * The private engine.
+     */
+    final Uno uno;
+
+    /**
+     * Access copies[i] to get how many copies of card i are in a full deck.
+     */
+    final int[] copies;
+
+    /**
+     * Access outside[i] to get how many copies of card i are in hands and
+     * recent played cards. Access usedCount[i] for used cards.
+     */
+    final int[] outside, usedCount;
+
+    /**
+     * How many cards are left in the deck.
+     */
+    int deckCount;
+
+    /**
+     * How many commands were verified in the last verify() call.
+     */
+    int commands;
+
+    /**
+     * Constructor.
+     */
+    public ReplayVerifier() {
+        uno = new Uno();
+        copies = new int[54];
+        outside = new int[54];
+        usedCount = new int[54];
+        for (int i = 0; i < 54; ++i) {
+            copies[i] = i >= 52 ? 4 : i % 13 == 0 ? 1 : 2;
+        } // for (int i = 0; i < 54; ++i)
+    } // ReplayVerifier() (Class Constructor)
+
+    /**
+     * @return How many commands were verified in the last verify() call.
+     */
+    public int getCommands() {
+        return commands;
+    } // getCommands()
+
+    /**
+     * Verify a replay.
+     *
+     * @param in Provide the replay data. Closed when verification finished.
+     * @return An empty string if the replay passed, otherwise a description
+     * of the first problem found.
+     * @throws IOException Thrown if the replay data cannot be read.
+     */
+    public String verify(InputStream in) throws IOException {
+        int op, last = -1;
+        String error;
+        ReplayReader r = new ReplayReader(in);
+
+        uno.it = r;
+        commands = 0;
+        try {
+            while ((op = r.next()) >= 0) {
+                if (!(error = check(op, last)).isEmpty()) {
+                    return "#" + r.getIndex() + " " + r.getName() + ": " + error;
+                } // if (!(error = check(op, last)).isEmpty())
+
+                uno.applyReplay();
+                last = op;
+                ++commands;
+            } // while ((op = r.next()) >= 0)
+
+            return op == ReplayReader.EOF ? ""
+                    : "#" + (r.getIndex() + 1) + ": broken command";
+        } // try
+        finally {
+            uno.it = null;
+            r.close();
+        } // finally
+    } // verify(InputStream)
+
+    /**
+     * @param who Provide a player's id.
+     * @return True if the player is in game.
+     */
+    boolean inGame(int who) {
+        return who != Player.COM2 || uno.players == 4;
+    } // inGame(int)
+
+    /**
+     * Check the decoded command against the rules, then update the card
+     * accounting when it's legal.
+     *
+     * @param op   Opcode of the decoded command.
+     * @param last Opcode of the previous command, or -1 if none.
+     * @return An empty string if legal, otherwise a description.
+     */
+    String check(int op, int last) {
+        int i, a = uno.it.getA(), b = uno.it.getB(), c = uno.it.getC();
+        List<Card> hand;
+        Card card;
+
+        switch (op) {
+            case ReplayCodec.ST:
+                for (i = 0; i < 54; ++i) {
+                    outside[i] = usedCount[i] = 0;
+                } // for (i = 0; i < 54; ++i)
+
+                ++outside[c];
+                deckCount = 107;
+                return "";
+
+            case ReplayCodec.DR:
+                if (!inGame(a)) {
+                    return "player " + a + " is not in game";
+                } // if (!inGame(a))
+
+                if (uno.player[a].handCards.size() >= Uno.MAX_HOLD_CARDS) {
+                    return "player " + a + " cannot hold more cards";
+                } // if (uno.player[a].handCards.size() >= ...)
+
+                if (outside[b] + usedCount[b] >= copies[b]) {
+                    return "card " + b + " is not in deck";
+                } // if (outside[b] + usedCount[b] >= copies[b])
+
+                ++outside[b];
+                if (--deckCount == 0) {
+                    // Deck is empty, re-use the used cards
+                    for (i = 0; i < 54; ++i) {
+                        deckCount += usedCount[i];
+                        usedCount[i] = 0;
+                    } // for (i = 0; i < 54; ++i)
+                } // if (--deckCount == 0)
+                return "";
+
+            case ReplayCodec.DF:
+                if (!inGame(a)) {
+                    return "player " + a + " is not in game";
+                } // if (!inGame(a))
+
+                return uno.player[a].handCards.size() < Uno.MAX_HOLD_CARDS
+                        ? "player " + a + " can still draw cards" : "";
+
+            case ReplayCodec.PL:
+                if (!inGame(a)) {
+                    return "player " + a + " is not in game";
+                } // if (!inGame(a))
+
+                hand = uno.player[a].handCards;
+                card = uno.table[b];
+                if (uno.player[a].counts[b] == 0) {
+                    return "player " + a + " does not hold card " + b;
+                } // if (uno.player[a].counts[b] == 0)
+
+                if (!uno.isLegalToPlay(card)) {
+                    return "card " + b + " is not legal to play";
+                } // if (!uno.isLegalToPlay(card))
+
+                if (card.isWild() ? c == 0 && hand.size() > 1
+                        : c != card.color.ordinal()) {
+                    // No following color is needed only when the wild card
+                    // is the last card (game over)
+                    return "illegal following color " + c;
+                } // if (card.isWild() ? c == 0 && ... : ...)
+
+                if ((card = uno.recent[0].card) != null) {
+                    // The earliest recent card becomes a used card
+                    --outside[card.id];
+                    ++usedCount[card.id];
+                } // if ((card = uno.recent[0].card) != null)
+                return "";
+
+            case ReplayCodec.CH:
+                card = uno.recent[3].card;
+                return last == ReplayCodec.PL
+                        && card.content == Content.WILD_DRAW4
+                        && uno.now == a
+                        ? "" : "no [wild +4] to challenge";
+
+            case ReplayCodec.SW:
+                return inGame(a) && inGame(b)
+                        ? "" : "player " + a + " or " + b + " is not in game";
+
+            default:
+                return "";
+        } // switch (op)
+    } // check(int, int)
+} // ReplayVerifier Class
+
+// E.O.F
@@ -0,0 +1,199 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Uno Card Game 4 Droid
+// Author: Hikari Toyama
+// Compile Environment: Android Studio Arctic Fox, with Android SDK 30
+// COPYRIGHT HIKARI TOYAMA, 1992-2022. ALL RIGHTS RESERVED.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.hikari_toyama.unocard.core;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Seedable & splittable random number generator (SplitMix64 algorithm).
+ * Same algorithm as java.util.SplittableRandom, which is not available on
+ * old Android devices. NOT THREAD SAFE. Give every thread its own instance,
+ * e.g. by calling split().
+ */
+public class Rng {
+    /**
+     * The golden ratio scaled to 64 bits, used as the default gamma.
+     */
+    static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    /**
+     * Seed of the next default constructed instance.
+     */
+    static long defaultSeed = mix64(System.currentTimeMillis())
+            ^ mix64(System.nanoTime());
+
+    /**
+     * Current state.
+     */
+    long seed;
+
+    /**
+     * Step value (always odd).
+     */
+    long gamma;
+
+    /**
+     * Create a generator with an unpredictable seed.
+     */
+    public Rng() {
+        this(nextDefaultSeed());
+    } // Rng() (Class Constructor)
+
+    /**
+     * Create a generator with the specified seed. Generators created with the
+     * same seed always produce the same sequence of values.
+     *
+     * @param seed Provide the initial seed.
+     */
+    public Rng(long seed) {
+        this(seed, GOLDEN_GAMMA);
+    } // Rng(long) (Class Constructor)
+
+    /**
+     * Internal constructor, used by split().
+     *
+     * @param seed  Initial seed.
+     * @param gamma Step value (must be odd).
+     */
+    Rng(long seed, long gamma) {
+        this.seed = seed;
+        this.gamma = gamma;
+    } // Rng(long, long) (Class Constructor)
+
+    /**
+     * @return Seed for a default constructed instance.
+     */
+    static synchronized long nextDefaultSeed() {
+        return defaultSeed += 2 * GOLDEN_GAMMA;
+    } // nextDefaultSeed()
+
+    /**
+     * Fake C++ Macro
+     * MurmurHash3 64-bit finalizer (David Stafford's variant 13).
+     */
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    } // mix64(long)
+
+    /**
+     * Fake C++ Macro
+     * Make a good gamma value (odd, with enough bit transitions).
+     */
+    static long mixGamma(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        z = (z ^ (z >>> 33)) | 1L;
+        return Long.bitCount(z ^ (z >>> 1)) < 24 ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+    } // mixGamma(long)
+
+    /**
+     * Reset this generator, as if it is newly created with the specified seed.
+     *
+     * @param seed Provide the new seed.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+        this.gamma = GOLDEN_GAMMA;
+    } // setSeed(long)
+
+    /**
+     * Create a new generator that shares no mutable state with this one.
+     * The values generated by the two generators are statistically
+     * independent, so the new one can be handed to another thread.
+     *
+     * @return The new generator.
+     */
+    public Rng split() {
+        long s = nextLong();
+        return new Rng(s, mixGamma(nextSeed()));
+    } // split()
+
+    /**
+     * @return Next state.
+     */
+    long nextSeed() {
+        return seed += gamma;
+    } // nextSeed()
+
+    /**
+     * @return A uniformly distributed long value.
+     */
+    public long nextLong() {
+        return mix64(nextSeed());
+    } // nextLong()
+
+    /**
+     * @return A uniformly distributed int value.
+     */
+    public int nextInt() {
+        return (int) (nextLong() >>> 32);
+    } // nextInt()
+
+    /**
+     * @param bound Upper bound (exclusive). Must be positive.
+     * @return A uniformly distributed int value in [0, bound).
+     */
+    public int nextInt(int bound) {
+        int r, m, u;
+
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive");
+        } // if (bound <= 0)
+
+        r = nextInt() >>> 1;
+        m = bound - 1;
+        if ((bound & m) == 0) {
+            // Power of two
+            r = (int) ((bound * (long) r) >> 31);
+        } // if ((bound & m) == 0)
+        else {
+            // Reject over-represented candidates
+            for (u = r; u - (r = u % bound) + m < 0; u = nextInt() >>> 1) {
+                // NOP
+            } // for (u = r; u - (r = u % bound) + m < 0; ...)
+        } // else
+
+        return r;
+    } // nextInt(int)
+
+    /**
+     * Randomly permute the specified list (Fisher-Yates shuffle).
+     *
+     * @param list Provide the list to shuffle.
+     */
+    public void shuffle(List<?> list) {
+        for (int i = list.size(); i > 1; --i) {
+            Collections.swap(list, i - 1, nextInt(i));
+        } // for (int i = list.size(); i > 1; --i)
+    } // shuffle(List<?>)
+
+    /**
+     * Randomly permute the first n elements of the specified array in place
+     * (Fisher-Yates shuffle).
+     *
+     * @param a Provide the array to shuffle.
+     * @param n Provide how many elements (from a[0]) to shuffle.
+     */
+    public void shuffle(int[] a, int n) {
+        int i, j, t;
+
+        for (i = n; i > 1; --i) {
+            j = nextInt(i);
+            t = a[i - 1];
+            a[i - 1] = a[j];
+            a[j] = t;
+        } // for (i = n; i > 1; --i)
+    } // shuffle(int[], int)
+} // Rng Class
+
+// E.O.F
@@ -0,0 +1,268 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Uno Card Game 4 Droid
+// Author: Hikari Toyama
+// Compile Environment: Android Studio Arctic Fox, with Android SDK 30
+// COPYRIGHT HIKARI TOYAMA, 1992-2022. ALL RIGHTS RESERVED.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.hikari_toyama.unocard.core;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Speculative AI decisions. While the UI is still animating an action, the
+ * next seat's decision can already be computed in background, on a private
+ * copy of the board. When that seat's turn really comes, the result is
+ * taken without thinking again, if the board is still the same. If anything
+ * has changed in between (e.g. a challenge or a swap), the speculation is
+ * thrown away, and the caller decides as usual.
+ * <p>
+ * Call start() and take() on the thread that owns the live runtime. Only
+ * stop() and shutdown() can be called from any other thread.
+ */
+public class Speculator {
+    /**
+     * Returned by take() when there is no usable speculation.
+     */
+    public static final int MISS = -2;
+
+    /**
+     * Private runtime, a copy of the live board when the speculation began.
+     */
+    final Uno uno;
+
+    /**
+     * AI working on the private runtime.
+     */
+    final AI ai;
+
+    /**
+     * Buffer to copy the live board.
+     */
+    final UnoSnapshot snapshot = new UnoSnapshot();
+
+    /**
+     * Out parameter of the speculative decision.
+     */
+    final Color[] color = new Color[1];
+
+    /**
+     * The speculative decision, run on the background thread.
+     */
+    final Callable<Integer> task = new Callable<Integer>() {
+        @Override
+        public Integer call() {
+            return ai.bestCardIndex4NowPlayer(color, token);
+        } // call()
+    }; // new Callable<Integer>()
+
+    /**
+     * Runs the speculative decisions. Created on first use.
+     */
+    ExecutorService executor;
+
+    /**
+     * Running or finished speculation, or null if none.
+     */
+    Future<Integer> pending;
+
+    /**
+     * Cancellation token of the pending speculation.
+     */
+    volatile CancelToken token;
+
+    /**
+     * Position key of the pending speculation, see key(Uno).
+     */
+    long key;
+
+    /**
+     * Default constructor.
+     */
+    public Speculator() {
+        uno = new Uno();
+        uno.quiet = true;
+        ai = new AI(uno);
+    } // Speculator() (Class Constructor)
+
+    /**
+     * @return The AI instance making the speculative decisions. Configure its
+     * search and endgame solver like the live AI, so that both make decisions
+     * of the same strength. Sharing the live AI's search table is welcome.
+     */
+    public AI getAI() {
+        return ai;
+    } // getAI()
+
+    /**
+     * Fake C++ Macro
+     * Key of a position: the game state hash (current player included),
+     * mixed with everything that selects the AI strategy.
+     */
+    static long key(Uno uno) {
+        return Ismcts.positionKey(uno) ^ Rng.mix64(~(long) uno.difficulty);
+    } // key(Uno)
+
+    /**
+     * Start to think about the specified seat's next decision in background,
+     * on the live board as it is now, as if it were that seat's turn. Call
+     * this when the board is fixed until that turn, e.g. after a card was
+     * played and only the animation is left. The pending speculation, if
+     * any, is thrown away.
+     *
+     * @param live      Provide the live Uno runtime.
+     * @param who       Whose decision to think about.
+     * @param timeLimit Think no longer than this many milliseconds, or pass 0
+     *                  for the search budget of getAI() only.
+     */
+    public void start(Uno live, int who, long timeLimit) {
+        if (live == null) {
+            throw new IllegalArgumentException("DO NOT PASS NULL PARAMETER!!!");
+        } // if (live == null)
+
+        // The private runtime is still in use by the pending speculation
+        stop();
+        if (join() == MISS && pending != null) {
+            // Interrupted, cannot touch the private runtime now
+            return;
+        } // if (join() == MISS && pending != null)
+
+        live.snapshot(snapshot);
+        uno.restore(snapshot);
+        uno.replay.clear();
+        uno.now = who;
+        key = key(uno);
+        token = new CancelToken(timeLimit);
+        try {
+            pending = executor().submit(task);
+        } // try
+        catch (RejectedExecutionException e) {
+            // Shut down by another thread just now
+            pending = null;
+        } // catch (RejectedExecutionException e)
+    } // start(Uno, int, long)
+
+    /**
+     * Take the speculative decision for current player in the live game.
+     * When it is still running, wait for it. Either way, this speculation is
+     * over when this method returns.
+     *
+     * @param live     Provide the live Uno runtime.
+     * @param outColor Out parameter, see AI.easyAI_bestCardIndex4NowPlayer.
+     * @return Index of the best card to play, in current player's hand, or
+     * -1 that means to draw a card. Or MISS when there is no speculation, or
+     * the live board is not the same as the one speculated on.
+     */
+    public int take(Uno live, Color[] outColor) {
+        int i;
+
+        if (live == null || outColor == null || outColor.length == 0) {
+            throw new IllegalArgumentException("DO NOT PASS NULL PARAMETER!!!");
+        } // if (live == null || outColor == null || outColor.length == 0)
+
+        if (pending == null) {
+            return MISS;
+        } // if (pending == null)
+
+        if (key(live) != key) {
+            // The board has changed since, throw the speculation away
+            stop();
+            join();
+            return MISS;
+        } // if (key(live) != key)
+
+        i = join();
+        if (i != MISS) {
+            outColor[0] = color[0];
+        } // if (i != MISS)
+
+        return i;
+    } // take(Uno, Color[])
+
+    /**
+     * Make the pending speculation stop as soon as possible. Thread-safe.
+     * The speculation is not thrown away, so take() still gives the best
+     * decision found so far.
+     */
+    public void stop() {
+        CancelToken t = token;
+
+        if (t != null) {
+            t.cancel();
+        } // if (t != null)
+    } // stop()
+
+    /**
+     * Stop the background threads, including the search threads of getAI().
+     * Thread-safe. They are started again by the next speculation when
+     * necessary.
+     */
+    public void shutdown() {
+        ExecutorService e = executor;
+
+        stop();
+        if (e != null) {
+            e.shutdown();
+        } // if (e != null)
+
+        ai.getSearch().shutdown();
+    } // shutdown()
+
+    /**
+     * Wait for the pending speculation to finish, and forget it. When the
+     * calling thread is interrupted, the speculation is stopped but not
+     * forgotten, so that the next call waits for it again, and the interrupt
+     * status is kept. When the speculation failed, the failure is thrown.
+     *
+     * @return The speculative decision, or MISS if none or interrupted.
+     */
+    int join() {
+        int i = MISS;
+
+        if (pending != null) {
+            try {
+                i = pending.get();
+                pending = null;
+            } // try
+            catch (InterruptedException e) {
+                stop();
+                Thread.currentThread().interrupt();
+            } // catch (InterruptedException e)
+            catch (ExecutionException e) {
+                pending = null;
+                throw new IllegalStateException(e.getCause());
+            } // catch (ExecutionException e)
+        } // if (pending != null)
+
+        return i;
+    } // join()
+
+    /**
+     * @return The executor of speculations. The thread is a daemon, so it
+     * never keeps the process alive.
+     */
+    ExecutorService executor() {
+        if (executor == null || executor.isShutdown()) {
+            executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "Speculator");
+                    t.setDaemon(true);
+                    return t;
+                } // newThread(Runnable)
+            }); // new ThreadFactory()
+        } // if (executor == null || executor.isShutdown())
+
+        return executor;
+    } // executor()
+} // Speculator Class
+
+// E.O.F
@@ -0,0 +1,168 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Uno Card Game 4 Droid
+// Author: Hikari Toyama
+// Compile Environment: Android Studio Arctic Fox, with Android SDK 30
+// COPYRIGHT HIKARI TOYAMA, 1992-2022. ALL RIGHTS RESERVED.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.hikari_toyama.unocard.core;
+
+/**
+ * Fixed-size cache of search results, keyed by 64-bit position hashes (see
+ * Uno.getHash()). Lock-free, and safe to share among threads: every entry
+ * is stored as (key ^ value, value), so that a torn or racing write, whose
+ * two halves do not match, is simply read as a miss. Values are opaque to
+ * this class, except that 0 is reserved for "no entry".
+ * <p>
+ * Entries are grouped by buckets of two. When a bucket is full, the entry
+ * left over from an older generation is replaced first, and then the one
+ * with less weight (e.g. search iterations or depth spent on it), so that
+ * expensive results of the current search survive cheap ones.
+ */
+public class TranspositionTable {
+    /**
+     * Entries in each bucket.
+     */
+    static final int BUCKET_SIZE = 2;
+
+    /**
+     * Max weight stored in meta[].
+     */
+    static final int MAX_WEIGHT = 0xffffff;
+
+    /**
+     * keys[i] ^ values[i] is the key of entry i.
+     */
+    final long[] keys;
+
+    /**
+     * values[i] is the value of entry i, or 0 if entry i is empty.
+     */
+    final long[] values;
+
+    /**
+     * Replacement info of entry i: (generation << 24) | weight. Only read
+     * when replacing, so a stale meta[i] costs nothing but a worse choice.
+     */
+    final int[] meta;
+
+    /**
+     * Index mask of the first entry in a bucket.
+     */
+    final int mask;
+
+    /**
+     * Current generation (8 bits).
+     */
+    volatile int generation;
+
+    /**
+     * Constructor.
+     *
+     * @param bits Provide the table size: 2 ^ bits entries, 20 bytes each.
+     *             Must be in [1, 28].
+     */
+    public TranspositionTable(int bits) {
+        if (bits < 1 || bits > 28) {
+            throw new IllegalArgumentException("bits must be in [1, 28]");
+        } // if (bits < 1 || bits > 28)
+
+        keys = new long[1 << bits];
+        values = new long[1 << bits];
+        meta = new int[1 << bits];
+        mask = (1 << bits) - BUCKET_SIZE;
+        generation = 0;
+    } // TranspositionTable(int) (Class Constructor)
+
+    /**
+     * @return How many entries can be stored.
+     */
+    public int getCapacity() {
+        return keys.length;
+    } // getCapacity()
+
+    /**
+     * Look up an entry.
+     *
+     * @param key Provide the position hash.
+     * @return The stored value, or 0 if not found.
+     */
+    public long get(long key) {
+        int i = (int) key & mask;
+        long value;
+
+        for (int j = i + BUCKET_SIZE; i < j; ++i) {
+            value = values[i];
+            if (value != 0L && (keys[i] ^ value) == key) {
+                return value;
+            } // if (value != 0L && (keys[i] ^ value) == key)
+        } // for (int j = i + BUCKET_SIZE; i < j; ++i)
+
+        return 0L;
+    } // get(long)
+
+    /**
+     * Store an entry. An entry with the same key is always overwritten.
+     * Otherwise, the victim is an empty entry, or the entry from the oldest
+     * generation, or the one with the least weight, in this order.
+     *
+     * @param key    Provide the position hash.
+     * @param value  Provide the value. Must not be 0.
+     * @param weight Provide how expensive the value is, e.g. iterations or
+     *               depth spent on it. Values above 0xffffff are clamped.
+     */
+    public void put(long key, long value, int weight) {
+        int i, j, m, age, victim, victimAge, victimWeight, gen = generation;
+
+        if (value == 0L) {
+            throw new IllegalArgumentException("value must not be 0");
+        } // if (value == 0L)
+
+        i = (int) key & mask;
+        victim = i;
+        victimAge = -1;
+        victimWeight = Integer.MAX_VALUE;
+        for (j = i + BUCKET_SIZE; i < j; ++i) {
+            if (values[i] == 0L || (keys[i] ^ values[i]) == key) {
+                victim = i;
+                break;
+            } // if (values[i] == 0L || (keys[i] ^ values[i]) == key)
+
+            m = meta[i];
+            age = (gen - (m >>> 24)) & 0xff;
+            if (age > victimAge
+                    || age == victimAge && (m & MAX_WEIGHT) < victimWeight) {
+                victim = i;
+                victimAge = age;
+                victimWeight = m & MAX_WEIGHT;
+            } // if (age > victimAge || ...)
+        } // for (j = i + BUCKET_SIZE; i < j; ++i)
+
+        weight = weight < 0 ? 0 : weight > MAX_WEIGHT ? MAX_WEIGHT : weight;
+        values[victim] = value;
+        keys[victim] = key ^ value;
+        meta[victim] = (gen << 24) | weight;
+    } // put(long, long, int)
+
+    /**
+     * Start a new generation. Call this before each new search, so that
+     * entries of earlier searches are replaced first.
+     */
+    public void nextGeneration() {
+        generation = (generation + 1) & 0xff;
+    } // nextGeneration()
+
+    /**
+     * Remove all entries.
+     */
+    public void clear() {
+        for (int i = 0; i < keys.length; ++i) {
+            keys[i] = values[i] = 0L;
+            meta[i] = 0;
+        } // for (int i = 0; i < keys.length; ++i)
+    } // clear()
+} // TranspositionTable Class
+
+// E.O.F
@@ -15,29 +15,17 @@ import static com.github.hikari_toyama.unocard.core.Content.REV;
 import static com.github.hikari_toyama.unocard.core.Content.WILD;
 import static com.github.hikari_toyama.unocard.core.Content.WILD_DRAW4;
 
-import android.content.Context;
-import android.util.Log;
-
-import com.github.hikari_toyama.unocard.R;
-
-import org.opencv.android.Utils;
-import org.opencv.core.Mat;
-import org.opencv.imgproc.Imgproc;
-
-import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.Writer;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
- * Uno Runtime Class (Singleton).
+ * Uno Runtime Class. Pure rules engine, no image resources inside.
  */
 public class Uno {
     /**
@@ -50,6 +38,11 @@ public class Uno {
      */
     public static final int LV_HARD = 1;
 
+    /**
+     * Expert level ID. AI players search by ISMCTS, see Ismcts class.
+     */
+    public static final int LV_EXPERT = 2;
+
     /**
      * Direction value (clockwise).
      */
@@ -61,69 +54,92 @@ public class Uno {
     public static final int DIR_RIGHT = 3;
 
     /**
-     * In this application, everyone can hold 26 cards at most.
+     * When a replay is loaded, take a checkpoint every such count of
+     * commands at first. See seekReplay(int).
      */
-    public static final int MAX_HOLD_CARDS = 26;
+    static final int REPLAY_CHECKPOINT_INTERVAL = 32;
 
     /**
-     * Random number generator.
+     * Keep at most this many checkpoints of a replay. When exceeded, every
+     * other checkpoint is dropped, and the interval is doubled. Must be even.
      */
-    static final Random RNG = new Random();
+    static final int MAX_REPLAY_CHECKPOINTS = 64;
 
     /**
-     * Tag name for Android Logcat.
+     * In this application, everyone can hold 26 cards at most.
      */
-    static final String TAG = "Uno";
+    public static final int MAX_HOLD_CARDS = 26;
 
     /**
-     * Card deck (ready to use).
+     * Tag name for Android Logcat.
      */
-    final List<Card> deck = new ArrayList<>();
+    static final String TAG = "Uno";
 
     /**
-     * Used cards.
+     * Game logger. On Android devices, the output goes to Logcat.
      */
-    final List<Card> used = new ArrayList<>();
+    static final Logger LOG = Logger.getLogger(TAG);
 
     /**
-     * Recent played cards.
+     * Cached Color.values(). Each values() call clones a new array.
      */
-    RecentInfo[] recent, constRecent;
+    static final Color[] COLORS = Color.values();
 
     /**
-     * Card map. table[i] stores the card instance of id number i.
+     * Cached Content.values(). Each values() call clones a new array.
      */
-    Card[] table;
+    static final Content[] CONTENTS = Content.values();
 
     /**
-     * Image resources for wild cards.
+     * COLOR_MASKS[c] is the set of card ids in color c (by ordinal). For
+     * Color.NONE, the set of wild cards.
      */
-    Mat[] wImage;
+    static final long[] COLOR_MASKS = {
+            0x30000000000000L, // NONE (wild cards)
+            0x1fffL,           // RED
+            0x1fffL << 13,     // BLUE
+            0x1fffL << 26,     // GREEN
+            0x1fffL << 39      // YELLOW
+    }; // COLOR_MASKS[]
 
     /**
-     * Image resources for wild +4 cards.
+     * Zobrist keys of getHash(), from a fixed seed so that hash values are
+     * the same in every run. HASH_KEYS[HASH_HAND + id * 4 + k] stands for the
+     * (k + 1)-th copy of card id in a hand (see Player.hash). The other parts
+     * are indexed by the top card id (54 for none), the last color ordinal,
+     * the player in turn, the direction and the +2 stack counter.
      */
-    Mat[] w4Image;
+    static final int HASH_HAND = 0;
+    static final int HASH_RECENT = HASH_HAND + 54 * 4;
+    static final int HASH_COLOR = HASH_RECENT + 55;
+    static final int HASH_NOW = HASH_COLOR + 5;
+    static final int HASH_DIRECTION = HASH_NOW + 4;
+    static final int HASH_STACK = HASH_DIRECTION + 4;
+    static final long[] HASH_KEYS = makeHashKeys(HASH_STACK + 64);
 
     /**
-     * Card back image resource.
+     * Card deck (ready to use), as id numbers. deck[0..deckSize) are in deck,
+     * and deck[deckSize - 1] is the top card. Sized to hold all 108 cards.
      */
-    Mat backImage;
+    int[] deck = new int[108];
+    int deckSize;
 
     /**
-     * Background image resource (for welcome screen).
+     * Used cards, as id numbers. used[0..usedSize) are used. When the deck
+     * runs out, deck and used swap their buffers.
      */
-    Mat bgWelcome;
+    int[] used = new int[108];
+    int usedSize;
 
     /**
-     * Background image resource (Direction: COUNTER CLOCKWISE).
+     * Recent played cards.
      */
-    Mat bgCounter;
+    RecentInfo[] recent, constRecent;
 
     /**
-     * Background image resource (Direction: CLOCKWISE).
+     * Card map. table[i] stores the card instance of id number i.
      */
-    Mat bgClockwise;
+    Card[] table;
 
     /**
      * Player in turn. Must be one of the following:
@@ -142,7 +158,7 @@ public class Uno {
     int direction;
 
     /**
-     * Current difficulty (LV_EASY / LV_HARD).
+     * Current difficulty (LV_EASY / LV_HARD / LV_EXPERT).
      */
     int difficulty;
 
@@ -206,218 +222,115 @@ public class Uno {
     int[] colorAnalysis, contentAnalysis;
 
     /**
-     * Record the replay data.
+     * Card counting. unseen[i] copies of card i are unseen by everyone, i.e.
+     * in deck, or in someone's hand but not revealed. unseenColor[c] sums
+     * them up by color ordinal, and unseenCount sums up all. Together with
+     * the beliefs in Player, maintained by start(), draw(), play(),
+     * challenge(), swap() and cycle(). Not maintained when a replay is
+     * applied.
      */
-    StringBuilder replay;
+    final int[] unseen = new int[54];
+    final int[] unseenColor = new int[5];
+    int unseenCount;
+
+    /**
+     * Record the replay data. Pre-sized for a long game, so that recording
+     * does not allocate in the steady state.
+     */
+    ReplayCodec replay;
+
+    /**
+     * Replay generation, bumped whenever a new recording begins (by start())
+     * or a replay is loaded, so that a snapshot rewinds only the recording
+     * it was taken from. See UnoSnapshot.
+     */
+    int replayGeneration;
 
     /**
      * Iterator of your loaded replay.
      */
-    Iterator<String> it;
+    ReplayReader it;
+
+    /**
+     * Name of your loaded replay.
+     */
+    String replayName;
+
+    /**
+     * How many commands in your loaded replay.
+     */
+    int replaySize;
+
+    /**
+     * Checkpoints of your loaded replay, taken when the playback goes past
+     * them for the first time. The k-th checkpoint is taken after
+     * (k * checkpointInterval) commands were applied.
+     */
+    final List<ReplayCheckpoint> checkpoints = new ArrayList<>();
+
+    /**
+     * Commands between two checkpoints of your loaded replay.
+     */
+    int checkpointInterval;
+
+    /**
+     * Where to save & load the replay files.
+     */
+    final ReplaySink replaySink;
+
+    /**
+     * Random number generator, owned by this runtime.
+     */
+    final Rng rng;
+
+    /**
+     * Set to true on private runtimes of search based AIs, which play
+     * thousands of games per decision. Nothing is logged from such runtimes.
+     */
+    boolean quiet;
 
     /**
-     * The directory that stores your replay save files.
+     * Headless constructor. Replays will not be saved.
      */
-    File replayDir;
+    public Uno() {
+        this(ReplaySink.NONE);
+    } // Uno() (Class Constructor)
 
     /**
-     * Singleton, hide default constructor.
+     * Constructor.
      *
-     * @param c Pass a context object to let us get the card image
-     *          resources stored in this application.
-     * @throws IOException Thrown if failed to load image resources.
-     */
-    Uno(Context c) throws IOException {
-        Mat[] br, dk;
-        int i, loaded, total;
-
-        // Preparations
-        loaded = 0;
-        total = 120;
-        Log.i(TAG, "Loading... (0%)");
-
-        // Load background image resources
-        bgWelcome = Utils.loadResource(c, R.raw.bg_welcome);
-        bgCounter = Utils.loadResource(c, R.raw.bg_counter);
-        bgClockwise = Utils.loadResource(c, R.raw.bg_clockwise);
-        Imgproc.cvtColor(bgWelcome, bgWelcome, Imgproc.COLOR_BGRA2RGBA);
-        Imgproc.cvtColor(bgCounter, bgCounter, Imgproc.COLOR_BGRA2RGBA);
-        Imgproc.cvtColor(bgClockwise, bgClockwise, Imgproc.COLOR_BGRA2RGBA);
-        loaded += 3;
-        Log.i(TAG, "Loading... (" + 100 * loaded / total + "%)");
-
-        // Load card back image resource
-        backImage = Utils.loadResource(c, R.raw.back);
-        Imgproc.cvtColor(backImage, backImage, Imgproc.COLOR_BGRA2RGBA);
-        ++loaded;
-        Log.i(TAG, "Loading... (" + 100 * loaded / total + "%)");
-
-        // Load cards' front image resources
-        br = new Mat[]{
-                Utils.loadResource(c, R.raw.front_r0),
-                Utils.loadResource(c, R.raw.front_r1),
-                Utils.loadResource(c, R.raw.front_r2),
-                Utils.loadResource(c, R.raw.front_r3),
-                Utils.loadResource(c, R.raw.front_r4),
-                Utils.loadResource(c, R.raw.front_r5),
-                Utils.loadResource(c, R.raw.front_r6),
-                Utils.loadResource(c, R.raw.front_r7),
-                Utils.loadResource(c, R.raw.front_r8),
-                Utils.loadResource(c, R.raw.front_r9),
-                Utils.loadResource(c, R.raw.front_rd2),
-                Utils.loadResource(c, R.raw.front_rr),
-                Utils.loadResource(c, R.raw.front_rs),
-                Utils.loadResource(c, R.raw.front_b0),
-                Utils.loadResource(c, R.raw.front_b1),
-                Utils.loadResource(c, R.raw.front_b2),
-                Utils.loadResource(c, R.raw.front_b3),
-                Utils.loadResource(c, R.raw.front_b4),
-                Utils.loadResource(c, R.raw.front_b5),
-                Utils.loadResource(c, R.raw.front_b6),
-                Utils.loadResource(c, R.raw.front_b7),
-                Utils.loadResource(c, R.raw.front_b8),
-                Utils.loadResource(c, R.raw.front_b9),
-                Utils.loadResource(c, R.raw.front_bd2),
-                Utils.loadResource(c, R.raw.front_br),
-                Utils.loadResource(c, R.raw.front_bs),
-                Utils.loadResource(c, R.raw.front_g0),
-                Utils.loadResource(c, R.raw.front_g1),
-                Utils.loadResource(c, R.raw.front_g2),
-                Utils.loadResource(c, R.raw.front_g3),
-                Utils.loadResource(c, R.raw.front_g4),
-                Utils.loadResource(c, R.raw.front_g5),
-                Utils.loadResource(c, R.raw.front_g6),
-                Utils.loadResource(c, R.raw.front_g7),
-                Utils.loadResource(c, R.raw.front_g8),
-                Utils.loadResource(c, R.raw.front_g9),
-                Utils.loadResource(c, R.raw.front_gd2),
-                Utils.loadResource(c, R.raw.front_gr),
-                Utils.loadResource(c, R.raw.front_gs),
-                Utils.loadResource(c, R.raw.front_y0),
-                Utils.loadResource(c, R.raw.front_y1),
-                Utils.loadResource(c, R.raw.front_y2),
-                Utils.loadResource(c, R.raw.front_y3),
-                Utils.loadResource(c, R.raw.front_y4),
-                Utils.loadResource(c, R.raw.front_y5),
-                Utils.loadResource(c, R.raw.front_y6),
-                Utils.loadResource(c, R.raw.front_y7),
-                Utils.loadResource(c, R.raw.front_y8),
-                Utils.loadResource(c, R.raw.front_y9),
-                Utils.loadResource(c, R.raw.front_yd2),
-                Utils.loadResource(c, R.raw.front_yr),
-                Utils.loadResource(c, R.raw.front_ys),
-                Utils.loadResource(c, R.raw.front_kw),
-                Utils.loadResource(c, R.raw.front_kw4)
-        }; // br = new Mat[]{}
-        dk = new Mat[]{
-                Utils.loadResource(c, R.raw.dark_r0),
-                Utils.loadResource(c, R.raw.dark_r1),
-                Utils.loadResource(c, R.raw.dark_r2),
-                Utils.loadResource(c, R.raw.dark_r3),
-                Utils.loadResource(c, R.raw.dark_r4),
-                Utils.loadResource(c, R.raw.dark_r5),
-                Utils.loadResource(c, R.raw.dark_r6),
-                Utils.loadResource(c, R.raw.dark_r7),
-                Utils.loadResource(c, R.raw.dark_r8),
-                Utils.loadResource(c, R.raw.dark_r9),
-                Utils.loadResource(c, R.raw.dark_rd2),
-                Utils.loadResource(c, R.raw.dark_rr),
-                Utils.loadResource(c, R.raw.dark_rs),
-                Utils.loadResource(c, R.raw.dark_b0),
-                Utils.loadResource(c, R.raw.dark_b1),
-                Utils.loadResource(c, R.raw.dark_b2),
-                Utils.loadResource(c, R.raw.dark_b3),
-                Utils.loadResource(c, R.raw.dark_b4),
-                Utils.loadResource(c, R.raw.dark_b5),
-                Utils.loadResource(c, R.raw.dark_b6),
-                Utils.loadResource(c, R.raw.dark_b7),
-                Utils.loadResource(c, R.raw.dark_b8),
-                Utils.loadResource(c, R.raw.dark_b9),
-                Utils.loadResource(c, R.raw.dark_bd2),
-                Utils.loadResource(c, R.raw.dark_br),
-                Utils.loadResource(c, R.raw.dark_bs),
-                Utils.loadResource(c, R.raw.dark_g0),
-                Utils.loadResource(c, R.raw.dark_g1),
-                Utils.loadResource(c, R.raw.dark_g2),
-                Utils.loadResource(c, R.raw.dark_g3),
-                Utils.loadResource(c, R.raw.dark_g4),
-                Utils.loadResource(c, R.raw.dark_g5),
-                Utils.loadResource(c, R.raw.dark_g6),
-                Utils.loadResource(c, R.raw.dark_g7),
-                Utils.loadResource(c, R.raw.dark_g8),
-                Utils.loadResource(c, R.raw.dark_g9),
-                Utils.loadResource(c, R.raw.dark_gd2),
-                Utils.loadResource(c, R.raw.dark_gr),
-                Utils.loadResource(c, R.raw.dark_gs),
-                Utils.loadResource(c, R.raw.dark_y0),
-                Utils.loadResource(c, R.raw.dark_y1),
-                Utils.loadResource(c, R.raw.dark_y2),
-                Utils.loadResource(c, R.raw.dark_y3),
-                Utils.loadResource(c, R.raw.dark_y4),
-                Utils.loadResource(c, R.raw.dark_y5),
-                Utils.loadResource(c, R.raw.dark_y6),
-                Utils.loadResource(c, R.raw.dark_y7),
-                Utils.loadResource(c, R.raw.dark_y8),
-                Utils.loadResource(c, R.raw.dark_y9),
-                Utils.loadResource(c, R.raw.dark_yd2),
-                Utils.loadResource(c, R.raw.dark_yr),
-                Utils.loadResource(c, R.raw.dark_ys),
-                Utils.loadResource(c, R.raw.dark_kw),
-                Utils.loadResource(c, R.raw.dark_kw4)
-        }; // dk = new Mat[]{}
-        for (i = 0; i < 54; ++i) {
-            Imgproc.cvtColor(br[i], br[i], Imgproc.COLOR_BGRA2RGBA);
-            Imgproc.cvtColor(dk[i], dk[i], Imgproc.COLOR_BGRA2RGBA);
-            loaded += 2;
-            Log.i(TAG, "Loading... (" + 100 * loaded / total + "%)");
-        } // for (i = 0; i < 54; ++i)
+     * @param replaySink Where to save & load the replay files.
+     */
+    public Uno(ReplaySink replaySink) {
+        int i;
 
-        // Load wild & wild +4 image resources
-        wImage = new Mat[]{
-                br[52],
-                Utils.loadResource(c, R.raw.front_rw),
-                Utils.loadResource(c, R.raw.front_bw),
-                Utils.loadResource(c, R.raw.front_gw),
-                Utils.loadResource(c, R.raw.front_yw)
-        }; // wImage = new Mat[]{}
-        w4Image = new Mat[]{
-                br[53],
-                Utils.loadResource(c, R.raw.front_rw4),
-                Utils.loadResource(c, R.raw.front_bw4),
-                Utils.loadResource(c, R.raw.front_gw4),
-                Utils.loadResource(c, R.raw.front_yw4)
-        }; // w4Image = new Mat[]{}
-        for (i = 1; i < 5; ++i) {
-            Imgproc.cvtColor(wImage[i], wImage[i], Imgproc.COLOR_BGRA2RGBA);
-            Imgproc.cvtColor(w4Image[i], w4Image[i], Imgproc.COLOR_BGRA2RGBA);
-            loaded += 2;
-            Log.i(TAG, "Loading... (" + 100 * loaded / total + "%)");
-        } // for (i = 1; i < 5; ++i)
+        if (replaySink == null) {
+            throw new IllegalArgumentException("DO NOT PASS NULL PARAMETER!!!");
+        } // if (replaySink == null)
 
         // Generate 54 types of cards
         table = new Card[54];
         for (i = 0; i < 54; ++i) {
             table[i] = new Card(
-                    /* image   */ br[i],
-                    /* darkImg */ dk[i],
-                    /* color   */ Color.values()[i < 52 ? i / 13 + 1 : 0],
-                    /* content */ Content.values()[i < 52 ? i % 13 : i - 39]
-            ); // new Card(Mat, Mat, Color, Content)
+                    /* color   */ COLORS[i < 52 ? i / 13 + 1 : 0],
+                    /* content */ CONTENTS[i < 52 ? i % 13 : i - 39]
+            ); // new Card(Color, Content)
         } // for (i = 0; i < 54; ++i)
 
         // Initialize other members
+        rng = new Rng();
         players = 3;
         legality = 0;
         initialCards = 7;
-        now = Uno.RNG.nextInt(4);
+        now = rng.nextInt(4);
         forcePlayRule = 1;
         difficulty = LV_EASY;
-        replay = new StringBuilder();
+        replay = new ReplayCodec(1024);
         _2vs2 = sevenZeroRule = false;
         stackRule = direction = draw2StackCount = 0;
-        replayDir = c.getExternalFilesDir("replay");
-        colorAnalysis = new int[Color.values().length];
-        contentAnalysis = new int[Content.values().length];
+        this.replaySink = replaySink;
+        colorAnalysis = new int[COLORS.length];
+        contentAnalysis = new int[CONTENTS.length];
         player = new Player[]{
                 new Player(), // YOU
                 new Player(), // COM1
@@ -436,7 +349,52 @@ public class Uno {
                 new RecentInfo(),
                 new RecentInfo()
         }; // constRecent = new RecentInfo[]{}
-    } // Uno(Context) (Class Constructor)
+    } // Uno(ReplaySink) (Class Constructor)
+
+    /**
+     * Reset this runtime's random number generator, and re-specify the dealer
+     * randomly. After calling this method, the next game started by start()
+     * only depends on the seed and game rules, so it can be reproduced.
+     *
+     * @param seed Provide the new seed.
+     */
+    public void setSeed(long seed) {
+        rng.setSeed(seed);
+        now = rng.nextInt(4);
+    } // setSeed(long)
+
+    /**
+     * @return This runtime's random number generator. Split it when you need
+     * another random source for the same game, e.g. for AI.
+     */
+    public Rng getRng() {
+        return rng;
+    } // getRng()
+
+    /**
+     * Fake C++ Macro
+     * #define LOG_ENABLED() (!quiet && LOG.isLoggable(Level.INFO))
+     * Check this before building any log message, so that nothing is
+     * allocated for logging when the logger is turned off.
+     */
+    boolean LOG_ENABLED() {
+        return !quiet && LOG.isLoggable(Level.INFO);
+    } // LOG_ENABLED()
+
+    /**
+     * Fake C++ Macro
+     * Generate n Zobrist keys from a fixed seed.
+     */
+    static long[] makeHashKeys(int n) {
+        long[] keys = new long[n];
+        Rng rng = new Rng(0x2b992ddfa23249d6L);
+
+        for (int i = 0; i < n; ++i) {
+            keys[i] = rng.nextLong();
+        } // for (int i = 0; i < n; ++i)
+
+        return keys;
+    } // makeHashKeys(int)
 
     /**
      * Fake C++ Macro
@@ -468,82 +426,6 @@ public class Uno {
         pl.open = MASK_BEGIN_TO_I(pl.getHandSize());
     } // MAKE_PUBLIC(Uno, int)
 
-    /**
-     * In MainActivity Class, get Uno instance here.
-     *
-     * @param c Pass a context object to let us get the card image
-     *          resources stored in this application.
-     * @return Reference of our singleton.
-     */
-    public static Uno getInstance(Context c) {
-        try {
-            return new Uno(c.getApplicationContext());
-        } // try
-        catch (IOException e) {
-            throw new AssertionError(e);
-        } // catch (IOException e)
-    } // getInstance(Context)
-
-    /**
-     * @return Card back image resource.
-     */
-    public Mat getBackImage() {
-        return backImage;
-    } // getBackImage()
-
-    /**
-     * @param level   Pass LV_EASY or LV_HARD.
-     * @param hiLight Pass true if you want to get a hi-lighted image,
-     *                or false if you want to get a dark image.
-     * @return Corresponding difficulty button image.
-     * @deprecated This image resource has been deprecated.
-     */
-    @Deprecated
-    public Mat getLevelImage(int level, boolean hiLight) {
-        return level == LV_EASY
-                ? (hiLight
-                ? findCard(Color.GREEN, Content.NUM1).image
-                : findCard(Color.GREEN, Content.NUM1).darkImg)
-                : (hiLight
-                ? findCard(Color.RED, Content.NUM2).image
-                : findCard(Color.RED, Content.NUM2).darkImg);
-    } // getLevelImage(int, boolean)
-
-    /**
-     * @return Background image resource in current direction.
-     */
-    public Mat getBackground() {
-        return direction == DIR_LEFT
-                ? bgClockwise
-                : direction == DIR_RIGHT
-                ? bgCounter
-                : bgWelcome;
-    } // getBackground()
-
-    /**
-     * When a player played a wild card and specified a following legal color,
-     * get the corresponding color-filled image here, and show it in recent
-     * card area.
-     *
-     * @param color The wild image with which color filled you want to get.
-     * @return Corresponding color-filled image.
-     */
-    public Mat getColoredWildImage(Color color) {
-        return wImage[color.ordinal()];
-    } // getColoredWildImage(Color)
-
-    /**
-     * When a player played a wild +4 card and specified a following legal
-     * color, get the corresponding color-filled image here, and show it in
-     * recent card area.
-     *
-     * @param color The wild +4 image with which color filled you want to get.
-     * @return Corresponding color-filled image.
-     */
-    public Mat getColoredWildDraw4Image(Color color) {
-        return w4Image[color.ordinal()];
-    } // getColoredWildDraw4Image(Color)
-
     /**
      * @return Player in turn. Must be one of the following:
      * Player.YOU, Player.COM1, Player.COM2, Player.COM3.
@@ -669,6 +551,14 @@ public class Uno {
         } // if (players == 3 || players == 4)
     } // setPlayers(int)
 
+    /**
+     * @return Current action sequence (DIR_LEFT / DIR_RIGHT),
+     * or 0 when game is not started or already over.
+     */
+    public int getDirection() {
+        return direction;
+    } // getDirection()
+
     /**
      * Switch current action sequence. The value of [direction] will be
      * switched between DIR_LEFT and DIR_RIGHT.
@@ -678,7 +568,7 @@ public class Uno {
     } // switchDirection()
 
     /**
-     * @return Current difficulty (LV_EASY / LV_HARD).
+     * @return Current difficulty (LV_EASY / LV_HARD / LV_EXPERT).
      */
     public int getDifficulty() {
         return difficulty;
@@ -688,12 +578,12 @@ public class Uno {
      * Set game difficulty.
      *
      * @param difficulty Pass target difficulty value.
-     *                   Only LV_EASY and LV_HARD are available.
+     *                   Only LV_EASY, LV_HARD and LV_EXPERT are available.
      */
     public void setDifficulty(int difficulty) {
-        if (difficulty == LV_EASY || difficulty == LV_HARD) {
+        if (LV_EASY <= difficulty && difficulty <= LV_EXPERT) {
             this.difficulty = difficulty;
-        } // if (difficulty == LV_EASY || difficulty == LV_HARD)
+        } // if (LV_EASY <= difficulty && difficulty <= LV_EXPERT)
     } // setDifficulty(int)
 
     /**
@@ -880,14 +770,14 @@ public class Uno {
      * @return How many cards in deck (haven't been used yet).
      */
     public int getDeckCount() {
-        return deck.size();
+        return deckSize;
     } // getDeckCount()
 
     /**
      * @return How many cards have been used.
      */
     public int getUsedCount() {
-        int count = used.size();
+        int count = usedSize;
 
         for (int i = 0; i < 4; ++i) {
             count += recent[i].card != null ? 1 : 0;
@@ -896,6 +786,129 @@ public class Uno {
         return count;
     } // getUsedCount()
 
+    /**
+     * @param card Provide a card.
+     * @return How many copies of the specified card are unseen by current
+     * player, i.e. in deck, or in others' hands and not known by current
+     * player. Current player knows its own hand, revealed hands, and in 7-0
+     * rule, the hands it passed to others.
+     */
+    public int getUnseenCount(Card card) {
+        return getUnseenCount(now, card.id);
+    } // getUnseenCount(Card)
+
+    /**
+     * @param who Provide a player.
+     * @param id  Provide a card id.
+     * @return How many copies of the specified card are unseen by the
+     * specified player, see getUnseenCount(Card).
+     */
+    int getUnseenCount(int who, int id) {
+        int i, n;
+        Player p;
+
+        n = unseen[id];
+        for (i = Player.YOU; i <= Player.COM3; ++i) {
+            p = player[i];
+            if (i == who) {
+                n -= p.counts[id] - p.known[id];
+            } // if (i == who)
+            else if (p.keeper == who && p.kept[id] > p.known[id]) {
+                n -= p.kept[id] - p.known[id];
+            } // else if (p.keeper == who && p.kept[id] > p.known[id])
+        } // for (i = Player.YOU; i <= Player.COM3; ++i)
+
+        return n;
+    } // getUnseenCount(int, int)
+
+    /**
+     * 64-bit Zobrist hash of current game state: everyone's hand cards (by
+     * seat), the last played card and its color, the player in turn, the
+     * direction, and the +2 stack counter. The hand parts are maintained
+     * incrementally by Player.count(int, int), and combined by seat here,
+     * so this method is O(1), and swapping or cycling hands costs nothing.
+     * Two states with the same hash value are the same state at a very high
+     * probability (the deck order and the rule settings are not included).
+     *
+     * @return Hash value of current game state.
+     */
+    public long getHash() {
+        int i;
+        long h;
+        Card card = recent[3].card;
+
+        h = HASH_KEYS[HASH_RECENT + (card == null ? 54 : card.id)]
+                ^ HASH_KEYS[HASH_COLOR + recent[3].color.ordinal()]
+                ^ HASH_KEYS[HASH_NOW + now]
+                ^ HASH_KEYS[HASH_DIRECTION + (direction & 3)]
+                ^ HASH_KEYS[HASH_STACK + (draw2StackCount & 63)];
+        for (i = Player.YOU; i <= Player.COM3; ++i) {
+            h ^= Long.rotateLeft(player[i].hash, i << 4);
+        } // for (i = Player.YOU; i <= Player.COM3; ++i)
+
+        return h;
+    } // getHash()
+
+    /**
+     * Estimate the probability that the specified player can follow the
+     * specified color, i.e. holds at least one card in that color, or a wild
+     * card, from current player's view. Costs O(1).
+     * <p>
+     * Known cards (revealed hands, and in 7-0 rule, hands that current player
+     * passed to others) are counted exactly. Every other hidden card is taken
+     * as a random pick from the cards unseen by current player, except that
+     * the cards held when the player drew by itself at the specified color
+     * are believed not to be in that color.
+     *
+     * @param who   Provide a player's id. Must be one of the following:
+     *              Player.YOU, Player.COM1, Player.COM2, Player.COM3.
+     * @param color Provide the color to follow. Pass Color.NONE to ask for
+     *              wild cards only.
+     * @return The probability, between 0 and 1.
+     */
+    public double getFollowProbability(int who, Color color) {
+        int c = color.ordinal(), i, free, pool, good, extra;
+        long mask = COLOR_MASKS[c] | COLOR_MASKS[0];
+        Player p = player[who], q;
+
+        if (who == now) {
+            return p.countIn(mask) > 0 ? 1.0 : 0.0;
+        } // if (who == now)
+
+        if (p.knownColor[c] + p.knownColor[0] > 0
+                || p.keeper == now && p.keptColor[c] + p.keptColor[0] > 0) {
+            return 1.0;
+        } // if (p.knownColor[c] + p.knownColor[0] > 0 || ...)
+
+        free = p.handCards.size() - Math.max(p.knownCount,
+                p.keeper == now ? p.keptCount : 0) - p.excluded[c];
+        if (free <= 0) {
+            return 0.0;
+        } // if (free <= 0)
+
+        // Cards unseen by current player
+        pool = unseenCount;
+        good = unseenColor[c] + (c == 0 ? 0 : unseenColor[0]);
+        for (i = Player.YOU; i <= Player.COM3; ++i) {
+            q = player[i];
+            if (i == now) {
+                pool -= q.handCards.size() - q.knownCount;
+                good -= q.countIn(mask) - q.knownColor[c]
+                        - (c == 0 ? 0 : q.knownColor[0]);
+            } // if (i == now)
+            else if (q.keeper == now) {
+                extra = q.keptCount - q.knownCount;
+                pool -= Math.max(extra, 0);
+                extra = q.keptColor[c] - q.knownColor[c] + (c == 0 ? 0
+                        : q.keptColor[0] - q.knownColor[0]);
+                good -= Math.max(extra, 0);
+            } // else if (q.keeper == now)
+        } // for (i = Player.YOU; i <= Player.COM3; ++i)
+
+        return pool <= 0 || good <= 0 ? 0.0
+                : 1.0 - Math.pow(1.0 - (double) good / pool, free);
+    } // getFollowProbability(int, Color)
+
     /**
      * @return Info of recent played cards. An array of RecentInfo objects
      * will be returned. Access getRecentInfo()[3] for the info of
@@ -950,7 +963,7 @@ public class Uno {
      * then determine our start card.
      */
     public void start() {
-        int i;
+        int i, j;
         Card card;
 
         // Reset direction
@@ -964,66 +977,74 @@ public class Uno {
         Arrays.fill(contentAnalysis, 0);
 
         // Clear card deck, used card deck, recent played cards,
-        // everyone's hand cards, and everyone's strong/weak colors
-        deck.clear();
-        used.clear();
+        // everyone's hand cards, strong/weak colors and last played cards
+        deckSize = usedSize = 0;
         for (i = 0; i < 4; ++i) {
             recent[i].card = null;
             recent[i].color = NONE;
             player[i].open = 0x00;
-            player[i].handCards.clear();
+            player[i].clearHand();
+            player[i].clearBelief();
             player[i].weakColor = NONE;
             player[i].strongColor = NONE;
+            player[i].strongCount = 0;
+            player[i].recent = null;
         } // for (i = 0; i < 4; ++i)
 
         // Generate a temporary sequenced card deck
         for (i = 0; i < 54; ++i) {
-            card = table[i];
-            switch (card.content) {
+            switch (table[i].content) {
                 case WILD:
                 case WILD_DRAW4:
-                    deck.add(card);
-                    deck.add(card);
+                    deck[deckSize++] = i;
+                    deck[deckSize++] = i;
                     // fall through
 
                     // noinspection DefaultNotLastCaseInSwitch
                 default:
-                    deck.add(card);
+                    deck[deckSize++] = i;
                     // fall through
 
                 case NUM0:
-                    deck.add(card);
-            } // switch (card.content)
+                    deck[deckSize++] = i;
+            } // switch (table[i].content)
         } // for (i = 0; i < 54; ++i)
 
         // Shuffle cards
-        Collections.shuffle(deck, Uno.RNG);
+        rng.shuffle(deck, deckSize);
 
-        // Determine a start card as the previous played card
+        // Determine a start card as the previous played card. Start card
+        // cannot be a wild card, so pick a random non-wild card from the
+        // shuffled deck, and swap it with the top card. The rest of deck
+        // keeps uniformly shuffled, and nothing is inserted at the bottom.
         do {
-            card = deck.get(deck.size() - 1);
-            deck.remove(deck.size() - 1);
-            if (card.isWild()) {
-                // Start card cannot be a wild card, so return it
-                // to the bottom of card deck and pick another card
-                deck.add(0, card);
-            } // if (card.isWild())
-            else {
-                // Any non-wild card can be start card
-                // Start card determined
-                recent[3].card = card;
-                ++colorAnalysis[card.color.ordinal()];
-                ++contentAnalysis[card.content.ordinal()];
-                recent[3].color = card.color;
-            } // else
-        } while (recent[3].card == null);
+            j = rng.nextInt(deckSize);
+        } while (table[deck[j]].isWild());
+
+        card = table[deck[j]];
+        deck[j] = deck[--deckSize];
+        recent[3].card = card;
+
+        // Card counting: everything but the start card is unseen
+        Arrays.fill(unseen, 0);
+        Arrays.fill(unseenColor, 0);
+        for (i = 0; i < deckSize; ++i) {
+            ++unseen[deck[i]];
+            ++unseenColor[table[deck[i]].color.ordinal()];
+        } // for (i = 0; i < deckSize; ++i)
+
+        unseenCount = deckSize;
+        ++colorAnalysis[card.color.ordinal()];
+        ++contentAnalysis[card.content.ordinal()];
+        recent[3].color = card.color;
 
         // Write log
-        Log.i(TAG, "Game starts with " + card.name);
-        replay.setLength(0);
-        replay.append("ST,").append(_2vs2 ? 1 : 0);
-        replay.append(",").append(players);
-        replay.append(",").append(card.id);
+        if (LOG_ENABLED()) {
+            LOG.info("Game starts with " + card.name);
+        } // if (LOG_ENABLED())
+        replay.clear();
+        ++replayGeneration;
+        replay.add(ReplayCodec.ST, _2vs2 ? 1 : 0, players, card.id);
 
         // Let everyone draw initial cards
         for (i = 0; i < initialCards; ++i) {
@@ -1036,7 +1057,7 @@ public class Uno {
         // In the case of (last winner = NORTH) & (game mode = 3 player mode)
         // Re-specify the dealer randomly
         if (players == 3 && now == Player.COM2) {
-            now = (3 + Uno.RNG.nextInt(3)) % 4;
+            now = (3 + rng.nextInt(3)) % 4;
         } // if (players == 3 && now == Player.COM2)
     } // start()
 
@@ -1057,6 +1078,7 @@ public class Uno {
      */
     public int draw(int who, boolean force) {
         Card card;
+        int[] store;
         int i = -1, j;
 
         if (Player.YOU <= who && who <= Player.COM3) {
@@ -1066,8 +1088,11 @@ public class Uno {
                 --draw2StackCount;
             } // if (draw2StackCount > 0)
             else if (!force) {
-                // Draw a card by player itself, register weak color
+                // Draw a card by player itself, register weak color, and
+                // believe that its hidden cards cannot follow that color
                 player[who].weakColor = lastColor();
+                player[who].excluded[lastColor().ordinal()]
+                        = hand.size() - player[who].knownCount;
                 if (player[who].weakColor == player[who].strongColor) {
                     // Weak color cannot also be strong color
                     player[who].strongColor = NONE;
@@ -1076,42 +1101,53 @@ public class Uno {
 
             if (hand.size() < MAX_HOLD_CARDS) {
                 // Draw a card from card deck, and put it to an appropriate position
-                card = deck.get(deck.size() - 1);
-                Log.i(TAG, "Player " + who + " draw a card");
-                deck.remove(deck.size() - 1);
+                card = table[deck[--deckSize]];
+                if (LOG_ENABLED()) {
+                    LOG.info("Player " + who + " draw a card");
+                } // if (LOG_ENABLED())
                 if (who == Player.YOU) {
                     i = Collections.binarySearch(hand, card);
                     if (i < 0) i = ~i;
-                    hand.add(i, card);
+                    player[who].addCard(i, card);
                     player[who].open = (player[who].open << 1) | 0x01;
                 } // if (who == Player.YOU)
                 else {
                     i = hand.size();
-                    hand.add(card);
+                    player[who].addCard(i, card);
                 } // else
 
                 player[who].recent = null;
-                replay.append(";DR,").append(who);
-                replay.append(",").append(card.id);
-                if (deck.isEmpty()) {
+                replay.add(ReplayCodec.DR, who, card.id, 0);
+                if (deckSize == 0) {
                     // Re-use the used cards when there are no more cards in deck
-                    Log.i(TAG, "Re-use the used cards");
-                    for (j = used.size(); --j >= 0; ) {
-                        --contentAnalysis[used.get(j).content.ordinal()];
-                        --colorAnalysis[used.get(j).color.ordinal()];
-                        deck.add(used.get(j));
-                        used.remove(j);
-                    } // for (j = used.size(); --j >= 0; )
-
-                    Collections.shuffle(deck, Uno.RNG);
-                } // if (deck.isEmpty())
+                    if (LOG_ENABLED()) {
+                        LOG.info("Re-use the used cards");
+                    } // if (LOG_ENABLED())
+                    for (j = usedSize; --j >= 0; ) {
+                        --contentAnalysis[table[used[j]].content.ordinal()];
+                        --colorAnalysis[table[used[j]].color.ordinal()];
+                        ++unseenColor[table[used[j]].color.ordinal()];
+                        ++unseen[used[j]];
+                    } // for (j = usedSize; --j >= 0; )
+
+                    unseenCount += usedSize;
+
+                    // The used cards become the new deck, and the empty
+                    // deck buffer becomes the new used card buffer
+                    store = deck;
+                    deck = used;
+                    used = store;
+                    deckSize = usedSize;
+                    usedSize = 0;
+                    rng.shuffle(deck, deckSize);
+                } // if (deckSize == 0)
             } // if (hand.size() < MAX_HOLD_CARDS)
             else {
                 // In +2 stack rule, if someone cannot draw all of the required
                 // cards because of the max-hold-card limitation, force reset
                 // the counter to zero.
                 draw2StackCount = 0;
-                replay.append(";DF,").append(who);
+                replay.add(ReplayCodec.DF, who, 0, 0);
             } // else
 
             if (draw2StackCount == 0) {
@@ -1145,17 +1181,18 @@ public class Uno {
      * in now player's hand.
      */
     public int legalCardsCount4NowPlayer() {
-        int count = 0;
-
-        for (Card card : player[now].handCards) {
-            if (isLegalToPlay(card)) {
-                ++count;
-            } // if (isLegalToPlay(card))
-        } // for (Card card : player[now].handCards)
-
-        return count;
+        return player[now].countIn(legality);
     } // legalCardsCount4NowPlayer()
 
+    /**
+     * @return A binary value shows that which kinds of legal cards are in now
+     * player's hand. When 0x01L == ((legalCardsMask4NowPlayer() >> i) &
+     * 0x01L), the card with id number i is in hand, and legal to play.
+     */
+    public long legalCardsMask4NowPlayer() {
+        return player[now].getHandMask() & legality;
+    } // legalCardsMask4NowPlayer()
+
     /**
      * Call this function when someone needs to play a card. The played card
      * replaces the "previous played card", and the original "previous played
@@ -1182,16 +1219,24 @@ public class Uno {
 
             size = hand.size();
             if (index < size) {
-                if ((card = hand.get(index)).isWild()) {
-                    String p = "[" + color.name().charAt(0) + "]";
-                    Log.i(TAG, "Player " + who + " played " + p + card.name);
-                } // if ((card = hand.get(index)).isWild())
-                else {
+                if (!(card = hand.get(index)).isWild()) {
                     color = card.color;
-                    Log.i(TAG, "Player " + who + " played " + card.name);
-                } // else
+                } // if (!(card = hand.get(index)).isWild())
+
+                if (LOG_ENABLED()) {
+                    String p = card.isWild()
+                            ? "[" + color.name().charAt(0) + "]" : "";
+                    LOG.info("Player " + who + " played " + p + card.name);
+                } // if (LOG_ENABLED())
+
+                player[who].removeCard(index);
+                if (player[who].forget(card)) {
+                    // Everyone sees the played card now
+                    --unseen[card.id];
+                    --unseenColor[card.color.ordinal()];
+                    --unseenCount;
+                } // if (player[who].forget(card))
 
-                hand.remove(index);
                 if (card.isWild()) {
                     // When a wild card is played, register the specified
                     // following legal color as the player's strong color
@@ -1239,7 +1284,7 @@ public class Uno {
                         recent[i - 1].color = recent[i].color;
                     } // if (i > 0)
                     else if (recent[i].card != null) {
-                        used.add(recent[i].card);
+                        used[usedSize++] = recent[i].card.id;
                     } // else if (recent[i].card != null)
                 } // for (i = 0; i < 4; ++i)
 
@@ -1247,12 +1292,12 @@ public class Uno {
                 recent[3].color = color;
                 ++colorAnalysis[card.color.ordinal()];
                 ++contentAnalysis[card.content.ordinal()];
-                Log.i(TAG, "colorAnalysis & contentAnalysis:");
-                Log.i(TAG, Arrays.toString(colorAnalysis));
-                Log.i(TAG, Arrays.toString(contentAnalysis));
-                replay.append(";PL,").append(who);
-                replay.append(",").append(card.id);
-                replay.append(",").append(color.ordinal());
+                if (LOG_ENABLED()) {
+                    LOG.info("colorAnalysis & contentAnalysis:");
+                    LOG.info(Arrays.toString(colorAnalysis));
+                    LOG.info(Arrays.toString(contentAnalysis));
+                } // if (LOG_ENABLED())
+                replay.add(ReplayCodec.PL, who, card.id, color.ordinal());
 
                 // Update the legality binary
                 if (draw2StackCount < 1) {
@@ -1280,7 +1325,9 @@ public class Uno {
                         MAKE_PUBLIC(this, i);
                     } // for (i = Player.COM1; i <= Player.COM3; ++i)
 
-                    Log.i(TAG, "======= WINNER IS PLAYER " + who + " =======");
+                    if (LOG_ENABLED()) {
+                        LOG.info("======= WINNER IS PLAYER " + who + " =======");
+                    } // if (LOG_ENABLED())
                 } // if (size == 1)
             } // if (index < size)
         } // if (Player.YOU <= who && who <= Player.COM3)
@@ -1288,6 +1335,31 @@ public class Uno {
         return card;
     } // play(int, int, Color)
 
+    /**
+     * Tell the result of a challenge without making it, i.e. whether the
+     * specified player holds at least one card matching the next-to-last
+     * color. Nothing is changed, so replay playback can call this to show
+     * the result of a recorded challenge.
+     *
+     * @param whom Challenge whom. Must be one of the following:
+     *             Player.YOU, Player.COM1, Player.COM2, Player.COM3.
+     * @return True if the challenge would succeed.
+     */
+    public boolean isChallengeSuccessful(int whom) {
+        List<Card> hand;
+
+        if (Player.YOU <= whom && whom <= Player.COM3) {
+            hand = player[whom].handCards;
+            for (int i = hand.size() - 1; i >= 0; --i) {
+                if (hand.get(i).color == next2lastColor()) {
+                    return true;
+                } // if (hand.get(i).color == next2lastColor())
+            } // for (int i = hand.size() - 1; i >= 0; --i)
+        } // if (Player.YOU <= whom && whom <= Player.COM3)
+
+        return false;
+    } // isChallengeSuccessful(int)
+
     /**
      * When you think your previous player used a [wild +4] card illegally,
      * i.e. it holds at least one card matching the next-to-last color,
@@ -1299,26 +1371,48 @@ public class Uno {
      * or false if challenge failure.
      */
     public boolean challenge(int whom) {
-        boolean result = false;
+        boolean result = isChallengeSuccessful(whom);
 
         if (Player.YOU <= whom && whom <= Player.COM3) {
             if (whom != Player.YOU) {
                 MAKE_PUBLIC(this, whom);
             } // if (whom != Player.YOU)
 
-            for (Card card : player[whom].handCards) {
-                if (card.color == next2lastColor()) {
-                    result = true;
-                    break;
-                } // if (card.color == next2lastColor())
-            } // for (Card card : player[whom].handCards)
+            reveal(player[whom]);
         } // if (Player.YOU <= whom && whom <= Player.COM3)
 
-        Log.i(TAG, "Player " + whom + " is challenged. Result = " + result);
-        replay.append(";CH,").append(whom);
+        if (LOG_ENABLED()) {
+            LOG.info("Player " + whom + " is challenged. Result = " + result);
+        } // if (LOG_ENABLED())
+        replay.add(ReplayCodec.CH, whom, 0, 0);
         return result;
     } // challenge(int)
 
+    /**
+     * Card counting: the specified hand was shown in a challenge, so all of
+     * its cards are known by everyone now.
+     *
+     * @param p Provide the revealed player.
+     */
+    void reveal(Player p) {
+        int i, n, c;
+
+        for (i = 0; i < 54; ++i) {
+            n = p.counts[i] - p.known[i];
+            if (n > 0) {
+                c = table[i].color.ordinal();
+                unseen[i] -= n;
+                unseenColor[c] -= n;
+                unseenCount -= n;
+                p.known[i] = p.counts[i];
+                p.knownColor[c] += n;
+                p.knownCount += n;
+            } // if (n > 0)
+        } // for (i = 0; i < 54; ++i)
+
+        Arrays.fill(p.excluded, 0);
+    } // reveal(Player)
+
     /**
      * In 7-0 rule, when someone put down a seven card, then the player must
      * swap hand cards with another player immediately.
@@ -1333,13 +1427,16 @@ public class Uno {
         Player store = player[a];
         player[a] = player[b];
         player[b] = store;
+        player[a].keep(b);
+        player[b].keep(a);
         if (a == Player.YOU || b == Player.YOU) {
             MAKE_PUBLIC(this, Player.YOU);
         } // if (a == Player.YOU || b == Player.YOU)
 
-        Log.i(TAG, "Player " + a + " swapped hand cards with Player " + b);
-        replay.append(";SW,").append(a);
-        replay.append(",").append(b);
+        if (LOG_ENABLED()) {
+            LOG.info("Player " + a + " swapped hand cards with Player " + b);
+        } // if (LOG_ENABLED())
+        replay.add(ReplayCodec.SW, a, b, 0);
     } // swap(int, int)
 
     /**
@@ -1353,156 +1450,195 @@ public class Uno {
         player[prev] = player[oppo];
         player[oppo] = player[next];
         player[next] = store;
+        player[curr].keep(prev);
+        player[prev].keep(oppo);
+        player[oppo].keep(next); // in 3-player mode, oppo == prev
+        player[next].keep(curr);
         MAKE_PUBLIC(this, Player.YOU);
-        Log.i(TAG, "Everyone passed hand cards to the next player");
-        replay.append(";CY");
+        if (LOG_ENABLED()) {
+            LOG.info("Everyone passed hand cards to the next player");
+        } // if (LOG_ENABLED())
+        replay.add(ReplayCodec.CY, 0, 0, 0);
     } // cycle()
 
     /**
-     * Save current game as a new replay file.
+     * Take a snapshot of the current game state. See UnoSnapshot for what is
+     * covered.
      *
-     * @return Name of the saved file, or an empty string if save failed.
+     * @param into Provide a snapshot object to reuse, or null to create a
+     *             new one. Reuse one to avoid allocation.
+     * @return The snapshot.
      */
-    public String save() {
-        File f;
-        Writer w;
-        String name = "";
+    public UnoSnapshot snapshot(UnoSnapshot into) {
+        if (into == null) {
+            into = new UnoSnapshot();
+        } // if (into == null)
 
-        try {
-            f = new File(replayDir, System.currentTimeMillis() + ".sav");
-            w = new FileWriter(f);
-            w.write(replay.toString());
-            w.close();
-            name = f.getName();
-        } // try
-        catch (IOException ignore) {
-        } // catch (IOException ignore)
-
-        return name;
-    } // save()
+        into.take(this);
+        return into;
+    } // snapshot(UnoSnapshot)
 
     /**
-     * @param val Provide a value (in string format, 10 based).
-     * @param lo  Provide a lower bound.
-     * @param hi  Provide a upper bound.
-     * @return True if lo <= val <= hi.
+     * Restore the game state from a snapshot. The snapshot is not changed,
+     * so it can be restored again and again.
+     *
+     * @param snapshot Provide a snapshot taken by snapshot(UnoSnapshot),
+     *                 from this or any other runtime.
      */
-    boolean checkParam(String val, int lo, int hi) {
-        int iVal;
+    public void restore(UnoSnapshot snapshot) {
+        if (snapshot == null) {
+            throw new IllegalArgumentException("DO NOT PASS NULL PARAMETER!!!");
+        } // if (snapshot == null)
 
-        try {
-            iVal = Integer.parseInt(val);
-        } // try
-        catch (NumberFormatException e) {
-            iVal = 0;
-        } // catch (NumberFormatException e)
+        snapshot.restore(this);
+    } // restore(UnoSnapshot)
 
-        return lo <= iVal && iVal <= hi;
-    } // checkParam(String, int, int)
+    /**
+     * Save current game as a new replay.
+     *
+     * @return Name of the saved replay, or an empty string if save failed.
+     */
+    public String save() {
+        return replaySink.save(replay.toByteArray());
+    } // save()
 
     /**
-     * Load a existed replay file.
+     * Load a existed replay file. Both the binary replay format and the legacy
+     * text format are supported. Nothing is applied when loading, so the
+     * load time does not depend on the replay's length. The command count is
+     * read from the header of the binary format. Only a legacy text replay
+     * is decoded through once (without applying anything) to count them.
+     * Checkpoints for seekReplay(int) are taken later, when the playback
+     * goes forward. A broken command is found when the playback reaches it.
      *
      * @param replayName Provide the file name of your replay.
      * @return True if load success.
      */
     public boolean loadReplay(String replayName) {
-        int i;
-        File f;
-        boolean ok;
-        FileReader r;
-        StringBuilder sb;
-        String[] loaded = null;
-
-        f = new File(replayDir, replayName);
-        ok = f.canRead();
-        if (ok) try {
-            r = new FileReader(f);
-            sb = new StringBuilder();
-            for (i = r.read(); i >= 0; i = r.read()) {
-                sb.append((char) i);
-            } // for (i = r.read(); i >= 0; i = r.read())
-
-            loaded = sb.toString().split(";");
-            r.close();
-        } // if (ok) try
+        int op;
+        ReplayReader r;
+
+        closeReplay();
+        ++replayGeneration;
+        checkpoints.clear();
+        checkpointInterval = REPLAY_CHECKPOINT_INTERVAL;
+        try {
+            it = new ReplayReader(replaySink.open(replayName));
+            this.replayName = replayName;
+            replaySize = it.getCount();
+            if (replaySize < 0) {
+                // Legacy text format, count the commands by decoding only
+                r = new ReplayReader(replaySink.open(replayName));
+                try {
+                    do {
+                        op = r.next();
+                    } while (op >= 0);
+                } // try
+                finally {
+                    r.close();
+                } // finally
+
+                replaySize = op == ReplayReader.EOF ? r.getIndex() : -1;
+            } // if (replaySize < 0)
+
+            if (replaySize < 0) {
+                closeReplay();
+            } // if (replaySize < 0)
+            else {
+                checkpoints.add(new ReplayCheckpoint(this));
+            } // else
+        } // try
         catch (IOException e) {
-            ok = false;
+            closeReplay();
         } // catch (IOException e)
 
-        for (i = 0; ok && i < loaded.length; ++i) {
-            String[] x = loaded[i].split(",");
-
-            if (x.length == 0 ||
-                    (i == 0 && !x[0].equals("ST")) ||
-                    (i != 0 && x[0].equals("ST"))) {
-                // Empty command is forbidden
-                // ST command can only appear once at the beginning
-                ok = false;
-            } // if (x.length == 0 || ...)
-            else if (x[0].equals("ST")) {
-                // ST: Start a new game
-                // Command format: ST,a,b,c
-                // a = 1 if in 2vs2 mode, otherwise 0
-                // b = players in game [3, 4]
-                // c = start card's id [0, 51]
-                ok = x.length > 3
-                        && checkParam(x[1], 0, 1)
-                        && checkParam(x[2], 3, 4)
-                        && checkParam(x[3], 0, 51);
-            } // else if (x[0].equals("ST"))
-            else if (x[0].equals("DR")) {
-                // DR: Draw a card from deck
-                // Command format: DR,a,b
-                // a = who drew a card [0, 3]
-                // b = drawn card's id [0, 53]
-                ok = x.length > 2
-                        && checkParam(x[1], 0, 3)
-                        && checkParam(x[2], 0, 53);
-            } // else if (x[0].equals("DR"))
-            else if (x[0].equals("PL")) {
-                // PL: Play a card
-                // Command format: PL,a,b,c
-                // a = who played a card [0, 3]
-                // b = played card's id [0, 53]
-                // c = the following legal color [0, 4]
-                ok = x.length > 3
-                        && checkParam(x[1], 0, 3)
-                        && checkParam(x[2], 0, 53)
-                        && checkParam(x[3], 0, 4);
-            } // else if (x[0].equals("PL"))
-            else if (x[0].equals("DF") || x[0].equals("CH")) {
-                // DF: Draw but failure
-                // Command format: DF,a
-                // a = who drew but failure [0, 3]
-                // CH: Make a challenge
-                // Command format: CH,a
-                // a = challenged to whom [0, 3]
-                ok = x.length > 1
-                        && checkParam(x[1], 0, 3);
-            } // else if (x[0].equals("DF") || x[0].equals("CH"))
-            else if (x[0].equals("SW")) {
-                // SW: Swap hand cards between player A and B
-                // Command format: SW,a,b
-                // a = player A's id [0, 3]
-                // b = player B's id [0, 3]
-                ok = x.length > 2
-                        && checkParam(x[1], 0, 3)
-                        && checkParam(x[2], 0, 3)
-                        && !x[1].equals(x[2]);
-            } // else if (x[0].equals("SW"))
-            else if (!x[0].equals("CY")) {
-                // CY: Cycle, everyone pass hand cards to the next
-                // Command format: CY
-                // Other commands are all unknown commands
-                ok = false;
-            } // else if (!x[0].equals("CY"))
-        } // for (i = 0; ok && i < loaded.length; ++i)
-
-        it = ok ? Arrays.asList(loaded).iterator() : null;
-        return ok;
+        return it != null;
     } // loadReplay(String)
 
+    /**
+     * Close your loaded replay, if any.
+     */
+    public void closeReplay() {
+        if (it != null) {
+            try {
+                it.close();
+            } // try
+            catch (IOException ignore) {
+            } // catch (IOException ignore)
+
+            it = null;
+        } // if (it != null)
+    } // closeReplay()
+
+    /**
+     * @return How many commands in your loaded replay.
+     */
+    public int getReplaySize() {
+        return it != null ? replaySize : 0;
+    } // getReplaySize()
+
+    /**
+     * @return How many commands of your loaded replay have been applied.
+     */
+    public int getReplayStep() {
+        return it != null ? it.getIndex() : 0;
+    } // getReplayStep()
+
+    /**
+     * Jump to any step of your loaded replay, forward or backward. Restores
+     * the nearest checkpoint before the specified step, then applies the
+     * commands from there. That is at most (checkpointInterval - 1)
+     * commands, unless the playback never went past the specified step.
+     *
+     * @param step Provide the step, i.e. how many commands to be applied from
+     *             the beginning of replay. Must be in [0, getReplaySize()].
+     * @return True if success. Or false if no replay loaded, or the specified
+     * step is out of range, or the replay file cannot be read anymore (then
+     * the replay is closed).
+     */
+    public boolean seekReplay(int step) {
+        ReplayCheckpoint cp;
+        int[] out = new int[3];
+
+        if (it == null || step < 0 || step > replaySize) {
+            return false;
+        } // if (it == null || step < 0 || step > replaySize)
+
+        cp = checkpoints.get(Math.min(step / checkpointInterval,
+                checkpoints.size() - 1));
+        try {
+            if (!it.reset(cp.mark, cp.index)) {
+                // Not a file, re-open it and skip to the checkpoint
+                it.close();
+                it = new ReplayReader(replaySink.open(replayName));
+                while (it.getIndex() < cp.index && it.next() >= 0) {
+                    // Decode only, the state will be restored later
+                } // while (it.getIndex() < cp.index && it.next() >= 0)
+            } // if (!it.reset(cp.mark, cp.index))
+
+            cp.restore(this);
+            while (it.getIndex() < step && stepReplay(out) >= 0) {
+                // Apply commands until the specified step reached
+            } // while (it.getIndex() < step && stepReplay(out) >= 0)
+        } // try
+        catch (IOException e) {
+            closeReplay();
+        } // catch (IOException e)
+
+        return it != null && it.getIndex() == step;
+    } // seekReplay(int)
+
+    /**
+     * Go back to the previous step of your replay, i.e. undo the last
+     * command applied by forwardReplay(int[]).
+     *
+     * @return True if success, or false if no replay loaded, or we are at
+     * the beginning of replay.
+     */
+    public boolean backwardReplay() {
+        return it != null && seekReplay(it.getIndex() - 1);
+    } // backwardReplay()
+
     /**
      * Go to next step of your replay.
      * This method will do nothing when we reached the end of your replay.
@@ -1516,69 +1652,129 @@ public class Uno {
      * When end of replay reached, return an empty string.
      */
     public String forwardReplay(int[] out) {
-        Card card;
-        String s = "";
-        int a, b, c, i;
+        int op;
 
         if (out == null || out.length < 3) {
             throw new IllegalArgumentException("out == null || out.length < 3");
         } // if (out == null || out.length < 3)
 
-        if (it != null && it.hasNext()) {
-            String[] x = it.next().split(",");
+        try {
+            op = it != null ? stepReplay(out) : ReplayReader.EOF;
+        } // try
+        catch (IOException e) {
+            op = ReplayReader.ERROR;
+        } // catch (IOException e)
+
+        if (op < 0) {
+            direction = 0;
+        } // if (op < 0)
+
+        return op < 0 ? "" : it.getName();
+    } // forwardReplay(int[])
+
+    /**
+     * Decode the next command of your loaded replay, and apply it.
+     *
+     * @param out See forwardReplay(int[]).
+     * @return Opcode of the applied command, or ReplayReader.EOF when end of
+     * replay reached, or ReplayReader.ERROR if the replay is broken.
+     * @throws IOException Thrown if the replay file cannot be read.
+     */
+    int stepReplay(int[] out) throws IOException {
+        int op;
+
+        if ((op = it.next()) >= 0) {
+            out[0] = it.getA();
+            out[1] = it.getB();
+            out[2] = it.getC();
+            applyReplay();
+            if (it.getIndex() == checkpoints.size() * checkpointInterval) {
+                addReplayCheckpoint();
+            } // if (it.getIndex() == checkpoints.size() * ...)
+        } // if ((op = it.next()) >= 0)
+
+        return op;
+    } // stepReplay(int[])
+
+    /**
+     * Take the next checkpoint of your loaded replay. When there are too many
+     * checkpoints, drop every other one first, and double the interval, so
+     * that a long replay does not hold too many of them.
+     */
+    void addReplayCheckpoint() {
+        int i, size = checkpoints.size();
+
+        if (size >= MAX_REPLAY_CHECKPOINTS) {
+            for (i = 1; 2 * i < size; ++i) {
+                checkpoints.set(i, checkpoints.get(2 * i));
+            } // for (i = 1; 2 * i < size; ++i)
+
+            checkpoints.subList(i, size).clear();
+            checkpointInterval *= 2;
+        } // if (size >= MAX_REPLAY_CHECKPOINTS)
+
+        checkpoints.add(new ReplayCheckpoint(this));
+    } // addReplayCheckpoint()
+
+    /**
+     * Apply the last decoded command of your loaded replay.
+     */
+    void applyReplay() {
+        Card card;
+        Player store;
+        List<Card> hand;
+        int a = it.getA(), b = it.getB(), c = it.getC(), i;
 
-            a = out[0] = x.length > 1 ? Integer.parseInt(x[1]) : 0;
-            b = out[1] = x.length > 2 ? Integer.parseInt(x[2]) : 0;
-            c = out[2] = x.length > 3 ? Integer.parseInt(x[3]) : 0;
-            if ((s = x[0]).equals("ST")) {
+        switch (it.getOp()) {
+            case ReplayCodec.ST:
                 // ST: Start a new game
-                // Command format: ST,a,b,c
                 // a = 1 if in 2vs2 mode, otherwise 0
                 // b = players in game [3, 4]
                 // c = start card's id [0, 51]
                 setPlayers(b);
                 set2vs2(a != 0);
                 card = table[c];
-                deck.clear();
-                used.clear();
+                deckSize = usedSize = 0;
                 for (i = 0; i < 4; ++i) {
                     recent[i].card = null;
                     recent[i].color = NONE;
                     player[i].open = 0x00;
-                    player[i].handCards.clear();
+                    player[i].clearHand();
                     player[i].weakColor = NONE;
                     player[i].strongColor = NONE;
+                    player[i].strongCount = 0;
+                    player[i].recent = null;
                 } // for (i = 0; i < 4; ++i)
 
                 recent[3].card = card;
                 recent[3].color = card.color;
                 direction = card.content == REV ? DIR_RIGHT : DIR_LEFT;
-            } // if ((s = x[0]).equals("ST"))
-            else if (s.equals("DR")) {
+                break; // case ReplayCodec.ST
+
+            case ReplayCodec.DR:
                 // DR: Draw a card from deck
-                // Command format: DR,a,b
                 // a = who drew a card [0, 3]
                 // b = drawn card's id [0, 53]
-                List<Card> hand = player[a].handCards;
+                hand = player[a].handCards;
 
                 card = table[b];
                 i = Collections.binarySearch(hand, card);
-                hand.add(i < 0 ? ~i : i, card);
+                player[a].addCard(i < 0 ? ~i : i, card);
                 player[a].open = (player[a].open << 1) | 0x01;
                 now = a;
-            } // else if (s.equals("DR"))
-            else if (s.equals("PL")) {
+                break; // case ReplayCodec.DR
+
+            case ReplayCodec.PL:
                 // PL: Play a card
-                // Command format: PL,a,b,c
                 // a = who played a card [0, 3]
                 // b = played card's id [0, 53]
                 // c = the following legal color [0, 4]
-                List<Card> hand = player[a].handCards;
+                hand = player[a].handCards;
 
                 card = table[b];
                 i = Collections.binarySearch(hand, card);
                 if (i >= 0) {
-                    hand.remove(i);
+                    player[a].removeCard(i);
                     player[a].open = player[a].open >> 1;
                     for (i = 1; i < 4; ++i) {
                         recent[i - 1].card = recent[i].card;
@@ -1586,47 +1782,78 @@ public class Uno {
                     } // for (i = 1; i < 4; ++i)
 
                     recent[3].card = card;
-                    recent[3].color = Color.values()[c];
+                    recent[3].color = COLORS[c];
                 } // if (i >= 0)
 
                 now = a;
                 if (card.content == REV) {
                     switchDirection();
                 } // if (card.content == REV)
-            } // else if (s.equals("PL"))
-            else if (s.equals("DF")) {
+                break; // case ReplayCodec.PL
+
+            case ReplayCodec.DF:
                 // DF: Draw but failure
-                // Command format: DF,a
                 // a = who drew but failure [0, 3]
                 now = a;
-            } // else if (s.equals("DF"))
-            else if (s.equals("SW")) {
+                break; // case ReplayCodec.DF
+
+            case ReplayCodec.SW:
                 // SW: Swap hand cards between player A and B
-                // Command format: SW,a,b
                 // a = player A's id [0, 3]
                 // b = player B's id [0, 3]
-                Player store = player[a];
+                store = player[a];
                 player[a] = player[b];
                 player[b] = store;
-            } // else if (s.equals("SW"))
-            else if (s.equals("CY")) {
+                break; // case ReplayCodec.SW
+
+            case ReplayCodec.CY:
                 // CY: Cycle, everyone pass hand cards to the next
-                // Command format: CY
-                int curr = now, next = getNext();
-                int oppo = getOppo(), prev = getPrev();
-                Player store = player[curr];
-                player[curr] = player[prev];
-                player[prev] = player[oppo];
-                player[oppo] = player[next];
-                player[next] = store;
-            } // else if (s.equals("CY"))
-        } // if (it != null && it.hasNext())
-        else {
-            direction = 0;
-        } // else
+                a = now;
+                b = getNext();
+                c = getOppo();
+                i = getPrev();
+                store = player[a];
+                player[a] = player[i];
+                player[i] = player[c];
+                player[c] = player[b];
+                player[b] = store;
+                break; // case ReplayCodec.CY
 
-        return s;
-    } // forwardReplay(int[])
+            case ReplayCodec.CH:
+                // CH: Make a challenge
+                // a = challenged to whom [0, 3]
+                // Caller calls isChallengeSuccessful(int) to get the result.
+                // Here we only apply its side effect, so that checkpoints are
+                // complete.
+                if (a != Player.YOU) {
+                    MAKE_PUBLIC(this, a);
+                } // if (a != Player.YOU)
+                break; // case ReplayCodec.CH
+
+            default:
+                break; // default
+        } // switch (it.getOp())
+
+        updateReplayLegality();
+    } // applyReplay()
+
+    /**
+     * Replay playback only. Update the legality binary by the previous played
+     * card. Stack rules are not recorded in replays, so it's updated as no
+     * stack rule, i.e. the most permissive one.
+     */
+    void updateReplayLegality() {
+        Card card = recent[3].card;
+
+        if (card != null) {
+            legality = card.isWild()
+                    ? 0x30000000000000L
+                    | (0x1fffL << 13 * (lastColor().ordinal() - 1))
+                    : 0x30000000000000L
+                    | (0x1fffL << 13 * (lastColor().ordinal() - 1))
+                    | (0x8004002001L << card.content.ordinal());
+        } // if (card != null)
+    } // updateReplayLegality()
 
     /**
      * RecentInfo Inner Class.
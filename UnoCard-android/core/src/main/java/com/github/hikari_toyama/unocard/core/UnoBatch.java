@@ -0,0 +1,1229 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Uno Card Game 4 Droid
+// Author: Hikari Toyama
+// Compile Environment: Android Studio Arctic Fox, with Android SDK 30
+// COPYRIGHT HIKARI TOYAMA, 1992-2022. ALL RIGHTS RESERVED.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.hikari_toyama.unocard.core;
+
+import static com.github.hikari_toyama.unocard.core.Content.DRAW2;
+import static com.github.hikari_toyama.unocard.core.Content.NUM0;
+import static com.github.hikari_toyama.unocard.core.Content.NUM7;
+import static com.github.hikari_toyama.unocard.core.Content.WILD;
+import static com.github.hikari_toyama.unocard.core.Content.WILD_DRAW4;
+
+/**
+ * Batch engine. Plays many EASY-vs-EASY games at once, on many tables kept
+ * in parallel primitive arrays instead of one Uno object graph per game.
+ * All tables go one step forward in each round of a lockstep loop, and a
+ * finished table deals its next game right away.
+ * <p>
+ * Rules and decisions follow Uno, Referee and
+ * AI.easyAI_bestCardIndex4NowPlayer(Color[]) exactly: game n played by
+ * playGames(seed, ...) is the same game as Referee.playGame() after
+ * Referee.setSeed(seed + n), when all seats play AI_EASY with the default
+ * weights. Card counting, analysis and replays are not kept, because the
+ * EASY level does not read them.
+ * <p>
+ * Hands are kept as card id rows in hand order, because the EASY level
+ * picks cards by their positions in hand. Seats refer to their hands
+ * through a seat-to-slot map, so that hands are swapped in 7-0 rule without
+ * copying.
+ */
+public class UnoBatch {
+    /**
+     * Receives the results of the games played by playGames().
+     */
+    public interface Listener {
+        /**
+         * Called when a game is over.
+         *
+         * @param game       Number of the game, see playGames().
+         * @param winner     Winner, or -1 if the game was aborted. In 2vs2
+         *                   mode, the winner's teammate is also a winner.
+         * @param turns      How many turns (AI decisions) in the game.
+         * @param reshuffles How many times the used cards were re-used.
+         */
+        void onGameOver(long game, int winner, int turns, int reshuffles);
+    } // Listener Interface
+
+    /**
+     * Status of a table without a game. Other status values are the same as
+     * Referee's.
+     */
+    static final int STAT_IDLE = -1;
+
+    /**
+     * Id of no card, in recentCard[].
+     */
+    static final int NO_CARD = 54;
+
+    /**
+     * Each table keeps its card deck and used cards in one row of this many
+     * bytes. The halves are swapped when the deck runs out.
+     */
+    static final int CARDS = 108 * 2;
+
+    /**
+     * Each hand is a row of this many card ids.
+     */
+    static final int HAND = Uno.MAX_HOLD_CARDS;
+
+    /**
+     * Color ordinal of each card id.
+     */
+    static final byte[] COLOR = new byte[54];
+
+    /**
+     * Content of each card id.
+     */
+    static final Content[] CONTENT = new Content[54];
+
+    static {
+        for (int i = 0; i < 54; ++i) {
+            COLOR[i] = (byte) (i < 52 ? i / 13 + 1 : 0);
+            CONTENT[i] = Uno.CONTENTS[i < 52 ? i % 13 : i - 39];
+        } // for (int i = 0; i < 54; ++i)
+    } // static
+
+    /**
+     * Kinds of legal cards told apart by easyAI(int), indexes of pick[].
+     */
+    static final int K_NUMBER = 0;
+    static final int K_ZERO = 1;
+    static final int K_SEVEN = 2;
+    static final int K_REV = 3;
+    static final int K_SKIP = 4;
+    static final int K_DRAW2 = 5;
+    static final int K_WILD = 6;
+    static final int K_WILD_DRAW4 = 7;
+
+    /**
+     * Number of tables.
+     */
+    final int tables;
+
+    /**
+     * Game rules, the same as Uno's fields of the same names.
+     */
+    int players, stackRule, forcePlayRule, initialCards;
+    boolean _2vs2, sevenZeroRule;
+
+    /**
+     * Worth of each card id in calcBestColor(int), by the default weights,
+     * see AI.setWeights(int, int[]). Wild cards are worth nothing.
+     */
+    final int[] worth = new int[54];
+
+    /**
+     * Kind of each card id, see K_*. Zero and seven cards are number cards
+     * unless in 7-0 rule.
+     */
+    final byte[] kind = new byte[54];
+
+    /**
+     * Buffer of easyAI(int): index of the card to play of each kind.
+     */
+    final int[] pick = new int[8];
+
+    /**
+     * Out parameter of easyAI(int), the color ordinal.
+     */
+    int bestColor;
+
+    /**
+     * Per table: game number, random states of the Uno runtime and of the AI,
+     * and the legality binary.
+     */
+    final long[] game, dealRng, aiRng, legality;
+
+    /**
+     * Per table: Referee status, player in turn, direction, +2 stack counter,
+     * winner, turns and reshuffles.
+     */
+    final int[] status, now, direction, draw2StackCount;
+    final int[] winner, turns, reshuffles;
+
+    /**
+     * Per table: card deck and used cards. Table t's row starts at t * CARDS.
+     * The deck is at offset deckAt[t] (0 or 108) of the row, and the used
+     * cards are in the other half. The top card of deck is the last one.
+     */
+    final byte[] cards;
+    final int[] deckAt, deckSize, usedSize;
+
+    /**
+     * Per table: the recent 4 played cards and their colors, at t * 4 + i,
+     * like Uno.recent[i].
+     */
+    final byte[] recentCard, recentColor;
+
+    /**
+     * Per table: slot of each seat's hand, at t * 4 + seat. Seat s of table
+     * t plays hand slot P(t, s).
+     */
+    final byte[] slot;
+
+    /**
+     * Per hand slot: card ids in hand order, at slot * HAND, and the hand
+     * size, strong color, strong counter, weak color, and whether the last
+     * action of this hand was playing a card (see Player.getRecent()).
+     */
+    final byte[] hands;
+    final int[] handSize, strongCount;
+
+    /**
+     * Per hand slot: how many cards, and how much worth in each color, at
+     * slot * 5 + color ordinal. Updated on every card put into or taken away
+     * from hand, like Player.countBits, so that no decision scans the hand
+     * for them.
+     */
+    final int[] colorCount, colorWorth;
+    final byte[] strongColor, weakColor;
+    final boolean[] played;
+
+    /**
+     * Constructor. Rules are the defaults of Uno until setRules() is called.
+     *
+     * @param tables How many games to play at the same time.
+     */
+    public UnoBatch(int tables) {
+        if (tables <= 0) {
+            throw new IllegalArgumentException("tables must be > 0");
+        } // if (tables <= 0)
+
+        this.tables = tables;
+        setRules(new Uno());
+        for (int i = 0; i < 52; ++i) {
+            switch (CONTENT[i]) {
+                case REV:
+                case NUM0:
+                    worth[i] = AI.DEFAULT_WEIGHTS[AI.W_ZERO_REV];
+                    break; // case REV, NUM0
+
+                case SKIP:
+                case DRAW2:
+                    worth[i] = AI.DEFAULT_WEIGHTS[AI.W_SKIP_DRAW2];
+                    break; // case SKIP, DRAW2
+
+                default:
+                    worth[i] = AI.DEFAULT_WEIGHTS[AI.W_NUMBER];
+                    break; // default
+            } // switch (CONTENT[i])
+        } // for (int i = 0; i < 52; ++i)
+
+        game = new long[tables];
+        dealRng = new long[tables];
+        aiRng = new long[tables];
+        legality = new long[tables];
+        status = new int[tables];
+        now = new int[tables];
+        direction = new int[tables];
+        draw2StackCount = new int[tables];
+        winner = new int[tables];
+        turns = new int[tables];
+        reshuffles = new int[tables];
+        cards = new byte[tables * CARDS];
+        deckAt = new int[tables];
+        deckSize = new int[tables];
+        usedSize = new int[tables];
+        recentCard = new byte[tables * 4];
+        recentColor = new byte[tables * 4];
+        slot = new byte[tables * 4];
+        hands = new byte[tables * 4 * HAND];
+        handSize = new int[tables * 4];
+        colorCount = new int[tables * 4 * 5];
+        colorWorth = new int[tables * 4 * 5];
+        strongCount = new int[tables * 4];
+        strongColor = new byte[tables * 4];
+        weakColor = new byte[tables * 4];
+        played = new boolean[tables * 4];
+    } // UnoBatch(int) (Class Constructor)
+
+    /**
+     * Copy the game rules (game mode, stack rule, force play rule and initial
+     * cards) from an Uno runtime. Takes effect from the next playGames().
+     *
+     * @param rules Provide an Uno runtime with the wanted rules.
+     */
+    public void setRules(Uno rules) {
+        if (rules == null) {
+            throw new IllegalArgumentException("DO NOT PASS NULL PARAMETER!!!");
+        } // if (rules == null)
+
+        players = rules.players;
+        _2vs2 = rules._2vs2;
+        sevenZeroRule = rules.sevenZeroRule;
+        stackRule = rules.stackRule;
+        forcePlayRule = rules.forcePlayRule;
+        initialCards = rules.initialCards;
+        for (int i = 0; i < 54; ++i) {
+            switch (CONTENT[i]) {
+                case NUM0:
+                    kind[i] = (byte) (sevenZeroRule ? K_ZERO : K_NUMBER);
+                    break; // case NUM0
+
+                case NUM7:
+                    kind[i] = (byte) (sevenZeroRule ? K_SEVEN : K_NUMBER);
+                    break; // case NUM7
+
+                case REV:
+                    kind[i] = K_REV;
+                    break; // case REV
+
+                case SKIP:
+                    kind[i] = K_SKIP;
+                    break; // case SKIP
+
+                case DRAW2:
+                    kind[i] = K_DRAW2;
+                    break; // case DRAW2
+
+                case WILD:
+                    kind[i] = K_WILD;
+                    break; // case WILD
+
+                case WILD_DRAW4:
+                    kind[i] = K_WILD_DRAW4;
+                    break; // case WILD_DRAW4
+
+                default:
+                    kind[i] = K_NUMBER;
+                    break; // default
+            } // switch (CONTENT[i])
+        } // for (int i = 0; i < 54; ++i)
+    } // setRules(Uno)
+
+    /**
+     * @return How many games are played at the same time.
+     */
+    public int getTables() {
+        return tables;
+    } // getTables()
+
+    /**
+     * Play games [from, to), until each one is won or aborted after
+     * Referee.MAX_TURNS turns. Game n is played with seed (seed + n), and
+     * reported to the listener as soon as it is over, so games may be
+     * reported out of order.
+     *
+     * @param seed     Provide the base seed.
+     * @param from     Number of the first game.
+     * @param to       Number of the last game, plus 1.
+     * @param listener Receives the result of every game.
+     */
+    public void playGames(long seed, long from, long to, Listener listener) {
+        int t, active;
+        long n = from;
+
+        if (listener == null) {
+            throw new IllegalArgumentException("DO NOT PASS NULL PARAMETER!!!");
+        } // if (listener == null)
+
+        for (t = active = 0; t < tables; ++t) {
+            if (n < to) {
+                game[t] = n;
+                status[t] = begin(t, seed + n);
+                ++n;
+                ++active;
+            } // if (n < to)
+            else {
+                status[t] = STAT_IDLE;
+            } // else
+        } // for (t = active = 0; t < tables; ++t)
+
+        while (active > 0) {
+            for (t = 0; t < tables; ++t) {
+                if (status[t] == STAT_IDLE) {
+                    continue;
+                } // if (status[t] == STAT_IDLE)
+
+                status[t] = step(t, status[t]);
+                if (status[t] != Referee.STAT_GAME_OVER
+                        && turns[t] < Referee.MAX_TURNS) {
+                    continue;
+                } // if (status[t] != Referee.STAT_GAME_OVER && ...)
+
+                listener.onGameOver(game[t],
+                        status[t] == Referee.STAT_GAME_OVER ? winner[t] : -1,
+                        turns[t], reshuffles[t]);
+                if (n < to) {
+                    // Deal the next game on this table
+                    game[t] = n;
+                    status[t] = begin(t, seed + n);
+                    ++n;
+                } // if (n < to)
+                else {
+                    status[t] = STAT_IDLE;
+                    --active;
+                } // else
+            } // for (t = 0; t < tables; ++t)
+        } // while (active > 0)
+    } // playGames(long, long, long, Listener)
+
+    /**
+     * Fake C++ Macro
+     * #define P(t, seat) ((t) * 4 + slot[(t) * 4 + (seat)])
+     * Hand slot of the specified seat of table t.
+     */
+    int P(int t, int seat) {
+        return (t << 2) + slot[(t << 2) + seat];
+    } // P(int, int)
+
+    /**
+     * Fake C++ Macro
+     * #define LEGALITY(card, color) ...
+     * Legality binary after the specified card was played with the
+     * specified following color, the same as Uno's.
+     */
+    static long LEGALITY(int card, int color) {
+        long legal = 0x30000000000000L | (0x1fffL << 13 * (color - 1));
+
+        return COLOR[card] == 0
+                ? legal : legal | (0x8004002001L << CONTENT[card].ordinal());
+    } // LEGALITY(int, int)
+
+    /**
+     * Fake C++ Macro
+     * Rng.nextInt() >>> 1 on a random state kept in an array.
+     */
+    static int NEXT31(long[] rng, int t) {
+        return (int) (Rng.mix64(rng[t] += Rng.GOLDEN_GAMMA) >>> 32) >>> 1;
+    } // NEXT31(long[], int)
+
+    /**
+     * Same as Rng.nextInt(int), on a random state kept in an array.
+     *
+     * @param rng   Provide the random states.
+     * @param t     Use the random state of this table.
+     * @param bound Provide the upper bound (exclusive). Must be positive.
+     * @return A random integer in [0, bound).
+     */
+    static int nextInt(long[] rng, int t, int bound) {
+        int r = NEXT31(rng, t), m = bound - 1, u;
+
+        if ((bound & m) == 0) {
+            // Power of two
+            r = (int) ((bound * (long) r) >> 31);
+        } // if ((bound & m) == 0)
+        else {
+            // Reject over-represented candidates
+            for (u = r; u - (r = u % bound) + m < 0; u = NEXT31(rng, t)) {
+                // NOP
+            } // for (u = r; u - (r = u % bound) + m < 0; ...)
+        } // else
+
+        return r;
+    } // nextInt(long[], int, int)
+
+    /**
+     * Same as Rng.shuffle(int[], int), on the deck of table t.
+     *
+     * @param t Shuffle the deck of this table.
+     */
+    void shuffle(int t) {
+        int i, j, base = t * CARDS + deckAt[t];
+        byte b;
+
+        for (i = deckSize[t]; i > 1; --i) {
+            j = base + nextInt(dealRng, t, i);
+            b = cards[base + i - 1];
+            cards[base + i - 1] = cards[j];
+            cards[j] = b;
+        } // for (i = deckSize[t]; i > 1; --i)
+    } // shuffle(int)
+
+    /**
+     * Sort a hand in card id order, like Uno.MAKE_PUBLIC().
+     *
+     * @param p Provide the hand slot.
+     */
+    void sortHand(int p) {
+        int i, j, base = p * HAND;
+        byte b;
+
+        for (i = 1; i < handSize[p]; ++i) {
+            b = hands[base + i];
+            for (j = i; j > 0 && hands[base + j - 1] > b; --j) {
+                hands[base + j] = hands[base + j - 1];
+            } // for (j = i; j > 0 && hands[base + j - 1] > b; --j)
+
+            hands[base + j] = b;
+        } // for (i = 1; i < handSize[p]; ++i)
+    } // sortHand(int)
+
+    /**
+     * @return Same as Uno.getNext() on table t.
+     */
+    int getNext(int t) {
+        int next = (now[t] + direction[t]) % 4;
+
+        if (players == 3 && next == Player.COM2) {
+            next = (next + direction[t]) % 4;
+        } // if (players == 3 && next == Player.COM2)
+
+        return next;
+    } // getNext(int)
+
+    /**
+     * @return Same as Uno.getOppo() on table t.
+     */
+    int getOppo(int t) {
+        int oppo = (getNext(t) + direction[t]) % 4;
+
+        if (players == 3 && oppo == Player.COM2) {
+            oppo = (oppo + direction[t]) % 4;
+        } // if (players == 3 && oppo == Player.COM2)
+
+        return oppo;
+    } // getOppo(int)
+
+    /**
+     * @return Same as Uno.getPrev() on table t.
+     */
+    int getPrev(int t) {
+        int prev = (4 + now[t] - direction[t]) % 4;
+
+        if (players == 3 && prev == Player.COM2) {
+            prev = (4 + prev - direction[t]) % 4;
+        } // if (players == 3 && prev == Player.COM2)
+
+        return prev;
+    } // getPrev(int)
+
+    /**
+     * @return Same as Uno.switchNow() on table t.
+     */
+    int switchNow(int t) {
+        return (now[t] = getNext(t));
+    } // switchNow(int)
+
+    /**
+     * Same as Uno.setSeed(long) + AI.setSeed(long) + Uno.start(), and then
+     * Referee.begin() on table t.
+     *
+     * @param t    Start a new game on this table.
+     * @param seed Provide the game's seed.
+     * @return Next status value.
+     */
+    int begin(int t, long seed) {
+        int i, j, c, p, base;
+
+        dealRng[t] = seed;
+        now[t] = nextInt(dealRng, t, 4);
+        aiRng[t] = Rng.mix64(seed);
+        winner[t] = -1;
+        turns[t] = reshuffles[t] = 0;
+        direction[t] = Uno.DIR_LEFT;
+        draw2StackCount[t] = 0;
+        for (i = 0; i < 4; ++i) {
+            p = (t << 2) + i;
+            slot[p] = (byte) i;
+            recentCard[p] = NO_CARD;
+            recentColor[p] = 0;
+            handSize[p] = strongCount[p] = 0;
+            for (j = 0; j < 5; ++j) {
+                colorCount[p * 5 + j] = colorWorth[p * 5 + j] = 0;
+            } // for (j = 0; j < 5; ++j)
+
+            strongColor[p] = weakColor[p] = 0;
+            played[p] = false;
+        } // for (i = 0; i < 4; ++i)
+
+        // Generate a temporary sequenced card deck
+        base = t * CARDS;
+        deckAt[t] = usedSize[t] = 0;
+        for (i = j = 0; i < 54; ++i) {
+            c = CONTENT[i] == WILD || CONTENT[i] == WILD_DRAW4 ? 4
+                    : CONTENT[i] == NUM0 ? 1 : 2;
+            while (--c >= 0) {
+                cards[base + j++] = (byte) i;
+            } // while (--c >= 0)
+        } // for (i = j = 0; i < 54; ++i)
+
+        deckSize[t] = j;
+        shuffle(t);
+
+        // Determine a start card, see Uno.start()
+        do {
+            j = nextInt(dealRng, t, deckSize[t]);
+        } while (COLOR[cards[base + j]] == 0);
+
+        c = cards[base + j];
+        cards[base + j] = cards[base + --deckSize[t]];
+        recentCard[(t << 2) + 3] = (byte) c;
+        recentColor[(t << 2) + 3] = COLOR[c];
+
+        // Let everyone draw initial cards
+        for (i = 0; i < initialCards; ++i) {
+            draw(t, Player.YOU,  /* force */ true);
+            draw(t, Player.COM1, /* force */ true);
+            if (players == 4) draw(t, Player.COM2, /* force */ true);
+            draw(t, Player.COM3, /* force */ true);
+        } // for (i = 0; i < initialCards; ++i)
+
+        if (players == 3 && now[t] == Player.COM2) {
+            now[t] = (3 + nextInt(dealRng, t, 3)) % 4;
+        } // if (players == 3 && now[t] == Player.COM2)
+
+        switch (CONTENT[c]) {
+            case DRAW2:
+                // If starting with a [+2], let dealer draw 2 cards.
+                return drawCards(t, 2, /* force */ true);
+
+            case SKIP:
+                // If starting with a [skip], skip dealer's turn.
+                return switchNow(t);
+
+            case REV:
+                // If starting with a [reverse], change the action
+                // sequence to COUNTER CLOCKWISE.
+                direction[t] = 4 - direction[t];
+                return now[t];
+
+            default:
+                // Otherwise, go to dealer's turn.
+                return now[t];
+        } // switch (CONTENT[c])
+    } // begin(int, long)
+
+    /**
+     * Same as Referee.step(int) on table t.
+     *
+     * @param t      Go one step forward on this table.
+     * @param status Current status value. Must not be STAT_GAME_OVER.
+     * @return Next status value.
+     */
+    int step(int t, int status) {
+        int p, s1, s2, whom;
+
+        switch (status) {
+            case Referee.STAT_DOUBT_WILD4:
+                // AI.needToChallenge()
+                s1 = handSize[P(t, getNext(t))];
+                s2 = handSize[P(t, now[t])];
+                if (s1 == 1 || Math.max(s1, s2) >= 10
+                        || recentColor[(t << 2) + 3]
+                        == recentColor[(t << 2) + 2]) {
+                    status = onChallenge(t);
+                } // if (s1 == 1 || ...)
+                else {
+                    switchNow(t);
+                    status = drawCards(t, 4, /* force */ true);
+                } // else
+                break; // case Referee.STAT_DOUBT_WILD4
+
+            case Referee.STAT_SEVEN_TARGET:
+                whom = calcBestSwapTarget(t);
+                p = (t << 2) + now[t];
+                s1 = slot[p];
+                slot[p] = slot[(t << 2) + whom];
+                slot[(t << 2) + whom] = (byte) s1;
+                if (now[t] == Player.YOU || whom == Player.YOU) {
+                    sortHand(P(t, Player.YOU));
+                } // if (now[t] == Player.YOU || whom == Player.YOU)
+
+                status = switchNow(t);
+                break; // case Referee.STAT_SEVEN_TARGET
+
+            default:
+                ++turns[t];
+                s1 = easyAI(t);
+                status = s1 >= 0
+                        ? play(t, s1, bestColor)
+                        : drawCards(t, 1, /* force */ false);
+                break; // default
+        } // switch (status)
+
+        return status;
+    } // step(int, int)
+
+    /**
+     * Same as Uno.draw(int, boolean) on table t.
+     *
+     * @param t     Draw on this table.
+     * @param who   Who draws a card.
+     * @param force Pass true if the player is required to draw cards.
+     * @return Index of the drawn card in hand, or -1 if the player didn't
+     * draw a card because of the limitation.
+     */
+    int draw(int t, int who, boolean force) {
+        int i = -1, n, p = P(t, who), base;
+        byte id;
+
+        if (draw2StackCount[t] > 0) {
+            --draw2StackCount[t];
+        } // if (draw2StackCount[t] > 0)
+        else if (!force) {
+            // Draw a card by player itself, register weak color
+            weakColor[p] = recentColor[(t << 2) + 3];
+            if (weakColor[p] == strongColor[p]) {
+                // Weak color cannot also be strong color
+                strongColor[p] = 0;
+            } // if (weakColor[p] == strongColor[p])
+        } // else if (!force)
+
+        n = handSize[p];
+        if (n < HAND) {
+            id = cards[t * CARDS + deckAt[t] + --deckSize[t]];
+            base = p * HAND;
+            if (who == Player.YOU) {
+                // Your hand cards are kept in order
+                for (i = n; i > 0 && hands[base + i - 1] > id; --i) {
+                    hands[base + i] = hands[base + i - 1];
+                } // for (i = n; i > 0 && hands[base + i - 1] > id; --i)
+            } // if (who == Player.YOU)
+            else {
+                i = n;
+            } // else
+
+            hands[base + i] = id;
+            handSize[p] = n + 1;
+            ++colorCount[p * 5 + COLOR[id]];
+            colorWorth[p * 5 + COLOR[id]] += worth[id];
+            played[p] = false;
+            if (deckSize[t] == 0) {
+                // Re-use the used cards when there are no more cards in deck
+                deckAt[t] = 108 - deckAt[t];
+                deckSize[t] = usedSize[t];
+                usedSize[t] = 0;
+                shuffle(t);
+            } // if (deckSize[t] == 0)
+        } // if (n < HAND)
+        else {
+            // Cannot draw all of the required cards, reset the +2 stack
+            draw2StackCount[t] = 0;
+        } // else
+
+        if (draw2StackCount[t] == 0) {
+            legality[t] = LEGALITY(recentCard[(t << 2) + 3],
+                    recentColor[(t << 2) + 3]);
+        } // if (draw2StackCount[t] == 0)
+
+        return i;
+    } // draw(int, int, boolean)
+
+    /**
+     * Same as Referee.draw(int, boolean) on table t.
+     *
+     * @param t     Draw on this table.
+     * @param count How many cards to draw.
+     * @param force Pass true if the player is required to draw cards.
+     * @return Next status value.
+     */
+    int drawCards(int t, int count, boolean force) {
+        int i, index = -1, drawn = -1, deckCount, who = now[t];
+
+        if (draw2StackCount[t] > 0) {
+            count = draw2StackCount[t];
+            force = true;
+        } // if (draw2StackCount[t] > 0)
+
+        for (i = 0; i < count; ++i) {
+            deckCount = deckSize[t];
+            index = draw(t, who, force);
+            if (index < 0) {
+                break;
+            } // if (index < 0)
+
+            drawn = hands[P(t, who) * HAND + index];
+            if (deckCount == 1) {
+                // The last card in deck was drawn, used cards are re-used
+                ++reshuffles[t];
+            } // if (deckCount == 1)
+        } // for (i = 0; i < count; ++i)
+
+        if (count == 1 &&
+                drawn >= 0 &&
+                forcePlayRule != 0 &&
+                ((legality[t] >> drawn) & 0x01L) == 0x01L) {
+            // Player drew one card by itself, the drawn card
+            // can be played immediately if it's legal to play
+            return play(t, index, calcBestColor(t));
+        } // if (count == 1 && ...)
+
+        return switchNow(t);
+    } // drawCards(int, int, boolean)
+
+    /**
+     * Same as Referee.play(int, Color) with Uno.play(int, int, Color) on
+     * table t, for the player in turn.
+     *
+     * @param t     Play on this table.
+     * @param index Play which card.
+     * @param color The following legal color ordinal, when playing a wild
+     *              card.
+     * @return Next status value.
+     */
+    int play(int t, int index, int color) {
+        int i, r = t << 2, who = now[t], p = P(t, who), size = handSize[p];
+        int base = p * HAND, card = hands[base + index];
+        boolean wild = COLOR[card] == 0;
+
+        if (stackRule == 2 && CONTENT[card] == WILD_DRAW4) {
+            color = recentColor[r + 3];
+        } // if (stackRule == 2 && CONTENT[card] == WILD_DRAW4)
+        else if (!wild) {
+            color = COLOR[card];
+        } // else if (!wild)
+
+        for (i = index + 1; i < size; ++i) {
+            hands[base + i - 1] = hands[base + i];
+        } // for (i = index + 1; i < size; ++i)
+
+        handSize[p] = size - 1;
+        --colorCount[p * 5 + COLOR[card]];
+        colorWorth[p * 5 + COLOR[card]] -= worth[card];
+        if (wild) {
+            if (stackRule != 2 || CONTENT[card] != WILD_DRAW4) {
+                // Register the following legal color as strong color
+                strongColor[p] = (byte) color;
+                strongCount[p] = 1 + size / 3;
+                if (color == weakColor[p]) {
+                    weakColor[p] = 0;
+                } // if (color == weakColor[p])
+            } // if (stackRule != 2 || CONTENT[card] != WILD_DRAW4)
+        } // if (wild)
+        else if (COLOR[card] == strongColor[p]) {
+            if (--strongCount[p] == 0) {
+                strongColor[p] = 0;
+            } // if (--strongCount[p] == 0)
+        } // else if (COLOR[card] == strongColor[p])
+        else if (strongCount[p] >= size) {
+            strongCount[p] = size - 1;
+        } // else if (strongCount[p] >= size)
+
+        if (CONTENT[card] == DRAW2 && stackRule != 0) {
+            draw2StackCount[t] += 2;
+        } // if (CONTENT[card] == DRAW2 && stackRule != 0)
+        else if (CONTENT[card] == WILD_DRAW4 && stackRule == 2) {
+            draw2StackCount[t] += 4;
+        } // else if (CONTENT[card] == WILD_DRAW4 && stackRule == 2)
+
+        played[p] = true;
+        if (recentCard[r] != NO_CARD) {
+            cards[t * CARDS + 108 - deckAt[t] + usedSize[t]++]
+                    = recentCard[r];
+        } // if (recentCard[r] != NO_CARD)
+
+        for (i = 1; i < 4; ++i) {
+            recentCard[r + i - 1] = recentCard[r + i];
+            recentColor[r + i - 1] = recentColor[r + i];
+        } // for (i = 1; i < 4; ++i)
+
+        recentCard[r + 3] = (byte) card;
+        recentColor[r + 3] = (byte) color;
+
+        // Update the legality binary
+        if (draw2StackCount[t] < 1) {
+            legality[t] = LEGALITY(card, color);
+        } // if (draw2StackCount[t] < 1)
+        else if (stackRule == 1) {
+            legality[t] = 0x8004002001L << DRAW2.ordinal();
+        } // else if (stackRule == 1)
+        else {
+            legality[t] = (!wild
+                    ? 0x8004002001L << DRAW2.ordinal()
+                    : 0x1L << DRAW2.ordinal() << 13 * (color - 1))
+                    | 0x20000000000000L;
+        } // else
+
+        if (size == 1) {
+            // The player in action becomes winner
+            direction[t] = 0;
+            winner[t] = who;
+            return Referee.STAT_GAME_OVER;
+        } // if (size == 1)
+
+        switch (CONTENT[card]) {
+            case DRAW2:
+                who = switchNow(t);
+                if (stackRule == 0) {
+                    who = drawCards(t, 2, /* force */ true);
+                } // if (stackRule == 0)
+                break; // case DRAW2
+
+            case SKIP:
+                switchNow(t);
+                who = switchNow(t);
+                break; // case SKIP
+
+            case REV:
+                direction[t] = 4 - direction[t];
+                who = switchNow(t);
+                break; // case REV
+
+            case WILD_DRAW4:
+                who = stackRule == 2
+                        ? switchNow(t)
+                        : Referee.STAT_DOUBT_WILD4;
+                break; // case WILD_DRAW4
+
+            case NUM7:
+                if (sevenZeroRule) {
+                    who = Referee.STAT_SEVEN_TARGET;
+                    break; // case NUM7
+                } // if (sevenZeroRule)
+                // else fall through
+
+            case NUM0:
+                if (sevenZeroRule) {
+                    cycle(t);
+                    who = switchNow(t);
+                    break; // case NUM0
+                } // if (sevenZeroRule)
+                // else fall through
+
+            default:
+                who = switchNow(t);
+                break; // default
+        } // switch (CONTENT[card])
+
+        return who;
+    } // play(int, int, int)
+
+    /**
+     * Same as Referee.onChallenge() with Uno.challenge(int) on table t.
+     *
+     * @param t Challenge on this table.
+     * @return Next status value.
+     */
+    int onChallenge(int t) {
+        int i, whom = now[t], p = P(t, whom), base = p * HAND;
+        byte color = recentColor[(t << 2) + 2];
+        boolean result = false;
+
+        for (i = handSize[p] - 1; i >= 0; --i) {
+            if (COLOR[hands[base + i]] == color) {
+                result = true;
+                break;
+            } // if (COLOR[hands[base + i]] == color)
+        } // for (i = handSize[p] - 1; i >= 0; --i)
+
+        if (whom != Player.YOU) {
+            sortHand(p);
+        } // if (whom != Player.YOU)
+
+        if (result) {
+            // Challenge success, who played [wild +4] draws 4 cards
+            return drawCards(t, 4, /* force */ true);
+        } // if (result)
+
+        // Challenge failure, challenger draws 6 cards
+        switchNow(t);
+        return drawCards(t, 6, /* force */ true);
+    } // onChallenge(int)
+
+    /**
+     * Same as Uno.cycle() on table t.
+     *
+     * @param t Pass the hands on this table.
+     */
+    void cycle(int t) {
+        int r = t << 2, curr = r + now[t], next = r + getNext(t);
+        int oppo = r + getOppo(t), prev = r + getPrev(t);
+        byte store = slot[curr];
+
+        slot[curr] = slot[prev];
+        slot[prev] = slot[oppo];
+        slot[oppo] = slot[next];
+        slot[next] = store;
+        sortHand(P(t, Player.YOU));
+    } // cycle(int)
+
+    /**
+     * Same as AI.calcBestSwapTarget4NowPlayer() on table t.
+     *
+     * @param t Decide on this table.
+     * @return Current player swaps with whom.
+     */
+    int calcBestSwapTarget(int t) {
+        int target, next = getNext(t), oppo = getOppo(t), prev = getPrev(t);
+        int last = recentColor[(t << 2) + 3], p = P(t, now[t]);
+
+        if (handSize[P(t, next)] == 1) {
+            target = next;
+        } // if (handSize[P(t, next)] == 1)
+        else if (handSize[P(t, prev)] == 1) {
+            target = prev;
+        } // else if (handSize[P(t, prev)] == 1)
+        else if (handSize[P(t, oppo)] == 1) {
+            target = oppo;
+        } // else if (handSize[P(t, oppo)] == 1)
+        else if (strongColor[P(t, prev)] == last) {
+            target = prev;
+        } // else if (strongColor[P(t, prev)] == last)
+        else if (strongColor[P(t, oppo)] == last) {
+            target = oppo;
+        } // else if (strongColor[P(t, oppo)] == last)
+        else {
+            target = next;
+        } // else
+
+        if (handSize[p] == 1 &&
+                target == next &&
+                ((legality[t] >> hands[p * HAND]) & 0x01L) == 0x01L) {
+            // Do not swap with your next player when your final card is a
+            // legal card. This will make your next player win the game.
+            target = prev;
+        } // if (handSize[p] == 1 && ...)
+
+        return target;
+    } // calcBestSwapTarget(int)
+
+    /**
+     * Same as AI.calcBestColor4NowPlayer() on table t.
+     *
+     * @param t Decide on this table.
+     * @return Current player's best color ordinal.
+     */
+    int calcBestColor(int t) {
+        int c, best = 0, p = P(t, now[t]);
+        int r, g, b, y;
+        int next = P(t, getNext(t));
+        int oppo = P(t, getOppo(t));
+        int prev = P(t, getPrev(t));
+        int nextWeak = weakColor[next];
+        int oppoWeak = weakColor[oppo];
+        int prevWeak = weakColor[prev];
+        int nextStrong = strongColor[next];
+        int oppoStrong = strongColor[oppo];
+        int prevStrong = strongColor[prev];
+
+        // Same as AI: the three flags all test the next player
+        boolean isUno = handSize[next] == 1;
+
+        if (isUno && nextWeak != 0) {
+            best = nextWeak;
+        } // if (isUno && nextWeak != 0)
+        else if (isUno && oppoWeak != 0 && !_2vs2) {
+            best = oppoWeak;
+        } // else if (isUno && oppoWeak != 0 && !_2vs2)
+        else if (isUno && prevWeak != 0) {
+            best = prevWeak;
+        } // else if (isUno && prevWeak != 0)
+        else if (_2vs2 && oppoStrong != 0
+                && handSize[oppo] <= handSize[p]) {
+            best = oppoStrong;
+        } // else if (_2vs2 && ...)
+        else {
+            r = colorWorth[p * 5 + 1];
+            b = colorWorth[p * 5 + 2];
+            g = colorWorth[p * 5 + 3];
+            y = colorWorth[p * 5 + 4];
+
+            // Calculate the best color, the first one of the highest score
+            c = 0;
+            if (r > c) {
+                best = 1;
+                c = r;
+            } // if (r > c)
+
+            if (b > c) {
+                best = 2;
+                c = b;
+            } // if (b > c)
+
+            if (g > c) {
+                best = 3;
+                c = g;
+            } // if (g > c)
+
+            if (y > c) {
+                best = 4;
+            } // if (y > c)
+
+            if (best == 0) {
+                // Only wild cards in hand
+                // Use others' weak color as your best color
+                best = prevWeak != 0 ? prevWeak
+                        : oppoWeak != 0 && !_2vs2 ? oppoWeak
+                        : nextWeak != 0 ? nextWeak : 1;
+            } // if (best == 0)
+        } // else
+
+        // Determine your best color in dangerous cases
+        while (isUno && (best == nextStrong
+                || best == oppoStrong && !_2vs2
+                || best == prevStrong)) {
+            best = nextInt(aiRng, t, 4) + 1;
+        } // while (isUno && ...)
+
+        return best;
+    } // calcBestColor(int)
+
+    /**
+     * Same as AI.easyAI_bestCardIndex4NowPlayer(Color[]) on table t.
+     *
+     * @param t Decide on this table.
+     * @return Index of the best card to play, in current player's hand, or
+     * -1 to draw a card. The following color is stored in bestColor.
+     */
+    int easyAI(int t) {
+        int i, k, card, matches, best, last, base;
+        int i0, i7, iBest, iNM, iRV, iSK, iDW, iWD, iWD4;
+        int nextSize, oppoSize, prevSize, yourSize;
+        int p = P(t, now[t]);
+        int next = P(t, getNext(t));
+        int oppo = P(t, getOppo(t));
+        int prev = P(t, getPrev(t));
+        int nextStrong = strongColor[next];
+        int oppoStrong = strongColor[oppo];
+        int prevStrong = strongColor[prev];
+        long legal = legality[t];
+
+        base = p * HAND;
+        yourSize = handSize[p];
+        if (yourSize == 1) {
+            // Only one card remained. Play it when it's legal.
+            card = hands[base];
+            bestColor = COLOR[card];
+            return ((legal >> card) & 0x01L) == 0x01L ? 0 : -1;
+        } // if (yourSize == 1)
+
+        last = recentColor[(t << 2) + 3];
+        best = calcBestColor(t);
+        matches = colorCount[p * 5 + last];
+        for (i = 0; i < 8; ++i) {
+            pick[i] = -1;
+        } // for (i = 0; i < 8; ++i)
+
+        for (i = 0; i < yourSize; ++i) {
+            // Index of any kind. Prefer the first one, or the last one in
+            // your best color. Wild cards have no color, so the last one.
+            card = hands[base + i];
+            if (((legal >> card) & 0x01L) == 0x01L) {
+                k = kind[card];
+                if (pick[k] < 0 || COLOR[card] == best || k >= K_WILD) {
+                    pick[k] = i;
+                } // if (pick[k] < 0 || COLOR[card] == best || k >= K_WILD)
+            } // if (((legal >> card) & 0x01L) == 0x01L)
+        } // for (i = 0; i < yourSize; ++i)
+
+        iBest = -1;
+        iNM = pick[K_NUMBER];
+        i0 = pick[K_ZERO];
+        i7 = pick[K_SEVEN];
+        iRV = pick[K_REV];
+        iSK = pick[K_SKIP];
+        iDW = pick[K_DRAW2];
+        iWD = pick[K_WILD];
+        iWD4 = pick[K_WILD_DRAW4];
+
+        // Decision tree, see AI.easyAI_bestCardIndex4NowPlayer(Color[])
+        nextSize = handSize[next];
+        oppoSize = handSize[oppo];
+        prevSize = handSize[prev];
+        if (nextSize == 1) {
+            if (i7 >= 0 && (yourSize > 2 || isLoneSafe(base, i7)))
+                iBest = i7;
+            else if (i0 >= 0 && (yourSize > 2 || isLoneSafe(base, i0)))
+                iBest = i0;
+            else if (iDW >= 0)
+                iBest = iDW;
+            else if (iSK >= 0)
+                iBest = iSK;
+            else if (iRV >= 0)
+                iBest = iRV;
+            else if (iWD4 >= 0 && matches == 0)
+                iBest = iWD4;
+            else if (iWD >= 0 && last != best)
+                iBest = iWD;
+            else if (iWD4 >= 0 && last != best)
+                iBest = iWD4;
+            else if (iNM >= 0 && COLOR[hands[base + iNM]] != nextStrong)
+                iBest = iNM;
+            else if (iWD >= 0 && i7 + i0 > -2)
+                iBest = iWD;
+        } // if (nextSize == 1)
+        else if (prevSize == 1) {
+            if (i0 >= 0)
+                iBest = i0;
+            else if (i7 >= 0)
+                iBest = i7;
+            else if (iNM >= 0 && COLOR[hands[base + iNM]] != prevStrong)
+                iBest = iNM;
+            else if (iSK >= 0 && COLOR[hands[base + iSK]] != prevStrong)
+                iBest = iSK;
+            else if (iDW >= 0 && COLOR[hands[base + iDW]] != prevStrong)
+                iBest = iDW;
+            else if (iWD >= 0 && last != best)
+                iBest = iWD;
+            else if (iWD4 >= 0 && last != best)
+                iBest = iWD4;
+            else if (iNM >= 0)
+                iBest = iNM;
+        } // else if (prevSize == 1)
+        else if (oppoSize == 1) {
+            if (i7 >= 0)
+                iBest = i7;
+            else if (i0 >= 0)
+                iBest = i0;
+            else if (iNM >= 0 && COLOR[hands[base + iNM]] != oppoStrong)
+                iBest = iNM;
+            else if (iRV >= 0 && prevSize > nextSize)
+                iBest = iRV;
+            else if (iSK >= 0 && COLOR[hands[base + iSK]] != oppoStrong)
+                iBest = iSK;
+            else if (iDW >= 0 && COLOR[hands[base + iDW]] != oppoStrong)
+                iBest = iDW;
+            else if (iWD >= 0 && last != best)
+                iBest = iWD;
+            else if (iWD4 >= 0 && last != best)
+                iBest = iWD4;
+            else if (iNM >= 0)
+                iBest = iNM;
+        } // else if (oppoSize == 1)
+        else {
+            if (i0 >= 0 && COLOR[hands[base + i0]] == prevStrong)
+                iBest = i0;
+            else if (i7 >= 0 && (COLOR[hands[base + i7]] == prevStrong
+                    || COLOR[hands[base + i7]] == oppoStrong
+                    || COLOR[hands[base + i7]] == nextStrong))
+                iBest = i7;
+            else if (iRV >= 0 && (prevSize > nextSize || !played[prev]))
+                iBest = iRV;
+            else if (iNM >= 0)
+                iBest = iNM;
+            else if (iSK >= 0)
+                iBest = iSK;
+            else if (iDW >= 0)
+                iBest = iDW;
+            else if (iRV >= 0)
+                iBest = iRV;
+            else if (iWD >= 0)
+                iBest = iWD;
+            else if (iWD4 >= 0)
+                iBest = iWD4;
+            else if (i0 >= 0 && (yourSize > 2 || isLoneSafe(base, i0)))
+                iBest = i0;
+            else if (i7 >= 0)
+                iBest = i7;
+        } // else
+
+        bestColor = best;
+        return iBest;
+    } // easyAI(int)
+
+    /**
+     * With two cards in hand, check whether the other card is neither of
+     * the same content as card i, nor wild, nor of the same color as card i.
+     * Used by easyAI(int) to decide whether to play a 0 or 7 card.
+     *
+     * @param base Provide the offset of the hand in hands[].
+     * @param i    Provide the index of the 0 or 7 card, 0 or 1.
+     * @return Whether card i can be played safely.
+     */
+    boolean isLoneSafe(int base, int i) {
+        int card = hands[base + i], other = hands[base + 1 - i];
+
+        return CONTENT[other] != CONTENT[card]
+                && COLOR[other] != 0
+                && COLOR[other] != COLOR[card];
+    } // isLoneSafe(int, int)
+} // UnoBatch Class
+
+// E.O.F
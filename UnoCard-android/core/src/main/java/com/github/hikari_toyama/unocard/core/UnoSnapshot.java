@@ -0,0 +1,237 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Uno Card Game 4 Droid
+// Author: Hikari Toyama
+// Compile Environment: Android Studio Arctic Fox, with Android SDK 30
+// COPYRIGHT HIKARI TOYAMA, 1992-2022. ALL RIGHTS RESERVED.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.hikari_toyama.unocard.core;
+
+import java.util.List;
+
+/**
+ * A compact copy of the whole game state of an Uno runtime, for search based
+ * AIs that branch a game many times. Cards are stored as id numbers in
+ * primitive arrays, so taking and restoring a snapshot costs a few hundred
+ * nanoseconds, and allocates nothing. Create a snapshot once, then reuse it
+ * by Uno.snapshot(UnoSnapshot).
+ * <p>
+ * Covered: card deck, used cards, recent played cards, legality, +2 stack
+ * counter, color/content analysis, card counting, game rules, current
+ * player, action sequence, and every seat's hand cards, open flags,
+ * strong/weak colors, card counting beliefs and recent played card. In 7-0
+ * rule, swap() and cycle() move Player objects between seats. A snapshot
+ * records what is in each seat, so restoring it also undoes these
+ * permutations.
+ * <p>
+ * NOT covered: the random number generator (a search should use its own
+ * random source), and the loaded replay. The replay recording is rewound
+ * when restored to the same runtime the snapshot was taken from, and that
+ * runtime is still recording the same game, so that branching in the live
+ * runtime does not pollute the saved replay.
+ * <p>
+ * A snapshot can be restored to any Uno runtime, not only the one it was
+ * taken from.
+ */
+public class UnoSnapshot {
+    /**
+     * Card deck and used cards, as id numbers.
+     */
+    final int[] deck = new int[108], used = new int[108];
+    int deckSize, usedSize;
+
+    /**
+     * Recent played cards (id number or -1) and their colors (ordinal).
+     */
+    final byte[] recentCard = new byte[4], recentColor = new byte[4];
+
+    /**
+     * Hand cards of seat i are hands[i * MAX_HOLD_CARDS + j], where
+     * 0 <= j < handSize[i].
+     */
+    final byte[] hands = new byte[4 * Uno.MAX_HOLD_CARDS];
+    final byte[] handSize = new byte[4];
+
+    /**
+     * Other per-seat values. Colors are stored as ordinals, and the recent
+     * played card as an id number or -1.
+     */
+    final int[] open = new int[4], strongCount = new int[4];
+    final byte[] strongColor = new byte[4], weakColor = new byte[4];
+    final byte[] playerRecent = new byte[4];
+
+    /**
+     * Color & content analysis.
+     */
+    final int[] colorAnalysis = new int[Uno.COLORS.length];
+    final int[] contentAnalysis = new int[Uno.CONTENTS.length];
+
+    /**
+     * Card counting. Per-seat arrays of seat i start at (i * 54) for card
+     * ids, or at (i * 5) for colors.
+     */
+    final int[] unseen = new int[54], unseenColor = new int[5];
+    final byte[] known = new byte[4 * 54], kept = new byte[4 * 54];
+    final int[] knownColor = new int[4 * 5], keptColor = new int[4 * 5];
+    final int[] excluded = new int[4 * 5];
+    final int[] knownCount = new int[4], keptCount = new int[4];
+    final int[] keeper = new int[4];
+    int unseenCount;
+
+    /**
+     * Scalar game state and game rules.
+     */
+    int now, players, direction, difficulty, forcePlayRule, stackRule;
+    int draw2StackCount, initialCards;
+    boolean _2vs2, sevenZeroRule;
+    long legality;
+
+    /**
+     * Which runtime this snapshot was taken from, its replay generation, and
+     * the length of its replay recording at that time.
+     */
+    Uno owner;
+    int replayGeneration, replayBits, replayCount;
+
+    /**
+     * Constructor. Create an empty snapshot. Fill it by
+     * Uno.snapshot(UnoSnapshot) before restoring it.
+     */
+    public UnoSnapshot() {
+        // NOP
+    } // UnoSnapshot() (Class Constructor)
+
+    /**
+     * Take a snapshot of the specified runtime into this object.
+     *
+     * @param uno Provide the Uno runtime instance.
+     */
+    void take(Uno uno) {
+        int i, j, n, base;
+        Player p;
+        List<Card> list;
+
+        System.arraycopy(uno.deck, 0, deck, 0, deckSize = uno.deckSize);
+        System.arraycopy(uno.used, 0, used, 0, usedSize = uno.usedSize);
+        for (i = 0; i < 4; ++i) {
+            recentCard[i] = (byte) (uno.recent[i].card == null
+                    ? -1 : uno.recent[i].card.id);
+            recentColor[i] = (byte) uno.recent[i].color.ordinal();
+            p = uno.player[i];
+            list = p.handCards;
+            handSize[i] = (byte) (n = list.size());
+            for (j = 0, base = i * Uno.MAX_HOLD_CARDS; j < n; ++j) {
+                hands[base + j] = (byte) list.get(j).id;
+            } // for (j = 0, base = i * Uno.MAX_HOLD_CARDS; j < n; ++j)
+
+            open[i] = p.open;
+            strongCount[i] = p.strongCount;
+            strongColor[i] = (byte) p.strongColor.ordinal();
+            weakColor[i] = (byte) p.weakColor.ordinal();
+            playerRecent[i] = (byte) (p.recent == null ? -1 : p.recent.id);
+            System.arraycopy(p.known, 0, known, i * 54, 54);
+            System.arraycopy(p.kept, 0, kept, i * 54, 54);
+            System.arraycopy(p.knownColor, 0, knownColor, i * 5, 5);
+            System.arraycopy(p.keptColor, 0, keptColor, i * 5, 5);
+            System.arraycopy(p.excluded, 0, excluded, i * 5, 5);
+            knownCount[i] = p.knownCount;
+            keptCount[i] = p.keptCount;
+            keeper[i] = p.keeper;
+        } // for (i = 0; i < 4; ++i)
+
+        System.arraycopy(uno.unseen, 0, unseen, 0, 54);
+        System.arraycopy(uno.unseenColor, 0, unseenColor, 0, 5);
+        unseenCount = uno.unseenCount;
+
+        System.arraycopy(uno.colorAnalysis, 0,
+                colorAnalysis, 0, colorAnalysis.length);
+        System.arraycopy(uno.contentAnalysis, 0,
+                contentAnalysis, 0, contentAnalysis.length);
+        now = uno.now;
+        players = uno.players;
+        direction = uno.direction;
+        difficulty = uno.difficulty;
+        forcePlayRule = uno.forcePlayRule;
+        stackRule = uno.stackRule;
+        draw2StackCount = uno.draw2StackCount;
+        initialCards = uno.initialCards;
+        _2vs2 = uno._2vs2;
+        sevenZeroRule = uno.sevenZeroRule;
+        legality = uno.legality;
+        owner = uno;
+        replayGeneration = uno.replayGeneration;
+        replayBits = uno.replay.bits;
+        replayCount = uno.replay.count;
+    } // take(Uno)
+
+    /**
+     * Restore the specified runtime to the state in this snapshot.
+     *
+     * @param uno Provide the Uno runtime instance.
+     */
+    void restore(Uno uno) {
+        int i, j, n, base;
+        Card[] table = uno.table;
+        Player p;
+
+        System.arraycopy(deck, 0, uno.deck, 0, uno.deckSize = deckSize);
+        System.arraycopy(used, 0, uno.used, 0, uno.usedSize = usedSize);
+        for (i = 0; i < 4; ++i) {
+            uno.recent[i].card = recentCard[i] < 0
+                    ? null : table[recentCard[i]];
+            uno.recent[i].color = Uno.COLORS[recentColor[i]];
+            p = uno.player[i];
+            p.clearHand();
+            for (j = 0, n = handSize[i], base = i * Uno.MAX_HOLD_CARDS;
+                 j < n; ++j) {
+                p.addCard(j, table[hands[base + j]]);
+            } // for (j = 0, n = handSize[i], ...; j < n; ++j)
+
+            p.open = open[i];
+            p.strongCount = strongCount[i];
+            p.strongColor = Uno.COLORS[strongColor[i]];
+            p.weakColor = Uno.COLORS[weakColor[i]];
+            p.recent = playerRecent[i] < 0 ? null : table[playerRecent[i]];
+            System.arraycopy(known, i * 54, p.known, 0, 54);
+            System.arraycopy(kept, i * 54, p.kept, 0, 54);
+            System.arraycopy(knownColor, i * 5, p.knownColor, 0, 5);
+            System.arraycopy(keptColor, i * 5, p.keptColor, 0, 5);
+            System.arraycopy(excluded, i * 5, p.excluded, 0, 5);
+            p.knownCount = knownCount[i];
+            p.keptCount = keptCount[i];
+            p.keeper = keeper[i];
+        } // for (i = 0; i < 4; ++i)
+
+        System.arraycopy(unseen, 0, uno.unseen, 0, 54);
+        System.arraycopy(unseenColor, 0, uno.unseenColor, 0, 5);
+        uno.unseenCount = unseenCount;
+
+        System.arraycopy(colorAnalysis, 0,
+                uno.colorAnalysis, 0, colorAnalysis.length);
+        System.arraycopy(contentAnalysis, 0,
+                uno.contentAnalysis, 0, contentAnalysis.length);
+        uno.now = now;
+        uno.players = players;
+        uno.direction = direction;
+        uno.difficulty = difficulty;
+        uno.forcePlayRule = forcePlayRule;
+        uno.stackRule = stackRule;
+        uno.draw2StackCount = draw2StackCount;
+        uno.initialCards = initialCards;
+        uno._2vs2 = _2vs2;
+        uno.sevenZeroRule = sevenZeroRule;
+        uno.legality = legality;
+        if (owner == uno && replayGeneration == uno.replayGeneration
+                && replayCount <= uno.replay.count) {
+            // Rewind the recording. Commands recorded after the snapshot
+            // was taken are discarded. A recording begun after that (by a
+            // new game, or a loaded replay) is never touched.
+            uno.replay.bits = replayBits;
+            uno.replay.count = replayCount;
+        } // if (owner == uno && ...)
+    } // restore(Uno)
+} // UnoSnapshot Class
+
+// E.O.F
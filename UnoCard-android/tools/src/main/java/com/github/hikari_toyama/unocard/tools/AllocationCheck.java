@@ -0,0 +1,144 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Uno Card Game 4 Droid
+// Author: Hikari Toyama
+// Compile Environment: Android Studio Arctic Fox, with Android SDK 30
+// COPYRIGHT HIKARI TOYAMA, 1992-2022. ALL RIGHTS RESERVED.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.hikari_toyama.unocard.tools;
+
+import com.github.hikari_toyama.unocard.core.Card;
+import com.github.hikari_toyama.unocard.core.Color;
+import com.github.hikari_toyama.unocard.core.Content;
+import com.github.hikari_toyama.unocard.core.Uno;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Verify that the steady-state turn loop of the rules engine (start, play,
+ * draw, reshuffle, challenge, 7-0 swap & cycle) allocates nothing after
+ * warmup. Exits with status 1 on failure, so that it can be used as a build
+ * gate (./gradlew :tools:check).
+ * <p>
+ * Options: --warmup N (turns, default 1000000), --turns N (default 200000).
+ * The warmup must be long enough for all engine methods to be compiled by C2,
+ * since tier transitions and deoptimizations are counted by the JVM as
+ * allocations of the running thread.
+ */
+public class AllocationCheck {
+    /**
+     * Play a turn by a trivial policy: play the first legal card, or draw
+     * cards when no legal cards. This is a simplified game flow, only meant
+     * to reach every engine path. Nothing is decided by AI, since AI is not
+     * a part of this check.
+     *
+     * @param uno Provide the Uno runtime instance.
+     */
+    static void turn(Uno uno) {
+        int i, n, now = uno.getNow();
+        List<Card> hand = uno.getCurrPlayer().getHandCards();
+        Card card;
+
+        for (i = 0, n = hand.size(); i < n; ++i) {
+            if (uno.isLegalToPlay(hand.get(i))) {
+                break;
+            } // if (uno.isLegalToPlay(hand.get(i)))
+        } // for (i = 0, n = hand.size(); i < n; ++i)
+
+        if (i == n) {
+            for (n = Math.max(1, uno.getDraw2StackCount()); n > 0; --n) {
+                uno.draw(now, /* force */ false);
+            } // for (n = Math.max(1, ...); n > 0; --n)
+
+            uno.switchNow();
+            return;
+        } // if (i == n)
+
+        card = uno.play(now, i, Color.RED);
+        if (uno.getDirection() == 0) {
+            // Game over
+            uno.start();
+            return;
+        } // if (uno.getDirection() == 0)
+
+        if (card.content == Content.REV) {
+            uno.switchDirection();
+        } // if (card.content == Content.REV)
+        else if (card.content == Content.WILD_DRAW4 &&
+                uno.getStackRule() != 2) {
+            uno.challenge(now);
+        } // else if (card.content == Content.WILD_DRAW4 && ...)
+        else if (card.content == Content.NUM7 && uno.isSevenZeroRule()) {
+            uno.swap(now, uno.getNext());
+        } // else if (card.content == Content.NUM7 && ...)
+        else if (card.content == Content.NUM0 && uno.isSevenZeroRule()) {
+            uno.cycle();
+        } // else if (card.content == Content.NUM0 && ...)
+
+        uno.switchNow();
+    } // turn(Uno)
+
+    /**
+     * @return Bytes allocated by current thread so far.
+     */
+    static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    } // allocatedBytes()
+
+    /**
+     * Program entry.
+     *
+     * @param args Command line options. See the class document.
+     */
+    public static void main(String[] args) {
+        long warmup = 1000000, turns = 200000, t, bytes, overhead;
+        int[][] rules = {{4, 0}, {4, 2}, {1, 1}, {2, 1}, {3, 0}};
+        boolean ok = true;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("--warmup")) {
+                warmup = Long.parseLong(args[i + 1]);
+            } // if (args[i].equals("--warmup"))
+            else if (args[i].equals("--turns")) {
+                turns = Long.parseLong(args[i + 1]);
+            } // else if (args[i].equals("--turns"))
+        } // for (int i = 0; i + 1 < args.length; i += 2)
+
+        Logger.getLogger("Uno").setLevel(Level.OFF);
+        overhead = -allocatedBytes() + allocatedBytes();
+        for (int[] rule : rules) {
+            Uno uno = new Uno();
+
+            // rule[0]: game mode, rule[1]: stack rule
+            uno.setGameMode(rule[0]);
+            uno.setStackRule(rule[1]);
+            uno.setSeed(rule[0] * 10 + rule[1]);
+            uno.start();
+            for (t = 0; t < warmup; ++t) {
+                turn(uno);
+            } // for (t = 0; t < warmup; ++t)
+
+            bytes = -allocatedBytes();
+            for (t = 0; t < turns; ++t) {
+                turn(uno);
+            } // for (t = 0; t < turns; ++t)
+
+            bytes += allocatedBytes() - overhead;
+            System.out.printf("mode=%d stack=%d: %d bytes in %d turns%n",
+                    rule[0], rule[1], bytes, turns);
+            ok &= bytes <= 0;
+        } // for (int[] rule : rules)
+
+        System.out.println(ok ? "PASSED" : "FAILED");
+        System.exit(ok ? 0 : 1);
+    } // main(String[])
+} // AllocationCheck Class
+
+// E.O.F
@@ -0,0 +1,164 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Uno Card Game 4 Droid
+// Author: Hikari Toyama
+// Compile Environment: Android Studio Arctic Fox, with Android SDK 30
+// COPYRIGHT HIKARI TOYAMA, 1992-2022. ALL RIGHTS RESERVED.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.hikari_toyama.unocard.tools;
+
+import com.github.hikari_toyama.unocard.core.AI;
+import com.github.hikari_toyama.unocard.core.Referee;
+import com.github.hikari_toyama.unocard.core.Uno;
+import com.github.hikari_toyama.unocard.core.UnoBatch;
+
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Verify that the batch engine (UnoBatch) plays exactly the same games as
+ * the referee with all seats on AI_EASY. Every rule combination (game mode,
+ * stack rule, force play rule, initial cards 5/7/20) is played on both
+ * engines, and every game is compared by its winner, turn count and
+ * reshuffle count. UnoBatch duplicates the rules and the EASY level, so any
+ * rules or AI change that is not mirrored there shows up here. Exits with
+ * status 1 on failure, so that it can be used as a build gate
+ * (./gradlew :tools:check).
+ * <p>
+ * Options: --games N (games per rule combination, default 500),
+ * --seed S (base seed, default 20220101).
+ * The batch engine plays on 1, 37 and 256 tables, so that games finish in
+ * and out of order.
+ */
+public class BatchCheck {
+    /**
+     * Table counts of the batch engine to check.
+     */
+    static final int[] TABLES = {1, 37, 256};
+
+    /**
+     * How many mismatched games to print per rule combination.
+     */
+    static final int MAX_REPORTS = 3;
+
+    /**
+     * Play games [0, games) of a rule combination on both engines, and
+     * compare them game by game.
+     *
+     * @param rules Provide the rule combination.
+     * @param seed  Provide the base seed.
+     * @param games Provide how many games to play.
+     * @return How many games differ, or were not reported exactly once by
+     * the batch engine.
+     */
+    static int check(Simulator.Rules rules, long seed, int games) {
+        int n, bad = 0;
+        Uno uno = new Uno();
+        Referee referee = new Referee(uno, new AI(uno));
+        final int[] winner = new int[games], turns = new int[games];
+        final int[] reshuffles = new int[games], seen = new int[games];
+        final int[] mismatches = new int[1];
+
+        rules.applyTo(uno);
+        for (n = 0; n < 4; ++n) {
+            referee.setStrategy(n, Referee.AI_EASY);
+        } // for (n = 0; n < 4; ++n)
+
+        for (n = 0; n < games; ++n) {
+            referee.setSeed(seed + n);
+            winner[n] = referee.playGame();
+            turns[n] = referee.getTurns();
+            reshuffles[n] = referee.getReshuffles();
+        } // for (n = 0; n < games; ++n)
+
+        for (int tables : TABLES) {
+            UnoBatch batch = new UnoBatch(tables);
+
+            batch.setRules(uno);
+            mismatches[0] = 0;
+            Arrays.fill(seen, 0);
+            batch.playGames(seed, 0, games, new UnoBatch.Listener() {
+                @Override
+                public void onGameOver(long game, int w, int t, int r) {
+                    int g = (int) game;
+
+                    if (g < 0 || g >= games || seen[g]++ > 0) {
+                        // Not a game of this batch, or reported twice
+                        ++mismatches[0];
+                    } // if (g < 0 || g >= games || seen[g]++ > 0)
+                    else if (w != winner[g] || t != turns[g]
+                            || r != reshuffles[g]) {
+                        if (mismatches[0]++ < MAX_REPORTS) {
+                            System.out.printf("  game %d: referee %d/%d/%d"
+                                            + ", batch %d/%d/%d%n", g,
+                                    winner[g], turns[g], reshuffles[g],
+                                    w, t, r);
+                        } // if (mismatches[0]++ < MAX_REPORTS)
+                    } // else if (w != winner[g] || ...)
+                } // onGameOver(long, int, int, int)
+            }); // batch.playGames(seed, 0, games, new UnoBatch.Listener() {})
+
+            for (n = 0; n < games; ++n) {
+                if (seen[n] == 0) {
+                    ++mismatches[0];
+                } // if (seen[n] == 0)
+            } // for (n = 0; n < games; ++n)
+
+            if (mismatches[0] > 0) {
+                System.out.printf("[%s] %d tables: %d games differ%n",
+                        rules, tables, mismatches[0]);
+                bad += mismatches[0];
+            } // if (mismatches[0] > 0)
+        } // for (int tables : TABLES)
+
+        return bad;
+    } // check(Simulator.Rules, long, int)
+
+    /**
+     * Program entry.
+     *
+     * @param args Command line options. See the class document.
+     */
+    public static void main(String[] args) {
+        int games = 500, combos = 0, bad = 0;
+        long seed = 20220101L;
+        int[] initials = {5, 7, 20};
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("--games")) {
+                games = Integer.parseInt(args[i + 1]);
+            } // if (args[i].equals("--games"))
+            else if (args[i].equals("--seed")) {
+                seed = Long.parseLong(args[i + 1]);
+            } // else if (args[i].equals("--seed"))
+        } // for (int i = 0; i + 1 < args.length; i += 2)
+
+        Logger.getLogger("Uno").setLevel(Level.OFF);
+        for (int mode = 1; mode <= 4; ++mode) {
+            for (int stack = 0; stack <= 2; ++stack) {
+                for (int force = 0; force <= 2; ++force) {
+                    for (int initial : initials) {
+                        Simulator.Rules rules = new Simulator.Rules();
+                        rules.gameMode = mode;
+                        rules.stackRule = stack;
+                        rules.forcePlayRule = force;
+                        rules.initialCards = initial;
+                        bad += check(rules, seed, games);
+                        ++combos;
+                    } // for (int initial : initials)
+                } // for (int force = 0; force <= 2; ++force)
+            } // for (int stack = 0; stack <= 2; ++stack)
+        } // for (int mode = 1; mode <= 4; ++mode)
+
+        System.out.printf("%d rule combinations x %d games x %d table "
+                + "counts, %d games differ%n", combos, games,
+                TABLES.length, bad);
+        System.out.println(bad == 0 ? "PASSED" : "FAILED");
+        System.exit(bad == 0 ? 0 : 1);
+    } // main(String[])
+} // BatchCheck Class
+
+// E.O.F
@@ -0,0 +1,85 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Uno Card Game 4 Droid
+// Author: Hikari Toyama
+// Compile Environment: Android Studio Arctic Fox, with Android SDK 30
+// COPYRIGHT HIKARI TOYAMA, 1992-2022. ALL RIGHTS RESERVED.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.hikari_toyama.unocard.tools;
+
+import com.github.hikari_toyama.unocard.core.AI;
+import com.github.hikari_toyama.unocard.core.Endgame;
+import com.github.hikari_toyama.unocard.core.Referee;
+import com.github.hikari_toyama.unocard.core.Uno;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Verify that the endgame solver is really used in self-play. All seats play
+ * on AI_AUTO at LV_HARD (thus the HARD, TEAM and 7-0 levels, which ask the
+ * solver first), with the solver's default limits, and every game mode must
+ * find some forced wins. A limit change that moves real games out of the
+ * solver's scope shows up here. Exits with status 1 on failure, so that it
+ * can be used as a build gate (./gradlew :tools:check).
+ * <p>
+ * Options: --games N (games per game mode, default 500),
+ * --seed S (base seed, default 20220101).
+ */
+public class EndgameCheck {
+    /**
+     * Program entry.
+     *
+     * @param args Command line options. See the class document.
+     */
+    public static void main(String[] args) {
+        int n, games = 500, bad = 0;
+        long seed = 20220101L, decisions;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("--games")) {
+                games = Integer.parseInt(args[i + 1]);
+            } // if (args[i].equals("--games"))
+            else if (args[i].equals("--seed")) {
+                seed = Long.parseLong(args[i + 1]);
+            } // else if (args[i].equals("--seed"))
+        } // for (int i = 0; i + 1 < args.length; i += 2)
+
+        Logger.getLogger("Uno").setLevel(Level.OFF);
+        for (int mode = 1; mode <= 4; ++mode) {
+            Simulator.Rules rules = new Simulator.Rules();
+            Uno uno = new Uno();
+            AI ai = new AI(uno);
+            Referee referee = new Referee(uno, ai);
+            Endgame endgame = ai.getEndgame();
+
+            rules.gameMode = mode;
+            rules.forcePlayRule = 1;
+            rules.initialCards = 7;
+            rules.applyTo(uno);
+            for (int i = 0; i < 4; ++i) {
+                referee.setStrategy(i, Referee.AI_AUTO);
+            } // for (int i = 0; i < 4; ++i)
+
+            for (n = 0, decisions = 0; n < games; ++n) {
+                referee.setSeed(seed + n);
+                referee.playGame();
+                decisions += referee.getTurns();
+            } // for (n = 0, decisions = 0; n < games; ++n)
+
+            System.out.printf("[%s] %d decisions, %d searches, %d solved%n",
+                    rules, decisions, endgame.getSearches(),
+                    endgame.getSolved());
+            if (endgame.getSolved() == 0) {
+                ++bad;
+            } // if (endgame.getSolved() == 0)
+        } // for (int mode = 1; mode <= 4; ++mode)
+
+        System.out.println(bad == 0 ? "PASSED" : "FAILED");
+        System.exit(bad == 0 ? 0 : 1);
+    } // main(String[])
+} // EndgameCheck Class
+
+// E.O.F
@@ -0,0 +1,194 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Uno Card Game 4 Droid
+// Author: Hikari Toyama
+// Compile Environment: Android Studio Arctic Fox, with Android SDK 30
+// COPYRIGHT HIKARI TOYAMA, 1992-2022. ALL RIGHTS RESERVED.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.hikari_toyama.unocard.tools;
+
+import com.github.hikari_toyama.unocard.core.ReplayVerifier;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Batch replay auditor. Verifies every replay file in a directory (see
+ * ReplayVerifier for the checks) on all CPU cores, then prints the broken
+ * replays and the throughput. Exits with status 1 if any replay is broken.
+ * <p>
+ * Usage: ReplayAudit [--threads N] [--ext .sav] DIR...
+ * --threads N  Worker threads. Default to all available processors.
+ * --ext E      Only verify the files whose names end with E. Default to .sav.
+ */
+public class ReplayAudit {
+    /**
+     * Aggregated audit result.
+     */
+    static class Result {
+        final List<String> failures = new ArrayList<>();
+        long files, commands, bytes;
+
+        /**
+         * Merge another result into this one.
+         *
+         * @param o Provide the other result.
+         * @return This object.
+         */
+        Result merge(Result o) {
+            failures.addAll(o.failures);
+            files += o.files;
+            commands += o.commands;
+            bytes += o.bytes;
+            return this;
+        } // merge(Result)
+    } // Result Inner Class
+
+    /**
+     * Fork-join task that verifies files [from, to). Every leaf task owns its
+     * private verifier, so that workers never share a mutable engine.
+     */
+    static class AuditTask extends RecursiveTask<Result> {
+        /**
+         * Do not split the task when it has this many files or less.
+         */
+        static final int THRESHOLD = 64;
+
+        final File[] files;
+        final int from, to;
+
+        AuditTask(File[] files, int from, int to) {
+            this.files = files;
+            this.from = from;
+            this.to = to;
+        } // AuditTask(File[], int, int) (Class Constructor)
+
+        @Override
+        protected Result compute() {
+            int mid;
+            AuditTask left;
+
+            if (to - from <= THRESHOLD) {
+                return audit();
+            } // if (to - from <= THRESHOLD)
+
+            mid = (from + to) >>> 1;
+            left = new AuditTask(files, from, mid);
+            left.fork();
+            return new AuditTask(files, mid, to).compute()
+                    .merge(left.join());
+        } // compute()
+
+        /**
+         * Verify all files of this task in the current thread.
+         *
+         * @return Result of this task.
+         */
+        Result audit() {
+            String error;
+            Result r = new Result();
+            ReplayVerifier verifier = new ReplayVerifier();
+
+            for (int i = from; i < to; ++i) {
+                try {
+                    error = verifier.verify(new FileInputStream(files[i]));
+                } // try
+                catch (IOException e) {
+                    error = e.toString();
+                } // catch (IOException e)
+
+                ++r.files;
+                r.bytes += files[i].length();
+                r.commands += verifier.getCommands();
+                if (!error.isEmpty()) {
+                    r.failures.add(files[i].getPath() + ": " + error);
+                } // if (!error.isEmpty())
+            } // for (int i = from; i < to; ++i)
+
+            return r;
+        } // audit()
+    } // AuditTask Inner Class
+
+    /**
+     * Program entry.
+     *
+     * @param args Command line options. See the class document.
+     */
+    public static void main(String[] args) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<File> files = new ArrayList<>();
+        String ext = ".sav";
+        List<File> dirs = new ArrayList<>();
+        ForkJoinPool pool;
+        double seconds;
+        File[] list;
+        long begin;
+        Result r;
+
+        for (int i = 0; i < args.length; ++i) {
+            if (args[i].equals("--threads") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } // if (args[i].equals("--threads") && i + 1 < args.length)
+            else if (args[i].equals("--ext") && i + 1 < args.length) {
+                ext = args[++i];
+            } // else if (args[i].equals("--ext") && i + 1 < args.length)
+            else {
+                dirs.add(new File(args[i]));
+            } // else
+        } // for (int i = 0; i < args.length; ++i)
+
+        if (dirs.isEmpty()) {
+            System.err.println("Usage: ReplayAudit [--threads N] "
+                    + "[--ext .sav] DIR...");
+            System.exit(2);
+        } // if (dirs.isEmpty())
+
+        for (File dir : dirs) {
+            if ((list = dir.listFiles()) == null) {
+                System.err.println("Not a directory: " + dir);
+                System.exit(2);
+            } // if ((list = dir.listFiles()) == null)
+
+            Arrays.sort(list);
+            for (File f : list) {
+                if (f.isFile() && f.getName().endsWith(ext)) {
+                    files.add(f);
+                } // if (f.isFile() && f.getName().endsWith(ext))
+            } // for (File f : list)
+        } // for (File dir : dirs)
+
+        // Game logs are useless here, and slow down the audit
+        Logger.getLogger("Uno").setLevel(Level.OFF);
+        pool = new ForkJoinPool(threads);
+        begin = System.nanoTime();
+        r = pool.invoke(new AuditTask(files.toArray(new File[0]),
+                0, files.size()));
+        seconds = Math.max(1e-9, (System.nanoTime() - begin) / 1e9);
+        pool.shutdown();
+        Collections.sort(r.failures);
+        for (String failure : r.failures) {
+            System.out.println("BROKEN " + failure);
+        } // for (String failure : r.failures)
+
+        System.out.printf(Locale.US, "%d replays (%d commands, %.1f KB), "
+                        + "%d broken, %d threads, %.3f s, %.1f files/s, "
+                        + "%.0f commands/s%n",
+                r.files, r.commands, r.bytes / 1024.0, r.failures.size(),
+                threads, seconds, r.files / seconds, r.commands / seconds);
+        System.exit(r.failures.isEmpty() ? 0 : 1);
+    } // main(String[])
+} // ReplayAudit Class
+
+// E.O.F
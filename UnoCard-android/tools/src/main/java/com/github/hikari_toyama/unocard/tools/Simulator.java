@@ -0,0 +1,457 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Uno Card Game 4 Droid
+// Author: Hikari Toyama
+// Compile Environment: Android Studio Arctic Fox, with Android SDK 30
+// COPYRIGHT HIKARI TOYAMA, 1992-2022. ALL RIGHTS RESERVED.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.hikari_toyama.unocard.tools;
+
+import com.github.hikari_toyama.unocard.core.AI;
+import com.github.hikari_toyama.unocard.core.Player;
+import com.github.hikari_toyama.unocard.core.Referee;
+import com.github.hikari_toyama.unocard.core.Uno;
+import com.github.hikari_toyama.unocard.core.UnoBatch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * COM-vs-COM batch simulator. Plays a large number of games for every rule
+ * combination on all CPU cores, then reports win rates, average turns,
+ * reshuffle counts and throughput.
+ * <p>
+ * Options (all optional):
+ * --games N         Games per rule combination. Default to 10000.
+ * --threads N       Worker threads. Default to all available processors.
+ * --seats a,b,c,d   Strategy of YOU, COM1, COM2, COM3. Each one can be
+ *                   auto, easy, hard, team, sevenZero or mcts. Default to
+ *                   auto.
+ * --mcts N          Iterations per decision of the mcts strategy. Default
+ *                   to 1000.
+ * --modes list      Game modes to simulate, from 7-0, 2vs2, 3P and 4P.
+ * --stack list      Stack rules to simulate, from 0, 1 and 2.
+ * --force list      Force play rules to simulate, from 0, 1 and 2.
+ * --initial list    Initial cards to simulate, from 5 to 20. Default to 7.
+ * --seed S          Base seed. Game n of every rule combination is played
+ *                   with seed S + n, so any game can be reproduced by its
+ *                   seed and rules, no matter how many threads are used.
+ * --tables N        When all seats are easy, each task plays its games on
+ *                   N tables of the batch engine (UnoBatch) instead of a
+ *                   referee. Results are the same. 0 to disable. Default
+ *                   to 256.
+ */
+public class Simulator {
+    /**
+     * Name of each seat strategy, indexed by Referee.AI_* + 1.
+     */
+    static final String[] AI_NAMES = {
+            "auto", "easy", "hard", "team", "sevenZero", "mcts"
+    }; // AI_NAMES[]
+
+    /**
+     * Name of each game mode, indexed by Uno.getGameMode().
+     */
+    static final String[] MODE_NAMES = {"", "7-0", "2vs2", "3P", "4P"};
+
+    /**
+     * Name of each seat.
+     */
+    static final String[] SEAT_NAMES = {"YOU", "COM1", "COM2", "COM3"};
+
+    /**
+     * A rule combination to simulate.
+     */
+    static class Rules {
+        int gameMode, stackRule, forcePlayRule, initialCards;
+
+        /**
+         * Apply this rule combination to an Uno runtime.
+         *
+         * @param uno Provide the Uno runtime instance.
+         */
+        void applyTo(Uno uno) {
+            uno.setGameMode(gameMode);
+            uno.setStackRule(stackRule);
+            uno.setForcePlayRule(forcePlayRule);
+            uno.setDifficulty(Uno.LV_HARD);
+            while (uno.getInitialCards() < initialCards) {
+                uno.increaseInitialCards();
+            } // while (uno.getInitialCards() < initialCards)
+
+            while (uno.getInitialCards() > initialCards) {
+                uno.decreaseInitialCards();
+            } // while (uno.getInitialCards() > initialCards)
+        } // applyTo(Uno)
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%-4s stack=%d force=%d init=%d",
+                    MODE_NAMES[gameMode], stackRule, forcePlayRule,
+                    initialCards);
+        } // toString()
+    } // Rules Inner Class
+
+    /**
+     * Aggregated simulation result.
+     */
+    static class Result {
+        final long[] wins = new long[4];
+        long games, aborted, turns, reshuffles;
+
+        /**
+         * Merge another result into this one.
+         *
+         * @param o Provide the other result.
+         * @return This object.
+         */
+        Result merge(Result o) {
+            for (int i = 0; i < 4; ++i) {
+                wins[i] += o.wins[i];
+            } // for (int i = 0; i < 4; ++i)
+
+            games += o.games;
+            aborted += o.aborted;
+            turns += o.turns;
+            reshuffles += o.reshuffles;
+            return this;
+        } // merge(Result)
+    } // Result Inner Class
+
+    /**
+     * Fork-join task that simulates games [from, to) of a rule combination.
+     * Every leaf task owns its private Uno runtime, AI and referee (or batch
+     * engine), so that workers never share a mutable engine.
+     */
+    static class SimTask extends RecursiveTask<Result> {
+        /**
+         * Do not split the task when it has this many games or less.
+         */
+        static final long THRESHOLD = 256;
+
+        final Rules rules;
+        final int[] seats;
+        final int mcts, tables;
+        final long seed, from, to;
+
+        SimTask(Rules rules, int[] seats, int mcts, int tables,
+                long seed, long from, long to) {
+            this.rules = rules;
+            this.seats = seats;
+            this.mcts = mcts;
+            this.tables = tables;
+            this.seed = seed;
+            this.from = from;
+            this.to = to;
+        } // SimTask(Rules, int[], int, int, long, long, long) (Class Constructor)
+
+        @Override
+        protected Result compute() {
+            long mid;
+            SimTask left;
+
+            if (to - from <= THRESHOLD) {
+                return simulate();
+            } // if (to - from <= THRESHOLD)
+
+            mid = (from + to) >>> 1;
+            left = new SimTask(rules, seats, mcts, tables, seed, from, mid);
+            left.fork();
+            return new SimTask(rules, seats, mcts, tables, seed, mid, to)
+                    .compute().merge(left.join());
+        } // compute()
+
+        /**
+         * Simulate all games of this task in the current thread.
+         *
+         * @return Result of this task.
+         */
+        Result simulate() {
+            int i, winner;
+            Uno uno = new Uno();
+            AI ai = new AI(uno);
+            Result r = new Result();
+            Referee referee = new Referee(uno, ai);
+
+            rules.applyTo(uno);
+            if (tables > 0 && allEasy(seats)) {
+                return simulateBatch(uno);
+            } // if (tables > 0 && allEasy(seats))
+
+            ai.getSearch().setBudget(mcts, 0);
+            for (i = 0; i < 4; ++i) {
+                referee.setStrategy(i, seats[i]);
+            } // for (i = 0; i < 4; ++i)
+
+            for (long n = from; n < to; ++n) {
+                referee.setSeed(seed + n);
+                winner = referee.playGame();
+                ++r.games;
+                r.turns += referee.getTurns();
+                r.reshuffles += referee.getReshuffles();
+                if (winner < 0) {
+                    ++r.aborted;
+                } // if (winner < 0)
+                else {
+                    ++r.wins[winner];
+                    if (uno.is2vs2()) {
+                        // In 2vs2 mode, teammate wins together
+                        ++r.wins[(winner + 2) % 4];
+                    } // if (uno.is2vs2())
+                } // else
+            } // for (long n = from; n < to; ++n)
+
+            return r;
+        } // simulate()
+
+        /**
+         * Simulate all games of this task in the current thread, on the
+         * batch engine. Only for all-easy seats.
+         *
+         * @param uno Uno runtime that rules are applied to.
+         * @return Result of this task.
+         */
+        Result simulateBatch(final Uno uno) {
+            final Result r = new Result();
+            UnoBatch batch = new UnoBatch(
+                    (int) Math.max(1, Math.min(tables, to - from)));
+
+            batch.setRules(uno);
+            batch.playGames(seed, from, to, new UnoBatch.Listener() {
+                @Override
+                public void onGameOver(long game, int winner,
+                                       int turns, int reshuffles) {
+                    ++r.games;
+                    r.turns += turns;
+                    r.reshuffles += reshuffles;
+                    if (winner < 0) {
+                        ++r.aborted;
+                    } // if (winner < 0)
+                    else {
+                        ++r.wins[winner];
+                        if (uno.is2vs2()) {
+                            // In 2vs2 mode, teammate wins together
+                            ++r.wins[(winner + 2) % 4];
+                        } // if (uno.is2vs2())
+                    } // else
+                } // onGameOver(long, int, int, int)
+            }); // batch.playGames(seed, from, to, new UnoBatch.Listener() {})
+
+            return r;
+        } // simulateBatch(Uno)
+    } // SimTask Inner Class
+
+    /**
+     * @param seats Provide the strategy of each seat.
+     * @return Whether all seats play AI_EASY, so that the batch engine can
+     * play the games.
+     */
+    static boolean allEasy(int[] seats) {
+        for (int seat : seats) {
+            if (seat != Referee.AI_EASY) {
+                return false;
+            } // if (seat != Referee.AI_EASY)
+        } // for (int seat : seats)
+
+        return true;
+    } // allEasy(int[])
+
+    /**
+     * @param s Provide a strategy name.
+     * @return Corresponding Referee.AI_* value.
+     */
+    static int parseStrategy(String s) {
+        for (int i = 0; i < AI_NAMES.length; ++i) {
+            if (AI_NAMES[i].equalsIgnoreCase(s)) {
+                return i - 1;
+            } // if (AI_NAMES[i].equalsIgnoreCase(s))
+        } // for (int i = 0; i < AI_NAMES.length; ++i)
+
+        throw new IllegalArgumentException("Unknown strategy: " + s);
+    } // parseStrategy(String)
+
+    /**
+     * @param s Provide a game mode name.
+     * @return Corresponding game mode value.
+     */
+    static int parseMode(String s) {
+        for (int i = 1; i < MODE_NAMES.length; ++i) {
+            if (MODE_NAMES[i].equalsIgnoreCase(s)) {
+                return i;
+            } // if (MODE_NAMES[i].equalsIgnoreCase(s))
+        } // for (int i = 1; i < MODE_NAMES.length; ++i)
+
+        throw new IllegalArgumentException("Unknown game mode: " + s);
+    } // parseMode(String)
+
+    /**
+     * @param s Provide a comma separated integer list.
+     * @return Parsed integers.
+     */
+    static int[] parseInts(String s) {
+        String[] x = s.split(",");
+        int[] ret = new int[x.length];
+
+        for (int i = 0; i < x.length; ++i) {
+            ret[i] = Integer.parseInt(x[i].trim());
+        } // for (int i = 0; i < x.length; ++i)
+
+        return ret;
+    } // parseInts(String)
+
+    /**
+     * Print the report of a rule combination.
+     *
+     * @param rules   Simulated rule combination.
+     * @param seats   Strategy of each seat.
+     * @param r       Simulation result.
+     * @param seconds Wall clock time cost.
+     */
+    static void report(Rules rules, int[] seats, Result r, double seconds) {
+        int i, s;
+        Uno uno = new Uno();
+        long finished = Math.max(1, r.games - r.aborted);
+
+        rules.applyTo(uno);
+        System.out.printf(Locale.US,
+                "[%s] %d games, %.1f games/s, avg turns %.2f, "
+                        + "avg reshuffles %.3f, aborted %d%n",
+                rules, r.games, r.games / seconds,
+                (double) r.turns / r.games,
+                (double) r.reshuffles / r.games, r.aborted);
+        for (i = Player.YOU; i <= Player.COM3; ++i) {
+            if (uno.getPlayers() == 3 && i == Player.COM2) {
+                continue;
+            } // if (uno.getPlayers() == 3 && i == Player.COM2)
+
+            s = seats[i];
+            if (s == Referee.AI_AUTO) {
+                s = uno.isSevenZeroRule() ? Referee.AI_SEVEN_ZERO
+                        : uno.is2vs2() ? Referee.AI_TEAM : Referee.AI_HARD;
+            } // if (s == Referee.AI_AUTO)
+
+            System.out.printf(Locale.US, "    %-4s %-9s win rate %6.2f%%%n",
+                    SEAT_NAMES[i], AI_NAMES[s + 1],
+                    100.0 * r.wins[i] / finished);
+        } // for (i = Player.YOU; i <= Player.COM3; ++i)
+    } // report(Rules, int[], Result, double)
+
+    /**
+     * Program entry.
+     *
+     * @param args Command line options. See the class document.
+     */
+    public static void main(String[] args) {
+        long games = 10000;
+        int mcts = 1000, tables = 256;
+        List<Rules> combos = new ArrayList<>();
+        int threads = Runtime.getRuntime().availableProcessors();
+        int[] seats = {Referee.AI_AUTO, Referee.AI_AUTO,
+                Referee.AI_AUTO, Referee.AI_AUTO};
+        int[] modes = {1, 2, 3, 4}, stacks = {0, 1, 2};
+        int[] forces = {0, 1, 2}, initials = {7};
+        long seed = System.nanoTime();
+        long begin, total = 0;
+        ForkJoinPool pool;
+        Result r;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String v = args[i + 1];
+
+            switch (args[i]) {
+                case "--games":
+                    games = Long.parseLong(v);
+                    break; // case "--games"
+
+                case "--threads":
+                    threads = Integer.parseInt(v);
+                    break; // case "--threads"
+
+                case "--seats":
+                    String[] x = v.split(",");
+                    for (int j = 0; j < 4 && j < x.length; ++j) {
+                        seats[j] = parseStrategy(x[j].trim());
+                    } // for (int j = 0; j < 4 && j < x.length; ++j)
+                    break; // case "--seats"
+
+                case "--modes":
+                    String[] m = v.split(",");
+                    modes = new int[m.length];
+                    for (int j = 0; j < m.length; ++j) {
+                        modes[j] = parseMode(m[j].trim());
+                    } // for (int j = 0; j < m.length; ++j)
+                    break; // case "--modes"
+
+                case "--stack":
+                    stacks = parseInts(v);
+                    break; // case "--stack"
+
+                case "--force":
+                    forces = parseInts(v);
+                    break; // case "--force"
+
+                case "--initial":
+                    initials = parseInts(v);
+                    break; // case "--initial"
+
+                case "--mcts":
+                    mcts = Integer.parseInt(v);
+                    break; // case "--mcts"
+
+                case "--seed":
+                    seed = Long.parseLong(v);
+                    break; // case "--seed"
+
+                case "--tables":
+                    tables = Integer.parseInt(v);
+                    break; // case "--tables"
+
+                default:
+                    throw new IllegalArgumentException(
+                            "Unknown option: " + args[i]);
+            } // switch (args[i])
+        } // for (int i = 0; i + 1 < args.length; i += 2)
+
+        for (int mode : modes) {
+            for (int stack : stacks) {
+                for (int force : forces) {
+                    for (int initial : initials) {
+                        Rules rules = new Rules();
+                        rules.gameMode = mode;
+                        rules.stackRule = stack;
+                        rules.forcePlayRule = force;
+                        rules.initialCards = initial;
+                        combos.add(rules);
+                    } // for (int initial : initials)
+                } // for (int force : forces)
+            } // for (int stack : stacks)
+        } // for (int mode : modes)
+
+        // Game logs are useless here, and slow down the simulation
+        Logger.getLogger("Uno").setLevel(Level.OFF);
+        pool = new ForkJoinPool(threads);
+        begin = System.nanoTime();
+        System.out.printf("%d rule combinations x %d games, %d threads, "
+                + "seed %d%n", combos.size(), games, threads, seed);
+        for (Rules rules : combos) {
+            long t = System.nanoTime();
+            r = pool.invoke(new SimTask(rules, seats, mcts, tables,
+                    seed, 0, games));
+            report(rules, seats, r, (System.nanoTime() - t) / 1e9);
+            total += r.games;
+        } // for (Rules rules : combos)
+
+        pool.shutdown();
+        System.out.printf(Locale.US, "Total: %d games, %.1f games/s%n",
+                total, total / ((System.nanoTime() - begin) / 1e9));
+    } // main(String[])
+} // Simulator Class
+
+// E.O.F
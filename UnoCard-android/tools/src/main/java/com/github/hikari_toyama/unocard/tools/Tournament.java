@@ -0,0 +1,581 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Uno Card Game 4 Droid
+// Author: Hikari Toyama
+// Compile Environment: Android Studio Arctic Fox, with Android SDK 30
+// COPYRIGHT HIKARI TOYAMA, 1992-2022. ALL RIGHTS RESERVED.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.hikari_toyama.unocard.tools;
+
+import com.github.hikari_toyama.unocard.core.AI;
+import com.github.hikari_toyama.unocard.core.Player;
+import com.github.hikari_toyama.unocard.core.Referee;
+import com.github.hikari_toyama.unocard.core.Uno;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Round-robin AI tournament. Every two entrants play a match of head to
+ * head games: one entrant takes the even seats, and the other one takes
+ * the odd seats (in 2vs2 mode, that is one team each). Games are played in
+ * mirrored pairs: the same seed twice, with the seats swapped, so that no
+ * entrant is favored by the deal or by its seats.
+ * <p>
+ * Each match is a sequential probability ratio test (SPRT) of H0: "the
+ * first entrant is weaker by E Elo" against H1: "it is stronger by E Elo".
+ * A match stops as soon as the test accepts either hypothesis, i.e. the
+ * strength of the two entrants is clearly separated, or after the max
+ * games (inconclusive). Finally, the Elo ratings of all entrants are fitted
+ * to all results (Bradley-Terry model), with 95% confidence intervals.
+ * <p>
+ * Matches run in rounds on a work-stealing pool. After each round, the
+ * progress is saved to the checkpoint file, so that a long tournament can
+ * be stopped at any time and resumed by running it again with the same
+ * options.
+ * <p>
+ * Options (all optional):
+ * --players list    Entrants, comma separated. Each one is a strategy name
+ *                   (easy, hard, team, sevenZero or mcts), optionally with
+ *                   a weight profile, e.g. hard:10000/77/1/2/3/5 (see
+ *                   AI.setWeights). Default to easy,hard,team,sevenZero.
+ * --mode M          Game mode, one of 7-0, 2vs2, 3P and 4P. Default to 4P.
+ * --stack N         Stack rule. Default to 0.
+ * --force N         Force play rule. Default to 1.
+ * --initial N       Initial cards. Default to 7.
+ * --mcts N          Iterations per decision of the mcts strategy. Default
+ *                   to 1000.
+ * --elo E           Elo difference of the SPRT hypotheses. Default to 20.
+ * --batch N         Mirrored game pairs per match in a round. Default to
+ *                   500.
+ * --max-games N     Games per match at most. Default to 100000.
+ * --threads N       Worker threads. Default to all available processors.
+ * --seed S          Base seed. Game pair k of every match is played with
+ *                   seed S + k. Default to 0.
+ * --checkpoint file Save the progress to this file after each round, and
+ *                   resume from it when it exists. Default to none.
+ */
+public class Tournament {
+    /**
+     * Significance level and power of the SPRT: alpha = beta = 0.05.
+     */
+    static final double ALPHA = 0.05, BETA = 0.05;
+
+    /**
+     * SPRT bounds of the log-likelihood ratio.
+     */
+    static final double LOWER = Math.log(BETA / (1.0 - ALPHA));
+    static final double UPPER = Math.log((1.0 - BETA) / ALPHA);
+
+    /**
+     * Match verdicts.
+     */
+    static final int RUNNING = 0, FIRST = 1, SECOND = 2, DRAWN = 3;
+
+    /**
+     * Name of each match verdict.
+     */
+    static final String[] VERDICT_NAMES = {
+            "running", ">", "<", "~"
+    }; // VERDICT_NAMES[]
+
+    /**
+     * A tournament entrant: a strategy, and optionally a weight profile.
+     */
+    static class Entrant {
+        final String name;
+        final int strategy;
+        final int[] weights;
+
+        /**
+         * Constructor.
+         *
+         * @param spec Provide the entrant spec, see the class document.
+         */
+        Entrant(String spec) {
+            String[] x = spec.split(":");
+            String[] w;
+
+            name = spec;
+            strategy = Simulator.parseStrategy(x[0].trim());
+            if (x.length > 1) {
+                w = x[1].split("/");
+                weights = new int[w.length];
+                for (int i = 0; i < w.length; ++i) {
+                    weights[i] = Integer.parseInt(w[i].trim());
+                } // for (int i = 0; i < w.length; ++i)
+
+                // Fail fast on a bad profile, before any game is played
+                new AI(new Uno()).setWeights(Player.YOU, weights);
+            } // if (x.length > 1)
+            else {
+                weights = AI.getDefaultWeights();
+            } // else
+        } // Entrant(String) (Class Constructor)
+    } // Entrant Inner Class
+
+    /**
+     * A match between entrants a and b, and its progress.
+     */
+    static class Match {
+        final int a, b;
+        long games, winsA, winsB, next;
+        int verdict;
+
+        Match(int a, int b) {
+            this.a = a;
+            this.b = b;
+        } // Match(int, int) (Class Constructor)
+
+        /**
+         * @param elo Provide the Elo difference of the hypotheses.
+         * @return Log-likelihood ratio of H1 (a is stronger by elo) against
+         * H0 (a is weaker by elo), by the decisive games so far.
+         */
+        double llr(double elo) {
+            double p1 = expected(elo);
+
+            // p0 = 1 - p1, so ln(p1 / p0) = -ln((1 - p1) / (1 - p0))
+            return (winsA - winsB) * Math.log(p1 / (1.0 - p1));
+        } // llr(double)
+    } // Match Inner Class
+
+    /**
+     * Fork-join task that plays mirrored game pairs [from, to) of a match.
+     * Every leaf task owns its private Uno runtime, AI and referee.
+     */
+    static class MatchTask extends RecursiveTask<long[]> {
+        /**
+         * Do not split the task when it has this many game pairs or less.
+         */
+        static final long THRESHOLD = 32;
+
+        final Simulator.Rules rules;
+        final Entrant first, second;
+        final int mcts;
+        final long seed, from, to;
+
+        MatchTask(Simulator.Rules rules, Entrant first, Entrant second,
+                  int mcts, long seed, long from, long to) {
+            this.rules = rules;
+            this.first = first;
+            this.second = second;
+            this.mcts = mcts;
+            this.seed = seed;
+            this.from = from;
+            this.to = to;
+        } // MatchTask(Simulator.Rules, Entrant, Entrant, ...) (Class Constructor)
+
+        @Override
+        protected long[] compute() {
+            long mid;
+            long[] l, r;
+            MatchTask left;
+
+            if (to - from <= THRESHOLD) {
+                return play();
+            } // if (to - from <= THRESHOLD)
+
+            mid = (from + to) >>> 1;
+            left = new MatchTask(rules, first, second, mcts, seed, from, mid);
+            left.fork();
+            r = new MatchTask(rules, first, second, mcts, seed, mid, to)
+                    .compute();
+            l = left.join();
+            return new long[]{l[0] + r[0], l[1] + r[1], l[2] + r[2]};
+        } // compute()
+
+        /**
+         * Play all game pairs of this task in the current thread.
+         *
+         * @return {games, wins of the first entrant, wins of the second}.
+         */
+        long[] play() {
+            int i, mirror, winner;
+            Entrant e;
+            Uno uno = new Uno();
+            AI ai = new AI(uno);
+            Referee referee = new Referee(uno, ai);
+            long[] ret = new long[3];
+
+            rules.applyTo(uno);
+            ai.getSearch().setBudget(mcts, 0);
+            for (long k = from; k < to; ++k) {
+                for (mirror = 0; mirror < 2; ++mirror) {
+                    // The first entrant takes the even seats, then the odd
+                    for (i = Player.YOU; i <= Player.COM3; ++i) {
+                        e = (i & 1) == mirror ? first : second;
+                        referee.setStrategy(i, e.strategy);
+                        ai.setWeights(i, e.weights);
+                    } // for (i = Player.YOU; i <= Player.COM3; ++i)
+
+                    referee.setSeed(seed + k);
+                    winner = referee.playGame();
+                    ++ret[0];
+                    if (winner >= 0) {
+                        ++ret[(winner & 1) == mirror ? 1 : 2];
+                    } // if (winner >= 0)
+                } // for (mirror = 0; mirror < 2; ++mirror)
+            } // for (long k = from; k < to; ++k)
+
+            return ret;
+        } // play()
+    } // MatchTask Inner Class
+
+    /**
+     * Fake C++ Macro
+     * Expected score of a player stronger by the specified Elo difference.
+     */
+    static double expected(double elo) {
+        return 1.0 / (1.0 + Math.pow(10.0, -elo / 400.0));
+    } // expected(double)
+
+    /**
+     * Fit Elo ratings to the match results (Bradley-Terry model, by the
+     * minorization-maximization algorithm). Each match counts one virtual
+     * drawn game more, so that an entrant who never won still gets a finite
+     * rating. Ratings are shifted to average 0.
+     *
+     * @param n       How many entrants.
+     * @param matches Provide all matches.
+     * @param error   Out parameter, 95% confidence interval half-width of
+     *                each rating (normal approximation).
+     * @return Elo rating of each entrant.
+     */
+    static double[] fit(int n, List<Match> matches, double[] error) {
+        int i, iter;
+        double sum, p, d;
+        double[] gamma = new double[n], wins = new double[n];
+        double[] denom = new double[n], info = new double[n];
+        double[] elo = new double[n];
+
+        for (i = 0; i < n; ++i) {
+            gamma[i] = 1.0;
+        } // for (i = 0; i < n; ++i)
+
+        for (Match m : matches) {
+            wins[m.a] += m.winsA + 0.5;
+            wins[m.b] += m.winsB + 0.5;
+        } // for (Match m : matches)
+
+        for (iter = 0; iter < 1000; ++iter) {
+            for (i = 0; i < n; ++i) {
+                denom[i] = 0.0;
+            } // for (i = 0; i < n; ++i)
+
+            for (Match m : matches) {
+                d = (m.winsA + m.winsB + 1) / (gamma[m.a] + gamma[m.b]);
+                denom[m.a] += d;
+                denom[m.b] += d;
+            } // for (Match m : matches)
+
+            for (i = 0, sum = 0.0; i < n; ++i) {
+                gamma[i] = denom[i] > 0.0 ? wins[i] / denom[i] : 1.0;
+                sum += Math.log(gamma[i]);
+            } // for (i = 0, sum = 0.0; i < n; ++i)
+
+            for (i = 0; i < n; ++i) {
+                gamma[i] /= Math.exp(sum / n);
+            } // for (i = 0; i < n; ++i)
+        } // for (iter = 0; iter < 1000; ++iter)
+
+        // Fisher information of each rating, in natural log units
+        for (Match m : matches) {
+            p = gamma[m.a] / (gamma[m.a] + gamma[m.b]);
+            d = (m.winsA + m.winsB + 1) * p * (1.0 - p);
+            info[m.a] += d;
+            info[m.b] += d;
+        } // for (Match m : matches)
+
+        for (i = 0; i < n; ++i) {
+            elo[i] = 400.0 / Math.log(10.0) * Math.log(gamma[i]);
+            error[i] = info[i] > 0.0 ? 1.96 * 400.0 / Math.log(10.0)
+                    / Math.sqrt(info[i]) : Double.POSITIVE_INFINITY;
+        } // for (i = 0; i < n; ++i)
+
+        return elo;
+    } // fit(int, List<Match>, double[])
+
+    /**
+     * Save the progress atomically: write a temporary file, then move it
+     * over the checkpoint, so that a crash never leaves a broken one.
+     *
+     * @param file    Provide the checkpoint file.
+     * @param config  Provide the tournament config line.
+     * @param matches Provide all matches.
+     */
+    static void save(File file, String config, List<Match> matches)
+            throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        PrintWriter w = new PrintWriter(new FileWriter(tmp));
+
+        try {
+            w.println(config);
+            for (Match m : matches) {
+                w.println(m.a + " " + m.b + " " + m.games + " " + m.winsA
+                        + " " + m.winsB + " " + m.next + " " + m.verdict);
+            } // for (Match m : matches)
+        } // try
+        finally {
+            w.close();
+        } // finally
+
+        Files.move(tmp.toPath(), file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    } // save(File, String, List<Match>)
+
+    /**
+     * Resume the progress from a checkpoint.
+     *
+     * @param file    Provide the checkpoint file.
+     * @param config  Provide the tournament config line. Must be the same as
+     *                the saved one.
+     * @param matches Provide all matches, in the same order as saved.
+     */
+    static void load(File file, String config, List<Match> matches)
+            throws IOException {
+        String line;
+        String[] x;
+        BufferedReader r = new BufferedReader(new FileReader(file));
+
+        try {
+            if (!config.equals(r.readLine())) {
+                throw new IllegalArgumentException(
+                        "Checkpoint " + file + " was saved with other options");
+            } // if (!config.equals(r.readLine()))
+
+            for (Match m : matches) {
+                line = r.readLine();
+                x = line == null ? new String[0] : line.split(" ");
+                if (x.length != 7 || Integer.parseInt(x[0]) != m.a
+                        || Integer.parseInt(x[1]) != m.b) {
+                    throw new IllegalArgumentException(
+                            "Checkpoint " + file + " is broken");
+                } // if (x.length != 7 || ...)
+
+                m.games = Long.parseLong(x[2]);
+                m.winsA = Long.parseLong(x[3]);
+                m.winsB = Long.parseLong(x[4]);
+                m.next = Long.parseLong(x[5]);
+                m.verdict = Integer.parseInt(x[6]);
+            } // for (Match m : matches)
+        } // try
+        finally {
+            r.close();
+        } // finally
+    } // load(File, String, List<Match>)
+
+    /**
+     * Print the standings and the match results.
+     *
+     * @param entrants Provide all entrants.
+     * @param matches  Provide all matches.
+     * @param elo      Provide the Elo difference of the SPRT hypotheses.
+     */
+    static void report(List<Entrant> entrants, List<Match> matches,
+                       double elo) {
+        int i, j, best;
+        int n = entrants.size();
+        double[] error = new double[n];
+        double[] ratings = fit(n, matches, error);
+        boolean[] done = new boolean[n];
+
+        System.out.println("Standings (Elo, 95% confidence interval):");
+        for (i = 0; i < n; ++i) {
+            for (j = 0, best = -1; j < n; ++j) {
+                if (!done[j] && (best < 0 || ratings[j] > ratings[best])) {
+                    best = j;
+                } // if (!done[j] && ...)
+            } // for (j = 0, best = -1; j < n; ++j)
+
+            done[best] = true;
+            System.out.printf(Locale.US, "  %2d. %-28s %+8.1f +- %.1f%n",
+                    i + 1, entrants.get(best).name, ratings[best],
+                    error[best]);
+        } // for (i = 0; i < n; ++i)
+
+        System.out.println("Matches (wins, Elo difference, SPRT verdict):");
+        for (Match m : matches) {
+            System.out.printf(Locale.US,
+                    "  %s %s %s: %d - %d of %d games, %+.1f Elo, "
+                            + "LLR %.2f [%.2f, %.2f]%n",
+                    entrants.get(m.a).name, VERDICT_NAMES[m.verdict],
+                    entrants.get(m.b).name, m.winsA, m.winsB, m.games,
+                    -400.0 * Math.log10((m.winsA + m.winsB + 1.0)
+                            / (m.winsA + 0.5) - 1.0),
+                    m.llr(elo), LOWER, UPPER);
+        } // for (Match m : matches)
+    } // report(List<Entrant>, List<Match>, double)
+
+    /**
+     * Program entry.
+     *
+     * @param args Command line options. See the class document.
+     */
+    public static void main(String[] args) throws IOException {
+        int round, running, mcts = 1000;
+        long seed = 0, batch = 500, maxGames = 100000;
+        double elo = 20.0, llr;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String players = "easy,hard,team,sevenZero";
+        String config;
+        File checkpoint = null;
+        Simulator.Rules rules = new Simulator.Rules();
+        List<Entrant> entrants = new ArrayList<>();
+        List<Match> matches = new ArrayList<>();
+        List<ForkJoinTask<long[]>> tasks = new ArrayList<>();
+        ForkJoinPool pool;
+        long[] r;
+
+        rules.gameMode = 4;
+        rules.stackRule = 0;
+        rules.forcePlayRule = 1;
+        rules.initialCards = 7;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String v = args[i + 1];
+
+            switch (args[i]) {
+                case "--players":
+                    players = v;
+                    break; // case "--players"
+
+                case "--mode":
+                    rules.gameMode = Simulator.parseMode(v.trim());
+                    break; // case "--mode"
+
+                case "--stack":
+                    rules.stackRule = Integer.parseInt(v);
+                    break; // case "--stack"
+
+                case "--force":
+                    rules.forcePlayRule = Integer.parseInt(v);
+                    break; // case "--force"
+
+                case "--initial":
+                    rules.initialCards = Integer.parseInt(v);
+                    break; // case "--initial"
+
+                case "--mcts":
+                    mcts = Integer.parseInt(v);
+                    break; // case "--mcts"
+
+                case "--elo":
+                    elo = Double.parseDouble(v);
+                    break; // case "--elo"
+
+                case "--batch":
+                    batch = Math.max(1, Long.parseLong(v));
+                    break; // case "--batch"
+
+                case "--max-games":
+                    maxGames = Math.max(2, Long.parseLong(v));
+                    break; // case "--max-games"
+
+                case "--threads":
+                    threads = Integer.parseInt(v);
+                    break; // case "--threads"
+
+                case "--seed":
+                    seed = Long.parseLong(v);
+                    break; // case "--seed"
+
+                case "--checkpoint":
+                    checkpoint = new File(v);
+                    break; // case "--checkpoint"
+
+                default:
+                    throw new IllegalArgumentException(
+                            "Unknown option: " + args[i]);
+            } // switch (args[i])
+        } // for (int i = 0; i + 1 < args.length; i += 2)
+
+        for (String spec : players.split(",")) {
+            entrants.add(new Entrant(spec.trim()));
+        } // for (String spec : players.split(","))
+
+        for (int a = 0; a < entrants.size(); ++a) {
+            for (int b = a + 1; b < entrants.size(); ++b) {
+                matches.add(new Match(a, b));
+            } // for (int b = a + 1; b < entrants.size(); ++b)
+        } // for (int a = 0; a < entrants.size(); ++a)
+
+        config = String.format(Locale.US, "players=%s rules=[%s] mcts=%d "
+                        + "elo=%s max-games=%d seed=%d", players, rules, mcts,
+                elo, maxGames, seed);
+        if (checkpoint != null && checkpoint.exists()) {
+            load(checkpoint, config, matches);
+            System.out.println("Resumed from " + checkpoint);
+        } // if (checkpoint != null && checkpoint.exists())
+
+        // Game logs are useless here, and slow down the tournament
+        Logger.getLogger("Uno").setLevel(Level.OFF);
+        pool = new ForkJoinPool(threads);
+        System.out.printf("%d entrants, %d matches, [%s], %d threads%n",
+                entrants.size(), matches.size(), rules, threads);
+        for (round = 1; ; ++round) {
+            tasks.clear();
+            running = 0;
+            for (Match m : matches) {
+                if (m.verdict != RUNNING) {
+                    tasks.add(null);
+                } // if (m.verdict != RUNNING)
+                else {
+                    ++running;
+                    tasks.add(pool.submit(new MatchTask(rules,
+                            entrants.get(m.a), entrants.get(m.b), mcts, seed,
+                            m.next, m.next + Math.min(batch,
+                            (maxGames - m.games + 1) / 2))));
+                } // else
+            } // for (Match m : matches)
+
+            if (running == 0) {
+                break;
+            } // if (running == 0)
+
+            for (int i = 0; i < matches.size(); ++i) {
+                Match m = matches.get(i);
+
+                if (tasks.get(i) != null) {
+                    r = tasks.get(i).join();
+                    m.next += r[0] / 2;
+                    m.games += r[0];
+                    m.winsA += r[1];
+                    m.winsB += r[2];
+                    llr = m.llr(elo);
+                    m.verdict = llr >= UPPER ? FIRST
+                            : llr <= LOWER ? SECOND
+                            : m.games >= maxGames ? DRAWN : RUNNING;
+                } // if (tasks.get(i) != null)
+            } // for (int i = 0; i < matches.size(); ++i)
+
+            if (checkpoint != null) {
+                save(checkpoint, config, matches);
+            } // if (checkpoint != null)
+
+            System.out.printf("Round %d: %d matches were running%n",
+                    round, running);
+        } // for (round = 1; ; ++round)
+
+        pool.shutdown();
+        report(entrants, matches, elo);
+    } // main(String[])
+} // Tournament Class
+
+// E.O.F
@@ -0,0 +1,505 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Uno Card Game 4 Droid
+// Author: Hikari Toyama
+// Compile Environment: Android Studio Arctic Fox, with Android SDK 30
+// COPYRIGHT HIKARI TOYAMA, 1992-2022. ALL RIGHTS RESERVED.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.hikari_toyama.unocard.tools;
+
+import com.github.hikari_toyama.unocard.core.AI;
+import com.github.hikari_toyama.unocard.core.Player;
+import com.github.hikari_toyama.unocard.core.Referee;
+import com.github.hikari_toyama.unocard.core.Rng;
+import com.github.hikari_toyama.unocard.core.Uno;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Parallel tuner of the HARD level weight vector (see AI.setWeights). For
+ * every rule combination, a genetic search evolves a population of weight
+ * vectors. Each candidate is evaluated by headless self-play on all CPU
+ * cores, against COMs with the default weights, and the best profile of
+ * each rule combination is printed (and saved, see --out).
+ * <p>
+ * Evaluation: game n is played with seed S + n, and the candidate takes
+ * seat n % players (or team n % 2 in 2vs2 mode), so every candidate of a
+ * generation plays exactly the same deals from the same seats. This common
+ * random numbers design cancels most of the luck between candidates. Games
+ * are played in batches. After each batch, a candidate whose win rate is
+ * clearly (2 standard errors) behind the leader's is dropped, so that most
+ * games are spent on the promising ones. The winner is finally measured
+ * again on fresh seeds, to report a win rate free of selection bias.
+ * <p>
+ * Options (all optional):
+ * --population N    Candidates per generation. Default to 16.
+ * --generations N   Generations per rule combination. Default to 8.
+ * --batch N         Games per candidate in a batch. Default to 1000.
+ * --max-games N     Games per candidate in a generation at most, and games
+ *                   of the final measurement. Default to 8000.
+ * --threads N       Worker threads. Default to all available processors.
+ * --modes list      Game modes to tune, from 7-0, 2vs2, 3P and 4P.
+ * --stack list      Stack rules to tune, from 0, 1 and 2. Default to 0.
+ * --force list      Force play rules to tune, from 0, 1 and 2. Default to 1.
+ * --initial list    Initial cards to tune, from 5 to 20. Default to 7.
+ * --seed S          Base seed of the games and of the genetic search.
+ * --out file        Also save the best profiles to this file, one line per
+ *                   rule combination: mode.stack.force.initial=w0,w1,...
+ */
+public class Tuner {
+    /**
+     * How many standard errors behind the leader to drop a candidate.
+     */
+    static final double Z = 2.0;
+
+    /**
+     * Probability of mutating each weight of a child.
+     */
+    static final double MUTATION_RATE = 0.3;
+
+    /**
+     * Standard deviation of a mutation, in log scale (weights span orders of
+     * magnitude, so they are mutated by ratios, not by differences).
+     */
+    static final double MUTATION_SIGMA = 0.5;
+
+    /**
+     * A weight vector and its evaluation in the current generation.
+     */
+    static class Candidate {
+        final int[] weights;
+        long games, wins;
+        boolean dropped;
+
+        Candidate(int[] weights) {
+            this.weights = weights;
+        } // Candidate(int[]) (Class Constructor)
+
+        /**
+         * @return Win rate so far.
+         */
+        double rate() {
+            return games == 0 ? 0.0 : (double) wins / games;
+        } // rate()
+
+        /**
+         * @return Standard error of the win rate so far.
+         */
+        double error() {
+            double p = rate();
+
+            return games == 0 ? 1.0 : Math.sqrt(p * (1.0 - p) / games);
+        } // error()
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+
+            for (int i = 0; i < weights.length; ++i) {
+                sb.append(i == 0 ? "" : ",").append(weights[i]);
+            } // for (int i = 0; i < weights.length; ++i)
+
+            return sb.toString();
+        } // toString()
+    } // Candidate Inner Class
+
+    /**
+     * Fork-join task that plays games [from, to) of a rule combination with
+     * the specified weights in the candidate's seats. Every leaf task owns
+     * its private Uno runtime, AI and referee.
+     */
+    static class EvalTask extends RecursiveTask<long[]> {
+        /**
+         * Do not split the task when it has this many games or less.
+         */
+        static final long THRESHOLD = 128;
+
+        final Simulator.Rules rules;
+        final int[] weights;
+        final long seed, from, to;
+
+        EvalTask(Simulator.Rules rules, int[] weights,
+                 long seed, long from, long to) {
+            this.rules = rules;
+            this.weights = weights;
+            this.seed = seed;
+            this.from = from;
+            this.to = to;
+        } // EvalTask(Simulator.Rules, int[], long, long, long) (Class Constructor)
+
+        @Override
+        protected long[] compute() {
+            long mid;
+            long[] l, r;
+            EvalTask left;
+
+            if (to - from <= THRESHOLD) {
+                return evaluate();
+            } // if (to - from <= THRESHOLD)
+
+            mid = (from + to) >>> 1;
+            left = new EvalTask(rules, weights, seed, from, mid);
+            left.fork();
+            r = new EvalTask(rules, weights, seed, mid, to).compute();
+            l = left.join();
+            return new long[]{l[0] + r[0], l[1] + r[1]};
+        } // compute()
+
+        /**
+         * Play all games of this task in the current thread.
+         *
+         * @return {games, wins of the candidate}.
+         */
+        long[] evaluate() {
+            int i, seat, winner;
+            Uno uno = new Uno();
+            AI ai = new AI(uno);
+            Referee referee = new Referee(uno, ai);
+            int[] defaults = AI.getDefaultWeights();
+            int[] seats = {Player.YOU, Player.COM1, Player.COM3};
+            long wins = 0;
+
+            rules.applyTo(uno);
+            for (long n = from; n < to; ++n) {
+                seat = uno.is2vs2() ? (int) (n % 2)
+                        : uno.getPlayers() == 3 ? seats[(int) (n % 3)]
+                        : (int) (n % 4);
+                for (i = Player.YOU; i <= Player.COM3; ++i) {
+                    ai.setWeights(i, i == seat || uno.is2vs2()
+                            && i == seat + 2 ? weights : defaults);
+                } // for (i = Player.YOU; i <= Player.COM3; ++i)
+
+                referee.setSeed(seed + n);
+                winner = referee.playGame();
+                if (winner == seat || uno.is2vs2() && winner == seat + 2) {
+                    ++wins;
+                } // if (winner == seat || ...)
+            } // for (long n = from; n < to; ++n)
+
+            return new long[]{to - from, wins};
+        } // evaluate()
+    } // EvalTask Inner Class
+
+    /**
+     * Fake C++ Macro
+     * A uniform random number in [0, 1).
+     */
+    static double nextDouble(Rng rng) {
+        return (rng.nextLong() >>> 11) * 0x1.0p-53;
+    } // nextDouble(Rng)
+
+    /**
+     * Fake C++ Macro
+     * A standard normal random number (Box-Muller transform).
+     */
+    static double nextGaussian(Rng rng) {
+        return Math.sqrt(-2.0 * Math.log(1.0 - nextDouble(rng)))
+                * Math.cos(2.0 * Math.PI * nextDouble(rng));
+    } // nextGaussian(Rng)
+
+    /**
+     * Make a child of two parents, by uniform crossover and log-normal
+     * mutation. A zero weight is mutated by adding a small value instead,
+     * so that it can come back to life.
+     *
+     * @param a   Provide a parent.
+     * @param b   Provide another parent.
+     * @param rng Provide the random source.
+     * @return The child's weights.
+     */
+    static int[] breed(int[] a, int[] b, Rng rng) {
+        int i, w;
+        int[] child = new int[AI.W_COUNT];
+
+        for (i = 0; i < AI.W_COUNT; ++i) {
+            w = rng.nextInt(2) == 0 ? a[i] : b[i];
+            if (nextDouble(rng) < MUTATION_RATE) {
+                w = w == 0 ? rng.nextInt(3) : (int) Math.round(
+                        w * Math.exp(MUTATION_SIGMA * nextGaussian(rng)));
+            } // if (nextDouble(rng) < MUTATION_RATE)
+
+            child[i] = Math.max(0, Math.min(AI.W_MAX, w));
+        } // for (i = 0; i < AI.W_COUNT; ++i)
+
+        return child;
+    } // breed(int[], int[], Rng)
+
+    /**
+     * Evaluate candidates in batches, on the same seeds, dropping the ones
+     * clearly behind the leader after each batch.
+     *
+     * @param pool       Provide the fork-join pool.
+     * @param rules      Provide the rule combination.
+     * @param candidates Provide the candidates. Their statistics are reset.
+     * @param seed       Seed of game 0.
+     * @param batch      Games per candidate in a batch.
+     * @param maxGames   Games per candidate at most.
+     * @return Games played in total.
+     */
+    static long race(ForkJoinPool pool, Simulator.Rules rules,
+                     List<Candidate> candidates, long seed,
+                     long batch, long maxGames) {
+        int alive;
+        long from, to, total = 0;
+        long[] r;
+        Candidate leader;
+        List<ForkJoinTask<long[]>> tasks = new ArrayList<>();
+
+        for (Candidate c : candidates) {
+            c.games = c.wins = 0;
+            c.dropped = false;
+        } // for (Candidate c : candidates)
+
+        // A single candidate is simply measured, without racing
+        alive = candidates.size();
+        for (from = 0; from < maxGames
+                && (alive > 1 || candidates.size() == 1); from = to) {
+            to = Math.min(maxGames, from + batch);
+            tasks.clear();
+            for (Candidate c : candidates) {
+                tasks.add(c.dropped ? null : pool.submit(
+                        new EvalTask(rules, c.weights, seed, from, to)));
+            } // for (Candidate c : candidates)
+
+            leader = null;
+            for (int i = 0; i < candidates.size(); ++i) {
+                Candidate c = candidates.get(i);
+
+                if (!c.dropped) {
+                    r = tasks.get(i).join();
+                    c.games += r[0];
+                    c.wins += r[1];
+                    total += r[0];
+                    if (leader == null || c.rate() > leader.rate()) {
+                        leader = c;
+                    } // if (leader == null || c.rate() > leader.rate())
+                } // if (!c.dropped)
+            } // for (int i = 0; i < candidates.size(); ++i)
+
+            // Early stopping: drop the candidates clearly behind the leader
+            for (Candidate c : candidates) {
+                if (!c.dropped && c != leader && c.rate() + Z * c.error()
+                        < leader.rate() - Z * leader.error()) {
+                    c.dropped = true;
+                    --alive;
+                } // if (!c.dropped && c != leader && ...)
+            } // for (Candidate c : candidates)
+        } // for (from = 0; from < maxGames && ...; from = to)
+
+        return total;
+    } // race(ForkJoinPool, Simulator.Rules, List<Candidate>, long, long, long)
+
+    /**
+     * Tune the weights for a rule combination.
+     *
+     * @param pool        Provide the fork-join pool.
+     * @param rules       Provide the rule combination.
+     * @param population  Candidates per generation.
+     * @param generations How many generations.
+     * @param batch       Games per candidate in a batch.
+     * @param maxGames    Games per candidate in a generation at most.
+     * @param seed        Base seed.
+     * @return The best candidate, measured again on fresh seeds.
+     */
+    static Candidate tune(ForkJoinPool pool, Simulator.Rules rules,
+                         int population, int generations,
+                         long batch, long maxGames, long seed) {
+        int g, elites;
+        long games;
+        Rng rng = new Rng(seed);
+        Candidate best;
+        List<Candidate> candidates = new ArrayList<>();
+        Comparator<Candidate> byRate = new Comparator<Candidate>() {
+            @Override
+            public int compare(Candidate a, Candidate b) {
+                // Survivors first, then higher win rate first
+                return a.dropped != b.dropped ? (a.dropped ? 1 : -1)
+                        : Double.compare(b.rate(), a.rate());
+            } // compare(Candidate, Candidate)
+        }; // new Comparator<Candidate>()
+
+        // Generation 0: the default weights and their mutants
+        candidates.add(new Candidate(AI.getDefaultWeights()));
+        while (candidates.size() < population) {
+            candidates.add(new Candidate(breed(AI.getDefaultWeights(),
+                    AI.getDefaultWeights(), rng)));
+        } // while (candidates.size() < population)
+
+        elites = Math.max(2, population / 4);
+        for (g = 0; ; ++g) {
+            // A new seed block per generation, so that the search does not
+            // over-fit some particular deals
+            games = race(pool, rules, candidates,
+                    seed + (g + 1) * maxGames, batch, maxGames);
+            Collections.sort(candidates, byRate);
+            System.out.printf(Locale.US,
+                    "[%s] generation %d: best %s win %.2f%% (%d games), "
+                            + "%d games in total%n", rules, g,
+                    candidates.get(0), 100.0 * candidates.get(0).rate(),
+                    candidates.get(0).games, games);
+            if (g + 1 >= generations) {
+                break;
+            } // if (g + 1 >= generations)
+
+            // Keep the elites, and replace the others by their children
+            for (int i = elites; i < candidates.size(); ++i) {
+                candidates.set(i, new Candidate(breed(
+                        candidates.get(rng.nextInt(elites)).weights,
+                        candidates.get(rng.nextInt(elites)).weights, rng)));
+            } // for (int i = elites; i < candidates.size(); ++i)
+        } // for (g = 0; ; ++g)
+
+        // Measure the winner again on fresh seeds, without selection bias
+        best = new Candidate(candidates.get(0).weights);
+        race(pool, rules, Collections.singletonList(best),
+                seed + (generations + 1) * maxGames, maxGames, maxGames);
+        return best;
+    } // tune(ForkJoinPool, Simulator.Rules, int, int, long, long, long)
+
+    /**
+     * Program entry.
+     *
+     * @param args Command line options. See the class document.
+     */
+    public static void main(String[] args) throws IOException {
+        int population = 16, generations = 8;
+        long batch = 1000, maxGames = 8000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int[] modes = {1, 2, 3, 4}, stacks = {0};
+        int[] forces = {1}, initials = {7};
+        long seed = System.nanoTime();
+        String out = null;
+        List<Simulator.Rules> combos = new ArrayList<>();
+        List<String> profiles = new ArrayList<>();
+        ForkJoinPool pool;
+        Candidate best;
+        Uno uno = new Uno();
+        PrintWriter w;
+        double fair;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String v = args[i + 1];
+
+            switch (args[i]) {
+                case "--population":
+                    population = Math.max(2, Integer.parseInt(v));
+                    break; // case "--population"
+
+                case "--generations":
+                    generations = Math.max(1, Integer.parseInt(v));
+                    break; // case "--generations"
+
+                case "--batch":
+                    batch = Math.max(1, Long.parseLong(v));
+                    break; // case "--batch"
+
+                case "--max-games":
+                    maxGames = Math.max(1, Long.parseLong(v));
+                    break; // case "--max-games"
+
+                case "--threads":
+                    threads = Integer.parseInt(v);
+                    break; // case "--threads"
+
+                case "--modes":
+                    String[] m = v.split(",");
+                    modes = new int[m.length];
+                    for (int j = 0; j < m.length; ++j) {
+                        modes[j] = Simulator.parseMode(m[j].trim());
+                    } // for (int j = 0; j < m.length; ++j)
+                    break; // case "--modes"
+
+                case "--stack":
+                    stacks = Simulator.parseInts(v);
+                    break; // case "--stack"
+
+                case "--force":
+                    forces = Simulator.parseInts(v);
+                    break; // case "--force"
+
+                case "--initial":
+                    initials = Simulator.parseInts(v);
+                    break; // case "--initial"
+
+                case "--seed":
+                    seed = Long.parseLong(v);
+                    break; // case "--seed"
+
+                case "--out":
+                    out = v;
+                    break; // case "--out"
+
+                default:
+                    throw new IllegalArgumentException(
+                            "Unknown option: " + args[i]);
+            } // switch (args[i])
+        } // for (int i = 0; i + 1 < args.length; i += 2)
+
+        for (int mode : modes) {
+            for (int stack : stacks) {
+                for (int force : forces) {
+                    for (int initial : initials) {
+                        Simulator.Rules rules = new Simulator.Rules();
+                        rules.gameMode = mode;
+                        rules.stackRule = stack;
+                        rules.forcePlayRule = force;
+                        rules.initialCards = initial;
+                        combos.add(rules);
+                    } // for (int initial : initials)
+                } // for (int force : forces)
+            } // for (int stack : stacks)
+        } // for (int mode : modes)
+
+        // Game logs are useless here, and slow down the evaluation
+        Logger.getLogger("Uno").setLevel(Level.OFF);
+        pool = new ForkJoinPool(threads);
+        System.out.printf("%d rule combinations, population %d, "
+                        + "%d generations, %d threads, seed %d%n",
+                combos.size(), population, generations, threads, seed);
+        for (Simulator.Rules rules : combos) {
+            rules.applyTo(uno);
+            fair = uno.is2vs2() ? 0.5 : 1.0 / uno.getPlayers();
+            best = tune(pool, rules, population, generations,
+                    batch, maxGames, seed);
+            System.out.printf(Locale.US,
+                    "[%s] best profile %s: win %.2f%% +- %.2f%% "
+                            + "(fair share %.2f%%) on %d fresh games%n",
+                    rules, best, 100.0 * best.rate(), 100.0 * Z * best.error(),
+                    100.0 * fair, best.games);
+            profiles.add(rules.gameMode + "." + rules.stackRule + "."
+                    + rules.forcePlayRule + "." + rules.initialCards
+                    + "=" + best);
+        } // for (Simulator.Rules rules : combos)
+
+        pool.shutdown();
+        if (out != null) {
+            w = new PrintWriter(new FileWriter(out));
+            try {
+                w.println("# Best weight profiles, mode.stack.force.initial="
+                        + "w0,...,w" + (AI.W_COUNT - 1) + ", see AI.setWeights");
+                for (String p : profiles) {
+                    w.println(p);
+                } // for (String p : profiles)
+            } // try
+            finally {
+                w.close();
+            } // finally
+        } // if (out != null)
+    } // main(String[])
+} // Tuner Class
+
+// E.O.F